@@ -36,7 +36,10 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilder;
 import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.VerboseGraphPruner;
 import org.apache.maven.shared.dependency.graph.traversal.SerializingDependencyNodeVisitor;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.util.graph.manager.DependencyManagerUtils;
 
 @Mojo( name = "graph" )
 public class GraphMojo
@@ -58,6 +61,13 @@ public class GraphMojo
     @Parameter
     private boolean verbose;
 
+    /**
+     * Derive the resolved graph from the verbose one, and write the fingerprints of both graphs next to the output
+     * file.
+     */
+    @Parameter
+    private boolean pruned;
+
     @Component
     private DependencyGraphBuilder graphBuilder;
 
@@ -74,7 +84,27 @@ public class GraphMojo
         try
         {
             DependencyNode node;
-            if ( verbose )
+            if ( pruned )
+            {
+                node = VerboseGraphPruner.prune(
+                    collectorBuilder.collectDependencyGraph( buildingRequest, artifactFilter ) );
+
+                // the graph builder only records the premanaged data the collector keeps with a verbose manager
+                ProjectBuildingRequest verboseRequest = new DefaultProjectBuildingRequest( buildingRequest );
+                DefaultRepositorySystemSession verboseSession =
+                    new DefaultRepositorySystemSession( buildingRequest.getRepositorySession() );
+                verboseSession.setConfigProperty( DependencyManagerUtils.CONFIG_PROP_VERBOSE, true );
+                verboseRequest.setRepositorySession( verboseSession );
+                DependencyNode resolved = graphBuilder.buildDependencyGraph( verboseRequest, artifactFilter );
+
+                File fingerprints = new File( outputFile.getPath() + ".fingerprints" );
+                fingerprints.getParentFile().mkdirs();
+                try ( Writer writer = new FileWriter( fingerprints ) )
+                {
+                    writer.write( node.getFingerprint() + "\n" + resolved.getFingerprint() + "\n" );
+                }
+            }
+            else if ( verbose )
             {
                 node = collectorBuilder.collectDependencyGraph( buildingRequest, artifactFilter );
             }
@@ -27,4 +27,11 @@ assert actual.equals( expected )
 actual = new File( basedir, "target/tree-default.txt" ).readLines()
 expected = new File( basedir, "expected-default.txt" ).readLines()
 
-assert actual.equals( expected )
\ No newline at end of file
+assert actual.equals( expected )
+
+// the resolved graph derived from the verbose one must be the one of the graph builder, premanaged data included
+actual = new File( basedir, "target/tree-pruned.txt" ).readLines()
+assert actual.equals( expected )
+
+def fingerprints = new File( basedir, "target/tree-pruned.txt.fingerprints" ).readLines()
+assert fingerprints[0].equals( fingerprints[1] )
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.util.Locale;
+
+/**
+ * Cause of the builder exception thrown when a {@link CollectionLimits collection limit} was hit and the limits are
+ * configured to fail.
+ *
+ * @since 3.3.1
+ */
+public class CollectionLimitExceededException extends Exception {
+    private static final long serialVersionUID = -2403525340227460231L;
+
+    /**
+     * The kind of limit which was hit.
+     */
+    public enum Limit {
+        NODES,
+        DEPTH,
+        TIME
+    }
+
+    private final Limit limit;
+
+    /**
+     * @param limit the limit which was hit
+     */
+    public CollectionLimitExceededException(Limit limit) {
+        super("Dependency graph collection exceeded its " + limit.name().toLowerCase(Locale.ROOT) + " limit");
+        this.limit = limit;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budgets protecting a dependency graph collection against pathological graphs. When a limit is hit, the collection
+ * stops expanding the graph: depending on {@link #isFailOnLimit()}, the builders either return the truncated graph,
+ * where every node which lost children is {@link DependencyNode#isTruncated() marked as truncated}, or fail with a
+ * {@link CollectionLimitExceededException} as cause of the builder exception.
+ *
+ * @since 3.3.1
+ */
+public class CollectionLimits {
+    private int maxNodes = Integer.MAX_VALUE;
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private long timeoutMillis;
+
+    private boolean failOnLimit;
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Limits the number of selections, rather than the number of nodes: each dependency the selectors accept while
+     * collecting counts once. The graph may still hold more nodes, since a dependency on a version range gives one node
+     * per version, and the subtrees the collector reuses for identical dependencies are only selected once.
+     *
+     * @param maxNodes the maximum number of dependencies selected while collecting the graph
+     * @return these limits
+     */
+    public CollectionLimits maxNodes(int maxNodes) {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("maxNodes cannot be negative: " + maxNodes);
+        }
+        this.maxNodes = maxNodes;
+        return this;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param maxDepth the maximum depth of the graph, direct dependencies being at depth 1
+     * @return these limits
+     */
+    public CollectionLimits maxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth cannot be negative: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * @return the wall-clock budget in milliseconds, {@code 0} for none
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @param timeout the wall-clock budget of the collection, {@code 0} for none
+     * @param unit the unit of the timeout
+     * @return these limits
+     */
+    public CollectionLimits timeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout cannot be negative: " + timeout);
+        }
+        this.timeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    public boolean isFailOnLimit() {
+        return failOnLimit;
+    }
+
+    /**
+     * @param failOnLimit {@code true} to fail when a limit is hit, {@code false} to return a truncated graph
+     * @return these limits
+     */
+    public CollectionLimits failOnLimit(boolean failOnLimit) {
+        this.failOnLimit = failOnLimit;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if at least one limit is set
+     */
+    public boolean isLimited() {
+        return maxNodes != Integer.MAX_VALUE || maxDepth != Integer.MAX_VALUE || timeoutMillis > 0;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+/**
+ * The keys of the configuration properties read by the dependency graph builders from the repository session, where
+ * Maven also exposes the user and system properties.
+ *
+ * @since 3.3.1
+ */
+public final class ConfigurationProperties {
+    private static final String PREFIX = "maven.dependency.tree.";
+
+    /**
+     * Whether the builders share artifact descriptors across invocations in the same JVM, through a process-wide cache
+     * which is invalidated when a POM file changes. The value is a boolean, {@code false} by default.
+     */
+    public static final String SHARED_DESCRIPTOR_CACHE = PREFIX + "sharedDescriptorCache";
+
+    /**
+     * The maximum number of descriptors kept by the shared descriptor cache, least recently used ones being evicted
+     * first. The value is an integer, {@value #DEFAULT_SHARED_DESCRIPTOR_CACHE_SIZE} by default.
+     */
+    public static final String SHARED_DESCRIPTOR_CACHE_SIZE = PREFIX + "sharedDescriptorCacheSize";
+
+    /**
+     * The default value of {@link #SHARED_DESCRIPTOR_CACHE_SIZE}.
+     */
+    public static final int DEFAULT_SHARED_DESCRIPTOR_CACHE_SIZE = 10000;
+
+    /**
+     * The maximum number of candidate versions of a version range the builders consider, the highest ones being kept.
+     * The value is an integer, all candidates being considered by default.
+     */
+    public static final String MAX_RANGE_CANDIDATES = PREFIX + "maxRangeCandidates";
+
+    /**
+     * Whether the collector builder resolves version ranges through a {@code CachingVersionRangeResolver} kept for the
+     * life of the builder, so that a range is not resolved again from the repository metadata by every occurrence in
+     * a graph and every collection. The graph builder resolves through Maven and ignores it. The value is a boolean,
+     * {@code false} by default.
+     */
+    public static final String VERSION_RANGE_CACHE = PREFIX + "versionRangeCache";
+
+    /**
+     * The number of seconds a version range result stays in the cache of a {@code CachingVersionRangeResolver}, results
+     * of offline sessions only expiring when the metadata of the local repository changes. The value is a long,
+     * {@value #DEFAULT_VERSION_RANGE_CACHE_TTL} by default, and {@code 0} disables the cache.
+     */
+    public static final String VERSION_RANGE_CACHE_TTL = PREFIX + "versionRangeCacheTtl";
+
+    /**
+     * The default value of {@link #VERSION_RANGE_CACHE_TTL}.
+     */
+    public static final long DEFAULT_VERSION_RANGE_CACHE_TTL = 600;
+
+    /**
+     * The path of a {@code DescriptorIndex} file the collector builder reads the descriptors it holds up to date from,
+     * instead of building their effective models. The index is opened again when the file changes. The value is a
+     * path, no index being used by default.
+     */
+    public static final String DESCRIPTOR_INDEX = PREFIX + "descriptorIndex";
+
+    /**
+     * The maximum number of artifact descriptors a build with prefetch hints reads concurrently before collecting.
+     * The value is an integer, {@value #DEFAULT_PREFETCH_THREADS} by default.
+     */
+    public static final String PREFETCH_THREADS = PREFIX + "prefetchThreads";
+
+    /**
+     * The default value of {@link #PREFETCH_THREADS}.
+     */
+    public static final int DEFAULT_PREFETCH_THREADS = 8;
+
+    /**
+     * Whether the builders create the Maven artifacts of dependency nodes only when {@code getArtifact()} is first
+     * called, nodes keeping the immutable coordinates of the resolver until then. It only applies when the graph is
+     * built without an artifact filter. The value is a boolean, {@code false} by default.
+     */
+    public static final String LAZY_ARTIFACTS = PREFIX + "lazyArtifacts";
+
+    /**
+     * Whether the builders return trees of {@code ImmutableDependencyNode}s, which can be cached and read concurrently
+     * without copies. Listeners are then called once the whole tree is built, and {@link #LAZY_ARTIFACTS} does not
+     * apply since immutable nodes always hold their artifact. The value is a boolean, {@code false} by default.
+     */
+    public static final String IMMUTABLE_NODES = PREFIX + "immutableNodes";
+
+    private ConfigurationProperties() {
+        // no instances
+    }
+}
@@ -18,6 +18,9 @@
  */
 package org.apache.maven.shared.dependency.graph;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.project.ProjectBuildingRequest;
 
@@ -55,4 +58,48 @@ public interface DependencyCollectorBuilder {
      */
     DependencyNode collectDependencyGraph(DependencyCollectorRequest dependencyCollectorRequest)
             throws DependencyCollectorBuilderException;
+
+    /**
+     * collect the project's raw dependency graph, along with the state to reuse in the next
+     * {@link DependencyCollectorRequest#incremental(boolean) incremental} collection of the project. Builders which
+     * do not collect incrementally never return a state.
+     *
+     * @param dependencyCollectorRequest the request with different paramaters.
+     * @return the raw dependency tree and the incremental state
+     * @throws DependencyCollectorBuilderException if some of the dependencies could not be collected.
+     * @since 3.3.1
+     */
+    default DependencyCollectorResult collect(DependencyCollectorRequest dependencyCollectorRequest)
+            throws DependencyCollectorBuilderException {
+        return new DependencyCollectorResult(collectDependencyGraph(dependencyCollectorRequest), null);
+    }
+
+    /**
+     * collect the project's raw dependency graph on the specified executor. Cancelling the returned future interrupts
+     * the collecting thread, and a {@link DependencyCollectorBuilderException} completes the future exceptionally as
+     * it is.
+     *
+     * @param dependencyCollectorRequest the request with different paramaters.
+     * @param executor the executor to collect the graph on
+     * @return the future raw dependency tree
+     * @since 3.3.1
+     */
+    default CompletableFuture<DependencyNode> collectDependencyGraphAsync(
+            DependencyCollectorRequest dependencyCollectorRequest, Executor executor) {
+        return InterruptibleFuture.submit(() -> collectDependencyGraph(dependencyCollectorRequest), executor);
+    }
+
+    /**
+     * Prepares the options of a request once, to collect the graphs of many projects with them. The returned plan is
+     * immutable: later changes to the template are not reflected.
+     *
+     * @param template the request whose options are used for every collection, the managed dependencies of its project
+     *            are converted once and reused by projects managing the same dependencies
+     * @return the plan
+     * @since 3.3.1
+     */
+    default DependencyCollectorPlan prepare(DependencyCollectorRequest template) {
+        DependencyCollectorRequest options = template.forProject(template.getBuildingRequest(), template.getFilter());
+        return (buildingRequest, filter) -> collectDependencyGraph(options.forProject(buildingRequest, filter));
+    }
 }
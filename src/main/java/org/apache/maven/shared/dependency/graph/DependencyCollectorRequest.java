@@ -18,25 +18,18 @@
  */
 package org.apache.maven.shared.dependency.graph;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.project.ProjectBuildingRequest;
-import org.apache.maven.shared.dependency.graph.internal.DirectScopeDependencySelector;
-import org.apache.maven.shared.dependency.graph.internal.VerboseJavaScopeSelector;
 import org.eclipse.aether.collection.DependencyGraphTransformer;
 import org.eclipse.aether.collection.DependencySelector;
-import org.eclipse.aether.util.artifact.JavaScopes;
 import org.eclipse.aether.util.graph.manager.DependencyManagerUtils;
-import org.eclipse.aether.util.graph.selector.AndDependencySelector;
-import org.eclipse.aether.util.graph.selector.ExclusionDependencySelector;
-import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
 import org.eclipse.aether.util.graph.transformer.ConflictResolver;
-import org.eclipse.aether.util.graph.transformer.JavaScopeDeriver;
-import org.eclipse.aether.util.graph.transformer.NearestVersionSelector;
-import org.eclipse.aether.util.graph.transformer.SimpleOptionalitySelector;
 
 /**
  * <div>
@@ -47,7 +40,8 @@ import org.eclipse.aether.util.graph.transformer.SimpleOptionalitySelector;
  * There is a set of default values such:
  * </div>
  * <div>
- * DependencySelector
+ * DependencySelector, left {@code null} for the builder's own selector. The default builder uses a single pass
+ * selector equivalent to
  * <pre>
  *  new AndDependencySelector(
  *             new DirectScopeDependencySelector( JavaScopes.TEST ),
@@ -57,7 +51,7 @@ import org.eclipse.aether.util.graph.transformer.SimpleOptionalitySelector;
  * </pre>
  * </div>
  * <div>
- * DependencyGraphTransformer
+ * DependencyGraphTransformer, left {@code null} for the builder's own transformer. The default builder uses
  * <pre>
  * new ConflictResolver(
  *             new NearestVersionSelector(),
@@ -84,17 +78,25 @@ public class DependencyCollectorRequest {
 
     private Map<String, Object> configProperties = new HashMap<>();
 
-    private DependencySelector dependencySelector = new AndDependencySelector(
-            new DirectScopeDependencySelector(JavaScopes.TEST),
-            new DirectScopeDependencySelector(JavaScopes.PROVIDED),
-            new OptionalDependencySelector(),
-            new ExclusionDependencySelector());
+    private DependencySelector dependencySelector;
 
-    private DependencyGraphTransformer dependencyGraphTransformer = new ConflictResolver(
-            new NearestVersionSelector(),
-            new VerboseJavaScopeSelector(),
-            new SimpleOptionalitySelector(),
-            new JavaScopeDeriver());
+    private DependencyGraphTransformer dependencyGraphTransformer;
+
+    private boolean incremental;
+
+    private IncrementalCollectionState incrementalState;
+
+    private int parallelism = 1;
+
+    private CollectionLimits limits;
+
+    private int depth = Integer.MAX_VALUE;
+
+    private boolean leanVerbose;
+
+    private DependencyNodeListener listener;
+
+    private Collection<? extends Artifact> prefetchHints;
 
     public DependencyCollectorRequest(ProjectBuildingRequest buildingRequest) {
         this(buildingRequest, null);
@@ -108,6 +110,30 @@ public class DependencyCollectorRequest {
         configProperties.put(DependencyManagerUtils.CONFIG_PROP_VERBOSE, true);
     }
 
+    /**
+     * Creates a request for another project with the same options as this one. The selector, transformer, limits and
+     * listener are shared, the configuration properties are copied, and the incremental state and prefetch hints are
+     * not kept.
+     *
+     * @param buildingRequest the request with the project to process its dependencies
+     * @param filter an artifact filter (can be <code>null</code>)
+     * @return the new request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest forProject(ProjectBuildingRequest buildingRequest, ArtifactFilter filter) {
+        DependencyCollectorRequest request = new DependencyCollectorRequest(buildingRequest, filter);
+        request.configProperties = new HashMap<>(configProperties);
+        request.dependencySelector = dependencySelector;
+        request.dependencyGraphTransformer = dependencyGraphTransformer;
+        request.incremental = incremental;
+        request.parallelism = parallelism;
+        request.limits = limits;
+        request.depth = depth;
+        request.leanVerbose = leanVerbose;
+        request.listener = listener;
+        return request;
+    }
+
     public ProjectBuildingRequest getBuildingRequest() {
         return buildingRequest;
     }
@@ -116,6 +142,9 @@ public class DependencyCollectorRequest {
         return filter;
     }
 
+    /**
+     * @return the dependency selector, {@code null} if the builder applies its default one
+     */
     public DependencySelector getDependencySelector() {
         return dependencySelector;
     }
@@ -125,6 +154,9 @@ public class DependencyCollectorRequest {
         return this;
     }
 
+    /**
+     * @return the dependency graph transformer, {@code null} if the builder applies its default one
+     */
     public DependencyGraphTransformer getDependencyGraphTransformer() {
         return dependencyGraphTransformer;
     }
@@ -135,6 +167,176 @@ public class DependencyCollectorRequest {
         return this;
     }
 
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Enables incremental collection: the raw subtree of each direct dependency is collected separately and returned
+     * as the {@link DependencyCollectorResult#getIncrementalState() incremental state} of
+     * {@link DependencyCollectorBuilder#collect(DependencyCollectorRequest)}, so that a next collection given that
+     * {@link #incrementalState(IncrementalCollectionState) state} only has to collect the direct dependencies which
+     * were added or changed since. Conflict resolution
+     * always runs over the whole merged graph, so the result is the same as the one of a full collection.
+     * <p>
+     * Collections made through a {@link DependencyCollectorPlan} share their request between projects, so they never
+     * keep an incremental state.
+     *
+     * @param incremental {@code true} to collect incrementally
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest incremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * @return the state of a previous incremental collection to reuse, {@code null} to collect every direct dependency
+     * @since 3.3.1
+     */
+    public IncrementalCollectionState getIncrementalState() {
+        return incrementalState;
+    }
+
+    /**
+     * Sets the raw subtrees to reuse in an incremental collection, as returned by
+     * {@link DependencyCollectorResult#getIncrementalState()}. The state is ignored if it was collected for another project root, or with
+     * other managed dependencies, repositories, selectors or configuration properties.
+     *
+     * @param incrementalState the state of a previous incremental collection, {@code null} to collect every direct
+     *            dependency again
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest incrementalState(IncrementalCollectionState incrementalState) {
+        this.incrementalState = incrementalState;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of direct dependencies whose raw subtrees are collected concurrently. With a value greater than
+     * one, each direct dependency is collected on its own with the same managed dependencies and selectors, the
+     * subtrees are merged under the project root, and the {@link #getDependencyGraphTransformer() transformer} runs
+     * once over the merged graph, which yields the same result as a sequential collection.
+     * <p>
+     * The separate collections share the descriptors through the repository cache of the session, but not the
+     * subtrees a single collection reuses between the direct dependencies having common dependencies, which are
+     * collected again by each of them. Collecting sequentially is therefore faster unless enough cores are available
+     * and reading the descriptors dominates, which is why the default is {@code 1}.
+     * </p>
+     *
+     * @param parallelism the maximum number of concurrent collections, {@code 1} to collect sequentially
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public CollectionLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Sets node, depth and time budgets for the collection. When a limit is hit, the collection stops expanding the
+     * graph and either fails with a {@link CollectionLimitExceededException} as cause, or returns the truncated graph
+     * with its incomplete nodes {@link DependencyNode#isTruncated() marked}, as configured by the limits.
+     *
+     * @param limits the collection limits, {@code null} for none
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest limits(CollectionLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Collects only the first levels of the graph, direct dependencies being at level 1. Dependencies at the last
+     * level are part of the graph but their own dependencies are never processed, so no descriptor below that level is
+     * read. Unlike a {@link #limits(CollectionLimits) depth limit}, nodes of a shallow graph are not marked as
+     * truncated.
+     *
+     * @param depth the number of levels to collect, {@link Integer#MAX_VALUE} for the full graph
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest depth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1: " + depth);
+        }
+        this.depth = depth;
+        return this;
+    }
+
+    public boolean isLeanVerbose() {
+        return leanVerbose;
+    }
+
+    /**
+     * Keeps the nodes which lost a conflict as leaf stubs: they carry their own data and the
+     * {@link org.apache.maven.shared.dependency.graph.ConflictData conflict data}, so their
+     * {@link DependencyNode#toNodeString()} is unchanged, but their children are never converted.
+     *
+     * @param leanVerbose {@code true} to convert losers into stubs
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest leanVerbose(boolean leanVerbose) {
+        this.leanVerbose = leanVerbose;
+        return this;
+    }
+
+    public DependencyNodeListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Emits the nodes of the graph to a listener as soon as they are converted, which only starts once the whole graph
+     * is collected, see {@link DependencyNodeListener}.
+     *
+     * @param listener the listener (can be <code>null</code> for none)
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest listener(DependencyNodeListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public Collection<? extends Artifact> getPrefetchHints() {
+        return prefetchHints;
+    }
+
+    /**
+     * Reads the descriptors of the hinted artifacts concurrently before the collection, see
+     * {@link DependencyDescriptorPrefetcher}. The number of concurrent reads is set by
+     * {@link ConfigurationProperties#PREFETCH_THREADS}.
+     *
+     * @param prefetchHints the artifacts expected in the graph, typically
+     *            {@link DependencyDescriptorPrefetcher#hintsOf(DependencyNode) those of a previous graph} of the same
+     *            project, {@code null} to read descriptors only when the collection needs them
+     * @return this request
+     * @since 3.3.1
+     */
+    public DependencyCollectorRequest prefetch(Collection<? extends Artifact> prefetchHints) {
+        this.prefetchHints = prefetchHints;
+        return this;
+    }
+
     public Map<String, Object> getConfigProperties() {
         return this.configProperties;
     }
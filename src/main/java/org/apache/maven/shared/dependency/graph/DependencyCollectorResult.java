@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+/**
+ * The result of {@link DependencyCollectorBuilder#collect(DependencyCollectorRequest)}: the raw dependency graph, and
+ * the state to pass to the next incremental collection of the same project.
+ *
+ * @since 3.3.1
+ */
+public final class DependencyCollectorResult {
+    private final DependencyNode root;
+
+    private final IncrementalCollectionState incrementalState;
+
+    public DependencyCollectorResult(DependencyNode root, IncrementalCollectionState incrementalState) {
+        this.root = root;
+        this.incrementalState = incrementalState;
+    }
+
+    /**
+     * @return the raw dependency tree
+     */
+    public DependencyNode getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the state to reuse in the next collection, {@code null} if the collection was not incremental
+     */
+    public IncrementalCollectionState getIncrementalState() {
+        return incrementalState;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.ProjectBuildingRequest;
+
+/**
+ * Reads the artifact descriptors a dependency graph is expected to need concurrently, before the graph is built. The
+ * collection of Maven Resolver reads descriptors one at a time, so on a slow local or remote repository most of its
+ * time is spent waiting for I/O: prefetching downloads the missing POMs into the local repository and fills the model
+ * cache of the repository session with their parents and imported BOMs, so that the collection which follows with the
+ * same session finds them warm.
+ * <p>
+ * The prefetched descriptors themselves are not handed over: the collector of Maven Resolver keeps the descriptors it
+ * read in a pool of its own, which is only filled by the collection, so the collection still reads each descriptor
+ * once, building its effective model from the local POM and the cached parents and imports. Prefetching saves the
+ * downloads and the parent and import models, not the descriptor reads.
+ * </p>
+ * <p>
+ * {@link DependencyCollectorRequest#prefetch(Collection)} and
+ * {@link DependencyGraphBuilder#buildDependencyGraphWithPrefetch(ProjectBuildingRequest,
+ * org.apache.maven.artifact.resolver.filter.ArtifactFilter, Collection)} prefetch with the session the graph is then
+ * built with.
+ * </p>
+ * <p>
+ * Hints are usually the artifacts of a previous graph of the same project, see {@link #hintsOf(DependencyNode)}. They
+ * only make the collection faster: descriptors which cannot be read anymore are skipped, and dependencies missing from
+ * the hints are read by the collection as usual.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public interface DependencyDescriptorPrefetcher {
+    /**
+     * Reads the descriptors of the hinted artifacts on a bounded pool, and waits for all of them.
+     *
+     * @param buildingRequest the request whose repository session the graph will be built with, and whose project (if
+     *            any) provides the remote repositories
+     * @param hints the artifacts whose descriptors are expected to be needed
+     * @param parallelism the maximum number of descriptors read concurrently
+     * @return the number of descriptors which could be read
+     * @throws InterruptedException if the current thread was interrupted while waiting, in which case pending reads are
+     *             cancelled
+     */
+    int prefetch(ProjectBuildingRequest buildingRequest, Collection<? extends Artifact> hints, int parallelism)
+            throws InterruptedException;
+
+    /**
+     * Lists the distinct artifacts of a graph but its root, in pre-order.
+     *
+     * @param graph the root of a previous graph, may be {@code null}
+     * @return the artifacts to use as prefetch hints, never {@code null}
+     */
+    static List<Artifact> hintsOf(DependencyNode graph) {
+        Map<String, Artifact> hints = new LinkedHashMap<>();
+        if (graph != null) {
+            Deque<DependencyNode> stack = new ArrayDeque<>(graph.getChildren());
+            while (!stack.isEmpty()) {
+                DependencyNode node = stack.pop();
+                hints.putIfAbsent(node.getArtifact().getId(), node.getArtifact());
+                List<DependencyNode> children = node.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+        return new ArrayList<>(hints.values());
+    }
+}
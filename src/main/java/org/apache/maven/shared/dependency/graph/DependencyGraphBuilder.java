@@ -19,10 +19,17 @@
 package org.apache.maven.shared.dependency.graph;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
 
 /**
  * Maven project dependency graph builder API, neutral against Maven 2 or Maven 3.
@@ -57,4 +64,141 @@ public interface DependencyGraphBuilder {
             throws DependencyGraphBuilderException {
         return buildDependencyGraph(buildingRequest, filter);
     }
+
+    /**
+     * Build the dependency graph within the specified limits. When a limit is hit and the limits are not configured to
+     * fail, the returned graph is truncated and its incomplete nodes are {@link DependencyNode#isTruncated() marked}.
+     * <p>
+     * This is an optional operation: the default implementation only builds graphs without limits, and throws a
+     * {@link DependencyGraphBuilderException} with an {@link UnsupportedOperationException} as cause when limits are
+     * set.
+     *
+     * @param buildingRequest the buildingRequest
+     * @param filter artifact filter (can be <code>null</code>)
+     * @param limits the collection limits (can be <code>null</code> for none)
+     * @return the dependency graph
+     * @throws DependencyGraphBuilderException if some of the dependencies could not be resolved, or with a
+     *         {@link CollectionLimitExceededException} as cause if a limit was hit and the limits are configured to
+     *         fail, or with an {@link UnsupportedOperationException} as cause if this builder does not support limits.
+     * @since 3.3.1
+     */
+    default DependencyNode buildDependencyGraphWithLimits(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, CollectionLimits limits)
+            throws DependencyGraphBuilderException {
+        if (limits != null && limits.isLimited()) {
+            throw new DependencyGraphBuilderException(
+                    getClass().getName() + " does not support collection limits", new UnsupportedOperationException());
+        }
+        return buildDependencyGraph(buildingRequest, filter);
+    }
+
+    /**
+     * Build the dependency graph after reading the descriptors of the hinted artifacts concurrently, with the session
+     * the graph is then built with, see {@link DependencyDescriptorPrefetcher}. Hints only make the build faster: the
+     * default implementation ignores them.
+     *
+     * @param buildingRequest the buildingRequest
+     * @param filter artifact filter (can be <code>null</code>)
+     * @param prefetchHints the artifacts expected in the graph, typically
+     *            {@link DependencyDescriptorPrefetcher#hintsOf(DependencyNode) those of a previous graph} of the same
+     *            project, {@code null} to read descriptors only when the resolution needs them
+     * @return the dependency graph
+     * @throws DependencyGraphBuilderException if some of the dependencies could not be resolved.
+     * @since 3.3.1
+     */
+    default DependencyNode buildDependencyGraphWithPrefetch(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, Collection<? extends Artifact> prefetchHints)
+            throws DependencyGraphBuilderException {
+        return buildDependencyGraph(buildingRequest, filter);
+    }
+
+    /**
+     * Build the dependency graph, emitting its nodes to a listener as soon as they are converted, which only starts once
+     * the dependencies are resolved, see {@link DependencyNodeListener}. Implementations which cannot emit nodes during
+     * the conversion emit them in the same order once the graph is built, as this default method does.
+     *
+     * @param buildingRequest the buildingRequest
+     * @param filter artifact filter (can be <code>null</code>)
+     * @param listener the listener of the nodes
+     * @return the dependency graph
+     * @throws DependencyGraphBuilderException if some of the dependencies could not be resolved.
+     * @since 3.3.1
+     */
+    default DependencyNode streamDependencyGraph(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, DependencyNodeListener listener)
+            throws DependencyGraphBuilderException {
+        DependencyNode graph = buildDependencyGraph(buildingRequest, filter);
+        graph.accept(new DependencyNodeVisitor() {
+            @Override
+            public boolean visit(DependencyNode node) {
+                return true;
+            }
+
+            @Override
+            public boolean endVisit(DependencyNode node) {
+                listener.nodeConverted(node);
+                return true;
+            }
+        });
+        return graph;
+    }
+
+    /**
+     * Build one dependency graph per filter. Each graph is the one
+     * {@link #buildDependencyGraph(ProjectBuildingRequest, ArtifactFilter)} returns for its filter, but implementations
+     * may resolve the dependencies only once for all of them.
+     *
+     * @param buildingRequest the buildingRequest
+     * @param filters the artifact filters by key, a <code>null</code> filter giving the complete graph
+     * @param <K> the type of the keys
+     * @return the dependency graphs by key, in the iteration order of the filters
+     * @throws DependencyGraphBuilderException if some of the dependencies could not be resolved.
+     * @since 3.3.1
+     */
+    default <K> Map<K, DependencyNode> buildDependencyGraphs(
+            ProjectBuildingRequest buildingRequest, Map<K, ? extends ArtifactFilter> filters)
+            throws DependencyGraphBuilderException {
+        Map<K, DependencyNode> graphs = new LinkedHashMap<>();
+        for (Map.Entry<K, ? extends ArtifactFilter> entry : filters.entrySet()) {
+            graphs.put(entry.getKey(), buildDependencyGraph(buildingRequest, entry.getValue()));
+        }
+        return graphs;
+    }
+
+    /**
+     * Build the dependency graph of each scope, as filtered by a {@link ScopeArtifactFilter}. Callers which also need
+     * the verbose graph of a {@code DependencyCollectorBuilder} can instead derive the same graphs from it, with
+     * {@link VerboseGraphPruner#pruneByScope(DependencyNode, Collection)}.
+     *
+     * @param buildingRequest the buildingRequest
+     * @param scopes the scopes, for instance <code>compile</code>, <code>runtime</code> and <code>test</code>
+     * @return the dependency graphs by scope, in the iteration order of the scopes
+     * @throws DependencyGraphBuilderException if some of the dependencies could not be resolved.
+     * @see #buildDependencyGraphs(ProjectBuildingRequest, Map)
+     * @see VerboseGraphPruner#pruneByScope(DependencyNode, Collection)
+     * @since 3.3.1
+     */
+    default Map<String, DependencyNode> buildDependencyGraphsByScope(
+            ProjectBuildingRequest buildingRequest, Collection<String> scopes) throws DependencyGraphBuilderException {
+        Map<String, ArtifactFilter> filters = new LinkedHashMap<>();
+        for (String scope : scopes) {
+            filters.put(scope, new ScopeArtifactFilter(scope));
+        }
+        return buildDependencyGraphs(buildingRequest, filters);
+    }
+
+    /**
+     * Build the dependency graph on the specified executor. Cancelling the returned future interrupts the building
+     * thread, and a {@link DependencyGraphBuilderException} completes the future exceptionally as it is.
+     *
+     * @param buildingRequest the buildingRequest
+     * @param filter artifact filter (can be <code>null</code>)
+     * @param executor the executor to build the graph on
+     * @return the future dependency graph
+     * @since 3.3.1
+     */
+    default CompletableFuture<DependencyNode> buildDependencyGraphAsync(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, Executor executor) {
+        return InterruptibleFuture.submit(() -> buildDependencyGraph(buildingRequest, filter), executor);
+    }
 }
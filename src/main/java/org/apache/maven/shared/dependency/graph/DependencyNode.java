@@ -18,6 +18,7 @@
  */
 package org.apache.maven.shared.dependency.graph;
 
+import java.util.HashMap;
 import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
@@ -37,6 +38,57 @@ public interface DependencyNode {
      */
     Artifact getArtifact();
 
+    /**
+     * Gets the group id of the artifact of this node. Implementations which create their artifact lazily override the
+     * coordinate getters so that reading the coordinates does not create it.
+     *
+     * @return the group id of the artifact, {@code null} if this node has no artifact
+     * @since 3.3.1
+     */
+    default String getGroupId() {
+        return getArtifact() != null ? getArtifact().getGroupId() : null;
+    }
+
+    /**
+     * @return the artifact id of the artifact, {@code null} if this node has no artifact
+     * @since 3.3.1
+     */
+    default String getArtifactId() {
+        return getArtifact() != null ? getArtifact().getArtifactId() : null;
+    }
+
+    /**
+     * @return the version of the artifact, {@code null} if this node has no artifact
+     * @since 3.3.1
+     */
+    default String getVersion() {
+        return getArtifact() != null ? getArtifact().getVersion() : null;
+    }
+
+    /**
+     * @return the type of the artifact, {@code null} if this node has no artifact
+     * @since 3.3.1
+     */
+    default String getType() {
+        return getArtifact() != null ? getArtifact().getType() : null;
+    }
+
+    /**
+     * @return the classifier of the artifact, {@code null} if it has none or this node has no artifact
+     * @since 3.3.1
+     */
+    default String getClassifier() {
+        return getArtifact() != null ? getArtifact().getClassifier() : null;
+    }
+
+    /**
+     * @return the scope of the artifact, {@code null} if this node has no artifact
+     * @since 3.3.1
+     */
+    default String getScope() {
+        return getArtifact() != null ? getArtifact().getScope() : null;
+    }
+
     /**
      * @return children of this DependencyNode.
      */
@@ -97,4 +149,43 @@ public interface DependencyNode {
      * @return the exclusions of the dependency
      */
     List<Exclusion> getExclusions();
+
+    /**
+     * Gets a deterministic content hash of the subtree rooted at this node. The hash covers the artifact coordinates,
+     * scope, optionality, exclusions, premanaged data and version constraint of every node in the subtree, so two
+     * subtrees with equal fingerprints can be treated as identical.
+     * <p>
+     * The nodes of graphs built by {@link DependencyGraphBuilder} and {@link DependencyCollectorBuilder} compute their
+     * fingerprint during conversion and return it in constant time. The default implementation hashes the whole
+     * subtree on every call: other implementations asked repeatedly should cache the result, and callers
+     * fingerprinting many nodes of such a graph should share one memo through
+     * {@link DependencyNodeFingerprint#of(DependencyNode, java.util.Map)} instead.
+     *
+     * @return the hex encoded fingerprint of the subtree rooted at this node
+     * @since 3.3.1
+     */
+    default String getFingerprint() {
+        return DependencyNodeFingerprint.of(this, new HashMap<>());
+    }
+
+    /**
+     * Gets how this node took part in conflict resolution. Only nodes of a verbose graph, as built by a
+     * {@link DependencyCollectorBuilder}, carry conflict data.
+     *
+     * @return the conflict data of this node, {@code null} if the graph does not record it
+     * @since 3.3.1
+     */
+    default ConflictData getConflictData() {
+        return null;
+    }
+
+    /**
+     * Tells whether children of this node were left out because a {@link CollectionLimits collection limit} was hit.
+     *
+     * @return {@code true} if the children of this node are incomplete
+     * @since 3.3.1
+     */
+    default boolean isTruncated() {
+        return false;
+    }
 }
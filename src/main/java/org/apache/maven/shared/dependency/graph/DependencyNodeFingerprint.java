@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.Exclusion;
+
+/**
+ * Computes Merkle style fingerprints of dependency subtrees: the fingerprint of a node hashes its own content together
+ * with the fingerprints of its children, so it only has to be computed once per node when building bottom-up.
+ *
+ * @since 3.3.1
+ */
+public final class DependencyNodeFingerprint {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private DependencyNodeFingerprint() {
+        // no instances
+    }
+
+    /**
+     * Computes the fingerprint of the specified node, using {@link DependencyNode#getFingerprint()} for its children.
+     *
+     * @param node the node to compute the fingerprint for, must not be {@code null}
+     * @return the hex encoded SHA-256 fingerprint
+     */
+    public static String of(DependencyNode node) {
+        // resolve the children first: computing them may reuse this thread's digest
+        List<DependencyNode> children = node.getChildren();
+        String[] childFingerprints = null;
+        if (children != null) {
+            childFingerprints = new String[children.size()];
+            for (int i = 0; i < childFingerprints.length; i++) {
+                childFingerprints[i] = children.get(i).getFingerprint();
+            }
+        }
+        return hash(node, childFingerprints);
+    }
+
+    /**
+     * Computes the fingerprint of the specified node from the fingerprints of its children, for implementations which
+     * need the fingerprint of a node before its children are attached to it.
+     *
+     * @param node the node whose own content to hash, its children are ignored, must not be {@code null}
+     * @param childFingerprints the fingerprints of the children of the node in order, {@code null} if unknown
+     * @return the hex encoded SHA-256 fingerprint
+     */
+    public static String of(DependencyNode node, List<String> childFingerprints) {
+        return hash(node, childFingerprints != null ? childFingerprints.toArray(new String[0]) : null);
+    }
+
+    /**
+     * Computes the fingerprint of the specified node in a single iterative pass over its subtree, without asking any
+     * node for {@link DependencyNode#getFingerprint()}. Every node is hashed at most once and remembered in
+     * {@code memo}, so the same map can be reused across calls to fingerprint nodes of the same graph in linear time
+     * overall.
+     *
+     * @param node the node to compute the fingerprint for, must not be {@code null}
+     * @param memo the fingerprints already computed, updated by this method
+     * @return the hex encoded SHA-256 fingerprint
+     */
+    public static String of(DependencyNode node, Map<DependencyNode, String> memo) {
+        String known = memo.get(node);
+        if (known != null) {
+            return known;
+        }
+
+        // post-order walk: a node is hashed once all of its children have a fingerprint
+        Deque<DependencyNode> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            DependencyNode current = stack.peek();
+            if (memo.containsKey(current)) {
+                stack.pop();
+                continue;
+            }
+
+            List<DependencyNode> children = current.getChildren();
+            boolean ready = true;
+            if (children != null) {
+                for (DependencyNode child : children) {
+                    if (!memo.containsKey(child)) {
+                        stack.push(child);
+                        ready = false;
+                    }
+                }
+            }
+            if (!ready) {
+                continue;
+            }
+
+            String[] childFingerprints = null;
+            if (children != null) {
+                childFingerprints = new String[children.size()];
+                for (int i = 0; i < childFingerprints.length; i++) {
+                    childFingerprints[i] = memo.get(children.get(i));
+                }
+            }
+            memo.put(current, hash(current, childFingerprints));
+            stack.pop();
+        }
+        return memo.get(node);
+    }
+
+    private static String hash(DependencyNode node, String[] childFingerprints) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+
+        // the coordinate getters, unlike getArtifact(), do not make a lazy node create its artifact
+        update(digest, node.getGroupId());
+        update(digest, node.getArtifactId());
+        update(digest, node.getVersion());
+        update(digest, node.getType());
+        update(digest, node.getClassifier());
+        update(digest, node.getScope());
+
+        update(digest, node.getOptional() == null ? null : node.getOptional().toString());
+        update(digest, node.getPremanagedVersion());
+        update(digest, node.getPremanagedScope());
+        update(digest, node.getVersionConstraint());
+
+        List<Exclusion> exclusions = node.getExclusions();
+        update(digest, exclusions == null ? -1 : exclusions.size());
+        if (exclusions != null) {
+            for (Exclusion exclusion : exclusions) {
+                update(digest, exclusion.getGroupId());
+                update(digest, exclusion.getArtifactId());
+            }
+        }
+
+        ConflictData data = node.getConflictData();
+        if (data != null) {
+            update(digest, data.getWinnerVersion());
+            update(digest, data.getOriginalScope());
+            update(digest, data.getIgnoredScope());
+            update(
+                    digest,
+                    data.getOriginaOptionality() == null
+                            ? null
+                            : data.getOriginaOptionality().toString());
+        }
+
+        digest.update((byte) (node.isTruncated() ? 1 : 0));
+
+        update(digest, childFingerprints == null ? -1 : childFingerprints.length);
+        if (childFingerprints != null) {
+            for (String childFingerprint : childFingerprints) {
+                update(digest, childFingerprint);
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            update(digest, -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            update(digest, bytes.length);
+            digest.update(bytes);
+        }
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
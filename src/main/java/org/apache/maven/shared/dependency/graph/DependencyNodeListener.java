@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+/**
+ * Receives the nodes of a dependency graph while the builders convert it from the graph of Maven Resolver, so that
+ * consumers can render, filter or persist a graph incrementally.
+ * <p>
+ * Emission happens during the conversion, not during the collection: Maven Resolver only hands over its graph once it
+ * has collected every dependency and resolved the conflicts, so the first node arrives after the whole collection, and
+ * what is streamed is the conversion into {@link DependencyNode}s and the consumer's own work. This spares consumers a
+ * second traversal of the converted graph, not the wait for the resolver.
+ * </p>
+ * <p>
+ * Every builder emits the nodes in post-order on the building thread, children before their parent and the root last,
+ * and every node is complete when it is emitted: its {@link DependencyNode#getChildren() children} are set and were
+ * emitted before it, and its {@link DependencyNode#getFingerprint() fingerprint} is computed. The mutable nodes are
+ * emitted while the graph is converted. Immutable nodes, see {@link ConfigurationProperties#IMMUTABLE_NODES}, only
+ * exist once the whole tree does, so they are emitted in the same order right after the conversion. The builders wait
+ * for the listener to return, so a listener which cannot keep up slows the conversion down instead of buffering nodes.
+ * The complete graph is still returned by the builder.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+@FunctionalInterface
+public interface DependencyNodeListener {
+    /**
+     * @param node the node which was converted, after its children, the root being emitted last
+     */
+    void nodeConverted(DependencyNode node);
+}
@@ -0,0 +1,29 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+/**
+ * The raw subtrees kept by an incremental collection, returned by
+ * {@link DependencyCollectorBuilder#collect(DependencyCollectorRequest)} and handed over to the next collection of the
+ * same project with {@link DependencyCollectorRequest#incrementalState(IncrementalCollectionState)}. It is opaque to
+ * callers and never modified once created, so it can be kept between builds and shared between threads.
+ *
+ * @since 3.3.1
+ */
+public interface IncrementalCollectionState {}
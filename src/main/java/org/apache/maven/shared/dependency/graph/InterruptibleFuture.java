@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A {@link CompletableFuture} running a task on an executor, which interrupts the thread running the task when it is
+ * cancelled. Exceptions thrown by the task complete the future exceptionally as they are, without wrapping.
+ *
+ * @param <T> the result type
+ */
+final class InterruptibleFuture<T> extends CompletableFuture<T> {
+    /**
+     * A task which may throw checked exceptions.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    private final Task<T> task;
+
+    private Thread runner;
+
+    private boolean interruptedRunner;
+
+    private InterruptibleFuture(Task<T> task) {
+        this.task = task;
+    }
+
+    /**
+     * Submits the task to the executor.
+     *
+     * @param task the task to run, must not be {@code null}
+     * @param executor the executor to run the task on, must not be {@code null}
+     * @param <T> the result type
+     * @return the future of the task's result
+     */
+    public static <T> CompletableFuture<T> submit(Task<T> task, Executor executor) {
+        Objects.requireNonNull(task, "task cannot be null");
+        Objects.requireNonNull(executor, "executor cannot be null");
+
+        InterruptibleFuture<T> future = new InterruptibleFuture<>(task);
+        try {
+            executor.execute(future::run);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void run() {
+        synchronized (this) {
+            if (isDone()) {
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+        try {
+            complete(task.call());
+        } catch (Throwable e) {
+            completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                runner = null;
+                if (interruptedRunner) {
+                    // do not leak an interruption caused by cancel() to the next task of a pooled thread, but keep
+                    // any other one, e.g. the caller's own when the executor runs the task on the calling thread
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            synchronized (this) {
+                if (runner != null) {
+                    runner.interrupt();
+                    interruptedRunner = true;
+                }
+            }
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+
+/**
+ * Derives the resolved dependency graph from a verbose graph of the collector, so that callers needing both do not
+ * resolve the project twice. With its default selector and transformer, the collector selects the same dependencies
+ * as the project dependency resolver and applies the same conflict resolution, recording in the {@link ConflictData}
+ * of each node whether it lost: dropping the losers leaves the nodes, scopes and optionality of the graph
+ * {@link DependencyGraphBuilder} returns.
+ * <p>
+ * The premanaged versions and scopes are the ones the collector recorded. The graph builder only records them when
+ * the repository session sets {@code DependencyManagerUtils.CONFIG_PROP_VERBOSE}, so the fingerprints of both graphs
+ * are only equal with that property set, or when no dependency management applies.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public final class VerboseGraphPruner {
+    private VerboseGraphPruner() {
+        // no instances
+    }
+
+    /**
+     * Copies a verbose graph without the nodes which lost a conflict, in a single pass without recursion. Like the
+     * nodes of the graph builder, the copies compute their fingerprint while the graph is copied.
+     *
+     * @param root the root of a graph built by a verbose {@code DependencyCollectorBuilder}
+     * @return the root of the resolved graph
+     */
+    public static DependencyNode prune(DependencyNode root) {
+        return prune(root, null);
+    }
+
+    /**
+     * Copies a verbose graph without the nodes which lost a conflict nor the nodes the filter excludes, along with
+     * their children. This is the graph {@link DependencyGraphBuilder#buildDependencyGraph} returns for the filter, so
+     * one verbose collection gives the graphs of several filters.
+     *
+     * @param root the root of a graph built by a verbose {@code DependencyCollectorBuilder}
+     * @param filter the artifact filter, {@code null} to only drop the losers
+     * @return the root of the resolved graph
+     */
+    public static DependencyNode prune(DependencyNode root, ArtifactFilter filter) {
+        PrunedNode rootCopy = new PrunedNode(null, root);
+        Deque<Iterator<DependencyNode>> remaining = new ArrayDeque<>();
+        Deque<PrunedNode> copies = new ArrayDeque<>();
+        remaining.push(root.getChildren().iterator());
+        copies.push(rootCopy);
+        while (!copies.isEmpty()) {
+            PrunedNode parent = copies.peek();
+            Iterator<DependencyNode> children = remaining.peek();
+            if (children.hasNext()) {
+                DependencyNode child = children.next();
+                if (!isLoser(child) && (filter == null || filter.include(child.getArtifact()))) {
+                    PrunedNode copy = new PrunedNode(parent, child);
+                    parent.children.add(copy);
+                    remaining.push(child.getChildren().iterator());
+                    copies.push(copy);
+                }
+            } else {
+                remaining.pop();
+                copies.pop();
+                parent.children = Collections.unmodifiableList(parent.children);
+                parent.fingerprint = DependencyNodeFingerprint.of(parent);
+            }
+        }
+        return rootCopy;
+    }
+
+    /**
+     * Derives the graph of each scope, as filtered by a {@link ScopeArtifactFilter}, from one verbose graph.
+     *
+     * @param root the root of a graph built by a verbose {@code DependencyCollectorBuilder}
+     * @param scopes the scopes, for instance <code>compile</code>, <code>runtime</code> and <code>test</code>
+     * @return the resolved graphs by scope, in the iteration order of the scopes
+     * @see DependencyGraphBuilder#buildDependencyGraphsByScope
+     */
+    public static Map<String, DependencyNode> pruneByScope(DependencyNode root, Collection<String> scopes) {
+        Map<String, DependencyNode> graphs = new LinkedHashMap<>();
+        for (String scope : scopes) {
+            graphs.put(scope, prune(root, new ScopeArtifactFilter(scope)));
+        }
+        return graphs;
+    }
+
+    /**
+     * @param node a node of a verbose graph
+     * @return {@code true} if the node lost a conflict, either against another version or as a duplicate
+     */
+    public static boolean isLoser(DependencyNode node) {
+        ConflictData data = node.getConflictData();
+        return data != null && data.getWinnerVersion() != null;
+    }
+
+    /**
+     * A node of a pruned graph, which renders like the nodes of the graph builder.
+     */
+    private static final class PrunedNode implements DependencyNode {
+        private final DependencyNode parent;
+
+        private final Artifact artifact;
+
+        private final String premanagedVersion;
+
+        private final String premanagedScope;
+
+        private final String versionConstraint;
+
+        private final Boolean optional;
+
+        private final List<Exclusion> exclusions;
+
+        private final boolean truncated;
+
+        private List<DependencyNode> children = new ArrayList<>();
+
+        private String fingerprint;
+
+        PrunedNode(DependencyNode parent, DependencyNode node) {
+            this.parent = parent;
+            this.artifact = node.getArtifact();
+            this.premanagedVersion = node.getPremanagedVersion();
+            this.premanagedScope = node.getPremanagedScope();
+            this.versionConstraint = node.getVersionConstraint();
+            // like the graph builder, fall back to the optionality of the artifact for the root
+            this.optional = node.getOptional() != null ? node.getOptional() : artifact.isOptional();
+            this.exclusions = node.getExclusions();
+            this.truncated = node.isTruncated();
+        }
+
+        @Override
+        public boolean accept(DependencyNodeVisitor visitor) {
+            if (visitor.visit(this)) {
+                for (DependencyNode child : getChildren()) {
+                    if (!child.accept(visitor)) {
+                        break;
+                    }
+                }
+            }
+
+            return visitor.endVisit(this);
+        }
+
+        @Override
+        public Artifact getArtifact() {
+            return artifact;
+        }
+
+        @Override
+        public List<DependencyNode> getChildren() {
+            return children;
+        }
+
+        @Override
+        public DependencyNode getParent() {
+            return parent;
+        }
+
+        @Override
+        public String getPremanagedVersion() {
+            return premanagedVersion;
+        }
+
+        @Override
+        public String getPremanagedScope() {
+            return premanagedScope;
+        }
+
+        @Override
+        public String getVersionConstraint() {
+            return versionConstraint;
+        }
+
+        @Override
+        public Boolean getOptional() {
+            return optional;
+        }
+
+        @Override
+        public List<Exclusion> getExclusions() {
+            return exclusions;
+        }
+
+        @Override
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        @Override
+        public String toNodeString() {
+            return artifact
+                    + (Boolean.TRUE.equals(optional) ? " (optional)" : "")
+                    + (truncated ? " (children truncated)" : "");
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.diff;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.ConflictData;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * Structural difference between two dependency graphs. Nodes are matched by their parent and their dependency
+ * conflict id (<code>groupId:artifactId:type[:classifier]</code>), and subtrees with equal
+ * {@link DependencyNode#getFingerprint() fingerprints} are skipped without being walked. Matched nodes are compared on
+ * every attribute the fingerprint covers, so a difference in a node's own data is always reported.
+ * <p>
+ * The graphs built by {@link org.apache.maven.shared.dependency.graph.DependencyGraphBuilder} and
+ * {@link org.apache.maven.shared.dependency.graph.DependencyCollectorBuilder} already paid for their fingerprints
+ * during conversion, so comparing them costs in proportion to the matched nodes along the changed paths and their
+ * children, not to the size of the graphs. Other implementations may hash a subtree on every call to
+ * {@code getFingerprint()}, as the default method does: each compared node then costs the size of its subtree, so
+ * such graphs should be copied or cached before being compared repeatedly.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public class DependencyGraphDiff {
+    private final List<DependencyNodeChange> changes;
+
+    private DependencyGraphDiff(List<DependencyNodeChange> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Compares two dependency graphs.
+     *
+     * @param oldRoot the root of the old graph, must not be {@code null}
+     * @param newRoot the root of the new graph, must not be {@code null}
+     * @return the differences between both graphs
+     */
+    public static DependencyGraphDiff compare(DependencyNode oldRoot, DependencyNode newRoot) {
+        Objects.requireNonNull(oldRoot, "oldRoot cannot be null");
+        Objects.requireNonNull(newRoot, "newRoot cannot be null");
+
+        List<DependencyNodeChange> changes = new ArrayList<>();
+        new Comparison(changes).compare(oldRoot, newRoot);
+        return new DependencyGraphDiff(changes);
+    }
+
+    /**
+     * @return the changes, ordered depth-first as found in the new graph
+     */
+    public List<DependencyNodeChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return {@code true} if both graphs are structurally identical
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    private static class Comparison {
+        private final List<DependencyNodeChange> changes;
+
+        Comparison(List<DependencyNodeChange> changes) {
+            this.changes = changes;
+        }
+
+        void compare(DependencyNode oldNode, DependencyNode newNode) {
+            if (oldNode.getFingerprint().equals(newNode.getFingerprint())) {
+                return;
+            }
+
+            Artifact oldArtifact = oldNode.getArtifact();
+            Artifact newArtifact = newNode.getArtifact();
+            if (!Objects.equals(oldArtifact.getVersion(), newArtifact.getVersion())) {
+                changes.add(new DependencyNodeChange(DependencyNodeChange.Type.VERSION_CHANGED, oldNode, newNode));
+            }
+            if (!Objects.equals(oldArtifact.getScope(), newArtifact.getScope())) {
+                changes.add(new DependencyNodeChange(DependencyNodeChange.Type.SCOPE_CHANGED, oldNode, newNode));
+            }
+            if (!sameConflictOutcome(oldNode, newNode)) {
+                changes.add(new DependencyNodeChange(DependencyNodeChange.Type.CONFLICT_CHANGED, oldNode, newNode));
+            }
+            if (!Objects.equals(oldNode.getOptional(), newNode.getOptional())) {
+                changes.add(new DependencyNodeChange(DependencyNodeChange.Type.OPTIONAL_CHANGED, oldNode, newNode));
+            }
+            if (!Objects.equals(exclusionKeys(oldNode), exclusionKeys(newNode))) {
+                changes.add(new DependencyNodeChange(DependencyNodeChange.Type.EXCLUSIONS_CHANGED, oldNode, newNode));
+            }
+            if (!Objects.equals(oldNode.getPremanagedVersion(), newNode.getPremanagedVersion())
+                    || !Objects.equals(oldNode.getPremanagedScope(), newNode.getPremanagedScope())
+                    || !Objects.equals(oldNode.getVersionConstraint(), newNode.getVersionConstraint())) {
+                changes.add(new DependencyNodeChange(DependencyNodeChange.Type.MANAGEMENT_CHANGED, oldNode, newNode));
+            }
+            if (oldNode.isTruncated() != newNode.isTruncated()) {
+                changes.add(new DependencyNodeChange(DependencyNodeChange.Type.TRUNCATION_CHANGED, oldNode, newNode));
+            }
+
+            Map<String, Deque<DependencyNode>> oldChildren = new HashMap<>();
+            for (DependencyNode oldChild : children(oldNode)) {
+                oldChildren
+                        .computeIfAbsent(oldChild.getArtifact().getDependencyConflictId(), k -> new ArrayDeque<>())
+                        .add(oldChild);
+            }
+
+            for (DependencyNode newChild : children(newNode)) {
+                Deque<DependencyNode> candidates =
+                        oldChildren.get(newChild.getArtifact().getDependencyConflictId());
+                DependencyNode oldChild = candidates != null ? candidates.poll() : null;
+                if (oldChild != null) {
+                    compare(oldChild, newChild);
+                } else {
+                    changes.add(new DependencyNodeChange(DependencyNodeChange.Type.ADDED, null, newChild));
+                }
+            }
+
+            // keep the order of the old graph for removals
+            for (DependencyNode oldChild : children(oldNode)) {
+                Deque<DependencyNode> leftovers =
+                        oldChildren.get(oldChild.getArtifact().getDependencyConflictId());
+                if (leftovers.remove(oldChild)) {
+                    changes.add(new DependencyNodeChange(DependencyNodeChange.Type.REMOVED, oldChild, null));
+                }
+            }
+        }
+    }
+
+    private static boolean sameConflictOutcome(DependencyNode oldNode, DependencyNode newNode) {
+        ConflictData oldData = oldNode.getConflictData();
+        ConflictData newData = newNode.getConflictData();
+        if (oldData == null || newData == null) {
+            return oldData == newData;
+        }
+        return Objects.equals(oldData.getWinnerVersion(), newData.getWinnerVersion())
+                && Objects.equals(oldData.getIgnoredScope(), newData.getIgnoredScope())
+                && Objects.equals(oldData.getOriginalScope(), newData.getOriginalScope())
+                && Objects.equals(oldData.getOriginaOptionality(), newData.getOriginaOptionality());
+    }
+
+    private static List<String> exclusionKeys(DependencyNode node) {
+        List<Exclusion> exclusions = node.getExclusions();
+        if (exclusions == null) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>(exclusions.size());
+        for (Exclusion exclusion : exclusions) {
+            keys.add(exclusion.getGroupId() + ':' + exclusion.getArtifactId());
+        }
+        return keys;
+    }
+
+    private static List<DependencyNode> children(DependencyNode node) {
+        List<DependencyNode> children = node.getChildren();
+        return children != null ? children : Collections.emptyList();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * A single difference between two dependency graphs, as reported by {@link DependencyGraphDiff}.
+ *
+ * @since 3.3.1
+ */
+public class DependencyNodeChange {
+    /**
+     * The kind of difference between two matching nodes.
+     */
+    public enum Type {
+        /**
+         * The node only exists in the new graph.
+         */
+        ADDED,
+
+        /**
+         * The node only exists in the old graph.
+         */
+        REMOVED,
+
+        /**
+         * The node exists in both graphs, with a different version.
+         */
+        VERSION_CHANGED,
+
+        /**
+         * The node exists in both graphs, with a different scope.
+         */
+        SCOPE_CHANGED,
+
+        /**
+         * The node exists in both graphs, with a different conflict resolution outcome.
+         */
+        CONFLICT_CHANGED,
+
+        /**
+         * The node exists in both graphs, with a different optionality.
+         */
+        OPTIONAL_CHANGED,
+
+        /**
+         * The node exists in both graphs, with different exclusions.
+         */
+        EXCLUSIONS_CHANGED,
+
+        /**
+         * The node exists in both graphs, with a different premanaged version or scope, or version constraint.
+         */
+        MANAGEMENT_CHANGED,
+
+        /**
+         * The node exists in both graphs, but its children were left out of only one of them because of a collection
+         * limit.
+         */
+        TRUNCATION_CHANGED
+    }
+
+    private final Type type;
+
+    private final DependencyNode oldNode;
+
+    private final DependencyNode newNode;
+
+    DependencyNodeChange(Type type, DependencyNode oldNode, DependencyNode newNode) {
+        this.type = type;
+        this.oldNode = oldNode;
+        this.newNode = newNode;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the node in the old graph, or {@code null} for {@link Type#ADDED}
+     */
+    public DependencyNode getOldNode() {
+        return oldNode;
+    }
+
+    /**
+     * @return the node in the new graph, or {@code null} for {@link Type#REMOVED}
+     */
+    public DependencyNode getNewNode() {
+        return newNode;
+    }
+
+    /**
+     * Gets the path from the root to the changed node, in the new graph unless the node was removed.
+     *
+     * @return the nodes from the root down to the changed node, inclusive
+     */
+    public List<DependencyNode> getPath() {
+        List<DependencyNode> path = new ArrayList<>();
+        for (DependencyNode node = newNode != null ? newNode : oldNode; node != null; node = node.getParent()) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder(type.name()).append(' ');
+        List<DependencyNode> path = getPath();
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0) {
+                buffer.append(" -> ");
+            }
+            buffer.append(path.get(i).getArtifact());
+        }
+        if (oldNode != null && newNode != null) {
+            buffer.append(" (was ").append(oldNode.toNodeString()).append(')');
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.metadata.DefaultMetadata;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionConstraint;
+
+/**
+ * A version range resolver caching the results of another one, so that the same range is not resolved again from the
+ * repository metadata by every occurrence in a graph and every build of a long-lived JVM. Results are keyed by
+ * artifact, range, repositories and local repository, and expire after
+ * {@link ConfigurationProperties#VERSION_RANGE_CACHE_TTL}, except those of offline sessions, whose remote metadata
+ * cannot change. A result is also dropped as soon as one of the metadata files of the local repository it was resolved
+ * from changes, for instance when a version is installed. Results which failed are not cached.
+ * <p>
+ * The collector builder resolves ranges through one of these when
+ * {@link ConfigurationProperties#VERSION_RANGE_CACHE} is set. The graph builder resolves through Maven, whose repository
+ * system only uses this resolver if an embedder or a core extension binds it.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public class CachingVersionRangeResolver implements VersionRangeResolver {
+    private final VersionRangeResolver delegate;
+
+    private final int maxEntries;
+
+    private final LongSupplier clock;
+
+    private final Map<List<Object>, CachedResult> entries =
+            new LinkedHashMap<List<Object>, CachedResult>(256, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedResult> eldest) {
+                    return size() > CachingVersionRangeResolver.this.maxEntries;
+                }
+            };
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * @param delegate the resolver of the ranges missing from the cache
+     * @param maxEntries the maximum number of results to keep, least recently used ones being evicted first
+     */
+    public CachingVersionRangeResolver(VersionRangeResolver delegate, int maxEntries) {
+        this(delegate, maxEntries, System::nanoTime);
+    }
+
+    CachingVersionRangeResolver(VersionRangeResolver delegate, int maxEntries, LongSupplier clock) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public VersionRangeResult resolveVersionRange(RepositorySystemSession session, VersionRangeRequest request)
+            throws VersionRangeResolutionException {
+        long ttl = ConfigUtils.getLong(
+                session,
+                ConfigurationProperties.DEFAULT_VERSION_RANGE_CACHE_TTL,
+                ConfigurationProperties.VERSION_RANGE_CACHE_TTL);
+        if (ttl <= 0) {
+            return delegate.resolveVersionRange(session, request);
+        }
+
+        Artifact artifact = request.getArtifact();
+        List<Object> key = Arrays.asList(
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getExtension(),
+                artifact.getClassifier(),
+                artifact.getVersion(),
+                request.getRepositories(),
+                session.getLocalRepository().getBasedir());
+        long now = clock.getAsLong();
+
+        CachedResult cached;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null
+                    && (!session.isOffline() && now - cached.created > TimeUnit.SECONDS.toNanos(ttl)
+                            || !cached.isUpToDate())) {
+                entries.remove(key);
+                cached = null;
+            }
+            if (cached != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (cached != null) {
+            return cached.toResult(request);
+        }
+
+        // stamped before resolving, so that a change made meanwhile is seen as a change afterwards
+        File[] metadata = metadataOf(session, request);
+        long[] lastModified = lastModifiedOf(metadata);
+        VersionRangeResult result = delegate.resolveVersionRange(session, request);
+        if (result.getExceptions().isEmpty()) {
+            synchronized (this) {
+                entries.put(key, new CachedResult(result, now, metadata, lastModified));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of results currently cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of ranges served from the cache
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return the number of ranges resolved by the delegate, including those not cached since caching is disabled
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Drops every result, keeping the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the files of the local repository holding the metadata a range is resolved from, as the resolver of Maven
+     *         locates them: the metadata of installed versions, and the cached metadata of each remote repository
+     */
+    private static File[] metadataOf(RepositorySystemSession session, VersionRangeRequest request) {
+        Artifact artifact = request.getArtifact();
+        Metadata metadata = new DefaultMetadata(
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                "maven-metadata.xml",
+                Metadata.Nature.RELEASE_OR_SNAPSHOT);
+        LocalRepositoryManager manager = session.getLocalRepositoryManager();
+        File basedir = manager.getRepository().getBasedir();
+        File[] files = new File[request.getRepositories().size() + 1];
+        files[0] = new File(basedir, manager.getPathForLocalMetadata(metadata));
+        for (int i = 0; i < request.getRepositories().size(); i++) {
+            files[i + 1] = new File(
+                    basedir,
+                    manager.getPathForRemoteMetadata(
+                            metadata, request.getRepositories().get(i), request.getRequestContext()));
+        }
+        return files;
+    }
+
+    private static long[] lastModifiedOf(File[] files) {
+        long[] lastModified = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+        }
+        return lastModified;
+    }
+
+    /**
+     * A resolved range, detached from the request it was resolved for.
+     */
+    private static final class CachedResult {
+        private final List<Version> versions;
+
+        private final ArtifactRepository[] repositories;
+
+        private final VersionConstraint constraint;
+
+        private final long created;
+
+        private final File[] metadata;
+
+        private final long[] lastModified;
+
+        CachedResult(VersionRangeResult result, long created, File[] metadata, long[] lastModified) {
+            this.versions = result.getVersions();
+            this.repositories = new ArtifactRepository[versions.size()];
+            for (int i = 0; i < repositories.length; i++) {
+                repositories[i] = result.getRepository(versions.get(i));
+            }
+            this.constraint = result.getVersionConstraint();
+            this.created = created;
+            this.metadata = metadata;
+            this.lastModified = lastModified;
+        }
+
+        boolean isUpToDate() {
+            return Arrays.equals(lastModified, lastModifiedOf(metadata));
+        }
+
+        VersionRangeResult toResult(VersionRangeRequest request) {
+            VersionRangeResult result = new VersionRangeResult(request);
+            result.setVersionConstraint(constraint);
+            for (int i = 0; i < repositories.length; i++) {
+                result.addVersion(versions.get(i));
+                result.setRepository(versions.get(i), repositories[i]);
+            }
+            return result;
+        }
+    }
+}
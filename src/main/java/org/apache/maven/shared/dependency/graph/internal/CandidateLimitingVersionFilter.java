@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.Iterator;
+
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.VersionFilter;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.graph.version.ChainedVersionFilter;
+import org.eclipse.aether.version.Version;
+
+/**
+ * A version filter keeping only the highest candidates of a version range, so that graphs with wide ranges do not
+ * read the descriptor of every version the repositories know of.
+ */
+final class CandidateLimitingVersionFilter implements VersionFilter {
+    private final int maxCandidates;
+
+    CandidateLimitingVersionFilter(int maxCandidates) {
+        if (maxCandidates < 1) {
+            throw new IllegalArgumentException("maxCandidates must be at least 1: " + maxCandidates);
+        }
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Adds the filter to the version filter of a session if {@link ConfigurationProperties#MAX_RANGE_CANDIDATES} is set
+     * in its configuration properties.
+     *
+     * @param session the session to install the filter into
+     */
+    static void install(DefaultRepositorySystemSession session) {
+        if (isRequested(session)) {
+            int maxCandidates = ConfigUtils.getInteger(session, 0, ConfigurationProperties.MAX_RANGE_CANDIDATES);
+            session.setVersionFilter(ChainedVersionFilter.newInstance(
+                    session.getVersionFilter(), new CandidateLimitingVersionFilter(maxCandidates)));
+        }
+    }
+
+    /**
+     * @param session a session
+     * @return {@code true} if {@link #install(DefaultRepositorySystemSession)} changes the session
+     */
+    static boolean isRequested(RepositorySystemSession session) {
+        return ConfigUtils.getInteger(session, 0, ConfigurationProperties.MAX_RANGE_CANDIDATES) > 0;
+    }
+
+    @Override
+    public void filterVersions(VersionFilterContext context) throws RepositoryException {
+        // the candidates are iterated in ascending order
+        int excess = context.getCount() - maxCandidates;
+        Iterator<Version> it = context.iterator();
+        while (excess > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            excess--;
+        }
+    }
+
+    @Override
+    public VersionFilter deriveChildFilter(DependencyCollectionContext context) {
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return maxCandidates == ((CandidateLimitingVersionFilter) obj).maxCandidates;
+    }
+
+    @Override
+    public int hashCode() {
+        return maxCandidates;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.shared.dependency.graph.CollectionLimitExceededException;
+import org.apache.maven.shared.dependency.graph.CollectionLimitExceededException.Limit;
+import org.apache.maven.shared.dependency.graph.CollectionLimits;
+import org.eclipse.aether.collection.DependencyGraphTransformer;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+
+/**
+ * The state of the limits of a single collection, shared by all the {@link GuardingDependencySelector}s derived from
+ * the one installed in the session. Safe for use by concurrent collections.
+ */
+final class CollectionGuard {
+    private final int maxNodes;
+
+    private final int maxDepth;
+
+    private final long deadline;
+
+    private final boolean limited;
+
+    private final boolean failOnLimit;
+
+    private final boolean interruptible;
+
+    private final AtomicInteger nodes = new AtomicInteger();
+
+    /**
+     * The paths of the nodes whose children were cut while collecting. The selector deciding on a dependency does not
+     * know the node it would be added to, only the path leading to it.
+     */
+    private final Set<Path> truncatedPaths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The children of the nodes whose children were cut, found by {@link #locateTruncated(DependencyNode)}. The
+     * collector shares the children of identical subtrees between their nodes, which are then all truncated, while the
+     * selectors are only asked along the path of the first one.
+     */
+    private final Set<List<DependencyNode>> truncated = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private volatile Limit exceeded;
+
+    CollectionGuard(CollectionLimits limits) {
+        this(limits, true);
+    }
+
+    /**
+     * @param limits the limits of the collection (can be <code>null</code>)
+     * @param interruptible {@code true} to stop expanding the graph once the collecting thread is interrupted
+     */
+    CollectionGuard(CollectionLimits limits, boolean interruptible) {
+        this.interruptible = interruptible;
+        this.limited = limits != null && limits.isLimited();
+        this.maxNodes = limits != null ? limits.getMaxNodes() : Integer.MAX_VALUE;
+        this.maxDepth = limits != null ? limits.getMaxDepth() : Integer.MAX_VALUE;
+        this.deadline = limits != null && limits.getTimeoutMillis() > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.getTimeoutMillis())
+                : 0;
+        this.failOnLimit = limits != null && limits.isFailOnLimit();
+    }
+
+    /**
+     * @return {@code true} if depth and parents have to be tracked
+     */
+    boolean isLimited() {
+        return limited;
+    }
+
+    /**
+     * @return {@code false} if the guard admits every dependency, so that it does not need to be installed
+     */
+    boolean isInEffect() {
+        return limited || interruptible;
+    }
+
+    /**
+     * Decides whether a dependency already accepted by the delegate selectors still fits into the budget.
+     *
+     * @param parent the path of the node the dependency would be added to
+     * @param depth the depth of the node the dependency would create
+     * @return {@code true} to add the dependency to the graph
+     */
+    boolean admit(Path parent, int depth) {
+        if (interruptible && Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        if (!limited) {
+            return true;
+        }
+
+        Limit limit = null;
+        if (depth > maxDepth) {
+            limit = Limit.DEPTH;
+        } else if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            limit = Limit.TIME;
+        } else if (nodes.incrementAndGet() > maxNodes) {
+            limit = Limit.NODES;
+        }
+        if (limit == null) {
+            return true;
+        }
+
+        if (exceeded == null) {
+            exceeded = limit;
+        }
+        truncatedPaths.add(parent);
+        return false;
+    }
+
+    /**
+     * Wraps the transformer of a collection, so that the nodes whose children were cut are found in the raw graph:
+     * its nodes still hold the dependencies the selectors were asked about, which the conflict resolution may change.
+     *
+     * @param transformer the transformer of the collection (can be <code>null</code>)
+     * @return the transformer to install, the given one if no limit applies
+     */
+    DependencyGraphTransformer locating(DependencyGraphTransformer transformer) {
+        if (!limited) {
+            return transformer;
+        }
+        return (node, context) -> {
+            locateTruncated(node);
+            return transformer != null ? transformer.transformGraph(node, context) : node;
+        };
+    }
+
+    /**
+     * Finds the nodes whose children were cut in the raw collected graph, following only the paths leading to them.
+     * Must be called before {@link #isTruncated(DependencyNode)}, by a single thread.
+     *
+     * @param root the root of the raw collected graph
+     */
+    void locateTruncated(DependencyNode root) {
+        if (truncatedPaths.isEmpty()) {
+            return;
+        }
+        Set<Path> prefixes = new HashSet<>();
+        for (Path path : truncatedPaths) {
+            Path prefix = path;
+            while (prefix != null && prefixes.add(prefix)) {
+                prefix = prefix.parent;
+            }
+        }
+        Deque<DependencyNode> nodes = new ArrayDeque<>();
+        Deque<Path> paths = new ArrayDeque<>();
+        nodes.push(root);
+        paths.push(Path.ROOT);
+        while (!nodes.isEmpty()) {
+            DependencyNode node = nodes.pop();
+            Path path = paths.pop();
+            if (truncatedPaths.contains(path)) {
+                truncated.add(node.getChildren());
+            }
+            for (DependencyNode child : node.getChildren()) {
+                Path childPath = path.child(child.getDependency());
+                if (prefixes.contains(childPath)) {
+                    nodes.push(child);
+                    paths.push(childPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param node a node of the transformed graph
+     * @return {@code true} if children of the node were cut because of a limit
+     */
+    boolean isTruncated(DependencyNode node) {
+        // the children of a conflict loser are dropped by the conflict resolution rather than by a limit
+        return !truncated.isEmpty()
+                && truncated.contains(node.getChildren())
+                && node.getData().get(ConflictResolver.NODE_DATA_WINNER) == null;
+    }
+
+    /**
+     * @throws CollectionLimitExceededException if a limit was hit and the limits are configured to fail
+     */
+    void check() throws CollectionLimitExceededException {
+        if (failOnLimit && exceeded != null) {
+            throw new CollectionLimitExceededException(exceeded);
+        }
+    }
+
+    /**
+     * The dependencies of the nodes leading from the root of a graph, excluded, to a node. Unlike their artifacts, the
+     * dependencies tell apart the duplicates a descriptor may declare with another scope or optionality. Sharing the
+     * path of the parent keeps the paths of all the selectors of a collection linear in the size of the graph.
+     */
+    static final class Path {
+        static final Path ROOT = new Path(null, null, 0);
+
+        private final Path parent;
+
+        private final Dependency dependency;
+
+        private final int length;
+
+        private final int hash;
+
+        private Path(Path parent, Dependency dependency, int length) {
+            this.parent = parent;
+            this.dependency = dependency;
+            this.length = length;
+            this.hash = parent != null ? parent.hash * 31 + Objects.hashCode(dependency) : 0;
+        }
+
+        /**
+         * @param dependency the dependency of a child of the node at the end of this path
+         * @return the path of the child
+         */
+        Path child(Dependency dependency) {
+            return new Path(this, dependency, length + 1);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Path)) {
+                return false;
+            }
+            Path a = this;
+            Path b = (Path) obj;
+            if (a.length != b.length || a.hash != b.hash) {
+                return false;
+            }
+            while (a != b) {
+                if (!Objects.equals(a.dependency, b.dependency)) {
+                    return false;
+                }
+                a = a.parent;
+                b = b.parent;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
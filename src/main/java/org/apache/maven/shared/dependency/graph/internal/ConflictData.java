@@ -22,42 +22,12 @@ package org.apache.maven.shared.dependency.graph.internal;
  * Explicit subset of Aether's DependencyNode.getData().
  *
  * @author Robert Scholte
+ * @deprecated use {@link org.apache.maven.shared.dependency.graph.ConflictData} and
+ *             {@link org.apache.maven.shared.dependency.graph.DependencyNode#getConflictData()} instead
  */
-public class ConflictData {
-    private String winnerVersion;
-
-    private String originalScope;
-
-    private String ignoredScope;
-
-    private Boolean originaOptionality;
-
+@Deprecated
+public class ConflictData extends org.apache.maven.shared.dependency.graph.ConflictData {
     public ConflictData(String winnerVersion, String ignoredScope) {
-        this.winnerVersion = winnerVersion;
-        this.ignoredScope = ignoredScope;
-    }
-
-    public String getWinnerVersion() {
-        return winnerVersion;
-    }
-
-    public String getOriginalScope() {
-        return originalScope;
-    }
-
-    public void setOriginalScope(String originalScope) {
-        this.originalScope = originalScope;
-    }
-
-    public Boolean getOriginaOptionality() {
-        return originaOptionality;
-    }
-
-    public void setOriginaOptionality(Boolean originaOptionality) {
-        this.originaOptionality = originaOptionality;
-    }
-
-    public String getIgnoredScope() {
-        return ignoredScope;
+        super(winnerVersion, ignoredScope);
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.util.artifact.JavaScopes;
+
+/**
+ * The default dependency selector of the collector, with the same semantics as
+ *
+ * <pre>
+ *  new AndDependencySelector(
+ *             new DirectScopeDependencySelector( JavaScopes.TEST ),
+ *             new DirectScopeDependencySelector( JavaScopes.PROVIDED ),
+ *             new OptionalDependencySelector(),
+ *             new ExclusionDependencySelector() );
+ * </pre>
+ *
+ * but evaluated in a single pass. The state of a selector is its depth, capped at 2 since deeper levels select the same
+ * way, and the sorted set of inherited exclusions. Derived selectors are canonical instances shared by every selector
+ * derived from the same root, so that deriving mostly returns existing objects.
+ *
+ * @since 3.3.1
+ */
+public final class DefaultCollectorDependencySelector implements DependencySelector {
+
+    private static final Exclusion[] NO_EXCLUSIONS = new Exclusion[0];
+
+    /**
+     * The canonical selectors derived from the same root, keyed by themselves.
+     */
+    private final Map<DefaultCollectorDependencySelector, DefaultCollectorDependencySelector> canonical;
+
+    private final int depth;
+
+    // sorted and dupe-free, in the same order as ExclusionDependencySelector
+    private final Exclusion[] exclusions;
+
+    private final int hashCode;
+
+    public DefaultCollectorDependencySelector() {
+        this(new ConcurrentHashMap<>(), 0, NO_EXCLUSIONS);
+    }
+
+    private DefaultCollectorDependencySelector(
+            Map<DefaultCollectorDependencySelector, DefaultCollectorDependencySelector> canonical,
+            int depth,
+            Exclusion[] exclusions) {
+        this.canonical = canonical;
+        this.depth = depth;
+        this.exclusions = exclusions;
+        this.hashCode = depth * 31 + Arrays.hashCode(exclusions);
+    }
+
+    /**
+     * Decides whether the specified dependency should be included in the dependency graph.
+     *
+     * @param dependency The dependency to check, must not be {@code null}.
+     * @return {@code false} if the dependency is a transitive test, provided or optional dependency, or if it is
+     *         excluded, {@code true} otherwise.
+     */
+    @Override
+    public boolean selectDependency(Dependency dependency) {
+        if (depth >= 2) {
+            if (dependency.isOptional()) {
+                return false;
+            }
+            String scope = dependency.getScope();
+            if (JavaScopes.TEST.equals(scope) || JavaScopes.PROVIDED.equals(scope)) {
+                return false;
+            }
+        }
+
+        Artifact artifact = dependency.getArtifact();
+        for (Exclusion exclusion : exclusions) {
+            if (matches(exclusion, artifact)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(Exclusion exclusion, Artifact artifact) {
+        return matches(exclusion.getArtifactId(), artifact.getArtifactId())
+                && matches(exclusion.getGroupId(), artifact.getGroupId())
+                && matches(exclusion.getExtension(), artifact.getExtension())
+                && matches(exclusion.getClassifier(), artifact.getClassifier());
+    }
+
+    private static boolean matches(String pattern, String value) {
+        return "*".equals(pattern) || pattern.equals(value);
+    }
+
+    @Override
+    public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
+        int childDepth = Math.min(depth + 1, 2);
+
+        Dependency dependency = context.getDependency();
+        Exclusion[] merged = dependency != null ? merge(exclusions, dependency.getExclusions()) : exclusions;
+
+        if (childDepth == depth && merged == exclusions) {
+            return this;
+        }
+
+        DefaultCollectorDependencySelector child =
+                new DefaultCollectorDependencySelector(canonical, childDepth, merged);
+        DefaultCollectorDependencySelector existing = canonical.putIfAbsent(child, child);
+        return existing != null ? existing : child;
+    }
+
+    /**
+     * Merges exclusions into a sorted array.
+     *
+     * @return the specified array itself if no exclusion was added
+     */
+    private static Exclusion[] merge(Exclusion[] sorted, Collection<Exclusion> exclusions) {
+        if (exclusions == null || exclusions.isEmpty()) {
+            return sorted;
+        }
+
+        Exclusion[] merged = sorted;
+        int count = sorted.length;
+        for (Exclusion exclusion : exclusions) {
+            int index = Arrays.binarySearch(merged, 0, count, exclusion, ExclusionComparator.INSTANCE);
+            if (index < 0) {
+                index = -(index + 1);
+                if (merged == sorted || count == merged.length) {
+                    Exclusion[] tmp = new Exclusion[count + exclusions.size()];
+                    System.arraycopy(merged, 0, tmp, 0, count);
+                    merged = tmp;
+                }
+                System.arraycopy(merged, index, merged, index + 1, count - index);
+                merged[index] = exclusion;
+                count++;
+            }
+        }
+
+        if (merged == sorted || merged.length == count) {
+            return merged;
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        DefaultCollectorDependencySelector other = (DefaultCollectorDependencySelector) obj;
+        return depth == other.depth && hashCode == other.hashCode && Arrays.equals(exclusions, other.exclusions);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Orders exclusions by artifactId, groupId, extension and classifier.
+     */
+    private static final class ExclusionComparator implements Comparator<Exclusion> {
+        static final ExclusionComparator INSTANCE = new ExclusionComparator();
+
+        @Override
+        public int compare(Exclusion e1, Exclusion e2) {
+            int rel = e1.getArtifactId().compareTo(e2.getArtifactId());
+            if (rel == 0) {
+                rel = e1.getGroupId().compareTo(e2.getGroupId());
+                if (rel == 0) {
+                    rel = e1.getExtension().compareTo(e2.getExtension());
+                    if (rel == 0) {
+                        rel = e1.getClassifier().compareTo(e2.getClassifier());
+                    }
+                }
+            }
+            return rel;
+        }
+    }
+}
@@ -21,10 +21,19 @@ package org.apache.maven.shared.dependency.graph.internal;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
@@ -33,21 +42,43 @@ import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.CollectionLimitExceededException;
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.apache.maven.shared.dependency.graph.ConflictData;
 import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilder;
 import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilderException;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorPlan;
 import org.apache.maven.shared.dependency.graph.DependencyCollectorRequest;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorResult;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.DependencyNodeListener;
+import org.apache.maven.shared.dependency.graph.IncrementalCollectionState;
+import org.apache.maven.shared.dependency.graph.store.DescriptorIndex;
+import org.apache.maven.shared.dependency.graph.store.IndexedArtifactDescriptorReader;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.ArtifactTypeRegistry;
 import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.collection.CollectResult;
 import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.collection.DependencyGraphTransformer;
+import org.eclipse.aether.collection.DependencySelector;
 import org.eclipse.aether.graph.DependencyVisitor;
 import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.DependencyCollector;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.internal.impl.collect.DefaultDependencyCollector;
+import org.eclipse.aether.util.ConfigUtils;
 import org.eclipse.aether.util.graph.manager.DependencyManagerUtils;
 import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.eclipse.aether.util.graph.transformer.JavaScopeDeriver;
+import org.eclipse.aether.util.graph.transformer.NearestVersionSelector;
+import org.eclipse.aether.util.graph.transformer.SimpleOptionalitySelector;
 import org.eclipse.aether.util.graph.visitor.TreeDependencyVisitor;
 import org.eclipse.aether.version.VersionConstraint;
 import org.slf4j.Logger;
@@ -55,6 +86,16 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Project dependency raw dependency collector API, abstracting Maven 3.1+'s Aether implementation.
+ * <p>
+ * Descriptors are read by the {@code ArtifactDescriptorReader} of the repository system. When
+ * {@link ConfigurationProperties#DESCRIPTOR_INDEX} is set, the builder collects with its own collector, assembled from
+ * the injected components of the repository system, whose
+ * {@link org.apache.maven.shared.dependency.graph.store.IndexedArtifactDescriptorReader reader} serves the descriptors
+ * held by the {@link org.apache.maven.shared.dependency.graph.store.DescriptorIndex DescriptorIndex} and reads the
+ * other ones with the reader of the repository system. When {@link ConfigurationProperties#VERSION_RANGE_CACHE} is set,
+ * that collector resolves version ranges through a {@link CachingVersionRangeResolver} shared by the collections of
+ * this builder.
+ * </p>
  *
  * @author Gabriel Belingueres
  * @since 3.1.0
@@ -63,36 +104,237 @@ import org.slf4j.LoggerFactory;
 public class DefaultDependencyCollectorBuilder implements DependencyCollectorBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDependencyCollectorBuilder.class);
 
+    private static final int VERSION_RANGE_CACHE_SIZE = 10000;
+
     private final RepositorySystem repositorySystem;
 
-    @Inject
+    private final RemoteRepositoryManager remoteRepositoryManager;
+
+    private final ArtifactDescriptorReader descriptorReader;
+
+    private final VersionRangeResolver versionRangeResolver;
+
+    private final CachingVersionRangeResolver cachingVersionRangeResolver;
+
+    private final DefaultDependencyDescriptorPrefetcher prefetcher;
+
+    private final AtomicReference<OpenIndex> openIndex = new AtomicReference<>();
+
+    /**
+     * Creates a builder which always collects with the repository system, ignoring
+     * {@link ConfigurationProperties#DESCRIPTOR_INDEX} and {@link ConfigurationProperties#VERSION_RANGE_CACHE}.
+     *
+     * @param repositorySystem the repository system
+     */
     public DefaultDependencyCollectorBuilder(RepositorySystem repositorySystem) {
+        this(repositorySystem, null, null, null);
+    }
+
+    /**
+     * @param repositorySystem the repository system
+     * @param remoteRepositoryManager the remote repository manager of the repository system
+     * @param descriptorReader the descriptor reader of the repository system
+     * @param versionRangeResolver the version range resolver of the repository system
+     * @since 3.3.1
+     */
+    @Inject
+    public DefaultDependencyCollectorBuilder(
+            RepositorySystem repositorySystem,
+            RemoteRepositoryManager remoteRepositoryManager,
+            ArtifactDescriptorReader descriptorReader,
+            VersionRangeResolver versionRangeResolver) {
         this.repositorySystem = repositorySystem;
+        this.remoteRepositoryManager = remoteRepositoryManager;
+        this.descriptorReader = descriptorReader;
+        this.versionRangeResolver = versionRangeResolver;
+        this.cachingVersionRangeResolver = versionRangeResolver != null
+                ? new CachingVersionRangeResolver(versionRangeResolver, VERSION_RANGE_CACHE_SIZE)
+                : null;
+        this.prefetcher = new DefaultDependencyDescriptorPrefetcher(repositorySystem);
     }
 
     @Override
     public DependencyNode collectDependencyGraph(DependencyCollectorRequest dependencyCollectorRequest)
             throws DependencyCollectorBuilderException {
-        DefaultRepositorySystemSession session = null;
+        return collect(dependencyCollectorRequest).getRoot();
+    }
+
+    @Override
+    public DependencyCollectorResult collect(DependencyCollectorRequest dependencyCollectorRequest)
+            throws DependencyCollectorBuilderException {
+        ProjectBuildingRequest buildingRequest = dependencyCollectorRequest.getBuildingRequest();
+
+        CollectionGuard guard = new CollectionGuard(dependencyCollectorRequest.getLimits());
+        DefaultRepositorySystemSession session =
+                prepareSession(buildingRequest.getRepositorySession(), dependencyCollectorRequest, guard);
         try {
-            ProjectBuildingRequest buildingRequest = dependencyCollectorRequest.getBuildingRequest();
-            MavenProject project = buildingRequest.getProject();
+            return collectProject(
+                    dependencyCollectorRequest,
+                    buildingRequest,
+                    dependencyCollectorRequest.getFilter(),
+                    session,
+                    guard,
+                    null);
+        } finally {
+            session.setReadOnly();
+        }
+    }
 
-            Artifact projectArtifact = project.getArtifact();
-            List<ArtifactRepository> remoteArtifactRepositories = project.getRemoteArtifactRepositories();
+    @Override
+    public DependencyCollectorPlan prepare(DependencyCollectorRequest template) {
+        return new DefaultDependencyCollectorPlan(this, template);
+    }
+
+    /**
+     * Copies a repository session and applies the options of a request to it.
+     */
+    static DefaultRepositorySystemSession prepareSession(
+            RepositorySystemSession repositorySession,
+            DependencyCollectorRequest dependencyCollectorRequest,
+            CollectionGuard guard) {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession(repositorySession);
+
+        if (isPerDirectDependency(dependencyCollectorRequest)) {
+            // the raw subtrees are merged (and kept for reuse), the transformation is applied afterwards
+            session.setDependencyGraphTransformer(null);
+        } else {
+            session.setDependencyGraphTransformer(
+                    guard.locating(getDependencyGraphTransformer(dependencyCollectorRequest)));
+        }
+        if (session.getCache() == null
+                && (isPerDirectDependency(dependencyCollectorRequest)
+                        || dependencyCollectorRequest.getPrefetchHints() != null)) {
+            // direct dependencies are collected separately or prefetched, share the descriptors between them
+            session.setCache(new DefaultRepositoryCache());
+        }
 
-            RepositorySystemSession repositorySession = buildingRequest.getRepositorySession();
+        session.setDependencySelector(
+                new GuardingDependencySelector(getDependencySelector(dependencyCollectorRequest), guard));
 
-            session = new DefaultRepositorySystemSession(repositorySession);
+        if (dependencyCollectorRequest.getDepth() != Integer.MAX_VALUE) {
+            session.setDependencyTraverser(new DepthLimitingDependencyTraverser(
+                    session.getDependencyTraverser(), dependencyCollectorRequest.getDepth()));
+        }
 
-            session.setDependencyGraphTransformer(dependencyCollectorRequest.getDependencyGraphTransformer());
+        for (Map.Entry<String, Object> entry :
+                dependencyCollectorRequest.getConfigProperties().entrySet()) {
+            session.setConfigProperty(entry.getKey(), entry.getValue());
+        }
+
+        SharedDescriptorCache.install(session);
+        CandidateLimitingVersionFilter.install(session);
+
+        return session;
+    }
+
+    /**
+     * Creates the dependency selector applied to requests which do not set one: like the selector of the project
+     * dependency resolver, it keeps the test and provided dependencies of the project only, drops optional transitive
+     * dependencies and applies exclusions, in a single pass.
+     *
+     * @return a new default dependency selector
+     * @since 3.3.1
+     */
+    public static DependencySelector newDependencySelector() {
+        return new DefaultCollectorDependencySelector();
+    }
+
+    /**
+     * Creates the dependency graph transformer applied to requests which do not set one: a verbose conflict resolver
+     * which records the scope each loser would have had.
+     *
+     * @return a new default dependency graph transformer
+     * @since 3.3.1
+     */
+    public static DependencyGraphTransformer newDependencyGraphTransformer() {
+        return new ConflictResolver(
+                new NearestVersionSelector(),
+                new VerboseJavaScopeSelector(),
+                new SimpleOptionalitySelector(),
+                new JavaScopeDeriver());
+    }
+
+    static DependencySelector getDependencySelector(DependencyCollectorRequest dependencyCollectorRequest) {
+        DependencySelector selector = dependencyCollectorRequest.getDependencySelector();
+        return selector != null ? selector : newDependencySelector();
+    }
 
-            session.setDependencySelector(dependencyCollectorRequest.getDependencySelector());
+    static DependencyGraphTransformer getDependencyGraphTransformer(
+            DependencyCollectorRequest dependencyCollectorRequest) {
+        DependencyGraphTransformer transformer = dependencyCollectorRequest.getDependencyGraphTransformer();
+        return transformer != null ? transformer : newDependencyGraphTransformer();
+    }
 
-            for (Map.Entry<String, Object> entry :
-                    dependencyCollectorRequest.getConfigProperties().entrySet()) {
-                session.setConfigProperty(entry.getKey(), entry.getValue());
+    /**
+     * @return the collector of the repository system, or one reading the descriptors held by the index configured in
+     *         the session and caching version ranges if the session asks for it
+     */
+    private DependencyCollector getDependencyCollector(RepositorySystemSession session) {
+        String indexFile = ConfigUtils.getString(session, null, ConfigurationProperties.DESCRIPTOR_INDEX);
+        boolean cacheRanges = ConfigUtils.getBoolean(session, false, ConfigurationProperties.VERSION_RANGE_CACHE);
+        if (indexFile == null && !cacheRanges || descriptorReader == null) {
+            return repositorySystem::collectDependencies;
+        }
+        ArtifactDescriptorReader reader = descriptorReader;
+        if (indexFile != null) {
+            try {
+                reader = new IndexedArtifactDescriptorReader(
+                        descriptorReader,
+                        getDescriptorIndex(Paths.get(indexFile).toAbsolutePath()));
+            } catch (IOException e) {
+                LOGGER.warn(
+                        "Could not open the descriptor index {}, reading descriptors from their POMs", indexFile, e);
             }
+        }
+        return new DefaultDependencyCollector()
+                .setRemoteRepositoryManager(remoteRepositoryManager)
+                .setArtifactDescriptorReader(reader)
+                .setVersionRangeResolver(cacheRanges ? cachingVersionRangeResolver : versionRangeResolver);
+    }
+
+    /**
+     * @return the index of a file, opened again if the file changed since it was last opened
+     */
+    private DescriptorIndex getDescriptorIndex(Path file) throws IOException {
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        OpenIndex current = openIndex.get();
+        if (current != null && current.file.equals(file) && current.lastModified.equals(lastModified)) {
+            return current.index;
+        }
+        // the replaced index is not closed, collections may still be reading it: the GC releases its mapping
+        OpenIndex opened = new OpenIndex(file, lastModified, DescriptorIndex.open(file));
+        openIndex.set(opened);
+        return opened.index;
+    }
+
+    private static boolean isPerDirectDependency(DependencyCollectorRequest dependencyCollectorRequest) {
+        return dependencyCollectorRequest.isIncremental() || dependencyCollectorRequest.getParallelism() > 1;
+    }
+
+    /**
+     * Collects the graph of a project with a session prepared for the request.
+     *
+     * @param dependencyCollectorRequest the options of the collection
+     * @param buildingRequest the request with the project to collect
+     * @param filter an artifact filter (can be <code>null</code>)
+     * @param session the prepared session
+     * @param guard the guard installed in the session
+     * @param plan the plan providing converted managed dependencies (can be <code>null</code>)
+     */
+    DependencyCollectorResult collectProject(
+            DependencyCollectorRequest dependencyCollectorRequest,
+            ProjectBuildingRequest buildingRequest,
+            ArtifactFilter filter,
+            RepositorySystemSession session,
+            CollectionGuard guard,
+            DefaultDependencyCollectorPlan plan)
+            throws DependencyCollectorBuilderException {
+        ExecutorService executor = null;
+        try {
+            MavenProject project = buildingRequest.getProject();
+
+            Artifact projectArtifact = project.getArtifact();
+            List<ArtifactRepository> remoteArtifactRepositories = project.getRemoteArtifactRepositories();
 
             org.eclipse.aether.artifact.Artifact aetherArtifact = RepositoryUtils.toArtifact(projectArtifact);
 
@@ -105,22 +347,93 @@ public class DefaultDependencyCollectorBuilder implements DependencyCollectorBui
 
             org.eclipse.aether.artifact.ArtifactTypeRegistry stereotypes = session.getArtifactTypeRegistry();
             collectDependencyList(collectRequest, project, stereotypes);
-            collectManagedDependencyList(collectRequest, project, stereotypes);
+            if (plan != null) {
+                collectRequest.setManagedDependencies(plan.getManagedDependencies(session, project));
+            } else {
+                collectManagedDependencyList(collectRequest, project, stereotypes);
+            }
 
-            CollectResult collectResult = repositorySystem.collectDependencies(session, collectRequest);
+            if (dependencyCollectorRequest.getPrefetchHints() != null) {
+                prefetcher.prefetch(
+                        session,
+                        aetherRepos,
+                        dependencyCollectorRequest.getPrefetchHints(),
+                        ConfigUtils.getInteger(
+                                session,
+                                ConfigurationProperties.DEFAULT_PREFETCH_THREADS,
+                                ConfigurationProperties.PREFETCH_THREADS));
+            }
 
-            org.eclipse.aether.graph.DependencyNode rootNode = collectResult.getRoot();
+            org.eclipse.aether.graph.DependencyNode rootNode;
+            DirectDependencyCollector.CollectionState state = null;
+            if (isPerDirectDependency(dependencyCollectorRequest)) {
+                int threads = Math.min(
+                        dependencyCollectorRequest.getParallelism(),
+                        collectRequest.getDependencies().size());
+                if (threads > 1) {
+                    executor = CollectorExecutors.newExecutor(threads, "dependency-collector");
+                }
+                // a plan shares its request between projects, so it never keeps an incremental state
+                IncrementalCollectionState kept = dependencyCollectorRequest.isIncremental() && plan == null
+                        ? dependencyCollectorRequest.getIncrementalState()
+                        : null;
+                DirectDependencyCollector.CollectionState previous =
+                        kept instanceof DirectDependencyCollector.CollectionState
+                                ? (DirectDependencyCollector.CollectionState) kept
+                                : null;
+                DirectDependencyCollector directDependencyCollector =
+                        new DirectDependencyCollector(getDependencyCollector(session));
+                state = directDependencyCollector.collect(session, collectRequest, previous, executor);
+                rootNode = directDependencyCollector.transform(
+                        session, state, guard.locating(getDependencyGraphTransformer(dependencyCollectorRequest)));
+            } else {
+                CollectResult collectResult =
+                        getDependencyCollector(session).collectDependencies(session, collectRequest);
+                rootNode = collectResult.getRoot();
+                SharedDescriptorCache.checkUsed(session);
+            }
 
             if (LOGGER.isDebugEnabled()) {
                 logTree(rootNode);
             }
 
-            return buildDependencyNode(null, rootNode, projectArtifact, dependencyCollectorRequest.getFilter());
+            if (Thread.currentThread().isInterrupted()) {
+                throw new DependencyCollectorBuilderException(
+                        "Interrupted while collecting dependencies", new InterruptedException());
+            }
+
+            guard.check();
+
+            DependencyNode graph;
+            if (ConfigUtils.getBoolean(session, false, ConfigurationProperties.IMMUTABLE_NODES)) {
+                graph = ImmutableDependencyNode.build(
+                        buildImmutableNode(
+                                rootNode, projectArtifact, filter, guard, dependencyCollectorRequest.isLeanVerbose()),
+                        dependencyCollectorRequest.getListener());
+            } else {
+                graph = buildDependencyNode(
+                        rootNode,
+                        projectArtifact,
+                        filter,
+                        guard,
+                        dependencyCollectorRequest.isLeanVerbose(),
+                        ConfigUtils.getBoolean(session, false, ConfigurationProperties.LAZY_ARTIFACTS),
+                        dependencyCollectorRequest.getListener());
+            }
+            return new DependencyCollectorResult(
+                    graph, dependencyCollectorRequest.isIncremental() && plan == null ? state : null);
         } catch (DependencyCollectionException e) {
             throw new DependencyCollectorBuilderException("Could not collect dependencies: " + e.getResult(), e);
+        } catch (RepositoryException e) {
+            throw new DependencyCollectorBuilderException("Could not resolve dependency conflicts", e);
+        } catch (CollectionLimitExceededException e) {
+            throw new DependencyCollectorBuilderException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyCollectorBuilderException("Interrupted while collecting dependencies", e);
         } finally {
-            if (session != null) {
-                session.setReadOnly();
+            if (executor != null) {
+                executor.shutdownNow();
             }
         }
     }
@@ -165,21 +478,67 @@ public class DefaultDependencyCollectorBuilder implements DependencyCollectorBui
         }
     }
 
-    private Artifact getDependencyArtifact(org.eclipse.aether.graph.Dependency dep) {
-        org.eclipse.aether.artifact.Artifact artifact = dep.getArtifact();
-
-        Artifact mavenArtifact = RepositoryUtils.toArtifact(artifact);
-        mavenArtifact.setScope(dep.getScope());
-        mavenArtifact.setOptional(dep.isOptional());
+    /**
+     * Converts the collected graph without recursion. Each node gets its fingerprint as soon as its children are
+     * converted, so computing it only hashes the node itself, and is then emitted complete.
+     */
+    private DependencyNode buildDependencyNode(
+            org.eclipse.aether.graph.DependencyNode root,
+            Artifact rootArtifact,
+            ArtifactFilter filter,
+            CollectionGuard guard,
+            boolean leanVerbose,
+            boolean lazyArtifacts,
+            DependencyNodeListener listener) {
+        VerboseDependencyNode rootNode = newDependencyNode(null, root, rootArtifact, guard, leanVerbose);
+        Deque<NodeConversion<VerboseDependencyNode>> stack = new ArrayDeque<>();
+        stack.push(new NodeConversion<>(root, rootNode, !isLoserStub(root, leanVerbose)));
+        while (!stack.isEmpty()) {
+            NodeConversion<VerboseDependencyNode> conversion = stack.peek();
+            org.eclipse.aether.graph.DependencyNode child = conversion.nextChild();
+            if (child != null) {
+                // the artifact is only needed up front to filter the child
+                Artifact childArtifact = filter != null || !lazyArtifacts
+                        ? DefaultDependencyNode.toArtifact(child.getDependency())
+                        : null;
+
+                if ((filter == null) || filter.include(childArtifact)) {
+                    VerboseDependencyNode childNode =
+                            newDependencyNode(conversion.getConverted(), child, childArtifact, guard, leanVerbose);
+                    conversion.getChildren().add(childNode);
+                    stack.push(new NodeConversion<>(child, childNode, !isLoserStub(child, leanVerbose)));
+                }
+            } else {
+                stack.pop();
+                VerboseDependencyNode current = conversion.getConverted();
+                current.setChildren(Collections.unmodifiableList(conversion.getChildren()));
+                current.getFingerprint();
+                if (listener != null) {
+                    listener.nodeConverted(current);
+                }
+            }
+        }
+        return rootNode;
+    }
 
-        return mavenArtifact;
+    /**
+     * @return {@code true} if the node lost a conflict and is kept as a stub without children in a lean verbose graph
+     */
+    private static boolean isLoserStub(org.eclipse.aether.graph.DependencyNode node, boolean leanVerbose) {
+        return leanVerbose && node.getData().get(ConflictResolver.NODE_DATA_WINNER) != null;
     }
 
-    private DependencyNode buildDependencyNode(
+    /**
+     * Converts a node of the resolver, without its children.
+     *
+     * @param artifact the artifact of the node, {@code null} to create it lazily from the dependency of the node
+     */
+    private VerboseDependencyNode newDependencyNode(
             DependencyNode parent,
             org.eclipse.aether.graph.DependencyNode node,
             Artifact artifact,
-            ArtifactFilter filter) {
+            CollectionGuard guard,
+            boolean leanVerbose) {
         String premanagedVersion = DependencyManagerUtils.getPremanagedVersion(node);
         String premanagedScope = DependencyManagerUtils.getPremanagedScope(node);
 
@@ -188,51 +547,97 @@ public class DefaultDependencyCollectorBuilder implements DependencyCollectorBui
             optional = node.getDependency().isOptional();
         }
 
-        List<org.apache.maven.model.Exclusion> exclusions = null;
-        if (node.getDependency() != null) {
-            exclusions = new ArrayList<>(node.getDependency().getExclusions().size());
-            for (Exclusion exclusion : node.getDependency().getExclusions()) {
-                org.apache.maven.model.Exclusion modelExclusion = new org.apache.maven.model.Exclusion();
-                modelExclusion.setGroupId(exclusion.getGroupId());
-                modelExclusion.setArtifactId(exclusion.getArtifactId());
-                exclusions.add(modelExclusion);
-            }
-        }
-
-        org.eclipse.aether.graph.DependencyNode winner =
-                (org.eclipse.aether.graph.DependencyNode) node.getData().get(ConflictResolver.NODE_DATA_WINNER);
-        String winnerVersion = null;
-        String ignoredScope = null;
-        if (winner != null) {
-            winnerVersion = winner.getArtifact().getBaseVersion();
-        } else {
-            ignoredScope = (String) node.getData().get(VerboseJavaScopeSelector.REDUCED_SCOPE);
-        }
-
-        ConflictData data = new ConflictData(winnerVersion, ignoredScope);
+        List<org.apache.maven.model.Exclusion> exclusions = getExclusions(node);
 
         VerboseDependencyNode current = new VerboseDependencyNode(
                 parent,
                 artifact,
+                node.getDependency(),
                 premanagedVersion,
                 premanagedScope,
                 getVersionSelectedFromRange(node.getVersionConstraint()),
                 optional,
                 exclusions,
-                data);
-
-        List<DependencyNode> nodes = new ArrayList<>(node.getChildren().size());
-        for (org.eclipse.aether.graph.DependencyNode child : node.getChildren()) {
-            Artifact childArtifact = getDependencyArtifact(child.getDependency());
+                getConflictData(node));
+        if (!isLoserStub(node, leanVerbose)) {
+            // a loser stub keeps its own data, only its children are never converted
+            current.setTruncated(guard.isTruncated(node));
+        }
+        return current;
+    }
 
+    /**
+     * Converts the collected graph into builders of immutable nodes without recursion, with the same content as
+     * {@link #buildDependencyNode}. Immutable nodes always hold their artifact, so it is never created lazily.
+     */
+    private ImmutableDependencyNode.Builder buildImmutableNode(
+            org.eclipse.aether.graph.DependencyNode root,
+            Artifact rootArtifact,
+            ArtifactFilter filter,
+            CollectionGuard guard,
+            boolean leanVerbose) {
+        ImmutableDependencyNode.Builder rootBuilder = newImmutableNode(root, rootArtifact, guard, leanVerbose);
+        Deque<NodeConversion<ImmutableDependencyNode.Builder>> stack = new ArrayDeque<>();
+        stack.push(new NodeConversion<>(root, rootBuilder, !isLoserStub(root, leanVerbose)));
+        while (!stack.isEmpty()) {
+            NodeConversion<ImmutableDependencyNode.Builder> conversion = stack.peek();
+            org.eclipse.aether.graph.DependencyNode child = conversion.nextChild();
+            if (child == null) {
+                stack.pop();
+                continue;
+            }
+            Artifact childArtifact = DefaultDependencyNode.toArtifact(child.getDependency());
             if ((filter == null) || filter.include(childArtifact)) {
-                nodes.add(buildDependencyNode(current, child, childArtifact, filter));
+                ImmutableDependencyNode.Builder childBuilder =
+                        newImmutableNode(child, childArtifact, guard, leanVerbose);
+                conversion.getConverted().addChild(childBuilder);
+                stack.push(new NodeConversion<>(child, childBuilder, !isLoserStub(child, leanVerbose)));
             }
         }
+        return rootBuilder;
+    }
 
-        current.setChildren(Collections.unmodifiableList(nodes));
+    private ImmutableDependencyNode.Builder newImmutableNode(
+            org.eclipse.aether.graph.DependencyNode node,
+            Artifact artifact,
+            CollectionGuard guard,
+            boolean leanVerbose) {
+        ImmutableDependencyNode.Builder builder = ImmutableDependencyNode.builder(artifact)
+                .premanagedVersion(DependencyManagerUtils.getPremanagedVersion(node))
+                .premanagedScope(DependencyManagerUtils.getPremanagedScope(node))
+                .versionConstraint(getVersionSelectedFromRange(node.getVersionConstraint()))
+                .optional(node.getDependency() != null ? node.getDependency().isOptional() : null)
+                .exclusions(getExclusions(node))
+                .conflictData(getConflictData(node));
+        if (!isLoserStub(node, leanVerbose)) {
+            // a loser stub keeps its own data, only its children are never converted
+            builder.truncated(guard.isTruncated(node));
+        }
+        return builder;
+    }
 
-        return current;
+    private static List<org.apache.maven.model.Exclusion> getExclusions(org.eclipse.aether.graph.DependencyNode node) {
+        if (node.getDependency() == null) {
+            return null;
+        }
+        List<org.apache.maven.model.Exclusion> exclusions =
+                new ArrayList<>(node.getDependency().getExclusions().size());
+        for (Exclusion exclusion : node.getDependency().getExclusions()) {
+            org.apache.maven.model.Exclusion modelExclusion = new org.apache.maven.model.Exclusion();
+            modelExclusion.setGroupId(exclusion.getGroupId());
+            modelExclusion.setArtifactId(exclusion.getArtifactId());
+            exclusions.add(modelExclusion);
+        }
+        return exclusions;
+    }
+
+    private static ConflictData getConflictData(org.eclipse.aether.graph.DependencyNode node) {
+        org.eclipse.aether.graph.DependencyNode winner =
+                (org.eclipse.aether.graph.DependencyNode) node.getData().get(ConflictResolver.NODE_DATA_WINNER);
+        if (winner != null) {
+            return new ConflictData(winner.getArtifact().getBaseVersion(), null);
+        }
+        return new ConflictData(null, (String) node.getData().get(VerboseJavaScopeSelector.REDUCED_SCOPE));
     }
 
     private String getVersionSelectedFromRange(VersionConstraint constraint) {
@@ -242,4 +647,18 @@ public class DefaultDependencyCollectorBuilder implements DependencyCollectorBui
 
         return constraint.getRange().toString();
     }
+
+    private static final class OpenIndex {
+        private final Path file;
+
+        private final FileTime lastModified;
+
+        private final DescriptorIndex index;
+
+        OpenIndex(Path file, FileTime lastModified, DescriptorIndex index) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.index = index;
+        }
+    }
 }
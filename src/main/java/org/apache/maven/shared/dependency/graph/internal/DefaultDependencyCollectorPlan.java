@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.CollectionLimits;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilderException;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorPlan;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorRequest;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+
+/**
+ * The plan of {@link DefaultDependencyCollectorBuilder}. It keeps the session prepared for the last repository
+ * session it was used with, which is the one of every module in a reactor build, along with the managed dependencies
+ * of the template project converted with that session.
+ */
+final class DefaultDependencyCollectorPlan implements DependencyCollectorPlan {
+    private final DefaultDependencyCollectorBuilder builder;
+
+    private final DependencyCollectorRequest options;
+
+    private final List<Dependency> sharedManagedDependencies;
+
+    private final AtomicReference<Prepared> prepared = new AtomicReference<>();
+
+    DefaultDependencyCollectorPlan(DefaultDependencyCollectorBuilder builder, DependencyCollectorRequest template) {
+        this.builder = builder;
+        this.options = template.forProject(template.getBuildingRequest(), template.getFilter());
+
+        DependencyManagement dependencyManagement =
+                template.getBuildingRequest().getProject().getDependencyManagement();
+        this.sharedManagedDependencies = dependencyManagement != null
+                ? new ArrayList<>(dependencyManagement.getDependencies())
+                : Collections.emptyList();
+
+        prepared(template.getBuildingRequest().getRepositorySession());
+    }
+
+    @Override
+    public DependencyNode collectDependencyGraph(ProjectBuildingRequest buildingRequest, ArtifactFilter filter)
+            throws DependencyCollectorBuilderException {
+        Prepared current = prepared(buildingRequest.getRepositorySession());
+
+        RepositorySystemSession session = current.session;
+        CollectionGuard guard = current.guard;
+        CollectionLimits limits = options.getLimits();
+        if (limits != null && limits.isLimited()) {
+            // limits are counted per collection
+            guard = new CollectionGuard(limits);
+            DefaultRepositorySystemSession limited = new DefaultRepositorySystemSession(current.session);
+            limited.setDependencySelector(new GuardingDependencySelector(
+                    DefaultDependencyCollectorBuilder.getDependencySelector(options), guard));
+            limited.setReadOnly();
+            session = limited;
+        }
+
+        return builder.collectProject(options, buildingRequest, filter, session, guard, this)
+                .getRoot();
+    }
+
+    /**
+     * Converts the managed dependencies of a project, reusing the conversion of the template project's entries which
+     * are managed the same way.
+     */
+    List<org.eclipse.aether.graph.Dependency> getManagedDependencies(
+            RepositorySystemSession session, MavenProject project) {
+        DependencyManagement dependencyManagement = project.getDependencyManagement();
+        if (dependencyManagement == null) {
+            return Collections.emptyList();
+        }
+
+        Prepared current = prepared.get();
+        Map<String, ManagedDependency> shared =
+                current != null && current.session.getArtifactTypeRegistry() == session.getArtifactTypeRegistry()
+                        ? current.managedDependencies
+                        : Collections.emptyMap();
+
+        List<org.eclipse.aether.graph.Dependency> result =
+                new ArrayList<>(dependencyManagement.getDependencies().size());
+        for (Dependency dependency : dependencyManagement.getDependencies()) {
+            ManagedDependency managed = shared.get(dependency.getManagementKey());
+            if (managed != null && managed.isManagedAs(dependency)) {
+                result.add(managed.converted);
+            } else {
+                result.add(RepositoryUtils.toDependency(dependency, session.getArtifactTypeRegistry()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the session prepared for a repository session, preparing it again when the plan is used with another
+     * repository session. Concurrent threads using different sessions may prepare one more than once, but each gets a
+     * session prepared for its own.
+     */
+    private Prepared prepared(RepositorySystemSession repositorySession) {
+        return prepared.updateAndGet(current -> current != null && current.repositorySession == repositorySession
+                ? current
+                : new Prepared(repositorySession));
+    }
+
+    /**
+     * The session prepared for a repository session.
+     */
+    private final class Prepared {
+        private final RepositorySystemSession repositorySession;
+
+        private final CollectionGuard guard = new CollectionGuard(null);
+
+        private final DefaultRepositorySystemSession session;
+
+        private final Map<String, ManagedDependency> managedDependencies;
+
+        Prepared(RepositorySystemSession repositorySession) {
+            this.repositorySession = repositorySession;
+
+            session = DefaultDependencyCollectorBuilder.prepareSession(repositorySession, options, guard);
+            session.setReadOnly();
+
+            ArtifactTypeRegistry stereotypes = session.getArtifactTypeRegistry();
+            Map<String, ManagedDependency> converted = new HashMap<>();
+            for (Dependency dependency : sharedManagedDependencies) {
+                converted.put(dependency.getManagementKey(), new ManagedDependency(dependency, stereotypes));
+            }
+            managedDependencies = converted;
+        }
+    }
+
+    /**
+     * A managed dependency of the template project and its conversion.
+     */
+    private static final class ManagedDependency {
+        private final Dependency dependency;
+
+        private final org.eclipse.aether.graph.Dependency converted;
+
+        ManagedDependency(Dependency dependency, ArtifactTypeRegistry stereotypes) {
+            this.dependency = dependency;
+            this.converted = RepositoryUtils.toDependency(dependency, stereotypes);
+        }
+
+        /**
+         * @return {@code true} if the other dependency, with the same management key, converts the same way
+         */
+        boolean isManagedAs(Dependency other) {
+            if (other == dependency) {
+                return true;
+            }
+            if (!Objects.equals(dependency.getVersion(), other.getVersion())
+                    || !Objects.equals(dependency.getScope(), other.getScope())
+                    || !Objects.equals(dependency.getOptional(), other.getOptional())
+                    || !Objects.equals(dependency.getSystemPath(), other.getSystemPath())
+                    || dependency.getExclusions().size()
+                            != other.getExclusions().size()) {
+                return false;
+            }
+            for (int i = 0; i < dependency.getExclusions().size(); i++) {
+                Exclusion exclusion = dependency.getExclusions().get(i);
+                Exclusion otherExclusion = other.getExclusions().get(i);
+                if (!Objects.equals(exclusion.getGroupId(), otherExclusion.getGroupId())
+                        || !Objects.equals(exclusion.getArtifactId(), otherExclusion.getArtifactId())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.DependencyDescriptorPrefetcher;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of the {@link DependencyDescriptorPrefetcher}, reading descriptors through the repository
+ * system.
+ *
+ * @since 3.3.1
+ */
+@Named
+public class DefaultDependencyDescriptorPrefetcher implements DependencyDescriptorPrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDependencyDescriptorPrefetcher.class);
+
+    private static final String REQUEST_CONTEXT = "prefetch";
+
+    private final RepositorySystem repositorySystem;
+
+    @Inject
+    public DefaultDependencyDescriptorPrefetcher(RepositorySystem repositorySystem) {
+        this.repositorySystem = repositorySystem;
+    }
+
+    @Override
+    public int prefetch(ProjectBuildingRequest buildingRequest, Collection<? extends Artifact> hints, int parallelism)
+            throws InterruptedException {
+        Objects.requireNonNull(buildingRequest, "ProjectBuildingRequest cannot be null");
+        MavenProject project = buildingRequest.getProject();
+        List<RemoteRepository> repositories = RepositoryUtils.toRepos(
+                project != null ? project.getRemoteArtifactRepositories() : buildingRequest.getRemoteRepositories());
+        return prefetch(buildingRequest.getRepositorySession(), repositories, hints, parallelism);
+    }
+
+    /**
+     * Reads the descriptors of the hinted artifacts with a repository session.
+     */
+    int prefetch(
+            RepositorySystemSession session,
+            List<RemoteRepository> repositories,
+            Collection<? extends Artifact> hints,
+            int parallelism)
+            throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+
+        Set<org.eclipse.aether.artifact.Artifact> artifacts = new LinkedHashSet<>();
+        for (Artifact hint : hints) {
+            // artifacts of an unresolved range cannot be hinted, the collection has to pick their version first
+            if (hint.getVersion() != null) {
+                artifacts.add(RepositoryUtils.toArtifact(hint).setFile(null));
+            }
+        }
+        if (artifacts.isEmpty()) {
+            return 0;
+        }
+
+        ExecutorService executor =
+                CollectorExecutors.newExecutor(Math.min(parallelism, artifacts.size()), "dependency-prefetcher");
+        try {
+            List<Future<Boolean>> reads = new ArrayList<>(artifacts.size());
+            for (org.eclipse.aether.artifact.Artifact artifact : artifacts) {
+                reads.add(executor.submit(() -> read(session, repositories, artifact)));
+            }
+
+            int read = 0;
+            for (Future<Boolean> future : reads) {
+                try {
+                    if (future.get()) {
+                        read++;
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.debug("Could not prefetch a descriptor", e.getCause());
+                }
+            }
+            return read;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean read(
+            RepositorySystemSession session,
+            List<RemoteRepository> repositories,
+            org.eclipse.aether.artifact.Artifact artifact) {
+        try {
+            repositorySystem.readArtifactDescriptor(
+                    session, new ArtifactDescriptorRequest(artifact, repositories, REQUEST_CONTEXT));
+            return true;
+        } catch (ArtifactDescriptorException e) {
+            // a stale hint, the collection reads whatever it actually needs
+            LOGGER.debug("Could not prefetch the descriptor of {}: {}", artifact, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -21,28 +21,41 @@ package org.apache.maven.shared.dependency.graph.internal;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.DependencyResolutionException;
 import org.apache.maven.project.DependencyResolutionRequest;
 import org.apache.maven.project.DependencyResolutionResult;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingRequest;
 import org.apache.maven.project.ProjectDependenciesResolver;
+import org.apache.maven.shared.dependency.graph.CollectionLimitExceededException;
+import org.apache.maven.shared.dependency.graph.CollectionLimits;
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.apache.maven.shared.dependency.graph.DependencyDescriptorPrefetcher;
 import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
 import org.apache.maven.shared.dependency.graph.DependencyGraphBuilderException;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.DependencyNodeListener;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystemSession;
-import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.util.ConfigUtils;
 import org.eclipse.aether.util.graph.manager.DependencyManagerUtils;
 import org.eclipse.aether.version.VersionConstraint;
 
@@ -59,9 +72,22 @@ import static org.eclipse.aether.util.graph.manager.DependencyManagerUtils.NODE_
 public class DefaultDependencyGraphBuilder implements DependencyGraphBuilder {
     private final ProjectDependenciesResolver resolver;
 
-    @Inject
+    private final DependencyDescriptorPrefetcher prefetcher;
+
     public DefaultDependencyGraphBuilder(ProjectDependenciesResolver resolver) {
+        this(resolver, null);
+    }
+
+    /**
+     * @param resolver the project dependencies resolver
+     * @param prefetcher the prefetcher of the hinted descriptors (can be <code>null</code> to ignore hints)
+     * @since 3.3.1
+     */
+    @Inject
+    public DefaultDependencyGraphBuilder(
+            ProjectDependenciesResolver resolver, DependencyDescriptorPrefetcher prefetcher) {
         this.resolver = resolver;
+        this.prefetcher = prefetcher;
     }
 
     /**
@@ -75,16 +101,166 @@ public class DefaultDependencyGraphBuilder implements DependencyGraphBuilder {
     @Override
     public DependencyNode buildDependencyGraph(ProjectBuildingRequest buildingRequest, ArtifactFilter filter)
             throws DependencyGraphBuilderException {
+        return buildDependencyGraphWithLimits(buildingRequest, filter, null);
+    }
+
+    /**
+     * Builds the dependency graph for Maven 3.1+, within the specified limits.
+     *
+     * @param buildingRequest the buildingRequest
+     * @param filter artifact filter (can be <code>null</code>)
+     * @param limits the collection limits (can be <code>null</code>)
+     * @return DependencyNode containing the dependency graph.
+     * @throws DependencyGraphBuilderException if some of the dependencies could not be resolved, or if a limit was hit
+     *         and the limits are configured to fail.
+     * @since 3.3.1
+     */
+    @Override
+    public DependencyNode buildDependencyGraphWithLimits(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, CollectionLimits limits)
+            throws DependencyGraphBuilderException {
+        return build(buildingRequest, filter, new CollectionGuard(limits, false));
+    }
+
+    /**
+     * Stops expanding the graph once the future is cancelled, which a synchronous build does not pay for.
+     *
+     * @since 3.3.1
+     */
+    @Override
+    public CompletableFuture<DependencyNode> buildDependencyGraphAsync(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, Executor executor) {
+        DependencyGraphBuilder interruptible =
+                (request, requestFilter) -> build(request, requestFilter, new CollectionGuard(null, true));
+        return interruptible.buildDependencyGraphAsync(buildingRequest, filter, executor);
+    }
+
+    private DependencyNode build(ProjectBuildingRequest buildingRequest, ArtifactFilter filter, CollectionGuard guard)
+            throws DependencyGraphBuilderException {
+        org.eclipse.aether.graph.DependencyNode graph = resolveDependencyGraph(buildingRequest, guard, null);
+        return convert(buildingRequest, graph, filter, guard, null);
+    }
+
+    /**
+     * Prefetches the hinted descriptors with the session the dependencies are then resolved with.
+     *
+     * @since 3.3.1
+     */
+    @Override
+    public DependencyNode buildDependencyGraphWithPrefetch(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, Collection<? extends Artifact> prefetchHints)
+            throws DependencyGraphBuilderException {
+        CollectionGuard guard = new CollectionGuard(null, false);
+        org.eclipse.aether.graph.DependencyNode graph = resolveDependencyGraph(buildingRequest, guard, prefetchHints);
+        return convert(buildingRequest, graph, filter, guard, null);
+    }
+
+    /**
+     * Resolves the dependencies once and converts the resolved graph for each filter, which gives the same graphs as
+     * separate {@link #buildDependencyGraph(ProjectBuildingRequest, ArtifactFilter)} calls since filters only apply to
+     * the conversion.
+     *
+     * @since 3.3.1
+     */
+    @Override
+    public <K> Map<K, DependencyNode> buildDependencyGraphs(
+            ProjectBuildingRequest buildingRequest, Map<K, ? extends ArtifactFilter> filters)
+            throws DependencyGraphBuilderException {
+        CollectionGuard guard = new CollectionGuard(null, false);
+        org.eclipse.aether.graph.DependencyNode graph = resolveDependencyGraph(buildingRequest, guard, null);
+
+        Map<K, DependencyNode> graphs = new LinkedHashMap<>();
+        for (Map.Entry<K, ? extends ArtifactFilter> entry : filters.entrySet()) {
+            graphs.put(entry.getKey(), convert(buildingRequest, graph, entry.getValue(), guard, null));
+        }
+        return graphs;
+    }
+
+    /**
+     * Emits every node as soon as it is converted, before its children, once the project dependencies resolver has
+     * returned the whole graph.
+     *
+     * @since 3.3.1
+     */
+    @Override
+    public DependencyNode streamDependencyGraph(
+            ProjectBuildingRequest buildingRequest, ArtifactFilter filter, DependencyNodeListener listener)
+            throws DependencyGraphBuilderException {
+        CollectionGuard guard = new CollectionGuard(null, false);
+        org.eclipse.aether.graph.DependencyNode graph = resolveDependencyGraph(buildingRequest, guard, null);
+        return convert(buildingRequest, graph, filter, guard, listener);
+    }
+
+    /**
+     * Converts the resolved graph with the node options of the repository session.
+     */
+    private DependencyNode convert(
+            ProjectBuildingRequest buildingRequest,
+            org.eclipse.aether.graph.DependencyNode graph,
+            ArtifactFilter filter,
+            CollectionGuard guard,
+            DependencyNodeListener listener) {
+        RepositorySystemSession session = buildingRequest.getRepositorySession();
+        if (ConfigUtils.getBoolean(session, false, ConfigurationProperties.IMMUTABLE_NODES)) {
+            return ImmutableDependencyNode.build(
+                    buildImmutableNode(graph, buildingRequest.getProject().getArtifact(), filter, guard), listener);
+        }
+        return buildDependencyNode(
+                graph,
+                buildingRequest.getProject().getArtifact(),
+                filter,
+                guard,
+                ConfigUtils.getBoolean(session, false, ConfigurationProperties.LAZY_ARTIFACTS),
+                listener);
+    }
+
+    private org.eclipse.aether.graph.DependencyNode resolveDependencyGraph(
+            ProjectBuildingRequest buildingRequest, CollectionGuard guard, Collection<? extends Artifact> prefetchHints)
+            throws DependencyGraphBuilderException {
         MavenProject project = buildingRequest.getProject();
 
         RepositorySystemSession session = buildingRequest.getRepositorySession();
 
-        if (Boolean.TRUE != session.getConfigProperties().get(NODE_DATA_PREMANAGED_VERSION)) {
+        boolean prefetch = prefetchHints != null && prefetcher != null;
+        if (Boolean.TRUE != session.getConfigProperties().get(NODE_DATA_PREMANAGED_VERSION)
+                || guard.isInEffect()
+                || (prefetch && session.getCache() == null)
+                || SharedDescriptorCache.isRequested(session)
+                || CandidateLimitingVersionFilter.isRequested(session)) {
             DefaultRepositorySystemSession newSession = new DefaultRepositorySystemSession(session);
             newSession.setConfigProperty(NODE_DATA_PREMANAGED_VERSION, true);
+            if (guard.isInEffect()) {
+                // stop expanding the graph as soon as the building thread gets interrupted or a limit is hit
+                newSession.setDependencySelector(
+                        new GuardingDependencySelector(session.getDependencySelector(), guard));
+                newSession.setDependencyGraphTransformer(guard.locating(session.getDependencyGraphTransformer()));
+            }
+            if (prefetch && newSession.getCache() == null) {
+                // the prefetched models are only found again through the cache of the session
+                newSession.setCache(new DefaultRepositoryCache());
+            }
+            SharedDescriptorCache.install(newSession);
+            CandidateLimitingVersionFilter.install(newSession);
             session = newSession;
         }
 
+        if (prefetch) {
+            ProjectBuildingRequest prefetchRequest = new DefaultProjectBuildingRequest(buildingRequest);
+            prefetchRequest.setRepositorySession(session);
+            try {
+                prefetcher.prefetch(
+                        prefetchRequest,
+                        prefetchHints,
+                        ConfigUtils.getInteger(
+                                session,
+                                ConfigurationProperties.DEFAULT_PREFETCH_THREADS,
+                                ConfigurationProperties.PREFETCH_THREADS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DependencyGraphBuilderException("Interrupted while prefetching descriptors", e);
+            }
+        }
+
         final DependencyResolutionRequest request = new DefaultDependencyResolutionRequest();
         request.setMavenProject(project);
         request.setRepositorySession(session);
@@ -93,10 +269,20 @@ public class DefaultDependencyGraphBuilder implements DependencyGraphBuilder {
         request.setResolutionFilter(collectFilter);
 
         final DependencyResolutionResult result = resolveDependencies(request);
+        SharedDescriptorCache.checkUsed(session);
 
-        org.eclipse.aether.graph.DependencyNode graph = result.getDependencyGraph();
+        if (Thread.currentThread().isInterrupted()) {
+            throw new DependencyGraphBuilderException(
+                    "Interrupted while resolving dependencies", new InterruptedException());
+        }
 
-        return buildDependencyNode(null, graph, project.getArtifact(), filter);
+        try {
+            guard.check();
+        } catch (CollectionLimitExceededException e) {
+            throw new DependencyGraphBuilderException(e.getMessage(), e);
+        }
+
+        return result.getDependencyGraph();
     }
 
     private DependencyResolutionResult resolveDependencies(DependencyResolutionRequest request)
@@ -109,58 +295,130 @@ public class DefaultDependencyGraphBuilder implements DependencyGraphBuilder {
         }
     }
 
-    private Artifact getDependencyArtifact(Dependency dep) {
-        org.eclipse.aether.artifact.Artifact artifact = dep.getArtifact();
-
-        Artifact mavenArtifact = RepositoryUtils.toArtifact(artifact);
-
-        mavenArtifact.setScope(dep.getScope());
-        mavenArtifact.setOptional(dep.isOptional());
+    /**
+     * Converts the resolved graph without recursion. Each node gets its fingerprint as soon as its children are
+     * converted, so computing it only hashes the node itself, and is then emitted complete.
+     */
+    private DependencyNode buildDependencyNode(
+            org.eclipse.aether.graph.DependencyNode root,
+            Artifact rootArtifact,
+            ArtifactFilter filter,
+            CollectionGuard guard,
+            boolean lazyArtifacts,
+            DependencyNodeListener listener) {
+        DefaultDependencyNode rootNode = newDependencyNode(null, root, rootArtifact, guard);
+        Deque<NodeConversion<DefaultDependencyNode>> stack = new ArrayDeque<>();
+        stack.push(new NodeConversion<>(root, rootNode, true));
+        while (!stack.isEmpty()) {
+            NodeConversion<DefaultDependencyNode> conversion = stack.peek();
+            org.eclipse.aether.graph.DependencyNode child = conversion.nextChild();
+            if (child != null) {
+                // the artifact is only needed up front to filter the child
+                Artifact childArtifact = filter != null || !lazyArtifacts
+                        ? DefaultDependencyNode.toArtifact(child.getDependency())
+                        : null;
 
-        return mavenArtifact;
+                if ((filter == null) || filter.include(childArtifact)) {
+                    DefaultDependencyNode childNode =
+                            newDependencyNode(conversion.getConverted(), child, childArtifact, guard);
+                    conversion.getChildren().add(childNode);
+                    stack.push(new NodeConversion<>(child, childNode, true));
+                }
+            } else {
+                stack.pop();
+                DefaultDependencyNode current = conversion.getConverted();
+                current.setChildren(Collections.unmodifiableList(conversion.getChildren()));
+                current.getFingerprint();
+                if (listener != null) {
+                    listener.nodeConverted(current);
+                }
+            }
+        }
+        return rootNode;
     }
 
-    private DependencyNode buildDependencyNode(
+    /**
+     * Converts a node of the resolver, without its children.
+     *
+     * @param artifact the artifact of the node, {@code null} to create it lazily from the dependency of the node
+     */
+    private DefaultDependencyNode newDependencyNode(
             DependencyNode parent,
             org.eclipse.aether.graph.DependencyNode node,
             Artifact artifact,
-            ArtifactFilter filter) {
+            CollectionGuard guard) {
         String premanagedVersion = DependencyManagerUtils.getPremanagedVersion(node);
         String premanagedScope = DependencyManagerUtils.getPremanagedScope(node);
 
-        List<org.apache.maven.model.Exclusion> exclusions = null;
-        Boolean optional = artifact.isOptional();
-        if (node.getDependency() != null) {
-            exclusions = new ArrayList<>(node.getDependency().getExclusions().size());
-            for (Exclusion exclusion : node.getDependency().getExclusions()) {
-                org.apache.maven.model.Exclusion modelExclusion = new org.apache.maven.model.Exclusion();
-                modelExclusion.setGroupId(exclusion.getGroupId());
-                modelExclusion.setArtifactId(exclusion.getArtifactId());
-                exclusions.add(modelExclusion);
-            }
-        }
+        List<org.apache.maven.model.Exclusion> exclusions = getExclusions(node);
+        Boolean optional = node.getDependency() != null ? node.getDependency().isOptional() : artifact.isOptional();
 
         DefaultDependencyNode current = new DefaultDependencyNode(
                 parent,
                 artifact,
+                node.getDependency(),
                 premanagedVersion,
                 premanagedScope,
                 getVersionSelectedFromRange(node.getVersionConstraint()),
                 optional,
                 exclusions);
+        current.setTruncated(guard.isTruncated(node));
+        return current;
+    }
 
-        List<DependencyNode> nodes = new ArrayList<>(node.getChildren().size());
-        for (org.eclipse.aether.graph.DependencyNode child : node.getChildren()) {
-            Artifact childArtifact = getDependencyArtifact(child.getDependency());
-
+    /**
+     * Converts the resolved graph into builders of immutable nodes without recursion, with the same content as
+     * {@link #buildDependencyNode}. Immutable nodes always hold their artifact, so it is never created lazily.
+     */
+    private ImmutableDependencyNode.Builder buildImmutableNode(
+            org.eclipse.aether.graph.DependencyNode root,
+            Artifact rootArtifact,
+            ArtifactFilter filter,
+            CollectionGuard guard) {
+        ImmutableDependencyNode.Builder rootBuilder = newImmutableNode(root, rootArtifact, guard);
+        Deque<NodeConversion<ImmutableDependencyNode.Builder>> stack = new ArrayDeque<>();
+        stack.push(new NodeConversion<>(root, rootBuilder, true));
+        while (!stack.isEmpty()) {
+            NodeConversion<ImmutableDependencyNode.Builder> conversion = stack.peek();
+            org.eclipse.aether.graph.DependencyNode child = conversion.nextChild();
+            if (child == null) {
+                stack.pop();
+                continue;
+            }
+            Artifact childArtifact = DefaultDependencyNode.toArtifact(child.getDependency());
             if ((filter == null) || filter.include(childArtifact)) {
-                nodes.add(buildDependencyNode(current, child, childArtifact, filter));
+                ImmutableDependencyNode.Builder childBuilder = newImmutableNode(child, childArtifact, guard);
+                conversion.getConverted().addChild(childBuilder);
+                stack.push(new NodeConversion<>(child, childBuilder, true));
             }
         }
+        return rootBuilder;
+    }
 
-        current.setChildren(Collections.unmodifiableList(nodes));
+    private ImmutableDependencyNode.Builder newImmutableNode(
+            org.eclipse.aether.graph.DependencyNode node, Artifact artifact, CollectionGuard guard) {
+        return ImmutableDependencyNode.builder(artifact)
+                .premanagedVersion(DependencyManagerUtils.getPremanagedVersion(node))
+                .premanagedScope(DependencyManagerUtils.getPremanagedScope(node))
+                .versionConstraint(getVersionSelectedFromRange(node.getVersionConstraint()))
+                .optional(node.getDependency() != null ? node.getDependency().isOptional() : artifact.isOptional())
+                .exclusions(getExclusions(node))
+                .truncated(guard.isTruncated(node));
+    }
 
-        return current;
+    private static List<org.apache.maven.model.Exclusion> getExclusions(org.eclipse.aether.graph.DependencyNode node) {
+        if (node.getDependency() == null) {
+            return null;
+        }
+        List<org.apache.maven.model.Exclusion> exclusions =
+                new ArrayList<>(node.getDependency().getExclusions().size());
+        for (Exclusion exclusion : node.getDependency().getExclusions()) {
+            org.apache.maven.model.Exclusion modelExclusion = new org.apache.maven.model.Exclusion();
+            modelExclusion.setGroupId(exclusion.getGroupId());
+            modelExclusion.setArtifactId(exclusion.getArtifactId());
+            exclusions.add(modelExclusion);
+        }
+        return exclusions;
     }
 
     private String getVersionSelectedFromRange(VersionConstraint constraint) {
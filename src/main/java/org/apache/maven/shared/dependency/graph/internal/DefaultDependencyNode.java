@@ -18,18 +18,30 @@
  */
 package org.apache.maven.shared.dependency.graph.internal;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
 
+import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Exclusion;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.DependencyNodeFingerprint;
 import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.eclipse.aether.artifact.ArtifactProperties;
+import org.eclipse.aether.graph.Dependency;
 
 /**
  * Default implementation of a DependencyNode.
  */
 public class DefaultDependencyNode implements DependencyNode {
-    private final Artifact artifact;
+    private volatile Artifact artifact;
+
+    /**
+     * The dependency the artifact is created from on first access, {@code null} if the artifact was given.
+     */
+    private final Dependency dependency;
 
     private final DependencyNode parent;
 
@@ -45,6 +57,10 @@ public class DefaultDependencyNode implements DependencyNode {
 
     private List<Exclusion> exclusions;
 
+    private volatile String fingerprint;
+
+    private boolean truncated;
+
     /**
      * Constructs the DefaultDependencyNode.
      *
@@ -61,7 +77,8 @@ public class DefaultDependencyNode implements DependencyNode {
             String premanagedScope,
             String versionConstraint) {
         this.parent = parent;
-        this.artifact = artifact;
+        this.artifact = Objects.requireNonNull(artifact, "artifact cannot be null");
+        this.dependency = null;
         this.premanagedVersion = premanagedVersion;
         this.premanagedScope = premanagedScope;
         this.versionConstraint = versionConstraint;
@@ -75,8 +92,40 @@ public class DefaultDependencyNode implements DependencyNode {
             String versionConstraint,
             Boolean optional,
             List<Exclusion> exclusions) {
+        this(
+                parent,
+                Objects.requireNonNull(artifact, "artifact cannot be null"),
+                null,
+                premanagedVersion,
+                premanagedScope,
+                versionConstraint,
+                optional,
+                exclusions);
+    }
+
+    /**
+     * Constructs a node whose artifact is either given, or created from the coordinates of a resolver dependency
+     * when it is first accessed.
+     *
+     * @throws NullPointerException if neither the artifact nor the dependency is given
+     */
+    // CHECKSTYLE_OFF: ParameterNumber
+    DefaultDependencyNode(
+            DependencyNode parent,
+            Artifact artifact,
+            Dependency dependency,
+            String premanagedVersion,
+            String premanagedScope,
+            String versionConstraint,
+            Boolean optional,
+            List<Exclusion> exclusions) {
+        // CHECKSTYLE_ON: ParameterNumber
+        if (artifact == null) {
+            Objects.requireNonNull(dependency, "artifact and dependency cannot both be null");
+        }
         this.parent = parent;
         this.artifact = artifact;
+        this.dependency = artifact == null ? dependency : null;
         this.premanagedVersion = premanagedVersion;
         this.premanagedScope = premanagedScope;
         this.versionConstraint = versionConstraint;
@@ -86,7 +135,8 @@ public class DefaultDependencyNode implements DependencyNode {
 
     // user to refer to winner
     public DefaultDependencyNode(Artifact artifact) {
-        this.artifact = artifact;
+        this.artifact = Objects.requireNonNull(artifact, "artifact cannot be null");
+        this.dependency = null;
         this.parent = null;
         this.premanagedScope = null;
         this.premanagedVersion = null;
@@ -118,15 +168,120 @@ public class DefaultDependencyNode implements DependencyNode {
      */
     @Override
     public Artifact getArtifact() {
+        Artifact result = artifact;
+        if (result == null && dependency != null) {
+            synchronized (this) {
+                result = artifact;
+                if (result == null) {
+                    result = toArtifact(dependency);
+                    artifact = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the Maven artifact of a resolver dependency, as the builders expose it.
+     *
+     * @param dependency the dependency
+     * @return a new artifact with the scope and optionality of the dependency
+     */
+    static Artifact toArtifact(Dependency dependency) {
+        Artifact artifact = RepositoryUtils.toArtifact(dependency.getArtifact());
+        artifact.setScope(dependency.getScope());
+        artifact.setOptional(dependency.isOptional());
         return artifact;
     }
 
+    /**
+     * @return {@code true} if the artifact of this node was given or already created by {@link #getArtifact()}
+     * @since 3.3.1
+     */
+    public boolean isArtifactCreated() {
+        return artifact != null || dependency == null;
+    }
+
+    /**
+     * Unlike {@link #getArtifact()}, the coordinate getters do not create the artifact of a node built with lazy
+     * artifacts.
+     *
+     * @return the group id of the artifact
+     * @since 3.3.1
+     */
+    @Override
+    public String getGroupId() {
+        Artifact created = artifact;
+        return created != null ? created.getGroupId() : dependency.getArtifact().getGroupId();
+    }
+
+    /**
+     * @return the artifact id of the artifact
+     * @since 3.3.1
+     */
+    @Override
+    public String getArtifactId() {
+        Artifact created = artifact;
+        return created != null
+                ? created.getArtifactId()
+                : dependency.getArtifact().getArtifactId();
+    }
+
+    /**
+     * @return the version of the artifact
+     * @since 3.3.1
+     */
+    @Override
+    public String getVersion() {
+        Artifact created = artifact;
+        return created != null ? created.getVersion() : dependency.getArtifact().getVersion();
+    }
+
+    /**
+     * @return the type of the artifact
+     * @since 3.3.1
+     */
+    @Override
+    public String getType() {
+        Artifact created = artifact;
+        if (created != null) {
+            return created.getType();
+        }
+        org.eclipse.aether.artifact.Artifact coordinates = dependency.getArtifact();
+        return coordinates.getProperty(ArtifactProperties.TYPE, coordinates.getExtension());
+    }
+
+    /**
+     * @return the classifier of the artifact, {@code null} if it has none
+     * @since 3.3.1
+     */
+    @Override
+    public String getClassifier() {
+        Artifact created = artifact;
+        if (created != null) {
+            return created.getClassifier();
+        }
+        String classifier = dependency.getArtifact().getClassifier();
+        return classifier.isEmpty() ? null : classifier;
+    }
+
+    /**
+     * @return the scope of the artifact
+     * @since 3.3.1
+     */
+    @Override
+    public String getScope() {
+        Artifact created = artifact;
+        return created != null ? created.getScope() : dependency.getScope();
+    }
+
     /**
      *
      * @param children  List of DependencyNode to set as child nodes.
      */
     public void setChildren(List<DependencyNode> children) {
         this.children = children;
+        invalidateFingerprint();
     }
 
     /**
@@ -170,11 +325,83 @@ public class DefaultDependencyNode implements DependencyNode {
         return exclusions;
     }
 
+    @Override
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @param truncated {@code true} if children of this node were left out because of a collection limit
+     * @since 3.3.1
+     */
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+        invalidateFingerprint();
+    }
+
+    /**
+     * The builders compute the fingerprint of each node during the conversion, once its children are converted. It is
+     * kept until {@link #setChildren(List)} or {@link #setTruncated(boolean)} is called on this node or on one of its
+     * descendants, and is then computed again on the next access. Changes made directly to the list returned by
+     * {@link #getChildren()} are not detected, so that list must not be modified once a fingerprint has been read.
+     *
+     * @return the fingerprint of the subtree rooted at this node.
+     */
+    @Override
+    public String getFingerprint() {
+        String result = fingerprint;
+        if (result == null) {
+            result = computeFingerprints(this);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the missing fingerprints of a subtree bottom-up and without recursion, so that each node only hashes its
+     * own content with the fingerprints of its children.
+     */
+    private static String computeFingerprints(DefaultDependencyNode root) {
+        Deque<DefaultDependencyNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (true) {
+            DefaultDependencyNode node = stack.peek();
+            boolean ready = true;
+            if (node.children != null) {
+                for (DependencyNode child : node.children) {
+                    if (child instanceof DefaultDependencyNode && ((DefaultDependencyNode) child).fingerprint == null) {
+                        stack.push((DefaultDependencyNode) child);
+                        ready = false;
+                    }
+                }
+            }
+            if (ready) {
+                stack.pop();
+                String result = DependencyNodeFingerprint.of(node);
+                node.fingerprint = result;
+                if (node == root) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    private void invalidateFingerprint() {
+        fingerprint = null;
+        // an ancestor can only hold a fingerprint if its child on this path does, so stop at the first one without
+        DependencyNode ancestor = parent;
+        while (ancestor instanceof DefaultDependencyNode && ((DefaultDependencyNode) ancestor).fingerprint != null) {
+            ((DefaultDependencyNode) ancestor).fingerprint = null;
+            ancestor = ancestor.getParent();
+        }
+    }
+
     /**
      * @return Stringified representation of this DependencyNode.
      */
     @Override
     public String toNodeString() {
-        return artifact + (Boolean.TRUE.equals(optional) ? " (optional)" : "");
+        return getArtifact()
+                + (Boolean.TRUE.equals(optional) ? " (optional)" : "")
+                + (truncated ? " (children truncated)" : "");
     }
 }
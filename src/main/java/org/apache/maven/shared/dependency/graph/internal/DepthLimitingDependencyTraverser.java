@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.Objects;
+
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencyTraverser;
+import org.eclipse.aether.graph.Dependency;
+
+/**
+ * A dependency traverser that stops the collection at a given level of the dependency graph: dependencies at that level
+ * are still part of the graph, but their own dependencies are never processed, so no descriptor below that level is
+ * read.
+ *
+ * @since 3.3.1
+ */
+public class DepthLimitingDependencyTraverser implements DependencyTraverser {
+
+    private final DependencyTraverser delegate;
+
+    private final int maxDepth;
+
+    private final int depth;
+
+    /**
+     * @param delegate the traverser to apply above the maximum depth, may be {@code null}
+     * @param maxDepth the deepest level of the graph to collect, direct dependencies being at level 1
+     */
+    public DepthLimitingDependencyTraverser(DependencyTraverser delegate, int maxDepth) {
+        this(delegate, maxDepth, 0);
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be at least 1: " + maxDepth);
+        }
+    }
+
+    private DepthLimitingDependencyTraverser(DependencyTraverser delegate, int maxDepth, int depth) {
+        this.delegate = delegate;
+        this.maxDepth = maxDepth;
+        this.depth = depth;
+    }
+
+    /**
+     * Decides whether the dependencies of the specified dependency should be collected.
+     *
+     * @param dependency The dependency to check, must not be {@code null}.
+     * @return {@code false} if the dependency is at the maximum depth or the delegate does not traverse it.
+     */
+    @Override
+    public boolean traverseDependency(Dependency dependency) {
+        return depth < maxDepth && (delegate == null || delegate.traverseDependency(dependency));
+    }
+
+    @Override
+    public DependencyTraverser deriveChildTraverser(DependencyCollectionContext context) {
+        if (depth >= maxDepth) {
+            // nothing is traversed from here on
+            return this;
+        }
+
+        DependencyTraverser child = delegate != null ? delegate.deriveChildTraverser(context) : null;
+        return new DepthLimitingDependencyTraverser(child, maxDepth, depth + 1);
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + depth;
+        result = prime * result + maxDepth;
+        result = prime * result + Objects.hashCode(delegate);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        DepthLimitingDependencyTraverser other = (DepthLimitingDependencyTraverser) obj;
+        return depth == other.depth && maxDepth == other.maxDepth && Objects.equals(delegate, other.delegate);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.maven.shared.dependency.graph.IncrementalCollectionState;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.collection.DependencyGraphTransformationContext;
+import org.eclipse.aether.collection.DependencyGraphTransformer;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.impl.DependencyCollector;
+
+/**
+ * Collects the raw (untransformed) subtree of each direct dependency separately, so that subtrees can be collected
+ * concurrently or reused by later collections of the same project, and merges them under a common root before
+ * conflict resolution.
+ * <p>
+ * The raw subtree of a direct dependency only depends on the path from the project root, i.e. on the root artifact,
+ * the managed dependencies, the repositories and the session's selector, manager, traverser and version filter: as
+ * long as those do not change, merging the subtrees yields the same raw graph as a single collection.
+ */
+final class DirectDependencyCollector {
+    private final DependencyCollector collector;
+
+    /**
+     * @param collector the collector of the subtrees, for instance {@code repositorySystem::collectDependencies}
+     */
+    DirectDependencyCollector(DependencyCollector collector) {
+        this.collector = collector;
+    }
+
+    /**
+     * Collects the raw subtrees of all direct dependencies of the request, reusing the ones of the previous state
+     * when it was collected in the same context.
+     *
+     * @param session the session to collect with, without dependency graph transformer
+     * @param request the collect request with root artifact and direct dependencies
+     * @param previous the state of a previous collection, may be {@code null}
+     * @param executor the executor to collect the direct dependencies concurrently, {@code null} to collect them on
+     *            the calling thread
+     * @return the new state
+     * @throws DependencyCollectionException if a direct dependency could not be collected
+     */
+    CollectionState collect(
+            RepositorySystemSession session, CollectRequest request, CollectionState previous, Executor executor)
+            throws DependencyCollectionException {
+        List<Object> key = contextKey(session, request);
+
+        Map<Dependency, List<List<DependencyNode>>> reusable = new HashMap<>();
+        if (previous != null && previous.key.equals(key)) {
+            for (int i = 0; i < previous.dependencies.size(); i++) {
+                reusable.computeIfAbsent(previous.dependencies.get(i), d -> new ArrayList<>())
+                        .add(previous.subtrees.get(i));
+            }
+        }
+
+        List<Dependency> dependencies = request.getDependencies();
+        List<List<DependencyNode>> subtrees = new ArrayList<>(dependencies.size());
+        Map<Integer, Future<List<DependencyNode>>> pending = new LinkedHashMap<>();
+        for (Dependency dependency : dependencies) {
+            List<List<DependencyNode>> candidates = reusable.get(dependency);
+            if (candidates != null && !candidates.isEmpty()) {
+                subtrees.add(candidates.remove(0));
+            } else if (executor != null) {
+                FutureTask<List<DependencyNode>> task = new FutureTask<>(() -> collect(session, request, dependency));
+                executor.execute(task);
+                pending.put(subtrees.size(), task);
+                subtrees.add(null);
+            } else {
+                subtrees.add(collect(session, request, dependency));
+            }
+        }
+
+        try {
+            for (Map.Entry<Integer, Future<List<DependencyNode>>> entry : pending.entrySet()) {
+                subtrees.set(entry.getKey(), await(entry.getValue(), request));
+            }
+        } finally {
+            for (Future<List<DependencyNode>> future : pending.values()) {
+                future.cancel(true);
+            }
+        }
+
+        return new CollectionState(key, request, new ArrayList<>(dependencies), subtrees);
+    }
+
+    private static List<DependencyNode> await(Future<List<DependencyNode>> future, CollectRequest request)
+            throws DependencyCollectionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyCollectionException(new CollectResult(request), "Interrupted while collecting");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DependencyCollectionException) {
+                throw (DependencyCollectionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Collects the raw subtree of a single direct dependency, in the context of the project root.
+     */
+    List<DependencyNode> collect(RepositorySystemSession session, CollectRequest request, Dependency dependency)
+            throws DependencyCollectionException {
+        CollectRequest single = new CollectRequest();
+        single.setRootArtifact(request.getRootArtifact());
+        single.setRepositories(request.getRepositories());
+        single.setManagedDependencies(request.getManagedDependencies());
+        single.setRequestContext(request.getRequestContext());
+        single.setTrace(request.getTrace());
+        single.addDependency(dependency);
+
+        // a dependency may yield no node (not selected) or several ones (version range)
+        List<DependencyNode> children = new ArrayList<>(
+                collector.collectDependencies(session, single).getRoot().getChildren());
+        SharedDescriptorCache.checkUsed(session);
+        return children;
+    }
+
+    /**
+     * Applies the transformer to a fresh copy of the merged raw graph, leaving the state untouched for later reuse.
+     *
+     * @param session the session providing the transformer configuration
+     * @param state the collected raw subtrees
+     * @param transformer the transformer to apply, may be {@code null}
+     * @return the root of the transformed graph
+     * @throws RepositoryException if the transformation failed
+     */
+    DependencyNode transform(
+            RepositorySystemSession session, CollectionState state, DependencyGraphTransformer transformer)
+            throws RepositoryException {
+        DefaultDependencyNode root = new DefaultDependencyNode(state.rootArtifact);
+        root.setRequestContext(state.requestContext);
+        root.setRepositories(state.repositories);
+
+        GraphCopier copier = new GraphCopier();
+        List<DependencyNode> children = new ArrayList<>();
+        for (List<DependencyNode> subtree : state.subtrees) {
+            for (DependencyNode child : subtree) {
+                children.add(copier.copy(child));
+            }
+        }
+        root.setChildren(children);
+
+        if (transformer == null) {
+            return root;
+        }
+        return transformer.transformGraph(root, new TransformationContext(session));
+    }
+
+    private static List<Object> contextKey(RepositorySystemSession session, CollectRequest request) {
+        return Arrays.asList(
+                request.getRootArtifact(),
+                request.getRepositories(),
+                request.getManagedDependencies(),
+                session.getDependencySelector(),
+                session.getDependencyManager(),
+                session.getDependencyTraverser(),
+                session.getVersionFilter(),
+                new HashMap<>(session.getConfigProperties()));
+    }
+
+    /**
+     * The raw subtrees of the direct dependencies of one collection, never modified once created. It is returned with
+     * the {@link org.apache.maven.shared.dependency.graph.DependencyCollectorResult result} for the next incremental
+     * collection.
+     */
+    static final class CollectionState implements IncrementalCollectionState {
+        private final List<Object> key;
+
+        private final org.eclipse.aether.artifact.Artifact rootArtifact;
+
+        private final String requestContext;
+
+        private final List<org.eclipse.aether.repository.RemoteRepository> repositories;
+
+        private final List<Dependency> dependencies;
+
+        private final List<List<DependencyNode>> subtrees;
+
+        CollectionState(
+                List<Object> key,
+                CollectRequest request,
+                List<Dependency> dependencies,
+                List<List<DependencyNode>> subtrees) {
+            this.key = key;
+            this.rootArtifact = request.getRootArtifact();
+            this.requestContext = request.getRequestContext();
+            this.repositories = request.getRepositories();
+            this.dependencies = dependencies;
+            this.subtrees = subtrees;
+        }
+    }
+
+    /**
+     * Deep copy of a raw graph which preserves the sharing of nodes and child lists: the collector shares child lists
+     * between equivalent nodes (and with ancestors in case of cycles), and the conflict resolver relies on that.
+     */
+    private static final class GraphCopier {
+        private final Map<DependencyNode, DependencyNode> nodes = new IdentityHashMap<>();
+
+        private final Map<List<DependencyNode>, List<DependencyNode>> lists = new IdentityHashMap<>();
+
+        DependencyNode copy(DependencyNode node) {
+            DependencyNode copy = nodes.get(node);
+            if (copy == null) {
+                copy = new DefaultDependencyNode(node);
+                nodes.put(node, copy);
+                copy.setChildren(copy(node.getChildren()));
+            }
+            return copy;
+        }
+
+        private List<DependencyNode> copy(List<DependencyNode> children) {
+            List<DependencyNode> copy = lists.get(children);
+            if (copy == null) {
+                copy = new ArrayList<>(children.size());
+                lists.put(children, copy);
+                for (DependencyNode child : children) {
+                    copy.add(copy(child));
+                }
+            }
+            return copy;
+        }
+    }
+
+    private static final class TransformationContext implements DependencyGraphTransformationContext {
+        private final RepositorySystemSession session;
+
+        private final Map<Object, Object> values = new HashMap<>();
+
+        TransformationContext(RepositorySystemSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public RepositorySystemSession getSession() {
+            return session;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return values.get(key);
+        }
+
+        @Override
+        public Object put(Object key, Object value) {
+            return value != null ? values.put(key, value) : values.remove(key);
+        }
+    }
+}
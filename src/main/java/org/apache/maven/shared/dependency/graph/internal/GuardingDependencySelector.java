@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.Objects;
+
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+
+/**
+ * A dependency selector which stops the expansion of the graph once the collecting thread has been interrupted, so that
+ * a cancelled collection returns promptly instead of reading the remaining descriptors, or once a limit of its
+ * {@link CollectionGuard} has been hit.
+ */
+final class GuardingDependencySelector implements DependencySelector {
+    private final DependencySelector delegate;
+
+    private final CollectionGuard guard;
+
+    private final int depth;
+
+    /**
+     * The path of the node whose children this selector selects, only tracked when the guard is limited and not part
+     * of equality so that the resolver still shares identical subtrees.
+     */
+    private final CollectionGuard.Path parent;
+
+    GuardingDependencySelector(DependencySelector delegate) {
+        this(delegate, new CollectionGuard(null));
+    }
+
+    GuardingDependencySelector(DependencySelector delegate, CollectionGuard guard) {
+        this(delegate, guard, 0, CollectionGuard.Path.ROOT);
+    }
+
+    private GuardingDependencySelector(
+            DependencySelector delegate, CollectionGuard guard, int depth, CollectionGuard.Path parent) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.depth = depth;
+        this.parent = parent;
+    }
+
+    @Override
+    public boolean selectDependency(Dependency dependency) {
+        if (delegate != null && !delegate.selectDependency(dependency)) {
+            return false;
+        }
+        return guard.admit(parent, depth);
+    }
+
+    @Override
+    public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
+        DependencySelector child = delegate != null ? delegate.deriveChildSelector(context) : null;
+        if (!guard.isLimited()) {
+            return child == delegate ? this : new GuardingDependencySelector(child, guard);
+        }
+        // the selector installed in the session derives the one selecting the direct dependencies, below the root
+        CollectionGuard.Path path = depth == 0 ? CollectionGuard.Path.ROOT : parent.child(context.getDependency());
+        return new GuardingDependencySelector(child, guard, depth + 1, path);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        GuardingDependencySelector that = (GuardingDependencySelector) obj;
+        if (guard.isLimited() || that.guard.isLimited()) {
+            // truncated subtrees must not be reused by another collection
+            return guard == that.guard && depth == that.depth && Objects.equals(delegate, that.delegate);
+        }
+        return Objects.equals(delegate, that.delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(delegate) * 31 + depth;
+    }
+}
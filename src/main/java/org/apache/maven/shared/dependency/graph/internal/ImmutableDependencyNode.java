@@ -0,0 +1,486 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.ConflictData;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.DependencyNodeFingerprint;
+import org.apache.maven.shared.dependency.graph.DependencyNodeListener;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+
+/**
+ * A dependency node whose content never changes once built from a {@link Builder}. The whole tree, fingerprints
+ * included, is built while its root is constructed, so it is safely published through the final fields of the root
+ * and can be cached and read by concurrent threads without locks or defensive copies.
+ * <p>
+ * The artifact, exclusions and conflict data are shared with the builder rather than copied: they must not be
+ * modified once the node is built.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public final class ImmutableDependencyNode implements DependencyNode {
+    private final Artifact artifact;
+
+    private final DependencyNode parent;
+
+    private final String premanagedVersion;
+
+    private final String premanagedScope;
+
+    private final String versionConstraint;
+
+    private final Boolean optional;
+
+    private final List<Exclusion> exclusions;
+
+    private final boolean truncated;
+
+    private final ConflictData conflictData;
+
+    private final List<DependencyNode> children;
+
+    private final String fingerprint;
+
+    private ImmutableDependencyNode(
+            DependencyNode parent, Builder builder, List<DependencyNode> children, Map<Builder, String> fingerprints) {
+        this.parent = parent;
+        this.artifact = builder.artifact;
+        this.premanagedVersion = builder.premanagedVersion;
+        this.premanagedScope = builder.premanagedScope;
+        this.versionConstraint = builder.versionConstraint;
+        this.optional = builder.optional;
+        this.exclusions =
+                builder.exclusions != null ? Collections.unmodifiableList(new ArrayList<>(builder.exclusions)) : null;
+        this.truncated = builder.truncated;
+        this.conflictData = builder.conflictData;
+        this.children = Collections.unmodifiableList(children);
+        this.fingerprint = fingerprints.get(builder);
+        if (parent == null) {
+            buildDescendants(builder, children, fingerprints);
+        }
+    }
+
+    /**
+     * Builds the descendants of this root top-down, each with the fingerprint computed beforehand by
+     * {@link #fingerprints(Builder)}, without recursion so that deep graphs cannot overflow the stack.
+     */
+    private void buildDescendants(Builder builder, List<DependencyNode> children, Map<Builder, String> fingerprints) {
+        Deque<Pending> stack = new ArrayDeque<>();
+        stack.push(new Pending(this, builder, children));
+        while (!stack.isEmpty()) {
+            Pending pending = stack.pop();
+            for (Builder child : pending.builder.children) {
+                List<DependencyNode> grandChildren = new ArrayList<>(child.children.size());
+                ImmutableDependencyNode node =
+                        new ImmutableDependencyNode(pending.node, child, grandChildren, fingerprints);
+                pending.children.add(node);
+                stack.push(new Pending(node, child, grandChildren));
+            }
+        }
+    }
+
+    /**
+     * Computes the fingerprint of every builder of a tree bottom-up, without recursion, so that each node gets its
+     * final fingerprint when it is constructed.
+     */
+    private static Map<Builder, String> fingerprints(Builder root) {
+        Map<Builder, String> fingerprints = new IdentityHashMap<>();
+        Deque<Builder> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Builder builder = stack.peek();
+            boolean ready = true;
+            for (Builder child : builder.children) {
+                if (!fingerprints.containsKey(child)) {
+                    stack.push(child);
+                    ready = false;
+                }
+            }
+            if (ready) {
+                stack.pop();
+                List<String> childFingerprints = new ArrayList<>(builder.children.size());
+                for (Builder child : builder.children) {
+                    childFingerprints.add(fingerprints.get(child));
+                }
+                fingerprints.put(builder, DependencyNodeFingerprint.of(new Content(builder), childFingerprints));
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * @param artifact the artifact of the node, must not be {@code null}
+     * @return a builder of a node without children
+     */
+    public static Builder builder(Artifact artifact) {
+        return new Builder(artifact);
+    }
+
+    /**
+     * Copies a tree of any dependency node implementation, conflict data included. An immutable node always holds its
+     * artifact, so the artifacts of a tree built with {@link
+     * org.apache.maven.shared.dependency.graph.ConfigurationProperties#LAZY_ARTIFACTS lazy artifacts} are created by
+     * the copy.
+     *
+     * @param root the root of the tree to copy, must not be {@code null}
+     * @return the root of the immutable copy
+     */
+    public static ImmutableDependencyNode copyOf(DependencyNode root) {
+        Objects.requireNonNull(root, "root cannot be null");
+        return root instanceof ImmutableDependencyNode && root.getParent() == null
+                ? (ImmutableDependencyNode) root
+                : builderOf(root).build();
+    }
+
+    /**
+     * Builds a tree and emits its nodes in post-order, like the mutable conversions, for the builders which were asked
+     * for immutable nodes: since an immutable node only exists once its whole subtree does, the nodes are only emitted
+     * once the tree is built.
+     */
+    static DependencyNode build(Builder root, DependencyNodeListener listener) {
+        ImmutableDependencyNode tree = root.build();
+        if (listener != null) {
+            // visiting the children from right to left gives the reverse of the post-order
+            List<DependencyNode> reversed = new ArrayList<>();
+            Deque<DependencyNode> stack = new ArrayDeque<>();
+            stack.push(tree);
+            while (!stack.isEmpty()) {
+                DependencyNode node = stack.pop();
+                reversed.add(node);
+                for (DependencyNode child : node.getChildren()) {
+                    stack.push(child);
+                }
+            }
+            for (int i = reversed.size() - 1; i >= 0; i--) {
+                listener.nodeConverted(reversed.get(i));
+            }
+        }
+        return tree;
+    }
+
+    private static Builder builderOf(DependencyNode root) {
+        Builder rootBuilder = contentOf(root);
+        Deque<DependencyNode> nodes = new ArrayDeque<>();
+        Deque<Builder> builders = new ArrayDeque<>();
+        nodes.push(root);
+        builders.push(rootBuilder);
+        while (!nodes.isEmpty()) {
+            DependencyNode node = nodes.pop();
+            Builder builder = builders.pop();
+            if (node.getChildren() != null) {
+                for (DependencyNode child : node.getChildren()) {
+                    Builder childBuilder = contentOf(child);
+                    builder.addChild(childBuilder);
+                    nodes.push(child);
+                    builders.push(childBuilder);
+                }
+            }
+        }
+        return rootBuilder;
+    }
+
+    private static Builder contentOf(DependencyNode node) {
+        return new Builder(node.getArtifact())
+                .premanagedVersion(node.getPremanagedVersion())
+                .premanagedScope(node.getPremanagedScope())
+                .versionConstraint(node.getVersionConstraint())
+                .optional(node.getOptional())
+                .exclusions(node.getExclusions())
+                .truncated(node.isTruncated())
+                .conflictData(node.getConflictData());
+    }
+
+    @Override
+    public boolean accept(DependencyNodeVisitor visitor) {
+        if (visitor.visit(this)) {
+            for (DependencyNode child : children) {
+                if (!child.accept(visitor)) {
+                    break;
+                }
+            }
+        }
+
+        return visitor.endVisit(this);
+    }
+
+    @Override
+    public Artifact getArtifact() {
+        return artifact;
+    }
+
+    /**
+     * @return the children of this node, as an unmodifiable list
+     */
+    @Override
+    public List<DependencyNode> getChildren() {
+        return children;
+    }
+
+    @Override
+    public DependencyNode getParent() {
+        return parent;
+    }
+
+    @Override
+    public String getPremanagedVersion() {
+        return premanagedVersion;
+    }
+
+    @Override
+    public String getPremanagedScope() {
+        return premanagedScope;
+    }
+
+    @Override
+    public String getVersionConstraint() {
+        return versionConstraint;
+    }
+
+    @Override
+    public Boolean getOptional() {
+        return optional;
+    }
+
+    /**
+     * @return the exclusions of this node as an unmodifiable list, {@code null} if unknown
+     */
+    @Override
+    public List<Exclusion> getExclusions() {
+        return exclusions;
+    }
+
+    @Override
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return the conflict resolution data of a node copied from a verbose graph, {@code null} otherwise
+     */
+    @Override
+    public ConflictData getConflictData() {
+        return conflictData;
+    }
+
+    /**
+     * @return the fingerprint of the subtree rooted at this node, computed when the tree was built
+     */
+    @Override
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public String toNodeString() {
+        if (conflictData != null) {
+            return VerboseDependencyNode.toNodeString(this, conflictData);
+        }
+        return artifact
+                + (Boolean.TRUE.equals(optional) ? " (optional)" : "")
+                + (truncated ? " (children truncated)" : "");
+    }
+
+    /**
+     * Collects the content of an {@link ImmutableDependencyNode} and of its descendants. Builders are not thread-safe,
+     * and can be built several times into independent trees.
+     */
+    public static final class Builder {
+        private final Artifact artifact;
+
+        private String premanagedVersion;
+
+        private String premanagedScope;
+
+        private String versionConstraint;
+
+        private Boolean optional;
+
+        private List<Exclusion> exclusions;
+
+        private boolean truncated;
+
+        private ConflictData conflictData;
+
+        private final List<Builder> children = new ArrayList<>();
+
+        private Builder(Artifact artifact) {
+            this.artifact = Objects.requireNonNull(artifact, "artifact cannot be null");
+        }
+
+        public Builder premanagedVersion(String premanagedVersion) {
+            this.premanagedVersion = premanagedVersion;
+            return this;
+        }
+
+        public Builder premanagedScope(String premanagedScope) {
+            this.premanagedScope = premanagedScope;
+            return this;
+        }
+
+        public Builder versionConstraint(String versionConstraint) {
+            this.versionConstraint = versionConstraint;
+            return this;
+        }
+
+        public Builder optional(Boolean optional) {
+            this.optional = optional;
+            return this;
+        }
+
+        /**
+         * @param exclusions the exclusions, copied when the node is built, may be {@code null}
+         * @return this builder
+         */
+        public Builder exclusions(List<Exclusion> exclusions) {
+            this.exclusions = exclusions;
+            return this;
+        }
+
+        public Builder truncated(boolean truncated) {
+            this.truncated = truncated;
+            return this;
+        }
+
+        /**
+         * @param conflictData the outcome of conflict resolution for a node of a verbose graph, may be {@code null}
+         * @return this builder
+         */
+        public Builder conflictData(ConflictData conflictData) {
+            this.conflictData = conflictData;
+            return this;
+        }
+
+        /**
+         * @param child the builder of the next child
+         * @return this builder
+         */
+        public Builder addChild(Builder child) {
+            children.add(Objects.requireNonNull(child, "child cannot be null"));
+            return this;
+        }
+
+        /**
+         * @return the root of a new immutable tree
+         */
+        public ImmutableDependencyNode build() {
+            return new ImmutableDependencyNode(null, this, new ArrayList<>(children.size()), fingerprints(this));
+        }
+    }
+
+    /**
+     * The content of a builder seen as a node without children, to hash it before the node exists.
+     */
+    private static final class Content implements DependencyNode {
+        private final Builder builder;
+
+        Content(Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public boolean accept(DependencyNodeVisitor visitor) {
+            visitor.visit(this);
+            return visitor.endVisit(this);
+        }
+
+        @Override
+        public Artifact getArtifact() {
+            return builder.artifact;
+        }
+
+        @Override
+        public List<DependencyNode> getChildren() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public DependencyNode getParent() {
+            return null;
+        }
+
+        @Override
+        public String getPremanagedVersion() {
+            return builder.premanagedVersion;
+        }
+
+        @Override
+        public String getPremanagedScope() {
+            return builder.premanagedScope;
+        }
+
+        @Override
+        public String getVersionConstraint() {
+            return builder.versionConstraint;
+        }
+
+        @Override
+        public Boolean getOptional() {
+            return builder.optional;
+        }
+
+        @Override
+        public List<Exclusion> getExclusions() {
+            return builder.exclusions;
+        }
+
+        @Override
+        public boolean isTruncated() {
+            return builder.truncated;
+        }
+
+        @Override
+        public ConflictData getConflictData() {
+            return builder.conflictData;
+        }
+
+        @Override
+        public String toNodeString() {
+            return String.valueOf(builder.artifact);
+        }
+    }
+
+    /**
+     * A node whose children are still to be built from its builder.
+     */
+    private static final class Pending {
+        private final ImmutableDependencyNode node;
+
+        private final Builder builder;
+
+        private final List<DependencyNode> children;
+
+        Pending(ImmutableDependencyNode node, Builder builder, List<DependencyNode> children) {
+            this.node = node;
+            this.builder = builder;
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * A resolver node being converted by the iterative conversion of a builder: the conversion keeps these on a stack
+ * instead of recursing, so that deep graphs cannot overflow the stack of the building thread.
+ *
+ * @param <T> the type of the converted node
+ */
+final class NodeConversion<T> {
+    private final Iterator<org.eclipse.aether.graph.DependencyNode> remaining;
+
+    private final T converted;
+
+    private final List<DependencyNode> children = new ArrayList<>();
+
+    /**
+     * @param node the resolver node
+     * @param converted the converted node, whose children are still to be converted
+     * @param expand {@code false} to leave the children of the resolver node out
+     */
+    NodeConversion(org.eclipse.aether.graph.DependencyNode node, T converted, boolean expand) {
+        List<org.eclipse.aether.graph.DependencyNode> nodes =
+                expand ? node.getChildren() : Collections.<org.eclipse.aether.graph.DependencyNode>emptyList();
+        this.remaining = nodes.iterator();
+        this.converted = converted;
+    }
+
+    /**
+     * @return the next child of the resolver node to convert, {@code null} once every child was returned
+     */
+    org.eclipse.aether.graph.DependencyNode nextChild() {
+        return remaining.hasNext() ? remaining.next() : null;
+    }
+
+    T getConverted() {
+        return converted;
+    }
+
+    /**
+     * @return the converted children, for converted nodes which take their children once all are converted
+     */
+    List<DependencyNode> getChildren() {
+        return children;
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Lists the POMs the model of an artifact is built from: its own POM, its parents and the POMs it imports, along with
+ * their own parents and imports. Caches of descriptors use them to detect that a descriptor is stale, since a change to
+ * any of these POMs may change the effective dependencies of the artifact.
+ * <p>
+ * The POMs are read as plain XML, and coordinates are only interpolated with the properties of the model and its
+ * parents, which is enough for the parents and imports of most POMs. Each POM is located in the workspace of the
+ * session, or else in its local repository. The parts of each POM these lists need are kept until the POM is
+ * modified, so that the parents and imports shared by many artifacts are parsed once; the POMs are parsed without
+ * document types nor external entities.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public final class PomInputs {
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+
+    private static final int MAX_PARSED = 4096;
+
+    private static final Map<File, ParsedPom> PARSED = new ConcurrentHashMap<>();
+
+    private static final DocumentBuilderFactory FACTORY = newDocumentBuilderFactory();
+
+    private static final ThreadLocal<DocumentBuilder> BUILDER = new ThreadLocal<>();
+
+    private PomInputs() {}
+
+    /**
+     * @param session the session, whose workspace and local repository are searched
+     * @param artifact the artifact
+     * @return the absolute POM files, starting with the one of the artifact, or {@code null} if one of them cannot be
+     *         located or parsed
+     */
+    public static List<File> of(RepositorySystemSession session, Artifact artifact) {
+        return of(session, locate(session, artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion()));
+    }
+
+    /**
+     * @param session the session, whose workspace and local repository are searched for parents and imports
+     * @param pom a POM file, for instance the one of a project
+     * @return the absolute POM files, starting with the given one, or {@code null} if one of them cannot be located or
+     *         parsed
+     */
+    public static List<File> of(RepositorySystemSession session, File pom) {
+        Set<File> found = new LinkedHashSet<>();
+        return addInputs(session, pom.getAbsoluteFile(), found) != null ? new ArrayList<>(found) : null;
+    }
+
+    /**
+     * Lists the properties the profiles of a POM are activated by, which along with the JDK and the operating system
+     * decide which of its profiles contribute to its effective model.
+     *
+     * @param pom a POM file
+     * @return the names of the properties, or {@code null} if the POM cannot be parsed
+     */
+    public static Set<String> activationProperties(File pom) {
+        ParsedPom parsed = parsed(pom.getAbsoluteFile());
+        return parsed != null ? new LinkedHashSet<>(parsed.activationProperties) : null;
+    }
+
+    /**
+     * @return the POM of an artifact, in the workspace or the local repository of a session
+     */
+    private static File locate(RepositorySystemSession session, String groupId, String artifactId, String version) {
+        Artifact pom = new DefaultArtifact(groupId, artifactId, "", "pom", version);
+        if (session.getWorkspaceReader() != null) {
+            File file = session.getWorkspaceReader().findArtifact(pom);
+            if (file != null) {
+                return file.getAbsoluteFile();
+            }
+        }
+        return new File(
+                        session.getLocalRepository().getBasedir(),
+                        session.getLocalRepositoryManager().getPathForLocalArtifact(pom))
+                .getAbsoluteFile();
+    }
+
+    /**
+     * @return the properties of the model, inherited ones included, or {@code null} if one of its inputs cannot be
+     *         located
+     */
+    private static Properties addInputs(
+            RepositorySystemSession session, String groupId, String artifactId, String version, Set<File> found) {
+        if (groupId == null || artifactId == null || version == null) {
+            return null;
+        }
+        return addInputs(session, locate(session, groupId, artifactId, version), found);
+    }
+
+    private static Properties addInputs(RepositorySystemSession session, File pom, Set<File> found) {
+        if (!found.add(pom)) {
+            // a cycle or an input shared by several paths, whose own inputs are being added already
+            return new Properties();
+        }
+
+        ParsedPom parsed = parsed(pom);
+        if (parsed == null) {
+            return null;
+        }
+
+        Properties modelProperties = new Properties();
+        if (parsed.parent != null) {
+            Properties inherited = addInputs(
+                    session, parsed.parent[0], parsed.parent[1], resolvable(parsed.parent[2], modelProperties), found);
+            if (inherited == null) {
+                return null;
+            }
+            modelProperties.putAll(inherited);
+            modelProperties.setProperty("project.parent.version", parsed.parent[2]);
+        }
+        modelProperties.putAll(parsed.properties);
+        // the coordinates a model does not declare are inherited from its parent
+        if (parsed.groupId != null) {
+            modelProperties.setProperty("project.groupId", parsed.groupId);
+        }
+        if (parsed.version != null) {
+            modelProperties.setProperty("project.version", parsed.version);
+        }
+
+        for (String[] imported : parsed.imports) {
+            if (addInputs(
+                            session,
+                            resolvable(imported[0], modelProperties),
+                            resolvable(imported[1], modelProperties),
+                            resolvable(imported[2], modelProperties),
+                            found)
+                    == null) {
+                return null;
+            }
+        }
+        return modelProperties;
+    }
+
+    /**
+     * @return the parts of a POM these lists need, parsed again only if the POM was modified since, or {@code null} if
+     *         it cannot be parsed
+     */
+    private static ParsedPom parsed(File pom) {
+        long lastModified = pom.lastModified();
+        long length = pom.length();
+        ParsedPom parsed = PARSED.get(pom);
+        if (parsed != null && parsed.lastModified == lastModified && parsed.length == length) {
+            return parsed;
+        }
+
+        Element project = parse(pom);
+        if (project == null) {
+            PARSED.remove(pom);
+            return null;
+        }
+        parsed = new ParsedPom(project, lastModified, length);
+        if (PARSED.size() >= MAX_PARSED) {
+            // the POMs of a build are parsed again at worst, which is cheaper than tracking their use
+            PARSED.clear();
+        }
+        PARSED.put(pom, parsed);
+        return parsed;
+    }
+
+    /**
+     * @return the project element of a POM, or {@code null} if it cannot be parsed
+     */
+    private static Element parse(File pom) {
+        try {
+            DocumentBuilder builder = BUILDER.get();
+            if (builder == null) {
+                builder = FACTORY.newDocumentBuilder();
+                BUILDER.set(builder);
+            } else {
+                builder.reset();
+            }
+            // failures are reported through the result, not on the console
+            builder.setErrorHandler(new DefaultHandler());
+            return builder.parse(pom).getDocumentElement();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * POMs declare neither document types nor entities, rejecting them keeps the parser away from external resources.
+     */
+    private static DocumentBuilderFactory newDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("The XML parser cannot be secured", e);
+        }
+        factory.setXIncludeAware(false);
+        factory.setExpandEntityReferences(false);
+        return factory;
+    }
+
+    private static Element child(Element element, String name) {
+        List<Element> children = children(element, name);
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    private static List<Element> children(Element element, String name) {
+        List<Element> children = new ArrayList<>();
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && (name == null || name.equals(((Element) node).getTagName()))) {
+                children.add((Element) node);
+            }
+        }
+        return children;
+    }
+
+    private static String text(Element element, String name) {
+        Element child = child(element, name);
+        return child != null ? child.getTextContent().trim() : null;
+    }
+
+    /**
+     * Interpolates the properties of the model itself, which is enough for the coordinates of most imports.
+     *
+     * @return the interpolated value, or {@code null} if it still holds an expression
+     */
+    private static String resolvable(String value, Properties modelProperties) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = EXPRESSION.matcher(value);
+        StringBuffer interpolated = new StringBuffer();
+        while (matcher.find()) {
+            String replacement = modelProperties.getProperty(matcher.group(1));
+            if (replacement == null || replacement.contains("${")) {
+                return null;
+            }
+            matcher.appendReplacement(interpolated, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(interpolated);
+        return interpolated.toString();
+    }
+
+    /**
+     * The parts of a POM its inputs are found from, with the modification time and length of the file they were
+     * parsed from.
+     */
+    private static final class ParsedPom {
+        private final long lastModified;
+
+        private final long length;
+
+        /**
+         * The group id, artifact id and version of the parent, {@code null} without parent.
+         */
+        private final String[] parent;
+
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        private final String groupId;
+
+        private final String version;
+
+        /**
+         * The group id, artifact id and version of each imported POM, not interpolated.
+         */
+        private final List<String[]> imports = new ArrayList<>();
+
+        private final Set<String> activationProperties = new LinkedHashSet<>();
+
+        ParsedPom(Element project, long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+
+            Element parentElement = child(project, "parent");
+            this.parent = parentElement != null
+                    ? new String[] {
+                        text(parentElement, "groupId"),
+                        text(parentElement, "artifactId"),
+                        text(parentElement, "version")
+                    }
+                    : null;
+            Element propertiesElement = child(project, "properties");
+            if (propertiesElement != null) {
+                for (Element property : children(propertiesElement, null)) {
+                    properties.put(
+                            property.getTagName(), property.getTextContent().trim());
+                }
+            }
+            this.groupId = text(project, "groupId");
+            this.version = text(project, "version");
+
+            Element dependencyManagement = child(project, "dependencyManagement");
+            Element dependencies = dependencyManagement != null ? child(dependencyManagement, "dependencies") : null;
+            if (dependencies != null) {
+                for (Element dependency : children(dependencies, "dependency")) {
+                    if ("import".equals(text(dependency, "scope"))) {
+                        imports.add(new String[] {
+                            text(dependency, "groupId"), text(dependency, "artifactId"), text(dependency, "version")
+                        });
+                    }
+                }
+            }
+
+            Element profiles = child(project, "profiles");
+            if (profiles != null) {
+                for (Element profile : children(profiles, "profile")) {
+                    Element activation = child(profile, "activation");
+                    Element property = activation != null ? child(activation, "property") : null;
+                    String name = property != null ? text(property, "name") : null;
+                    if (name != null) {
+                        activationProperties.add(name.startsWith("!") ? name.substring(1) : name);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.util.ConfigUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A process-wide cache of the artifact descriptors read while collecting dependency graphs, so that long-lived JVMs
+ * running many builds do not read and parse the same POMs again. Entries are evicted least recently used first once
+ * the cache is full, and invalidated when one of the POMs their model was built from, its own POM, its parents or its
+ * imports, is modified. Descriptors which could not be read are never shared. Descriptors are only shared between
+ * sessions with the same local repository, system and user properties.
+ * <p>
+ * The builders install the cache into their session when {@link ConfigurationProperties#SHARED_DESCRIPTOR_CACHE} is
+ * set.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public final class SharedDescriptorCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedDescriptorCache.class);
+
+    private static final SharedDescriptorCache INSTANCE =
+            new SharedDescriptorCache(ConfigurationProperties.DEFAULT_SHARED_DESCRIPTOR_CACHE_SIZE);
+
+    private static final AtomicBoolean UNUSED_REPORTED = new AtomicBoolean();
+
+    private static final int MAX_CONTEXTS = 16;
+
+    private final Map<Key, CachedDescriptor> entries = new ConcurrentHashMap<>(256);
+
+    private final Map<List<Object>, Context> contexts = new LinkedHashMap<List<Object>, Context>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Context> eldest) {
+            return size() > MAX_CONTEXTS;
+        }
+    };
+
+    /**
+     * Ticks on every insertion, lookups stamp the entries they hit with the current tick, which is after the one of
+     * every entry inserted so far.
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private volatile int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    SharedDescriptorCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the cache shared by the builders
+     */
+    public static SharedDescriptorCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Installs the shared cache into a session if {@link ConfigurationProperties#SHARED_DESCRIPTOR_CACHE} is set in its
+     * configuration properties, keeping the session cache for everything but descriptors.
+     *
+     * @param session the session to install the cache into
+     */
+    static void install(DefaultRepositorySystemSession session) {
+        if (!isRequested(session)) {
+            return;
+        }
+        INSTANCE.setMaxEntries(ConfigUtils.getInteger(
+                session,
+                ConfigurationProperties.DEFAULT_SHARED_DESCRIPTOR_CACHE_SIZE,
+                ConfigurationProperties.SHARED_DESCRIPTOR_CACHE_SIZE));
+        if (!(session.getCache() instanceof SharedRepositoryCache)) {
+            session.setCache(new SharedRepositoryCache(
+                    session.getCache() != null ? session.getCache() : new DefaultRepositoryCache(), INSTANCE));
+        }
+    }
+
+    /**
+     * @param session a session
+     * @return {@code true} if {@link #install(DefaultRepositorySystemSession)} changes the session
+     */
+    static boolean isRequested(RepositorySystemSession session) {
+        return ConfigUtils.getBoolean(session, false, ConfigurationProperties.SHARED_DESCRIPTOR_CACHE);
+    }
+
+    /**
+     * Logs a warning, once per JVM, if the cache is installed into a session whose collections never asked for the
+     * descriptor map: the collector of that Maven Resolver version keeps its descriptors under another key, so the
+     * cache is never used.
+     *
+     * @param session the session a collection was just made with
+     */
+    static void checkUsed(RepositorySystemSession session) {
+        if (session.getCache() instanceof SharedRepositoryCache
+                && !((SharedRepositoryCache) session.getCache()).isDescriptorsRequested()
+                && UNUSED_REPORTED.compareAndSet(false, true)) {
+            LOGGER.warn(
+                    "The dependency collector never asked for {}, the shared descriptor cache is not supported by"
+                            + " this version of Maven Resolver and has no effect",
+                    SharedRepositoryCache.DESCRIPTORS);
+        }
+    }
+
+    /**
+     * @param maxEntries the maximum number of descriptors to keep
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries cannot be negative: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        evict(0);
+    }
+
+    /**
+     * @return the number of descriptors in the cache
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups answered by the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups not answered by the cache, including the ones of stale descriptors
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of descriptors evicted because the cache was full
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of descriptors dropped because one of their POMs was modified
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return the ratio of lookups answered by the cache, {@code 0} before any lookup
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Drops every descriptor, keeping the statistics.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    synchronized Context contextOf(RepositorySystemSession session) {
+        List<Object> key = Arrays.asList(
+                session.getLocalRepository().getBasedir(), session.getSystemProperties(), session.getUserProperties());
+        return contexts.computeIfAbsent(key, k -> new Context());
+    }
+
+    Object get(Context context, Artifact artifact) {
+        Key key = new Key(context, artifact);
+        CachedDescriptor entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (!entry.isUpToDate()) {
+            if (entries.remove(key, entry)) {
+                invalidations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+
+        long now = clock.get();
+        if (entry.lastAccess != now) {
+            entry.lastAccess = now;
+        }
+        hits.increment();
+        return entry.descriptor;
+    }
+
+    void put(Context context, RepositorySystemSession session, Artifact artifact, Object descriptor) {
+        List<File> poms = PomInputs.of(session, artifact);
+        if (poms == null) {
+            // a stale descriptor could not be detected
+            return;
+        }
+        entries.put(new Key(context, artifact), new CachedDescriptor(descriptor, poms, clock.getAndIncrement()));
+        if (entries.size() > maxEntries) {
+            // evicting a tenth more than needed spreads the cost of finding the least recently used entries
+            evict(maxEntries / 10);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache holds no more than its maximum size less some slack. Only
+     * one thread evicts at a time, the others go on since the cache is allowed to overflow for a while.
+     */
+    private void evict(int slack) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = entries.size() - maxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            int target = Math.min(excess + slack, entries.size());
+            long[] accesses = entries.values().stream()
+                    .mapToLong(entry -> entry.lastAccess)
+                    .sorted()
+                    .toArray();
+            long threshold = accesses[Math.min(target, accesses.length) - 1];
+            int evicted = 0;
+            for (Map.Entry<Key, CachedDescriptor> entry : entries.entrySet()) {
+                if (evicted >= target) {
+                    break;
+                }
+                if (entry.getValue().lastAccess <= threshold && entries.remove(entry.getKey(), entry.getValue())) {
+                    evicted++;
+                }
+            }
+            evictions.add(evicted);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * A set of sessions sharing descriptors, compared by identity.
+     */
+    static final class Context {}
+
+    private static final class Key {
+        private final Context context;
+
+        private final Artifact artifact;
+
+        private final int hashCode;
+
+        Key(Context context, Artifact artifact) {
+            this.context = context;
+            this.artifact = artifact;
+            this.hashCode = System.identityHashCode(context) * 31 + artifact.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return context == other.context && Objects.equals(artifact, other.artifact);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class CachedDescriptor {
+        private final Object descriptor;
+
+        private final File[] poms;
+
+        private final long[] lastModified;
+
+        private volatile long lastAccess;
+
+        CachedDescriptor(Object descriptor, List<File> poms, long lastAccess) {
+            this.descriptor = descriptor;
+            this.poms = poms.toArray(new File[0]);
+            this.lastModified = new long[this.poms.length];
+            for (int i = 0; i < this.poms.length; i++) {
+                lastModified[i] = this.poms[i].lastModified();
+            }
+            this.lastAccess = lastAccess;
+        }
+
+        /**
+         * @return {@code true} if none of the POMs the descriptor was built from was modified since
+         */
+        boolean isUpToDate() {
+            for (int i = 0; i < poms.length; i++) {
+                if (poms[i].lastModified() != lastModified[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
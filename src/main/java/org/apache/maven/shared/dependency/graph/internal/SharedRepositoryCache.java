@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+
+/**
+ * A session cache serving the descriptor map of the dependency collector from a {@link SharedDescriptorCache}, and
+ * everything else from the original session cache.
+ */
+final class SharedRepositoryCache implements RepositoryCache {
+    /**
+     * The key under which the collector of Maven Resolver keeps its descriptors in the session cache.
+     */
+    static final String DESCRIPTORS = "org.eclipse.aether.internal.impl.collect.DataPool$Descriptors";
+
+    /**
+     * The class of the value the collector keeps for a descriptor which could not be read.
+     */
+    static final String BAD_DESCRIPTOR = "org.eclipse.aether.internal.impl.collect.DataPool$BadDescriptor";
+
+    private final RepositoryCache delegate;
+
+    private final SharedDescriptorCache shared;
+
+    private volatile boolean descriptorsRequested;
+
+    SharedRepositoryCache(RepositoryCache delegate, SharedDescriptorCache shared) {
+        this.delegate = delegate;
+        this.shared = shared;
+    }
+
+    @Override
+    public void put(RepositorySystemSession session, Object key, Object data) {
+        if (!DESCRIPTORS.equals(key)) {
+            delegate.put(session, key, data);
+        }
+    }
+
+    @Override
+    public Object get(RepositorySystemSession session, Object key) {
+        if (DESCRIPTORS.equals(key)) {
+            descriptorsRequested = true;
+            return new DescriptorMap(session, shared.contextOf(session));
+        }
+        return delegate.get(session, key);
+    }
+
+    /**
+     * @return {@code true} if a collector asked for its descriptor map since this cache was created
+     */
+    boolean isDescriptorsRequested() {
+        return descriptorsRequested;
+    }
+
+    /**
+     * The descriptor map of one collection. The collector only calls {@link #get(Object)} and
+     * {@link #put(Object, Object)}, keys which are not artifacts and descriptors which could not be read, whose failure
+     * may be transient, stay local to the collection.
+     */
+    private final class DescriptorMap extends AbstractMap<Object, Object> {
+        private final RepositorySystemSession session;
+
+        private final SharedDescriptorCache.Context context;
+
+        private final Map<Object, Object> local = new ConcurrentHashMap<>();
+
+        DescriptorMap(RepositorySystemSession session, SharedDescriptorCache.Context context) {
+            this.session = session;
+            this.context = context;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = local.get(key);
+            if (value == null && key instanceof Artifact) {
+                return shared.get(context, (Artifact) key);
+            }
+            return value;
+        }
+
+        @Override
+        public Object put(Object key, Object value) {
+            if (key instanceof Artifact
+                    && value != null
+                    && !BAD_DESCRIPTOR.equals(value.getClass().getName())) {
+                shared.put(context, session, (Artifact) key, value);
+                return null;
+            }
+            return local.put(key, value);
+        }
+
+        @Override
+        public Set<Map.Entry<Object, Object>> entrySet() {
+            // the shared entries are not enumerable per collection
+            return Collections.emptySet();
+        }
+    }
+}
@@ -22,9 +22,14 @@ import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.ConflictData;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.eclipse.aether.graph.Dependency;
 
-class VerboseDependencyNode extends DefaultDependencyNode {
+/**
+ * A dependency node of a verbose (raw) graph, which also keeps track of the outcome of conflict resolution.
+ */
+public class VerboseDependencyNode extends DefaultDependencyNode {
 
     private final ConflictData data;
 
@@ -38,14 +43,51 @@ class VerboseDependencyNode extends DefaultDependencyNode {
             Boolean optional,
             List<Exclusion> exclusions,
             ConflictData data) {
-        super(parent, artifact, premanagedVersion, premanagedScope, versionConstraint, optional, exclusions);
+        this(parent, artifact, null, premanagedVersion, premanagedScope, versionConstraint, optional, exclusions, data);
+    }
+
+    VerboseDependencyNode(
+            DependencyNode parent,
+            Artifact artifact,
+            Dependency dependency,
+            String premanagedVersion,
+            String premanagedScope,
+            String versionConstraint,
+            Boolean optional,
+            List<Exclusion> exclusions,
+            ConflictData data) {
+        super(
+                parent,
+                artifact,
+                dependency,
+                premanagedVersion,
+                premanagedScope,
+                versionConstraint,
+                optional,
+                exclusions);
         // CHECKSTYLE_ON: ParameterNumber
 
         this.data = data;
     }
 
+    @Override
+    public ConflictData getConflictData() {
+        return data;
+    }
+
     @Override
     public String toNodeString() {
+        return toNodeString(this, data);
+    }
+
+    /**
+     * Formats a node of a verbose graph.
+     *
+     * @param node the node
+     * @param data the conflict data of the node
+     * @return the node string
+     */
+    static String toNodeString(DependencyNode node, ConflictData data) {
         StringBuilder buffer = new StringBuilder();
 
         boolean included = (data.getWinnerVersion() == null);
@@ -54,16 +96,16 @@ class VerboseDependencyNode extends DefaultDependencyNode {
             buffer.append('(');
         }
 
-        buffer.append(getArtifact());
+        buffer.append(node.getArtifact());
 
         ItemAppender appender = new ItemAppender(buffer, included ? " (" : " - ", "; ", included ? ")" : "");
 
-        if (getPremanagedVersion() != null) {
-            appender.append("version managed from ", getPremanagedVersion());
+        if (node.getPremanagedVersion() != null) {
+            appender.append("version managed from ", node.getPremanagedVersion());
         }
 
-        if (getPremanagedScope() != null) {
-            appender.append("scope managed from ", getPremanagedScope());
+        if (node.getPremanagedScope() != null) {
+            appender.append("scope managed from ", node.getPremanagedScope());
         }
 
         if (data.getOriginalScope() != null) {
@@ -82,13 +124,17 @@ class VerboseDependencyNode extends DefaultDependencyNode {
 
         if (!included) {
             String winnerVersion = data.getWinnerVersion();
-            if (winnerVersion.equals(getArtifact().getVersion())) {
+            if (winnerVersion.equals(node.getArtifact().getVersion())) {
                 appender.append("omitted for duplicate");
             } else {
                 appender.append("omitted for conflict with ", winnerVersion);
             }
         }
 
+        if (node.isTruncated()) {
+            appender.append("children truncated");
+        }
+
         appender.flush();
 
         if (!included) {
@@ -18,41 +18,149 @@
  */
 package org.apache.maven.shared.dependency.graph.internal;
 
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.List;
-
 import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.util.artifact.JavaScopes;
 import org.eclipse.aether.util.graph.transformer.ConflictResolver.ConflictContext;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver.ConflictItem;
 import org.eclipse.aether.util.graph.transformer.ConflictResolver.ScopeSelector;
 import org.eclipse.aether.util.graph.transformer.JavaScopeSelector;
 
 /**
- * A JavaScopeSelector that keeps track of reduced scopes.
+ * A JavaScopeSelector that keeps track of reduced scopes. The effective scope is chosen exactly as
+ * {@link JavaScopeSelector} does, and the widest scope of the conflict items is recorded as {@link #REDUCED_SCOPE} on
+ * the winner when it differs from the effective one; both are computed in a single pass over the items.
  */
 public class VerboseJavaScopeSelector extends ScopeSelector {
     public static final String REDUCED_SCOPE = "REDUCED_SCOPE";
 
-    private final ScopeSelector scopeSelector = new JavaScopeSelector();
+    // bits of the known scopes, in the order of precedence of the effective scope
+    private static final int COMPILE = 1;
+
+    private static final int RUNTIME = 1 << 1;
+
+    private static final int PROVIDED = 1 << 2;
+
+    private static final int TEST = 1 << 3;
+
+    private static final int SYSTEM = 1 << 4;
 
     @Override
     public void selectScope(ConflictContext context) throws RepositoryException {
-        scopeSelector.selectScope(context);
-
-        context.getItems().stream()
-                .flatMap(i -> i.getScopes().stream())
-                .distinct()
-                .max(new ScopeComparator())
-                .filter(s -> s != context.getScope())
-                .ifPresent(s -> context.getWinner().getNode().setData(REDUCED_SCOPE, s));
+        String directScope = null;
+        boolean direct = false;
+
+        // distinct scopes of the items preceding the first direct one, as JavaScopeSelector collects them
+        int known = 0;
+        String unknown = null;
+        boolean severalUnknown = false;
+
+        // the widest scope of all the items: unknown (and system) scopes first, then compile to test
+        String widest = null;
+        int widestRank = Integer.MAX_VALUE;
+
+        for (ConflictItem item : context.getItems()) {
+            if (!direct && item.getDepth() <= 1) {
+                direct = true;
+                directScope = item.getDependency().getScope();
+            }
+            for (String scope : item.getScopes()) {
+                int bit = bitOf(scope);
+                int rank = rankOf(bit);
+                if (rank < widestRank) {
+                    widest = scope;
+                    widestRank = rank;
+                }
+                if (!direct) {
+                    if (bit != 0) {
+                        known |= bit;
+                    } else if (unknown == null) {
+                        unknown = scope;
+                    } else if (!unknown.equals(scope)) {
+                        severalUnknown = true;
+                    }
+                }
+            }
+        }
+
+        String scope = context.getWinner().getDependency().getScope();
+        if (!JavaScopes.SYSTEM.equals(scope)) {
+            scope = direct ? directScope : effectiveScope(known, unknown, severalUnknown);
+        }
+        context.setScope(scope);
+
+        if (widest != null && !widest.equals(scope)) {
+            context.getWinner().getNode().setData(REDUCED_SCOPE, widest);
+        }
+    }
+
+    private static String effectiveScope(int known, String unknown, boolean severalUnknown) {
+        int size = Integer.bitCount(known) + (unknown == null ? 0 : severalUnknown ? 2 : 1);
+        if (size > 1 && (known & SYSTEM) != 0) {
+            known &= ~SYSTEM;
+            size--;
+        }
+
+        if (size == 1) {
+            return unknown != null ? unknown : nameOf(known);
+        } else if ((known & COMPILE) != 0) {
+            return JavaScopes.COMPILE;
+        } else if ((known & RUNTIME) != 0) {
+            return JavaScopes.RUNTIME;
+        } else if ((known & PROVIDED) != 0) {
+            return JavaScopes.PROVIDED;
+        } else if ((known & TEST) != 0) {
+            return JavaScopes.TEST;
+        }
+        return "";
     }
 
-    static class ScopeComparator implements Comparator<String> {
-        List<String> orderedScopes = Arrays.asList("compile", "runtime", "provided", "test");
+    private static int bitOf(String scope) {
+        switch (scope) {
+            case JavaScopes.COMPILE:
+                return COMPILE;
+            case JavaScopes.RUNTIME:
+                return RUNTIME;
+            case JavaScopes.PROVIDED:
+                return PROVIDED;
+            case JavaScopes.TEST:
+                return TEST;
+            case JavaScopes.SYSTEM:
+                return SYSTEM;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return the rank of a scope when looking for the widest one, unknown and system scopes ranking first
+     */
+    private static int rankOf(int bit) {
+        switch (bit) {
+            case COMPILE:
+                return 1;
+            case RUNTIME:
+                return 2;
+            case PROVIDED:
+                return 3;
+            case TEST:
+                return 4;
+            default:
+                return 0;
+        }
+    }
 
-        @Override
-        public int compare(String lhs, String rhs) {
-            return orderedScopes.indexOf(rhs) - orderedScopes.indexOf(lhs);
+    private static String nameOf(int bit) {
+        switch (bit) {
+            case COMPILE:
+                return JavaScopes.COMPILE;
+            case RUNTIME:
+                return JavaScopes.RUNTIME;
+            case PROVIDED:
+                return JavaScopes.PROVIDED;
+            case TEST:
+                return JavaScopes.TEST;
+            default:
+                return JavaScopes.SYSTEM;
         }
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.reactor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * A vertex of a {@link ReactorGraph}: an artifact together with the dependencies it was resolved to. The vertex is
+ * shared by every occurrence of the artifact with the same dependencies, in any module. Scopes and conflict data are
+ * carried by the {@link DependencyEdge edges} leading to the vertex.
+ *
+ * @since 3.3.1
+ */
+public final class ArtifactVertex {
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String version;
+
+    private final String type;
+
+    private final String classifier;
+
+    private final boolean truncated;
+
+    private final List<DependencyEdge> edges;
+
+    private final List<ArtifactVertex> parents = new ArrayList<>(1);
+
+    ArtifactVertex(Artifact artifact, boolean truncated, List<DependencyEdge> edges) {
+        this.groupId = artifact.getGroupId();
+        this.artifactId = artifact.getArtifactId();
+        this.version = artifact.getVersion();
+        this.type = artifact.getType();
+        this.classifier = artifact.getClassifier();
+        this.truncated = truncated;
+        this.edges = edges.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(edges);
+    }
+
+    static String idOf(Artifact artifact) {
+        return id(
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getType(),
+                artifact.getClassifier(),
+                artifact.getVersion());
+    }
+
+    private static String id(String groupId, String artifactId, String type, String classifier, String version) {
+        return groupId + ':' + artifactId + ':' + type + ':' + (classifier != null ? classifier : "") + ':' + version;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * @return <code>groupId:artifactId:type:classifier:version</code>, the classifier being empty if there is none
+     */
+    public String getId() {
+        return id(groupId, artifactId, type, classifier, version);
+    }
+
+    /**
+     * @return {@code true} if children of the vertex were cut because of a collection limit
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return the dependencies of this vertex, in declaration order
+     */
+    public List<DependencyEdge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * @return the distinct vertices depending on this one, in the order they were added to the graph
+     */
+    public List<ArtifactVertex> getParents() {
+        return Collections.unmodifiableList(parents);
+    }
+
+    void addParent(ArtifactVertex parent) {
+        parents.add(parent);
+    }
+
+    @Override
+    public String toString() {
+        return getId();
+    }
+}
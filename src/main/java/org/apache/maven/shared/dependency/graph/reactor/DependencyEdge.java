@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.reactor;
+
+import java.util.Objects;
+
+import org.apache.maven.shared.dependency.graph.ConflictData;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * An edge of a {@link ReactorGraph}, from a vertex to one of its dependencies, labelled with the scope and the
+ * management and conflict data of the dependency node it was created from. Equal edges are shared by the graph.
+ *
+ * @since 3.3.1
+ */
+public final class DependencyEdge {
+    private final ArtifactVertex target;
+
+    private final String scope;
+
+    private final Boolean optional;
+
+    private final String premanagedVersion;
+
+    private final String premanagedScope;
+
+    private final String versionConstraint;
+
+    private final String winnerVersion;
+
+    private final String originalScope;
+
+    private final String ignoredScope;
+
+    private final int hashCode;
+
+    DependencyEdge(DependencyNode node, ArtifactVertex target) {
+        this.target = target;
+        this.scope = node.getArtifact().getScope();
+        this.optional = node.getOptional();
+        this.premanagedVersion = node.getPremanagedVersion();
+        this.premanagedScope = node.getPremanagedScope();
+        this.versionConstraint = node.getVersionConstraint();
+        ConflictData data = node.getConflictData();
+        this.winnerVersion = data != null ? data.getWinnerVersion() : null;
+        this.originalScope = data != null ? data.getOriginalScope() : null;
+        this.ignoredScope = data != null ? data.getIgnoredScope() : null;
+        this.hashCode = Objects.hash(
+                System.identityHashCode(target),
+                scope,
+                optional,
+                premanagedVersion,
+                premanagedScope,
+                versionConstraint,
+                winnerVersion,
+                originalScope,
+                ignoredScope);
+    }
+
+    /**
+     * @return the dependency
+     */
+    public ArtifactVertex getTarget() {
+        return target;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public Boolean getOptional() {
+        return optional;
+    }
+
+    public String getPremanagedVersion() {
+        return premanagedVersion;
+    }
+
+    public String getPremanagedScope() {
+        return premanagedScope;
+    }
+
+    public String getVersionConstraint() {
+        return versionConstraint;
+    }
+
+    /**
+     * @return the version which won the conflict with this dependency, {@code null} unless the edge comes from a
+     *         verbose graph and the dependency lost a conflict
+     */
+    public String getWinnerVersion() {
+        return winnerVersion;
+    }
+
+    public String getOriginalScope() {
+        return originalScope;
+    }
+
+    public String getIgnoredScope() {
+        return ignoredScope;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DependencyEdge)) {
+            return false;
+        }
+        DependencyEdge that = (DependencyEdge) obj;
+        // vertices are interned, so the same target is the same instance
+        return target == that.target
+                && hashCode == that.hashCode
+                && Objects.equals(scope, that.scope)
+                && Objects.equals(optional, that.optional)
+                && Objects.equals(premanagedVersion, that.premanagedVersion)
+                && Objects.equals(premanagedScope, that.premanagedScope)
+                && Objects.equals(versionConstraint, that.versionConstraint)
+                && Objects.equals(winnerVersion, that.winnerVersion)
+                && Objects.equals(originalScope, that.originalScope)
+                && Objects.equals(ignoredScope, that.ignoredScope);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return target.getId() + ':' + scope;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.reactor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * The dependency graphs of the modules of a reactor merged into a single directed acyclic graph. Occurrences of an
+ * artifact resolved to the same dependencies share one {@link ArtifactVertex vertex}, across subtrees and modules, and
+ * equal {@link DependencyEdge edges} are shared as well, so the size of the graph depends on the number of distinct
+ * resolutions rather than on the number of modules. Module graphs can be discarded once they are added.
+ * <p>
+ * Vertices know their parents, so reverse queries such as {@link #getModulesReaching(String, String)} only walk the
+ * vertices above the artifact. This class is not thread-safe.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public final class ReactorGraph {
+    private final List<ArtifactVertex> modules = new ArrayList<>();
+
+    private final Map<List<Object>, ArtifactVertex> vertices = new HashMap<>();
+
+    private final Map<DependencyEdge, DependencyEdge> edges = new HashMap<>();
+
+    /**
+     * The vertices of every <code>groupId:artifactId</code>.
+     */
+    private final Map<String, List<ArtifactVertex>> artifacts = new HashMap<>();
+
+    /**
+     * Adds the dependency graph of a module.
+     *
+     * @param root the root of the graph of the module, must not be {@code null}
+     * @return the vertex of the module
+     */
+    public ArtifactVertex addModule(DependencyNode root) {
+        Objects.requireNonNull(root, "root cannot be null");
+
+        // bottom-up, without recursion: a vertex can only be interned once its children are
+        Map<DependencyNode, ArtifactVertex> converted = new IdentityHashMap<>();
+        Deque<DependencyNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DependencyNode node = stack.peek();
+            boolean ready = true;
+            for (DependencyNode child : children(node)) {
+                if (!converted.containsKey(child)) {
+                    stack.push(child);
+                    ready = false;
+                }
+            }
+            if (ready) {
+                stack.pop();
+                converted.put(node, intern(node, converted));
+            }
+        }
+
+        ArtifactVertex module = converted.get(root);
+        modules.add(module);
+        return module;
+    }
+
+    private ArtifactVertex intern(DependencyNode node, Map<DependencyNode, ArtifactVertex> converted) {
+        List<DependencyNode> children = children(node);
+        List<DependencyEdge> nodeEdges = new ArrayList<>(children.size());
+        for (DependencyNode child : children) {
+            // the converted children are only needed by their parent
+            DependencyEdge edge = new DependencyEdge(child, converted.remove(child));
+            nodeEdges.add(edges.computeIfAbsent(edge, e -> e));
+        }
+
+        List<Object> key = Arrays.asList(ArtifactVertex.idOf(node.getArtifact()), node.isTruncated(), nodeEdges);
+        ArtifactVertex vertex = vertices.get(key);
+        if (vertex == null) {
+            vertex = new ArtifactVertex(node.getArtifact(), node.isTruncated(), nodeEdges);
+            vertices.put(key, vertex);
+            Set<ArtifactVertex> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (DependencyEdge edge : nodeEdges) {
+                if (targets.add(edge.getTarget())) {
+                    edge.getTarget().addParent(vertex);
+                }
+            }
+            artifacts
+                    .computeIfAbsent(vertex.getGroupId() + ':' + vertex.getArtifactId(), k -> new ArrayList<>(1))
+                    .add(vertex);
+        }
+        return vertex;
+    }
+
+    private static List<DependencyNode> children(DependencyNode node) {
+        List<DependencyNode> children = node.getChildren();
+        return children != null ? children : Collections.emptyList();
+    }
+
+    /**
+     * @return the vertices of the modules, in the order they were added
+     */
+    public List<ArtifactVertex> getModules() {
+        return Collections.unmodifiableList(modules);
+    }
+
+    /**
+     * @return the number of distinct vertices
+     */
+    public int getVertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * @return the number of distinct edges
+     */
+    public int getEdgeCount() {
+        return edges.size();
+    }
+
+    /**
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @return the vertices of the artifact, in any version or resolution, in the order they were added
+     */
+    public List<ArtifactVertex> getVertices(String groupId, String artifactId) {
+        List<ArtifactVertex> found = artifacts.get(groupId + ':' + artifactId);
+        return found != null ? Collections.unmodifiableList(found) : Collections.emptyList();
+    }
+
+    /**
+     * Finds the modules depending on an artifact, directly or transitively, whatever its version.
+     *
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @return the vertices of the modules reaching the artifact, in the order they were added
+     */
+    public List<ArtifactVertex> getModulesReaching(String groupId, String artifactId) {
+        return getModulesReaching(getVertices(groupId, artifactId));
+    }
+
+    /**
+     * Finds the modules reaching any of the specified vertices.
+     *
+     * @param targets vertices of this graph
+     * @return the vertices of the modules reaching the targets, in the order they were added
+     */
+    public List<ArtifactVertex> getModulesReaching(Collection<ArtifactVertex> targets) {
+        Set<ArtifactVertex> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<ArtifactVertex> queue = new ArrayDeque<>();
+        for (ArtifactVertex target : targets) {
+            for (ArtifactVertex parent : target.getParents()) {
+                if (reached.add(parent)) {
+                    queue.add(parent);
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (ArtifactVertex parent : queue.poll().getParents()) {
+                if (reached.add(parent)) {
+                    queue.add(parent);
+                }
+            }
+        }
+        return modules.stream().distinct().filter(reached::contains).collect(Collectors.toList());
+    }
+}
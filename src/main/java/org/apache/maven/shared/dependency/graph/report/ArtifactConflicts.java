@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.report;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.maven.shared.dependency.graph.ConflictData;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * The aggregate of the occurrences of a <code>groupId:artifactId</code> in the graphs of a {@link ConflictReport}.
+ * Instances are immutable once the report is built.
+ *
+ * @since 3.3.1
+ */
+public final class ArtifactConflicts {
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final Map<String, Long> versions = new TreeMap<>();
+
+    private final Map<String, Long> winners = new TreeMap<>();
+
+    private final Map<String, Long> ignoredScopes = new TreeMap<>();
+
+    private final Map<String, Long> originalScopes = new TreeMap<>();
+
+    private long omittedForConflict;
+
+    private long omittedForDuplicate;
+
+    private long managedVersions;
+
+    private long managedScopes;
+
+    ArtifactConflicts(String groupId, String artifactId) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+    }
+
+    void add(DependencyNode node, ConflictData data) {
+        String version = node.getArtifact().getVersion();
+        increment(versions, version, 1);
+        if (node.getPremanagedVersion() != null) {
+            managedVersions++;
+        }
+        if (node.getPremanagedScope() != null) {
+            managedScopes++;
+        }
+
+        if (data == null || data.getWinnerVersion() == null) {
+            increment(winners, version, 1);
+        } else if (data.getWinnerVersion().equals(version)) {
+            omittedForDuplicate++;
+        } else {
+            omittedForConflict++;
+        }
+        if (data != null) {
+            if (data.getIgnoredScope() != null) {
+                increment(ignoredScopes, data.getIgnoredScope(), 1);
+            }
+            if (data.getOriginalScope() != null) {
+                increment(originalScopes, data.getOriginalScope(), 1);
+            }
+        }
+    }
+
+    ArtifactConflicts merge(ArtifactConflicts other) {
+        ArtifactConflicts merged = new ArtifactConflicts(groupId, artifactId);
+        for (ArtifactConflicts conflicts : new ArtifactConflicts[] {this, other}) {
+            conflicts.versions.forEach((key, count) -> increment(merged.versions, key, count));
+            conflicts.winners.forEach((key, count) -> increment(merged.winners, key, count));
+            conflicts.ignoredScopes.forEach((key, count) -> increment(merged.ignoredScopes, key, count));
+            conflicts.originalScopes.forEach((key, count) -> increment(merged.originalScopes, key, count));
+            merged.omittedForConflict += conflicts.omittedForConflict;
+            merged.omittedForDuplicate += conflicts.omittedForDuplicate;
+            merged.managedVersions += conflicts.managedVersions;
+            merged.managedScopes += conflicts.managedScopes;
+        }
+        return merged;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * @return the number of nodes of each version, winners and losers alike
+     */
+    public Map<String, Long> getVersions() {
+        return Collections.unmodifiableMap(versions);
+    }
+
+    /**
+     * @return the number of nodes of each version which were kept in the resolved graphs, several versions meaning
+     *         that the merged graphs did not converge
+     */
+    public Map<String, Long> getWinners() {
+        return Collections.unmodifiableMap(winners);
+    }
+
+    /**
+     * @return the number of nodes omitted because another version won
+     */
+    public long getOmittedForConflict() {
+        return omittedForConflict;
+    }
+
+    /**
+     * @return the number of nodes omitted because the same version was already in the graph
+     */
+    public long getOmittedForDuplicate() {
+        return omittedForDuplicate;
+    }
+
+    /**
+     * @return the number of nodes whose version was managed
+     */
+    public long getManagedVersions() {
+        return managedVersions;
+    }
+
+    /**
+     * @return the number of nodes whose scope was managed
+     */
+    public long getManagedScopes() {
+        return managedScopes;
+    }
+
+    /**
+     * @return the number of nodes which were not updated to each wider scope
+     */
+    public Map<String, Long> getIgnoredScopes() {
+        return Collections.unmodifiableMap(ignoredScopes);
+    }
+
+    /**
+     * @return the number of nodes whose scope was updated from each original scope
+     */
+    public Map<String, Long> getOriginalScopes() {
+        return Collections.unmodifiableMap(originalScopes);
+    }
+
+    @Override
+    public String toString() {
+        return groupId + ':' + artifactId + " versions=" + versions + " winners=" + winners + " omittedForConflict="
+                + omittedForConflict + " omittedForDuplicate=" + omittedForDuplicate;
+    }
+
+    private static void increment(Map<String, Long> counters, String key, long count) {
+        counters.merge(key, count, Long::sum);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.report;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.ConflictData;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * Version conflicts and convergence of dependency graphs, aggregated per <code>groupId:artifactId</code> in a single
+ * traversal. Only counters are kept, so the size of a report depends on the number of distinct artifacts and versions
+ * rather than on the size of the graphs, and reports of several modules can be {@link #merge(Collection) merged}.
+ * <p>
+ * Conflict outcomes are only known for graphs built by a verbose {@code DependencyCollectorBuilder}: other graphs only
+ * contribute their versions and premanaged data.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public final class ConflictReport {
+    private static final ConflictReport EMPTY = new ConflictReport(Collections.emptyMap());
+
+    private final Map<String, ArtifactConflicts> artifacts;
+
+    private ConflictReport(Map<String, ArtifactConflicts> artifacts) {
+        this.artifacts = artifacts;
+    }
+
+    /**
+     * Aggregates a dependency graph, its root excluded.
+     *
+     * @param root the root of the graph, must not be {@code null}
+     * @return the report of the graph
+     */
+    public static ConflictReport of(DependencyNode root) {
+        Objects.requireNonNull(root, "root cannot be null");
+
+        Map<String, ArtifactConflicts> artifacts = new TreeMap<>();
+        Deque<DependencyNode> stack = new ArrayDeque<>();
+        push(stack, root);
+        while (!stack.isEmpty()) {
+            DependencyNode node = stack.pop();
+            Artifact artifact = node.getArtifact();
+            ConflictData data = node.getConflictData();
+            artifacts
+                    .computeIfAbsent(
+                            artifact.getGroupId() + ':' + artifact.getArtifactId(),
+                            key -> new ArtifactConflicts(artifact.getGroupId(), artifact.getArtifactId()))
+                    .add(node, data);
+            push(stack, node);
+        }
+        return new ConflictReport(artifacts);
+    }
+
+    /**
+     * Merges reports, for instance those of the modules of a reactor, in parallel.
+     *
+     * @param reports the reports to merge
+     * @return the merged report
+     */
+    public static ConflictReport merge(Collection<ConflictReport> reports) {
+        return reports.parallelStream().reduce(EMPTY, ConflictReport::merge, ConflictReport::merge);
+    }
+
+    /**
+     * @param other the report to merge with this one
+     * @return a new report holding the counters of both reports
+     */
+    public ConflictReport merge(ConflictReport other) {
+        if (artifacts.isEmpty()) {
+            return other;
+        }
+        if (other.artifacts.isEmpty()) {
+            return this;
+        }
+        Map<String, ArtifactConflicts> merged = new TreeMap<>(artifacts);
+        for (Map.Entry<String, ArtifactConflicts> entry : other.artifacts.entrySet()) {
+            merged.merge(entry.getKey(), entry.getValue(), ArtifactConflicts::merge);
+        }
+        return new ConflictReport(merged);
+    }
+
+    /**
+     * @return every artifact of the graphs, ordered by <code>groupId:artifactId</code>
+     */
+    public List<ArtifactConflicts> getArtifacts() {
+        return Collections.unmodifiableList(new ArrayList<>(artifacts.values()));
+    }
+
+    /**
+     * @return the artifacts found with more than one version, ordered by <code>groupId:artifactId</code>
+     */
+    public List<ArtifactConflicts> getDivergentArtifacts() {
+        return artifacts.values().stream()
+                .filter(conflicts -> conflicts.getVersions().size() > 1)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @return the aggregate of the artifact, or {@code null} if it is not in the graphs
+     */
+    public ArtifactConflicts getArtifact(String groupId, String artifactId) {
+        return artifacts.get(groupId + ':' + artifactId);
+    }
+
+    private static void push(Deque<DependencyNode> stack, DependencyNode node) {
+        List<DependencyNode> children = node.getChildren();
+        if (children != null) {
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+    }
+}
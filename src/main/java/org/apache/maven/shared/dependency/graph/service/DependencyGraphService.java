@@ -0,0 +1,498 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.SerializingDependencyNodeVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long-lived service keeping the most recently used dependency graphs in memory. Each graph is invalidated as soon
+ * as one of the files it was {@link DependencyGraphSource loaded from} changes, as reported by a {@link WatchService}.
+ * <p>
+ * A graph is only kept if none of its inputs was modified while it was loaded, which is checked once its inputs are
+ * watched. Inputs modified shortly before the load started, within the timestamp resolution of common file systems,
+ * count as modified while loading, so a graph whose inputs were just written is loaded again on its next request.
+ * </p>
+ * <p>
+ * The graphs can also be queried by other local processes once {@link #start(int) started}: the service then listens
+ * on the loopback interface, and serves at most {@value #MAX_CONNECTIONS} connections at a time. A client first sends
+ * the {@link #getToken() token} of the service on its own line, then one key per line, and the service answers each
+ * key with the serialized graph followed by an empty line, or with a line starting with {@code ERROR}. The token
+ * should be handed over to the clients through a channel only they can read, such as a file only readable by the
+ * user.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public class DependencyGraphService implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphService.class);
+
+    /**
+     * The maximum number of connections served at a time.
+     */
+    static final int MAX_CONNECTIONS = 16;
+
+    /**
+     * How long a client may take to send the token, in milliseconds.
+     */
+    private static final int TOKEN_TIMEOUT = 10_000;
+
+    /**
+     * How long an authenticated client may stay silent before its connection is closed, in milliseconds, so that idle
+     * clients cannot hold the connection slots forever.
+     */
+    private static final int IDLE_TIMEOUT = 60_000;
+
+    /**
+     * The coarsest timestamp resolution of common file systems, in milliseconds.
+     */
+    private static final long MODIFICATION_TIME_RESOLUTION = 2_000;
+
+    private final DependencyGraphSource source;
+
+    private final int capacity;
+
+    private final WatchService watchService;
+
+    private final Map<String, Graph> graphs = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<Path, Set<String>> keysByInput = new HashMap<>();
+
+    private final Map<Path, WatchKey> watchKeys = new HashMap<>();
+
+    private final Map<String, FutureTask<DependencyNode>> loads = new ConcurrentHashMap<>();
+
+    private final Consumer<Path> watchHook;
+
+    private final Thread watcher;
+
+    private final String token;
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService connections;
+
+    /**
+     * @param source the source of the graphs
+     * @param capacity the maximum number of graphs kept in memory
+     * @throws IOException if the file system cannot be watched
+     */
+    public DependencyGraphService(DependencyGraphSource source, int capacity) throws IOException {
+        this(source, capacity, input -> {});
+    }
+
+    /**
+     * @param watchHook called by the watcher thread with every changed input, or directory which cannot be watched
+     *            anymore, once the graphs depending on it are invalidated
+     */
+    DependencyGraphService(DependencyGraphSource source, int capacity, Consumer<Path> watchHook) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.source = source;
+        this.capacity = capacity;
+        this.watchHook = watchHook;
+        byte[] secret = new byte[16];
+        new SecureRandom().nextBytes(secret);
+        this.token = new BigInteger(1, secret).toString(16);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watcher = new Thread(this::watch, "dependency-graph-service-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Gets a graph, loading it if it is not in memory. Concurrent requests of the same graph share a single load, while
+     * different graphs are loaded concurrently.
+     *
+     * @param key the key of the graph
+     * @return the graph
+     * @throws Exception if the graph cannot be loaded
+     */
+    public DependencyNode getGraph(String key) throws Exception {
+        synchronized (this) {
+            Graph graph = graphs.get(key);
+            if (graph != null) {
+                return graph.root;
+            }
+        }
+
+        FutureTask<DependencyNode> load = new FutureTask<>(() -> load(key));
+        FutureTask<DependencyNode> running = loads.putIfAbsent(key, load);
+        if (running == null) {
+            running = load;
+            try {
+                load.run();
+            } finally {
+                loads.remove(key, load);
+            }
+        }
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private DependencyNode load(String key) throws Exception {
+        synchronized (this) {
+            Graph graph = graphs.get(key);
+            if (graph != null) {
+                return graph.root;
+            }
+        }
+
+        long loadStart = System.currentTimeMillis();
+        Set<Path> inputs = new LinkedHashSet<>();
+        DependencyNode root = source.load(key, inputs);
+        Set<Path> normalized = new HashSet<>();
+        for (Path input : inputs) {
+            normalized.add(input.toAbsolutePath().normalize());
+        }
+
+        synchronized (this) {
+            graphs.put(key, new Graph(root, normalized));
+            for (Path input : normalized) {
+                watch(input, key);
+            }
+            while (graphs.size() > capacity) {
+                invalidate(graphs.keySet().iterator().next());
+            }
+        }
+
+        // the inputs are watched from now on, a change made while loading is only visible in their modification time
+        for (Path input : normalized) {
+            if (modifiedSince(input, loadStart - MODIFICATION_TIME_RESOLUTION)) {
+                invalidate(key);
+                break;
+            }
+        }
+        return root;
+    }
+
+    private static boolean modifiedSince(Path input, long time) {
+        try {
+            return Files.getLastModifiedTime(input).toMillis() >= time;
+        } catch (NoSuchFileException e) {
+            // its creation will be watched
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @param key the key of a graph
+     * @return {@code true} if the graph is in memory
+     */
+    public synchronized boolean isCached(String key) {
+        return graphs.containsKey(key);
+    }
+
+    /**
+     * Drops a graph from memory.
+     *
+     * @param key the key of the graph
+     */
+    public synchronized void invalidate(String key) {
+        Graph graph = graphs.remove(key);
+        if (graph == null) {
+            return;
+        }
+        for (Path input : graph.inputs) {
+            Set<String> keys = keysByInput.get(input);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByInput.remove(input);
+                unwatchDirectory(input.getParent());
+            }
+        }
+    }
+
+    /**
+     * Starts answering queries on the loopback interface.
+     *
+     * @param port the port to listen on, {@code 0} for any free port
+     * @return the port the service listens on
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized int start(int port) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("The dependency graph service is already started");
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        AtomicInteger counter = new AtomicInteger();
+        connections =
+                new ThreadPoolExecutor(0, MAX_CONNECTIONS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                    Thread thread =
+                            new Thread(runnable, "dependency-graph-service-connection-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ServerSocket server = serverSocket;
+        ExecutorService executor = connections;
+        Thread acceptor = new Thread(() -> accept(server, executor), "dependency-graph-service-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the token clients must send first once the service is {@link #start(int) started}
+     */
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ServerSocket server;
+        ExecutorService executor;
+        synchronized (this) {
+            server = serverSocket;
+            executor = connections;
+            serverSocket = null;
+            connections = null;
+            graphs.clear();
+            keysByInput.clear();
+            watchKeys.clear();
+        }
+        try {
+            watchService.close();
+        } finally {
+            if (server != null) {
+                server.close();
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private void watch(Path input, String key) {
+        Path directory = input.getParent();
+        if (directory == null) {
+            return;
+        }
+        keysByInput.computeIfAbsent(input, i -> new HashSet<>()).add(key);
+        if (!watchKeys.containsKey(directory)) {
+            try {
+                watchKeys.put(
+                        directory,
+                        directory.register(
+                                watchService,
+                                StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_MODIFY,
+                                StandardWatchEventKinds.ENTRY_DELETE));
+            } catch (IOException e) {
+                // a missing directory cannot be watched, the graph may silently become stale
+                LOGGER.debug("Could not watch {}: {}", directory, e.getMessage());
+            } catch (ClosedWatchServiceException e) {
+                // the service is closed while the graph was loading, nothing needs to be watched anymore
+                LOGGER.debug("Not watching {}, the service is closed", directory);
+            }
+        }
+    }
+
+    private void unwatchDirectory(Path directory) {
+        for (Path input : keysByInput.keySet()) {
+            if (directory.equals(input.getParent())) {
+                return;
+            }
+        }
+        WatchKey watchKey = watchKeys.remove(directory);
+        if (watchKey != null) {
+            watchKey.cancel();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                Path directory = (Path) watchKey.watchable();
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        invalidateDirectory(directory);
+                    } else {
+                        Path input = directory.resolve((Path) event.context());
+                        invalidateInput(input);
+                        watchHook.accept(input);
+                    }
+                }
+                if (!watchKey.reset()) {
+                    // the directory cannot be watched anymore, typically because it was deleted
+                    forgetDirectory(directory, watchKey);
+                    watchHook.accept(directory);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // the service is closed
+        }
+    }
+
+    /**
+     * Invalidates the graphs of a directory which is not watched anymore, so that the next request for one of them
+     * loads it again and registers the directory again if it exists.
+     */
+    private synchronized void forgetDirectory(Path directory, WatchKey watchKey) {
+        watchKeys.remove(directory, watchKey);
+        invalidateDirectory(directory);
+    }
+
+    private synchronized void invalidateInput(Path input) {
+        Set<String> keys = keysByInput.get(input);
+        if (keys != null) {
+            for (String key : new ArrayList<>(keys)) {
+                invalidate(key);
+            }
+        }
+    }
+
+    private synchronized void invalidateDirectory(Path directory) {
+        List<Path> inputs = new ArrayList<>();
+        for (Path input : keysByInput.keySet()) {
+            if (directory.equals(input.getParent())) {
+                inputs.add(input);
+            }
+        }
+        for (Path input : inputs) {
+            invalidateInput(input);
+        }
+    }
+
+    private void accept(ServerSocket server, ExecutorService executor) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                try {
+                    executor.execute(() -> serve(socket));
+                } catch (RejectedExecutionException e) {
+                    LOGGER.debug("Too many connections, closing {}", socket);
+                    socket.close();
+                }
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    LOGGER.debug("Could not accept a connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader in =
+                        new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setSoTimeout(TOKEN_TIMEOUT);
+            String clientToken = in.readLine();
+            if (clientToken == null
+                    || !MessageDigest.isEqual(
+                            token.getBytes(StandardCharsets.UTF_8), clientToken.getBytes(StandardCharsets.UTF_8))) {
+                out.write("ERROR invalid token\n");
+                out.flush();
+                return;
+            }
+            s.setSoTimeout(IDLE_TIMEOUT);
+
+            String key;
+            while ((key = in.readLine()) != null) {
+                out.write(answer(key));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Connection failed: {}", e.getMessage());
+        }
+    }
+
+    private String answer(String key) {
+        try {
+            DependencyNode graph = getGraph(key);
+            StringWriter writer = new StringWriter();
+            graph.accept(
+                    new SerializingDependencyNodeVisitor(writer, SerializingDependencyNodeVisitor.STANDARD_TOKENS));
+            return writer.toString();
+        } catch (Exception e) {
+            return "ERROR " + String.valueOf(e.getMessage()).replace('\n', ' ') + "\n";
+        }
+    }
+
+    /**
+     * A graph in memory and its normalized inputs.
+     */
+    private static final class Graph {
+        private final DependencyNode root;
+
+        private final Set<Path> inputs;
+
+        Graph(DependencyNode root, Set<Path> inputs) {
+            this.root = root;
+            this.inputs = inputs;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.service;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorRequest;
+import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.PomInputs;
+import org.apache.maven.shared.dependency.graph.traversal.CollectingDependencyNodeVisitor;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+/**
+ * Loads the dependency graphs served by a {@link DependencyGraphService}, along with the files they were computed
+ * from.
+ *
+ * @since 3.3.1
+ */
+@FunctionalInterface
+public interface DependencyGraphSource {
+    /**
+     * Loads a graph.
+     *
+     * @param key the key of the graph, for instance the path of the project POM
+     * @param inputs the collection to add the files the graph depends on to: the graph is invalidated when one of them
+     *            is created, modified or deleted
+     * @return the graph
+     * @throws Exception if the graph cannot be loaded
+     */
+    DependencyNode load(String key, Collection<Path> inputs) throws Exception;
+
+    /**
+     * Loads graphs with a {@link DependencyGraphBuilder}. The inputs are the POMs the graph was computed from, see
+     * {@link #addInputs(ProjectBuildingRequest, DependencyNode, Collection)}.
+     *
+     * @param builder the builder
+     * @param requests provides the building request of a key
+     * @return the source
+     */
+    static DependencyGraphSource of(DependencyGraphBuilder builder, Function<String, ProjectBuildingRequest> requests) {
+        return (key, inputs) -> {
+            ProjectBuildingRequest request = requests.apply(key);
+            DependencyNode graph = builder.buildDependencyGraph(request, null);
+            addInputs(request, graph, inputs);
+            return graph;
+        };
+    }
+
+    /**
+     * Loads graphs with a {@link DependencyCollectorBuilder}. The inputs are the POMs the graph was computed from, see
+     * {@link #addInputs(ProjectBuildingRequest, DependencyNode, Collection)}.
+     *
+     * @param builder the builder
+     * @param requests provides the collector request of a key
+     * @return the source
+     */
+    static DependencyGraphSource of(
+            DependencyCollectorBuilder builder, Function<String, DependencyCollectorRequest> requests) {
+        return (key, inputs) -> {
+            DependencyCollectorRequest request = requests.apply(key);
+            DependencyNode graph = builder.collectDependencyGraph(request);
+            addInputs(request.getBuildingRequest(), graph, inputs);
+            return graph;
+        };
+    }
+
+    /**
+     * Adds the POMs the graph was computed from to the inputs: the project POM with its parents and imported POMs, and
+     * the POM of every dependency with its own parents and imported POMs, see {@link PomInputs}.
+     *
+     * @param request the request the graph was built with
+     * @param graph the graph
+     * @param inputs the inputs to add to
+     */
+    static void addInputs(ProjectBuildingRequest request, DependencyNode graph, Collection<Path> inputs) {
+        RepositorySystemSession session = request.getRepositorySession();
+        MavenProject project = request.getProject();
+        if (project != null && project.getFile() != null) {
+            inputs.add(project.getFile().toPath());
+            // parents found through their relative path are not located by coordinates
+            for (MavenProject parent = project.getParent(); parent != null; parent = parent.getParent()) {
+                if (parent.getFile() != null) {
+                    inputs.add(parent.getFile().toPath());
+                }
+            }
+            List<File> poms = PomInputs.of(session, project.getFile());
+            if (poms != null) {
+                poms.forEach(pom -> inputs.add(pom.toPath()));
+            }
+        }
+
+        CollectingDependencyNodeVisitor visitor = new CollectingDependencyNodeVisitor();
+        graph.accept(visitor);
+        for (DependencyNode node : visitor.getNodes()) {
+            if (node.getParent() == null) {
+                continue;
+            }
+            Artifact artifact = node.getArtifact();
+            DefaultArtifact pom = new DefaultArtifact(
+                    artifact.getGroupId(), artifact.getArtifactId(), "pom", artifact.getBaseVersion());
+            List<File> poms = PomInputs.of(session, pom);
+            if (poms != null) {
+                poms.forEach(file -> inputs.add(file.toPath()));
+            } else {
+                // the POM or one of its parents is missing, watch the POM for its creation at least
+                String path = session.getLocalRepositoryManager().getPathForLocalArtifact(pom);
+                inputs.add(new File(session.getLocalRepository().getBasedir(), path).toPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.store;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * A read-only store of dependency graphs in a memory-mapped file. Nodes are fixed-width records whose children occupy
+ * a contiguous range of records, and all their strings live in a shared pool. The graphs of an open store are
+ * {@link DependencyNode} views reading their fields from the mapped buffer on demand, so they can be visited and
+ * filtered without loading them on heap.
+ * <p>
+ * Only the content of {@link DependencyNode} is stored: verbose graphs lose their conflict data. A store is limited to
+ * 2 GiB, the maximum size of a single mapping.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public final class DependencyGraphStore implements Closeable {
+    private static final int MAGIC = 0x44475331; // DGS1
+
+    private static final int HEADER_INTS = 5;
+
+    // fields of a node record, in ints
+    static final int PARENT = 0;
+
+    static final int FIRST_CHILD = 1;
+
+    static final int CHILD_COUNT = 2;
+
+    static final int GROUP_ID = 3;
+
+    static final int ARTIFACT_ID = 4;
+
+    static final int VERSION = 5;
+
+    static final int TYPE = 6;
+
+    static final int CLASSIFIER = 7;
+
+    static final int SCOPE = 8;
+
+    static final int PREMANAGED_VERSION = 9;
+
+    static final int PREMANAGED_SCOPE = 10;
+
+    static final int VERSION_CONSTRAINT = 11;
+
+    static final int FIRST_EXCLUSION = 12;
+
+    static final int EXCLUSION_COUNT = 13;
+
+    static final int FLAGS = 14;
+
+    private static final int RECORD_INTS = 15;
+
+    // flags of a node record
+    static final int OPTIONAL_FALSE = 1;
+
+    static final int OPTIONAL_TRUE = 1 << 1;
+
+    static final int TRUNCATED = 1 << 2;
+
+    static final int ARTIFACT_OPTIONAL = 1 << 3;
+
+    static final int NO_ARTIFACT = 1 << 4;
+
+    /**
+     * The mapped file, {@code null} once closed. Closing only drops the reference: the mapping is released by the
+     * garbage collector once no view and no reading thread can reach it, so a thread racing with {@link #close()}
+     * reads a valid mapping or fails with an {@link IllegalStateException}, but never reads unmapped memory.
+     */
+    private volatile ByteBuffer buffer;
+
+    private final int graphCount;
+
+    private final int nodeCount;
+
+    private final int exclusionCount;
+
+    private final int roots;
+
+    private final int nodes;
+
+    private final int exclusions;
+
+    private final int strings;
+
+    private final int stringCount;
+
+    private final Map<String, ArtifactHandler> handlers = new ConcurrentHashMap<>();
+
+    private DependencyGraphStore(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a dependency graph store");
+        }
+        graphCount = buffer.getInt(4);
+        nodeCount = buffer.getInt(8);
+        exclusionCount = buffer.getInt(12);
+        stringCount = buffer.getInt(16);
+        if (graphCount < 0 || nodeCount < 0 || exclusionCount < 0 || stringCount < 0) {
+            throw new IOException("Corrupt dependency graph store: negative counts");
+        }
+
+        // computed as longs, so that corrupt counts cannot overflow into seemingly valid offsets
+        long rootsStart = HEADER_INTS * Integer.BYTES;
+        long nodesStart = rootsStart + (long) graphCount * Integer.BYTES;
+        long exclusionsStart = nodesStart + (long) nodeCount * RECORD_INTS * Integer.BYTES;
+        long stringsStart = exclusionsStart + (long) exclusionCount * 2 * Integer.BYTES;
+        long stringsData = stringsStart + ((long) stringCount + 1) * Integer.BYTES;
+        if (stringsData > buffer.capacity()
+                || stringsData + buffer.getInt((int) stringsData - Integer.BYTES) > buffer.capacity()) {
+            throw new IOException("Corrupt dependency graph store: its sections exceed the file size");
+        }
+        roots = (int) rootsStart;
+        nodes = (int) nodesStart;
+        exclusions = (int) exclusionsStart;
+        strings = (int) stringsStart;
+    }
+
+    /**
+     * Maps a store written by {@link #write(Path, List)}.
+     *
+     * @param file the store file
+     * @return the open store
+     * @throws IOException if the file cannot be mapped or is not a store
+     */
+    public static DependencyGraphStore open(Path file) throws IOException {
+        MappedByteBuffer buffer = MappedFiles.map(file);
+        try {
+            return new DependencyGraphStore(buffer);
+        } catch (IOException | RuntimeException e) {
+            MappedFiles.unmap(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes graphs to a store file, replacing any existing file.
+     *
+     * @param file the store file
+     * @param graphs the root nodes of the graphs to store
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, List<? extends DependencyNode> graphs) throws IOException {
+        StringPool pool = new StringPool();
+        List<Exclusion> exclusions = new ArrayList<>();
+
+        // breadth first, so that the children of every node are contiguous records; the parent index travels with the
+        // node, since a node instance may be shared by several parents
+        int[] rootIndices = new int[graphs.size()];
+        Deque<DependencyNode> queue = new ArrayDeque<>();
+        Deque<Integer> parents = new ArrayDeque<>();
+        int next = 0;
+        for (int i = 0; i < rootIndices.length; i++) {
+            rootIndices[i] = next++;
+            queue.add(graphs.get(i));
+            parents.add(-1);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            List<int[]> data = new ArrayList<>();
+            int index = 0;
+            while (!queue.isEmpty()) {
+                DependencyNode node = queue.poll();
+                int[] record = new int[RECORD_INTS];
+                record[PARENT] = parents.poll();
+                List<DependencyNode> children = node.getChildren();
+                record[FIRST_CHILD] = next;
+                record[CHILD_COUNT] = children == null ? -1 : children.size();
+                if (children != null) {
+                    for (DependencyNode child : children) {
+                        next++;
+                        parents.add(index);
+                        queue.add(child);
+                    }
+                }
+
+                int flags = 0;
+                Artifact artifact = node.getArtifact();
+                if (artifact != null) {
+                    record[GROUP_ID] = pool.add(artifact.getGroupId());
+                    record[ARTIFACT_ID] = pool.add(artifact.getArtifactId());
+                    record[VERSION] = pool.add(artifact.getVersion());
+                    record[TYPE] = pool.add(artifact.getType());
+                    record[CLASSIFIER] = pool.add(artifact.getClassifier());
+                    record[SCOPE] = pool.add(artifact.getScope());
+                    flags |= artifact.isOptional() ? ARTIFACT_OPTIONAL : 0;
+                } else {
+                    flags |= NO_ARTIFACT;
+                }
+                record[PREMANAGED_VERSION] = pool.add(node.getPremanagedVersion());
+                record[PREMANAGED_SCOPE] = pool.add(node.getPremanagedScope());
+                record[VERSION_CONSTRAINT] = pool.add(node.getVersionConstraint());
+
+                List<Exclusion> nodeExclusions = node.getExclusions();
+                record[FIRST_EXCLUSION] = exclusions.size();
+                record[EXCLUSION_COUNT] = nodeExclusions == null ? -1 : nodeExclusions.size();
+                if (nodeExclusions != null) {
+                    exclusions.addAll(nodeExclusions);
+                }
+
+                if (node.getOptional() != null) {
+                    flags |= node.getOptional() ? OPTIONAL_TRUE : OPTIONAL_FALSE;
+                }
+                flags |= node.isTruncated() ? TRUNCATED : 0;
+                record[FLAGS] = flags;
+
+                data.add(record);
+                index++;
+            }
+
+            int[] exclusionStrings = new int[exclusions.size() * 2];
+            for (int i = 0; i < exclusions.size(); i++) {
+                exclusionStrings[i * 2] = pool.add(exclusions.get(i).getGroupId());
+                exclusionStrings[i * 2 + 1] = pool.add(exclusions.get(i).getArtifactId());
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(rootIndices.length);
+            out.writeInt(data.size());
+            out.writeInt(exclusions.size());
+            out.writeInt(pool.count());
+            for (int root : rootIndices) {
+                out.writeInt(root);
+            }
+            for (int[] record : data) {
+                for (int field : record) {
+                    out.writeInt(field);
+                }
+            }
+            for (int string : exclusionStrings) {
+                out.writeInt(string);
+            }
+            pool.write(out);
+        }
+    }
+
+    /**
+     * @return the number of graphs in this store
+     */
+    public int size() {
+        return graphCount;
+    }
+
+    /**
+     * @param index the index of the graph, in the order it was written
+     * @return a view of the root node of the graph
+     */
+    public DependencyNode getGraph(int index) {
+        if (index < 0 || index >= graphCount) {
+            throw new IndexOutOfBoundsException("Graph " + index + " of " + graphCount);
+        }
+        return new MappedDependencyNode(this, buffer().getInt(roots + index * Integer.BYTES));
+    }
+
+    /**
+     * Closes this store: its views fail with an {@link IllegalStateException} from now on. The mapping itself is
+     * released by the garbage collector, so that threads still reading the store cannot crash the JVM; until then,
+     * some platforms keep the file from being deleted or replaced.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    int field(int node, int field) {
+        if (node < 0 || node >= nodeCount) {
+            throw corrupt("node " + node + " of " + nodeCount);
+        }
+        return buffer().getInt(nodes + (node * RECORD_INTS + field) * Integer.BYTES);
+    }
+
+    String string(int index) {
+        if (index < StringPool.NULL || index >= stringCount) {
+            throw corrupt("string " + index + " of " + stringCount);
+        }
+        return StringPool.read(buffer(), strings, stringCount, index);
+    }
+
+    String exclusionString(int exclusion, int part) {
+        if (exclusion < 0 || exclusion >= exclusionCount) {
+            throw corrupt("exclusion " + exclusion + " of " + exclusionCount);
+        }
+        return string(buffer().getInt(exclusions + (exclusion * 2 + part) * Integer.BYTES));
+    }
+
+    /**
+     * @param type the artifact type
+     * @return the artifact handler of the type, shared by all the artifacts of this store
+     */
+    ArtifactHandler handler(String type) {
+        return handlers.computeIfAbsent(type, DefaultArtifactHandler::new);
+    }
+
+    private static IllegalStateException corrupt(String reference) {
+        return new IllegalStateException("Corrupt dependency graph store: no " + reference);
+    }
+
+    private ByteBuffer buffer() {
+        ByteBuffer current = buffer;
+        if (current == null) {
+            throw new IllegalStateException("The dependency graph store is closed");
+        }
+        return current;
+    }
+}
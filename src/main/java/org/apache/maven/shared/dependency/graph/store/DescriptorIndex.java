@@ -0,0 +1,900 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.store;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.shared.dependency.graph.internal.PomInputs;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.ArtifactProperties;
+import org.eclipse.aether.artifact.ArtifactType;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.artifact.DefaultArtifactType;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+
+/**
+ * A read-only index of the artifact descriptors of a local repository in a memory-mapped file, so that offline
+ * collections do not parse and build the same POMs again in every JVM. The index keeps the effective dependencies,
+ * managed dependencies, repositories and properties of each POM, along with the size and modification time of the POM
+ * and of the parent and imported POMs its model was built from: {@link #find(RepositorySystemSession,
+ * ArtifactDescriptorRequest) lookups} ignore an entry as soon as one of these files changed.
+ * <p>
+ * POMs whose descriptor is relocated, has aliases or depends on a parent or import which cannot be located in the local
+ * repository are not indexed, and are left to the real descriptor reader. An index is limited to 2 GiB, the maximum
+ * size of a single mapping.
+ * </p>
+ * <p>
+ * The profiles active in an effective model depend on the session, so the index also records the JDK and operating
+ * system it was built with, and the values of the properties the profiles of the indexed POMs are activated by. The
+ * index only serves sessions with the same values, and only requests whose repositories were known when it was built:
+ * the ones given to {@link #build(Path, RepositorySystemSession, ArtifactDescriptorReader, List) build} it, and the
+ * ones declared by the indexed descriptors. Profiles activated by the existence of files are not checked.
+ * </p>
+ *
+ * @see IndexedArtifactDescriptorReader
+ * @since 3.3.1
+ */
+public final class DescriptorIndex implements Closeable {
+    private static final int MAGIC = 0x44444933; // DDI3
+
+    private static final int HEADER_INTS = 13;
+
+    // fields of an entry record, in ints
+    private static final int KEY = 0;
+
+    private static final int FIRST_INPUT = 1;
+
+    private static final int INPUT_COUNT = 2;
+
+    private static final int FIRST_DEPENDENCY = 3;
+
+    private static final int DEPENDENCY_COUNT = 4;
+
+    private static final int MANAGED_DEPENDENCY_COUNT = 5;
+
+    private static final int FIRST_REPOSITORY = 6;
+
+    private static final int REPOSITORY_COUNT = 7;
+
+    private static final int FIRST_PROPERTY = 8;
+
+    private static final int PROPERTY_COUNT = 9;
+
+    private static final int ENTRY_INTS = 10;
+
+    // an input record is a path followed by the length and modification time of the file
+    private static final int INPUT_BYTES = Integer.BYTES + 2 * Long.BYTES;
+
+    // fields of a dependency record, in ints
+    private static final int GROUP_ID = 0;
+
+    private static final int ARTIFACT_ID = 1;
+
+    private static final int VERSION = 2;
+
+    private static final int CLASSIFIER = 3;
+
+    private static final int TYPE = 4;
+
+    private static final int SCOPE = 5;
+
+    private static final int SYSTEM_PATH = 6;
+
+    private static final int FLAGS = 7;
+
+    private static final int FIRST_EXCLUSION = 8;
+
+    private static final int EXCLUSION_COUNT = 9;
+
+    private static final int DEPENDENCY_INTS = 10;
+
+    // flags of a dependency record
+    private static final int OPTIONAL_FALSE = 1;
+
+    private static final int OPTIONAL_TRUE = 1 << 1;
+
+    private static final int EXCLUSION_INTS = 4;
+
+    // fields of a repository record, in ints
+    private static final int REPOSITORY_ID = 0;
+
+    private static final int REPOSITORY_TYPE = 1;
+
+    private static final int REPOSITORY_URL = 2;
+
+    private static final int RELEASE_UPDATE_POLICY = 3;
+
+    private static final int RELEASE_CHECKSUM_POLICY = 4;
+
+    private static final int SNAPSHOT_UPDATE_POLICY = 5;
+
+    private static final int SNAPSHOT_CHECKSUM_POLICY = 6;
+
+    private static final int REPOSITORY_FLAGS = 7;
+
+    private static final int REPOSITORY_INTS = 8;
+
+    // flags of a repository record
+    private static final int RELEASES_ENABLED = 1;
+
+    private static final int SNAPSHOTS_ENABLED = 1 << 1;
+
+    // fields of a property record, in ints
+    private static final int PROPERTY_KEY = 0;
+
+    private static final int PROPERTY_VALUE = 1;
+
+    private static final int PROPERTY_TYPE = 2;
+
+    private static final int PROPERTY_INTS = 3;
+
+    // types of a property value, Maven's reader sets "license.count" to an integer
+    private static final int STRING_VALUE = 0;
+
+    private static final int INTEGER_VALUE = 1;
+
+    private static final int BOOLEAN_VALUE = 2;
+
+    /**
+     * The system properties which decide the activation of profiles by JDK and operating system.
+     */
+    private static final List<String> ACTIVATION_SYSTEM_PROPERTIES =
+            Arrays.asList("java.version", "os.name", "os.arch", "os.version");
+
+    /**
+     * The mapped file, {@code null} once closed, see {@link DependencyGraphStore#close()} for why closing only drops
+     * the reference.
+     */
+    private volatile ByteBuffer buffer;
+
+    private final File basedir;
+
+    private final int entryCount;
+
+    private final int inputCount;
+
+    private final int dependencyCount;
+
+    private final int exclusionCount;
+
+    private final int repositoryCount;
+
+    private final int propertyCount;
+
+    /**
+     * The values of the activation properties when the index was built, {@code null} for the absent ones.
+     */
+    private final Map<String, String> activation;
+
+    /**
+     * The repositories known when the index was built, as their id and URL.
+     */
+    private final Set<String> knownRepositories;
+
+    /**
+     * The last session properties checked against {@link #activation}.
+     */
+    private volatile ActivationCheck lastCheck;
+
+    private final int entries;
+
+    private final int inputs;
+
+    private final int dependencies;
+
+    private final int exclusions;
+
+    private final int repositories;
+
+    private final int properties;
+
+    private final int strings;
+
+    private final int stringCount;
+
+    private DescriptorIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a descriptor index");
+        }
+        entryCount = buffer.getInt(4);
+        inputCount = buffer.getInt(8);
+        dependencyCount = buffer.getInt(12);
+        exclusionCount = buffer.getInt(16);
+        repositoryCount = buffer.getInt(20);
+        propertyCount = buffer.getInt(24);
+        stringCount = buffer.getInt(28);
+        if (entryCount < 0
+                || inputCount < 0
+                || dependencyCount < 0
+                || exclusionCount < 0
+                || repositoryCount < 0
+                || propertyCount < 0
+                || stringCount < 0) {
+            throw new IOException("Corrupt descriptor index: negative counts");
+        }
+
+        // computed as longs, so that corrupt counts cannot overflow into seemingly valid offsets
+        long entriesStart = HEADER_INTS * Integer.BYTES;
+        long inputsStart = entriesStart + (long) entryCount * ENTRY_INTS * Integer.BYTES;
+        long dependenciesStart = inputsStart + (long) inputCount * INPUT_BYTES;
+        long exclusionsStart = dependenciesStart + (long) dependencyCount * DEPENDENCY_INTS * Integer.BYTES;
+        long repositoriesStart = exclusionsStart + (long) exclusionCount * EXCLUSION_INTS * Integer.BYTES;
+        long propertiesStart = repositoriesStart + (long) repositoryCount * REPOSITORY_INTS * Integer.BYTES;
+        long stringsStart = propertiesStart + (long) propertyCount * PROPERTY_INTS * Integer.BYTES;
+        long stringsData = stringsStart + ((long) stringCount + 1) * Integer.BYTES;
+        if (stringsData > buffer.capacity()
+                || stringsData + buffer.getInt((int) stringsData - Integer.BYTES) > buffer.capacity()) {
+            throw new IOException("Corrupt descriptor index: its sections exceed the file size");
+        }
+        entries = (int) entriesStart;
+        inputs = (int) inputsStart;
+        dependencies = (int) dependenciesStart;
+        exclusions = (int) exclusionsStart;
+        repositories = (int) repositoriesStart;
+        properties = (int) propertiesStart;
+        strings = (int) stringsStart;
+
+        try {
+            basedir = new File(string(buffer.getInt(32)));
+
+            int firstActivation = buffer.getInt(36);
+            int activationCount = buffer.getInt(40);
+            checkRange(firstActivation, activationCount, propertyCount, "activation property");
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < activationCount; i++) {
+                int property = properties + (firstActivation + i) * PROPERTY_INTS * Integer.BYTES;
+                values.put(
+                        string(buffer.getInt(property + PROPERTY_KEY * Integer.BYTES)),
+                        string(buffer.getInt(property + PROPERTY_VALUE * Integer.BYTES)));
+            }
+            activation = values;
+
+            int firstKnownRepository = buffer.getInt(44);
+            int knownRepositoryCount = buffer.getInt(48);
+            checkRange(firstKnownRepository, knownRepositoryCount, repositoryCount, "repository");
+            Set<String> known = new HashSet<>();
+            for (int i = 0; i < knownRepositoryCount; i++) {
+                known.add(repositoryKeyOf(repository(firstKnownRepository + i)));
+            }
+            knownRepositories = known;
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps an index written by {@link #build(Path, RepositorySystemSession, ArtifactDescriptorReader, List)}.
+     *
+     * @param file the index file
+     * @return the open index
+     * @throws IOException if the file cannot be mapped, is larger than 2 GiB or is not an index
+     */
+    public static DescriptorIndex open(Path file) throws IOException {
+        MappedByteBuffer buffer = MappedFiles.map(file);
+        try {
+            return new DescriptorIndex(buffer);
+        } catch (IOException | RuntimeException e) {
+            MappedFiles.unmap(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Scans the local repository of a session and indexes the descriptor of every POM found, replacing any existing
+     * index file. The descriptors are read with the given reader, so that the index holds the effective models Maven
+     * would build; a {@code RepositorySystem} can be passed as {@code repositorySystem::readArtifactDescriptor}.
+     *
+     * @param file the index file
+     * @param session the session, which should be offline
+     * @param reader the reader of the descriptors to index
+     * @param repositories the repositories of the descriptor requests
+     * @return the number of indexed descriptors
+     * @throws IOException if the local repository cannot be scanned or the index cannot be written
+     */
+    public static int build(
+            Path file,
+            RepositorySystemSession session,
+            ArtifactDescriptorReader reader,
+            List<RemoteRepository> repositories)
+            throws IOException {
+        File basedir = session.getLocalRepository().getBasedir().getAbsoluteFile();
+        List<String> poms;
+        try (Stream<Path> files = Files.walk(basedir.toPath())) {
+            poms = files.filter(path -> path.getFileName().toString().endsWith(".pom"))
+                    .map(path -> basedir.toPath().relativize(path).toString().replace(File.separatorChar, '/'))
+                    .collect(Collectors.toList());
+        }
+
+        // sorted by key, so that lookups can use a binary search
+        Map<String, Indexed> indexed = new TreeMap<>();
+        Set<String> activationProperties = new TreeSet<>(ACTIVATION_SYSTEM_PROPERTIES);
+        Map<String, RemoteRepository> knownRepositories = new LinkedHashMap<>();
+        for (RemoteRepository repository : repositories) {
+            knownRepositories.putIfAbsent(repositoryKeyOf(repository), repository);
+        }
+        for (String pom : poms) {
+            Artifact artifact = artifactOf(pom);
+            if (artifact == null) {
+                continue;
+            }
+            List<File> pomInputs = inputsOf(session, basedir, artifact);
+            if (pomInputs == null) {
+                continue;
+            }
+            try {
+                ArtifactDescriptorResult result = reader.readArtifactDescriptor(
+                        session, new ArtifactDescriptorRequest(artifact, repositories, null));
+                Set<String> pomActivation = activationPropertiesOf(basedir, pomInputs);
+                if (result.getRelocations().isEmpty()
+                        && result.getAliases().isEmpty()
+                        && hasIndexableProperties(result)
+                        && pomActivation != null) {
+                    indexed.put(keyOf(artifact), new Indexed(pomInputs, result));
+                    activationProperties.addAll(pomActivation);
+                    for (RemoteRepository repository : result.getRepositories()) {
+                        knownRepositories.putIfAbsent(repositoryKeyOf(repository), repository);
+                    }
+                }
+            } catch (ArtifactDescriptorException e) {
+                // left to the real reader, which reports the problem
+            }
+        }
+
+        Map<String, String> activation = new LinkedHashMap<>();
+        for (String name : activationProperties) {
+            activation.put(name, activationValue(session, name));
+        }
+        write(file, basedir, indexed, activation, knownRepositories.values());
+        return indexed.size();
+    }
+
+    /**
+     * @return the number of descriptors in this index
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * @return the local repository this index was built from
+     */
+    public File getBasedir() {
+        return basedir;
+    }
+
+    /**
+     * Looks up the descriptor of an artifact.
+     *
+     * @param session the session, whose local repository must be the one of this index
+     * @param request the descriptor request
+     * @return the dependencies, managed dependencies, repositories and properties of the descriptor, or {@code null} if
+     *         the artifact is not indexed, one of the POMs its descriptor was built from changed, or the session or the
+     *         repositories of the request differ from the ones the index was built with
+     */
+    public ArtifactDescriptorResult find(RepositorySystemSession session, ArtifactDescriptorRequest request) {
+        if (!basedir.equals(session.getLocalRepository().getBasedir().getAbsoluteFile())
+                || !isSameActivation(session)) {
+            return null;
+        }
+        for (RemoteRepository repository : request.getRepositories()) {
+            if (!knownRepositories.contains(repositoryKeyOf(repository))) {
+                return null;
+            }
+        }
+        int entry = indexOf(keyOf(request.getArtifact()));
+        if (entry < 0 || !isUpToDate(entry)) {
+            return null;
+        }
+
+        ArtifactDescriptorResult result = new ArtifactDescriptorResult(request);
+        result.setRepository(session.getLocalRepository());
+        int firstDependency = field(entry, FIRST_DEPENDENCY);
+        int entryDependencyCount = field(entry, DEPENDENCY_COUNT);
+        int managedDependencyCount = field(entry, MANAGED_DEPENDENCY_COUNT);
+        checkRange(firstDependency, entryDependencyCount, dependencyCount, "dependency");
+        checkRange(firstDependency + entryDependencyCount, managedDependencyCount, dependencyCount, "dependency");
+        for (int i = 0; i < entryDependencyCount; i++) {
+            result.addDependency(dependency(session, firstDependency + i));
+        }
+        for (int i = 0; i < managedDependencyCount; i++) {
+            result.addManagedDependency(dependency(session, firstDependency + entryDependencyCount + i));
+        }
+        int firstRepository = field(entry, FIRST_REPOSITORY);
+        int entryRepositoryCount = field(entry, REPOSITORY_COUNT);
+        checkRange(firstRepository, entryRepositoryCount, repositoryCount, "repository");
+        for (int i = 0; i < entryRepositoryCount; i++) {
+            result.addRepository(repository(firstRepository + i));
+        }
+        int firstProperty = field(entry, FIRST_PROPERTY);
+        int entryPropertyCount = field(entry, PROPERTY_COUNT);
+        checkRange(firstProperty, entryPropertyCount, propertyCount, "property");
+        if (entryPropertyCount > 0) {
+            Map<String, Object> descriptorProperties = new HashMap<>();
+            for (int i = 0; i < entryPropertyCount; i++) {
+                descriptorProperties.put(
+                        string(propertyField(firstProperty + i, PROPERTY_KEY)), propertyValue(firstProperty + i));
+            }
+            result.setProperties(descriptorProperties);
+        }
+        return result;
+    }
+
+    /**
+     * Closes this index: lookups fail with an {@link IllegalStateException} from now on. The mapping itself is released
+     * by the garbage collector, so that threads still looking up descriptors cannot crash the JVM.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    /**
+     * @return {@code true} if the session activates the profiles of the indexed POMs as the one the index was built
+     *         with
+     */
+    private boolean isSameActivation(RepositorySystemSession session) {
+        ActivationCheck check = lastCheck;
+        if (check != null
+                && check.systemProperties == session.getSystemProperties()
+                && check.userProperties == session.getUserProperties()) {
+            return check.same;
+        }
+        boolean same = true;
+        for (Map.Entry<String, String> property : activation.entrySet()) {
+            if (!Objects.equals(property.getValue(), activationValue(session, property.getKey()))) {
+                same = false;
+                break;
+            }
+        }
+        lastCheck = new ActivationCheck(session, same);
+        return same;
+    }
+
+    /**
+     * @return the value a profile activation sees for a property, user properties overriding system properties
+     */
+    private static String activationValue(RepositorySystemSession session, String name) {
+        String value = session.getUserProperties().get(name);
+        return value != null ? value : session.getSystemProperties().get(name);
+    }
+
+    /**
+     * @return the activation properties of the inputs of a descriptor, or {@code null} if one cannot be parsed
+     */
+    private static Set<String> activationPropertiesOf(File basedir, List<File> pomInputs) {
+        Set<String> names = new HashSet<>();
+        for (File input : pomInputs) {
+            Set<String> inputNames = PomInputs.activationProperties(new File(basedir, input.getPath()));
+            if (inputNames == null) {
+                return null;
+            }
+            names.addAll(inputNames);
+        }
+        return names;
+    }
+
+    private static String repositoryKeyOf(RemoteRepository repository) {
+        return repository.getId() + ' ' + repository.getUrl();
+    }
+
+    private static void checkRange(int first, int count, int total, String record) {
+        if (first < 0 || count < 0 || (long) first + count > total) {
+            throw new IllegalStateException("Corrupt descriptor index: no " + record + " " + first + ".."
+                    + ((long) first + count) + " of " + total);
+        }
+    }
+
+    private int indexOf(String key) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = string(field(middle, KEY)).compareTo(key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isUpToDate(int entry) {
+        int first = field(entry, FIRST_INPUT);
+        int count = field(entry, INPUT_COUNT);
+        checkRange(first, count, inputCount, "input");
+        for (int i = 0; i < count; i++) {
+            int input = inputs + (first + i) * INPUT_BYTES;
+            File pom = new File(basedir, string(buffer().getInt(input)));
+            if (pom.length() != buffer().getLong(input + Integer.BYTES)
+                    || pom.lastModified() != buffer().getLong(input + Integer.BYTES + Long.BYTES)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Dependency dependency(RepositorySystemSession session, int index) {
+        int record = dependencies + index * DEPENDENCY_INTS * Integer.BYTES;
+        String type = string(buffer().getInt(record + TYPE * Integer.BYTES));
+        ArtifactType stereotype = session.getArtifactTypeRegistry() != null
+                ? session.getArtifactTypeRegistry().get(type)
+                : null;
+        if (stereotype == null) {
+            stereotype = new DefaultArtifactType(type);
+        }
+        String systemPath = string(buffer().getInt(record + SYSTEM_PATH * Integer.BYTES));
+        Map<String, String> artifactProperties =
+                systemPath != null ? Collections.singletonMap(ArtifactProperties.LOCAL_PATH, systemPath) : null;
+        Artifact artifact = new DefaultArtifact(
+                string(buffer().getInt(record + GROUP_ID * Integer.BYTES)),
+                string(buffer().getInt(record + ARTIFACT_ID * Integer.BYTES)),
+                string(buffer().getInt(record + CLASSIFIER * Integer.BYTES)),
+                null,
+                string(buffer().getInt(record + VERSION * Integer.BYTES)),
+                artifactProperties,
+                stereotype);
+
+        List<Exclusion> dependencyExclusions = new ArrayList<>();
+        int firstExclusion = buffer().getInt(record + FIRST_EXCLUSION * Integer.BYTES);
+        int count = buffer().getInt(record + EXCLUSION_COUNT * Integer.BYTES);
+        checkRange(firstExclusion, count, exclusionCount, "exclusion");
+        for (int i = 0; i < count; i++) {
+            int exclusion = exclusions + (firstExclusion + i) * EXCLUSION_INTS * Integer.BYTES;
+            dependencyExclusions.add(new Exclusion(
+                    string(buffer().getInt(exclusion)),
+                    string(buffer().getInt(exclusion + Integer.BYTES)),
+                    string(buffer().getInt(exclusion + 2 * Integer.BYTES)),
+                    string(buffer().getInt(exclusion + 3 * Integer.BYTES))));
+        }
+
+        int flags = buffer().getInt(record + FLAGS * Integer.BYTES);
+        Boolean optional = (flags & OPTIONAL_TRUE) != 0 ? Boolean.TRUE : (flags & OPTIONAL_FALSE) != 0 ? false : null;
+        return new Dependency(
+                artifact, string(buffer().getInt(record + SCOPE * Integer.BYTES)), optional, dependencyExclusions);
+    }
+
+    private RemoteRepository repository(int index) {
+        int record = repositories + index * REPOSITORY_INTS * Integer.BYTES;
+        int flags = buffer().getInt(record + REPOSITORY_FLAGS * Integer.BYTES);
+        return new RemoteRepository.Builder(
+                        string(buffer().getInt(record + REPOSITORY_ID * Integer.BYTES)),
+                        string(buffer().getInt(record + REPOSITORY_TYPE * Integer.BYTES)),
+                        string(buffer().getInt(record + REPOSITORY_URL * Integer.BYTES)))
+                .setReleasePolicy(new RepositoryPolicy(
+                        (flags & RELEASES_ENABLED) != 0,
+                        string(buffer().getInt(record + RELEASE_UPDATE_POLICY * Integer.BYTES)),
+                        string(buffer().getInt(record + RELEASE_CHECKSUM_POLICY * Integer.BYTES))))
+                .setSnapshotPolicy(new RepositoryPolicy(
+                        (flags & SNAPSHOTS_ENABLED) != 0,
+                        string(buffer().getInt(record + SNAPSHOT_UPDATE_POLICY * Integer.BYTES)),
+                        string(buffer().getInt(record + SNAPSHOT_CHECKSUM_POLICY * Integer.BYTES))))
+                .build();
+    }
+
+    private int field(int entry, int field) {
+        return buffer().getInt(entries + (entry * ENTRY_INTS + field) * Integer.BYTES);
+    }
+
+    private int propertyField(int property, int field) {
+        return buffer().getInt(properties + (property * PROPERTY_INTS + field) * Integer.BYTES);
+    }
+
+    private Object propertyValue(int property) {
+        String value = string(propertyField(property, PROPERTY_VALUE));
+        int type = propertyField(property, PROPERTY_TYPE);
+        if (value == null || type == STRING_VALUE) {
+            return value;
+        } else if (type == INTEGER_VALUE) {
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Corrupt descriptor index: " + value + " is not an integer", e);
+            }
+        } else if (type == BOOLEAN_VALUE) {
+            return Boolean.valueOf(value);
+        }
+        throw new IllegalStateException("Corrupt descriptor index: no property type " + type);
+    }
+
+    private String string(int index) {
+        if (index < StringPool.NULL || index >= stringCount) {
+            throw new IllegalStateException("Corrupt descriptor index: no string " + index + " of " + stringCount);
+        }
+        return StringPool.read(buffer(), strings, stringCount, index);
+    }
+
+    private ByteBuffer buffer() {
+        ByteBuffer current = buffer;
+        if (current == null) {
+            throw new IllegalStateException("The descriptor index is closed");
+        }
+        return current;
+    }
+
+    private static String keyOf(Artifact artifact) {
+        return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getVersion();
+    }
+
+    /**
+     * @param pom the path of a POM relative to the local repository
+     * @return the artifact of the POM, or {@code null} if the path does not follow the default layout
+     */
+    private static Artifact artifactOf(String pom) {
+        String[] segments = pom.split("/");
+        if (segments.length < 4) {
+            return null;
+        }
+        String version = segments[segments.length - 2];
+        String artifactId = segments[segments.length - 3];
+        if (!segments[segments.length - 1].equals(artifactId + '-' + version + ".pom")) {
+            return null;
+        }
+        String groupId = String.join(".", Arrays.asList(segments).subList(0, segments.length - 3));
+        return new DefaultArtifact(groupId, artifactId, "", "pom", version);
+    }
+
+    private static boolean hasIndexableProperties(ArtifactDescriptorResult result) {
+        for (Object value : result.getProperties().values()) {
+            if (value != null
+                    && !(value instanceof String)
+                    && !(value instanceof Integer)
+                    && !(value instanceof Boolean)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists the POMs the model of an artifact is built from, see {@link PomInputs}.
+     *
+     * @return the POMs relative to the local repository, or {@code null} if one of them cannot be located in it
+     */
+    private static List<File> inputsOf(RepositorySystemSession session, File basedir, Artifact artifact) {
+        List<File> poms = PomInputs.of(session, artifact);
+        if (poms == null) {
+            return null;
+        }
+        List<File> relative = new ArrayList<>(poms.size());
+        for (File pom : poms) {
+            if (!pom.toPath().startsWith(basedir.toPath())) {
+                return null;
+            }
+            relative.add(basedir.toPath().relativize(pom.toPath()).toFile());
+        }
+        return relative;
+    }
+
+    private static void write(
+            Path file,
+            File basedir,
+            Map<String, Indexed> indexed,
+            Map<String, String> activation,
+            Collection<RemoteRepository> knownRepositories)
+            throws IOException {
+        StringPool pool = new StringPool();
+        List<int[]> entryRecords = new ArrayList<>();
+        List<Object[]> inputRecords = new ArrayList<>();
+        List<int[]> dependencyRecords = new ArrayList<>();
+        List<int[]> exclusionRecords = new ArrayList<>();
+        List<int[]> repositoryRecords = new ArrayList<>();
+        List<int[]> propertyRecords = new ArrayList<>();
+
+        int basedirString = pool.add(basedir.getPath());
+        for (Map.Entry<String, Indexed> entry : indexed.entrySet()) {
+            Indexed descriptor = entry.getValue();
+            int[] record = new int[ENTRY_INTS];
+            record[KEY] = pool.add(entry.getKey());
+
+            record[FIRST_INPUT] = inputRecords.size();
+            record[INPUT_COUNT] = descriptor.inputs.size();
+            for (File input : descriptor.inputs) {
+                File pom = new File(basedir, input.getPath());
+                inputRecords.add(new Object[] {pool.add(input.getPath()), pom.length(), pom.lastModified()});
+            }
+
+            ArtifactDescriptorResult result = descriptor.result;
+            record[FIRST_DEPENDENCY] = dependencyRecords.size();
+            record[DEPENDENCY_COUNT] = result.getDependencies().size();
+            record[MANAGED_DEPENDENCY_COUNT] = result.getManagedDependencies().size();
+            for (Dependency dependency : result.getDependencies()) {
+                dependencyRecords.add(dependencyRecord(pool, dependency, exclusionRecords));
+            }
+            for (Dependency dependency : result.getManagedDependencies()) {
+                dependencyRecords.add(dependencyRecord(pool, dependency, exclusionRecords));
+            }
+
+            record[FIRST_REPOSITORY] = repositoryRecords.size();
+            record[REPOSITORY_COUNT] = result.getRepositories().size();
+            for (RemoteRepository repository : result.getRepositories()) {
+                repositoryRecords.add(repositoryRecord(pool, repository));
+            }
+
+            record[FIRST_PROPERTY] = propertyRecords.size();
+            record[PROPERTY_COUNT] = result.getProperties().size();
+            for (Map.Entry<String, Object> property : result.getProperties().entrySet()) {
+                propertyRecords.add(propertyRecord(pool, property.getKey(), property.getValue()));
+            }
+
+            entryRecords.add(record);
+        }
+
+        int firstActivation = propertyRecords.size();
+        for (Map.Entry<String, String> property : activation.entrySet()) {
+            propertyRecords.add(propertyRecord(pool, property.getKey(), property.getValue()));
+        }
+        int firstKnownRepository = repositoryRecords.size();
+        for (RemoteRepository repository : knownRepositories) {
+            repositoryRecords.add(repositoryRecord(pool, repository));
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(entryRecords.size());
+            out.writeInt(inputRecords.size());
+            out.writeInt(dependencyRecords.size());
+            out.writeInt(exclusionRecords.size());
+            out.writeInt(repositoryRecords.size());
+            out.writeInt(propertyRecords.size());
+            out.writeInt(pool.count());
+            out.writeInt(basedirString);
+            out.writeInt(firstActivation);
+            out.writeInt(activation.size());
+            out.writeInt(firstKnownRepository);
+            out.writeInt(knownRepositories.size());
+            writeRecords(out, entryRecords);
+            for (Object[] input : inputRecords) {
+                out.writeInt((Integer) input[0]);
+                out.writeLong((Long) input[1]);
+                out.writeLong((Long) input[2]);
+            }
+            writeRecords(out, dependencyRecords);
+            writeRecords(out, exclusionRecords);
+            writeRecords(out, repositoryRecords);
+            writeRecords(out, propertyRecords);
+            pool.write(out);
+        }
+    }
+
+    private static int[] propertyRecord(StringPool pool, String key, Object value) {
+        int[] record = new int[PROPERTY_INTS];
+        record[PROPERTY_KEY] = pool.add(key);
+        record[PROPERTY_VALUE] = pool.add(value != null ? value.toString() : null);
+        record[PROPERTY_TYPE] =
+                value instanceof Integer ? INTEGER_VALUE : value instanceof Boolean ? BOOLEAN_VALUE : STRING_VALUE;
+        return record;
+    }
+
+    private static int[] dependencyRecord(StringPool pool, Dependency dependency, List<int[]> exclusionRecords) {
+        Artifact artifact = dependency.getArtifact();
+        int[] record = new int[DEPENDENCY_INTS];
+        record[GROUP_ID] = pool.add(artifact.getGroupId());
+        record[ARTIFACT_ID] = pool.add(artifact.getArtifactId());
+        record[VERSION] = pool.add(artifact.getVersion());
+        record[CLASSIFIER] = pool.add(artifact.getClassifier());
+        record[TYPE] = pool.add(artifact.getProperty(ArtifactProperties.TYPE, artifact.getExtension()));
+        record[SCOPE] = pool.add(dependency.getScope());
+        record[SYSTEM_PATH] = pool.add(artifact.getProperty(ArtifactProperties.LOCAL_PATH, null));
+        if (dependency.getOptional() != null) {
+            record[FLAGS] = dependency.getOptional() ? OPTIONAL_TRUE : OPTIONAL_FALSE;
+        }
+        record[FIRST_EXCLUSION] = exclusionRecords.size();
+        record[EXCLUSION_COUNT] = dependency.getExclusions().size();
+        for (Exclusion exclusion : dependency.getExclusions()) {
+            exclusionRecords.add(new int[] {
+                pool.add(exclusion.getGroupId()),
+                pool.add(exclusion.getArtifactId()),
+                pool.add(exclusion.getClassifier()),
+                pool.add(exclusion.getExtension())
+            });
+        }
+        return record;
+    }
+
+    private static int[] repositoryRecord(StringPool pool, RemoteRepository repository) {
+        int[] record = new int[REPOSITORY_INTS];
+        record[REPOSITORY_ID] = pool.add(repository.getId());
+        record[REPOSITORY_TYPE] = pool.add(repository.getContentType());
+        record[REPOSITORY_URL] = pool.add(repository.getUrl());
+        RepositoryPolicy releases = repository.getPolicy(false);
+        RepositoryPolicy snapshots = repository.getPolicy(true);
+        record[RELEASE_UPDATE_POLICY] = pool.add(releases.getUpdatePolicy());
+        record[RELEASE_CHECKSUM_POLICY] = pool.add(releases.getChecksumPolicy());
+        record[SNAPSHOT_UPDATE_POLICY] = pool.add(snapshots.getUpdatePolicy());
+        record[SNAPSHOT_CHECKSUM_POLICY] = pool.add(snapshots.getChecksumPolicy());
+        record[REPOSITORY_FLAGS] =
+                (releases.isEnabled() ? RELEASES_ENABLED : 0) | (snapshots.isEnabled() ? SNAPSHOTS_ENABLED : 0);
+        return record;
+    }
+
+    private static void writeRecords(DataOutputStream out, List<int[]> records) throws IOException {
+        for (int[] record : records) {
+            for (int field : record) {
+                out.writeInt(field);
+            }
+        }
+    }
+
+    /**
+     * The session properties last compared with the activation properties of the index, compared by identity since a
+     * session keeps the same maps.
+     */
+    private static final class ActivationCheck {
+        private final Map<String, String> systemProperties;
+
+        private final Map<String, String> userProperties;
+
+        private final boolean same;
+
+        ActivationCheck(RepositorySystemSession session, boolean same) {
+            this.systemProperties = session.getSystemProperties();
+            this.userProperties = session.getUserProperties();
+            this.same = same;
+        }
+    }
+
+    /**
+     * A descriptor to index, with the POMs it was built from.
+     */
+    private static final class Indexed {
+        private final List<File> inputs;
+
+        private final ArtifactDescriptorResult result;
+
+        Indexed(List<File> inputs, ArtifactDescriptorResult result) {
+            this.inputs = inputs;
+            this.result = result;
+        }
+    }
+}
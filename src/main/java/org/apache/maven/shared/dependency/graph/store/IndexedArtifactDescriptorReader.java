@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+
+/**
+ * An artifact descriptor reader serving descriptors from a {@link DescriptorIndex} when it holds an up-to-date entry,
+ * and from the real reader otherwise.
+ * <p>
+ * The collector builder reads descriptors through this reader when
+ * {@link org.apache.maven.shared.dependency.graph.ConfigurationProperties#DESCRIPTOR_INDEX} is set. The graph builder
+ * resolves through Maven, whose repository system only uses this reader if an embedder or a core extension binds it.
+ * </p>
+ *
+ * @since 3.3.1
+ */
+public class IndexedArtifactDescriptorReader implements ArtifactDescriptorReader {
+    private final ArtifactDescriptorReader delegate;
+
+    private final DescriptorIndex index;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param delegate the reader of the descriptors missing from the index
+     * @param index the index
+     */
+    public IndexedArtifactDescriptorReader(ArtifactDescriptorReader delegate, DescriptorIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public ArtifactDescriptorResult readArtifactDescriptor(
+            RepositorySystemSession session, ArtifactDescriptorRequest request) throws ArtifactDescriptorException {
+        ArtifactDescriptorResult result = index.find(session, request);
+        if (result != null) {
+            hits.incrementAndGet();
+            return result;
+        }
+        misses.incrementAndGet();
+        return delegate.readArtifactDescriptor(session, request);
+    }
+
+    /**
+     * @return the number of descriptors served from the index
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of descriptors read by the real reader
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.store;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.ARTIFACT_ID;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.ARTIFACT_OPTIONAL;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.CHILD_COUNT;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.CLASSIFIER;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.EXCLUSION_COUNT;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.FIRST_CHILD;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.FIRST_EXCLUSION;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.FLAGS;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.GROUP_ID;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.NO_ARTIFACT;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.OPTIONAL_FALSE;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.OPTIONAL_TRUE;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.PARENT;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.PREMANAGED_SCOPE;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.PREMANAGED_VERSION;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.SCOPE;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.TRUNCATED;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.TYPE;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.VERSION;
+import static org.apache.maven.shared.dependency.graph.store.DependencyGraphStore.VERSION_CONSTRAINT;
+
+/**
+ * A view of a node record of a {@link DependencyGraphStore}. Every accessor reads the record again, so views are cheap
+ * to create and two views of the same record are equal. Nothing is cached on heap: {@link #getArtifact()} creates a new
+ * artifact on every call, while the coordinate getters read the strings without creating one.
+ */
+final class MappedDependencyNode implements DependencyNode {
+    private final DependencyGraphStore store;
+
+    private final int index;
+
+    MappedDependencyNode(DependencyGraphStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    @Override
+    public boolean accept(DependencyNodeVisitor visitor) {
+        if (visitor.visit(this)) {
+            for (DependencyNode child : getChildren()) {
+                if (!child.accept(visitor)) {
+                    break;
+                }
+            }
+        }
+
+        return visitor.endVisit(this);
+    }
+
+    @Override
+    public Artifact getArtifact() {
+        if ((store.field(index, FLAGS) & NO_ARTIFACT) != 0) {
+            return null;
+        }
+        String type = string(TYPE);
+        Artifact artifact = new DefaultArtifact(
+                string(GROUP_ID),
+                string(ARTIFACT_ID),
+                string(VERSION),
+                string(SCOPE),
+                type,
+                string(CLASSIFIER),
+                store.handler(type));
+        artifact.setOptional((store.field(index, FLAGS) & ARTIFACT_OPTIONAL) != 0);
+        return artifact;
+    }
+
+    @Override
+    public String getGroupId() {
+        return coordinate(GROUP_ID);
+    }
+
+    @Override
+    public String getArtifactId() {
+        return coordinate(ARTIFACT_ID);
+    }
+
+    @Override
+    public String getVersion() {
+        return coordinate(VERSION);
+    }
+
+    @Override
+    public String getType() {
+        return coordinate(TYPE);
+    }
+
+    @Override
+    public String getClassifier() {
+        return coordinate(CLASSIFIER);
+    }
+
+    @Override
+    public String getScope() {
+        return coordinate(SCOPE);
+    }
+
+    @Override
+    public List<DependencyNode> getChildren() {
+        int count = store.field(index, CHILD_COUNT);
+        if (count < 0) {
+            return null;
+        }
+        int first = store.field(index, FIRST_CHILD);
+        return new AbstractList<DependencyNode>() {
+            @Override
+            public DependencyNode get(int i) {
+                if (i < 0 || i >= count) {
+                    throw new IndexOutOfBoundsException("Child " + i + " of " + count);
+                }
+                return new MappedDependencyNode(store, first + i);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public DependencyNode getParent() {
+        int parent = store.field(index, PARENT);
+        return parent < 0 ? null : new MappedDependencyNode(store, parent);
+    }
+
+    @Override
+    public String getPremanagedVersion() {
+        return string(PREMANAGED_VERSION);
+    }
+
+    @Override
+    public String getPremanagedScope() {
+        return string(PREMANAGED_SCOPE);
+    }
+
+    @Override
+    public String getVersionConstraint() {
+        return string(VERSION_CONSTRAINT);
+    }
+
+    @Override
+    public Boolean getOptional() {
+        int flags = store.field(index, FLAGS);
+        if ((flags & OPTIONAL_TRUE) != 0) {
+            return Boolean.TRUE;
+        }
+        return (flags & OPTIONAL_FALSE) != 0 ? Boolean.FALSE : null;
+    }
+
+    @Override
+    public List<Exclusion> getExclusions() {
+        int count = store.field(index, EXCLUSION_COUNT);
+        if (count < 0) {
+            return null;
+        }
+        int first = store.field(index, FIRST_EXCLUSION);
+        return new AbstractList<Exclusion>() {
+            @Override
+            public Exclusion get(int i) {
+                if (i < 0 || i >= count) {
+                    throw new IndexOutOfBoundsException("Exclusion " + i + " of " + count);
+                }
+                Exclusion exclusion = new Exclusion();
+                exclusion.setGroupId(store.exclusionString(first + i, 0));
+                exclusion.setArtifactId(store.exclusionString(first + i, 1));
+                return exclusion;
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public boolean isTruncated() {
+        return (store.field(index, FLAGS) & TRUNCATED) != 0;
+    }
+
+    @Override
+    public String toNodeString() {
+        return getArtifact()
+                + (Boolean.TRUE.equals(getOptional()) ? " (optional)" : "")
+                + (isTruncated() ? " (children truncated)" : "");
+    }
+
+    private String string(int field) {
+        return store.string(store.field(index, field));
+    }
+
+    private String coordinate(int field) {
+        return (store.field(index, FLAGS) & NO_ARTIFACT) != 0 ? null : string(field);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        MappedDependencyNode other = (MappedDependencyNode) obj;
+        return store == other.store && index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(store) * 31 + index;
+    }
+}
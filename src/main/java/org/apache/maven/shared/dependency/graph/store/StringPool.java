@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.store;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The string pool of a dependency graph store: every distinct string is written once, and records refer to it by
+ * index. The pool is laid out as {@code count + 1} offsets into the following UTF-8 data.
+ */
+final class StringPool {
+    static final int NULL = -1;
+
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    private final List<byte[]> values = new ArrayList<>();
+
+    private int size;
+
+    /**
+     * @param value the string to pool, may be {@code null}
+     * @return the index of the string in the pool, {@link #NULL} for {@code null}
+     */
+    int add(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer index = indices.get(value);
+        if (index == null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            index = values.size();
+            indices.put(value, index);
+            values.add(bytes);
+            size += bytes.length;
+        }
+        return index;
+    }
+
+    int count() {
+        return values.size();
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        int offset = 0;
+        for (byte[] value : values) {
+            out.writeInt(offset);
+            offset += value.length;
+        }
+        out.writeInt(size);
+        for (byte[] value : values) {
+            out.write(value);
+        }
+    }
+
+    /**
+     * Reads a pooled string straight from the buffer.
+     *
+     * @param buffer the buffer of the store
+     * @param table the position of the offsets of the pool
+     * @param count the number of strings in the pool
+     * @param index the index of the string, may be {@link #NULL}
+     * @return the string, {@code null} for {@link #NULL}
+     */
+    static String read(ByteBuffer buffer, int table, int count, int index) {
+        if (index == NULL) {
+            return null;
+        }
+        int data = table + (count + 1) * Integer.BYTES;
+        int start = buffer.getInt(table + index * Integer.BYTES);
+        int end = buffer.getInt(table + (index + 1) * Integer.BYTES);
+        if (start < 0 || end < start || (long) data + end > buffer.capacity()) {
+            throw new IllegalStateException("Corrupt string pool: string " + index + " at " + start + ".." + end);
+        }
+
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(data + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.maven.shared.dependency.graph.traversal;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 import org.apache.maven.shared.dependency.graph.DependencyNode;
@@ -43,6 +44,12 @@ public class BuildingDependencyNodeVisitor implements DependencyNodeVisitor {
      */
     private final Stack<DependencyNode> parentNodes;
 
+    /**
+     * The children lists of the resultant tree parent nodes, kept by this visitor so that it never adds children
+     * through {@link DependencyNode#getChildren()}.
+     */
+    private final Stack<List<DependencyNode>> parentChildren;
+
     /**
      * The root node of the resultant tree.
      */
@@ -68,6 +75,7 @@ public class BuildingDependencyNodeVisitor implements DependencyNodeVisitor {
         this.visitor = visitor;
 
         parentNodes = new Stack<>();
+        parentChildren = new Stack<>();
     }
 
     // DependencyNodeVisitor methods ------------------------------------------
@@ -86,16 +94,17 @@ public class BuildingDependencyNodeVisitor implements DependencyNodeVisitor {
                 node.getVersionConstraint(),
                 node.getOptional(),
                 node.getExclusions());
-        newNode.setChildren(new ArrayList<>());
+        List<DependencyNode> children = new ArrayList<>();
+        newNode.setChildren(children);
 
         if (parentNodes.empty()) {
             rootNode = newNode;
         } else {
-            DependencyNode parentNode = parentNodes.peek();
-            parentNode.getChildren().add(newNode);
+            parentChildren.peek().add(newNode);
         }
 
         parentNodes.push(newNode);
+        parentChildren.push(children);
 
         return true;
     }
@@ -106,6 +115,7 @@ public class BuildingDependencyNodeVisitor implements DependencyNodeVisitor {
     @Override
     public boolean endVisit(DependencyNode node) {
         parentNodes.pop();
+        parentChildren.pop();
 
         // apply the visitor to the resultant tree on the last visit
         if (parentNodes.empty() && visitor != null) {
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the short-lived executors used to run collection work concurrently, on virtual threads so that tasks
+ * blocked on repository I/O do not hold a platform thread.
+ */
+final class CollectorExecutors {
+    private CollectorExecutors() {
+        // no instances
+    }
+
+    /**
+     * Creates an executor running at most the specified number of tasks at a time. Each task gets its own virtual
+     * thread, which waits for a permit before running the task. The caller is responsible for shutting it down.
+     *
+     * @param threads the maximum number of concurrent tasks
+     * @param name the prefix of the thread names
+     * @return the new executor
+     */
+    static ExecutorService newExecutor(int threads, String name) {
+        return new BoundedExecutor(
+                Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name(name + '-', 1).factory()),
+                new Semaphore(threads));
+    }
+
+    /**
+     * Runs each task on a new thread of the delegate once a permit is available.
+     */
+    private static final class BoundedExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        private final Semaphore permits;
+
+        BoundedExecutor(ExecutorService delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    // shut down before the task could start, do not leave its future pending
+                    if (command instanceof Future<?> future) {
+                        future.cancel(false);
+                    }
+                    return;
+                }
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
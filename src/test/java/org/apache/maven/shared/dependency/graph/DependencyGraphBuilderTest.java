@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DependencyGraphBuilderTest {
+
+    @Test
+    void streamedNodesShouldBeEmittedAfterTheirChildren() throws Exception {
+        DefaultDependencyNode root = new DefaultDependencyNode(artifact("root"));
+        DefaultDependencyNode first = new DefaultDependencyNode(root, artifact("first"), null, null, null);
+        DefaultDependencyNode nested = new DefaultDependencyNode(first, artifact("nested"), null, null, null);
+        DefaultDependencyNode second = new DefaultDependencyNode(root, artifact("second"), null, null, null);
+        nested.setChildren(Collections.emptyList());
+        first.setChildren(Collections.singletonList(nested));
+        second.setChildren(Collections.emptyList());
+        List<DependencyNode> children = new ArrayList<>();
+        children.add(first);
+        children.add(second);
+        root.setChildren(children);
+
+        DependencyGraphBuilder builder = (buildingRequest, filter) -> root;
+        List<String> emitted = new ArrayList<>();
+        DependencyNode graph = builder.streamDependencyGraph(
+                new DefaultProjectBuildingRequest(),
+                null,
+                node -> emitted.add(node.getArtifact().getArtifactId()));
+
+        assertSame(root, graph);
+        assertEquals(Arrays.asList("nested", "first", "second", "root"), emitted);
+    }
+
+    private static DefaultArtifact artifact(String artifactId) {
+        return new DefaultArtifact("org", artifactId, "1.0", "compile", "jar", "", new DefaultArtifactHandler("jar"));
+    }
+}
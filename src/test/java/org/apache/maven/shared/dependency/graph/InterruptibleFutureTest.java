@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InterruptibleFutureTest {
+
+    @Test
+    void cancelShouldInterruptRunningTask() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+            CompletableFuture<String> future = InterruptibleFuture.submit(
+                    () -> {
+                        started.countDown();
+                        try {
+                            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                            throw e;
+                        }
+                        return "late";
+                    },
+                    executor);
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertTrue(future.cancel(true));
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            assertTrue(future.isCancelled());
+
+            // the pooled thread must not carry the interruption over to the next task
+            assertFalse(InterruptibleFuture.submit(() -> Thread.currentThread().isInterrupted(), executor)
+                    .get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void callerInterruptionShouldBeKeptWithSameThreadExecutor() throws Exception {
+        Thread.currentThread().interrupt();
+        try {
+            CompletableFuture<String> future = InterruptibleFuture.submit(() -> "done", Runnable::run);
+            assertTrue(Thread.currentThread().isInterrupted());
+            assertEquals("done", future.getNow(null));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void exceptionsShouldCompleteTheFutureUnwrapped() {
+        IOException failure = new IOException("failed");
+        CompletableFuture<String> future = InterruptibleFuture.submit(
+                () -> {
+                    throw failure;
+                },
+                Runnable::run);
+
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertSame(failure, e.getCause());
+    }
+
+    @Test
+    void rejectedTaskShouldCompleteTheFutureExceptionally() {
+        CompletableFuture<String> future = InterruptibleFuture.submit(() -> "never", task -> {
+            throw new RejectedExecutionException("shut down");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+}
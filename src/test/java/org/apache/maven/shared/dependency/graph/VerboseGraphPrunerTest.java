@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.ImmutableDependencyNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerboseGraphPrunerTest {
+
+    @Test
+    void prunedGraphShouldBeTheResolvedGraph() {
+        DependencyNode root = ImmutableDependencyNode.builder(artifact("root", "1.0", null))
+                .conflictData(new ConflictData(null, null))
+                .addChild(ImmutableDependencyNode.builder(artifact("lib", "2.0", "compile"))
+                        .premanagedVersion("1.5")
+                        .optional(false)
+                        .exclusions(Collections.emptyList())
+                        .conflictData(new ConflictData(null, "test"))
+                        .addChild(ImmutableDependencyNode.builder(artifact("lib", "1.0", "compile"))
+                                .optional(false)
+                                .exclusions(Collections.emptyList())
+                                .conflictData(new ConflictData("2.0", null))))
+                .build();
+        DependencyNode winner = root.getChildren().get(0);
+        DependencyNode loser = winner.getChildren().get(0);
+
+        DefaultDependencyNode expectedRoot =
+                new DefaultDependencyNode(null, artifact("root", "1.0", null), null, null, null, false, null);
+        DefaultDependencyNode expectedLib = new DefaultDependencyNode(
+                expectedRoot, artifact("lib", "2.0", "compile"), "1.5", null, null, false, Collections.emptyList());
+        expectedLib.setChildren(Collections.emptyList());
+        expectedRoot.setChildren(Arrays.asList(expectedLib));
+
+        assertTrue(VerboseGraphPruner.isLoser(loser));
+        assertFalse(VerboseGraphPruner.isLoser(winner));
+        DependencyNode pruned = VerboseGraphPruner.prune(root);
+        assertEquals(expectedRoot.getFingerprint(), pruned.getFingerprint());
+        assertEquals(pruned, pruned.getChildren().get(0).getParent());
+    }
+
+    private static DefaultArtifact artifact(String artifactId, String version, String scope) {
+        return new DefaultArtifact("org", artifactId, version, scope, "jar", "", new DefaultArtifactHandler("jar"));
+    }
+}
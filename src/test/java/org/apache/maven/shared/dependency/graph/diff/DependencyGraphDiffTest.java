@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.junit.jupiter.api.Test;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyGraphDiffTest {
+
+    @Test
+    void identicalGraphsHaveNoChanges() {
+        DependencyNode oldRoot = root("a:1.0:compile", "b:1.0:compile");
+        DependencyNode newRoot = root("a:1.0:compile", "b:1.0:compile");
+
+        assertTrue(DependencyGraphDiff.compare(oldRoot, newRoot).isEmpty());
+    }
+
+    @Test
+    void reportsEveryKindOfStructuralChange() {
+        DependencyNode oldRoot = root("a:1.0:compile", "b:1.0:compile", "c:1.0:compile");
+        DependencyNode newRoot = root("a:1.0:compile", "b:2.0:runtime", "d:1.0:compile");
+
+        List<DependencyNodeChange> changes =
+                DependencyGraphDiff.compare(oldRoot, newRoot).getChanges();
+
+        assertEquals(4, changes.size());
+        assertEquals(DependencyNodeChange.Type.VERSION_CHANGED, changes.get(0).getType());
+        assertEquals(DependencyNodeChange.Type.SCOPE_CHANGED, changes.get(1).getType());
+        assertEquals("b", changes.get(1).getNewNode().getArtifact().getArtifactId());
+        assertEquals(DependencyNodeChange.Type.ADDED, changes.get(2).getType());
+        assertEquals("d", changes.get(2).getNewNode().getArtifact().getArtifactId());
+        assertEquals(DependencyNodeChange.Type.REMOVED, changes.get(3).getType());
+        assertEquals("c", changes.get(3).getOldNode().getArtifact().getArtifactId());
+        assertEquals(2, changes.get(3).getPath().size());
+    }
+
+    @Test
+    void reportsChangesToNodeAttributesOnly() {
+        DependencyNode oldRoot = root(child(false, null, null), child(false, null, null), child(false, null, null));
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("excluded");
+        exclusion.setArtifactId("artifact");
+        DependencyNode newRoot =
+                root(child(true, null, null), child(false, "0.9", null), child(false, null, singletonList(exclusion)));
+
+        List<DependencyNodeChange> changes =
+                DependencyGraphDiff.compare(oldRoot, newRoot).getChanges();
+
+        assertEquals(3, changes.size());
+        assertEquals(DependencyNodeChange.Type.OPTIONAL_CHANGED, changes.get(0).getType());
+        assertEquals(
+                DependencyNodeChange.Type.MANAGEMENT_CHANGED, changes.get(1).getType());
+        assertEquals(
+                DependencyNodeChange.Type.EXCLUSIONS_CHANGED, changes.get(2).getType());
+    }
+
+    private static DefaultDependencyNode child(boolean optional, String premanagedVersion, List<Exclusion> exclusions) {
+        DefaultDependencyNode node = new DefaultDependencyNode(
+                null,
+                new DefaultArtifact("group", "a", "1.0", "compile", "jar", "", null),
+                premanagedVersion,
+                null,
+                null,
+                optional,
+                exclusions);
+        node.setChildren(new ArrayList<>());
+        return node;
+    }
+
+    private static DependencyNode root(DependencyNode... children) {
+        DefaultDependencyNode root = new DefaultDependencyNode(
+                null, new DefaultArtifact("group", "root", "1.0", null, "jar", "", null), null, null, null);
+        root.setChildren(Arrays.asList(children));
+        return root;
+    }
+
+    private static DependencyNode root(String... children) {
+        DefaultDependencyNode root = new DefaultDependencyNode(
+                null, new DefaultArtifact("group", "root", "1.0", null, "jar", "", null), null, null, null);
+        List<DependencyNode> nodes = new ArrayList<>();
+        for (String child : children) {
+            String[] parts = child.split(":");
+            DefaultDependencyNode node = new DefaultDependencyNode(
+                    root,
+                    new DefaultArtifact("group", parts[0], parts[1], parts[2], "jar", "", null),
+                    null,
+                    null,
+                    null);
+            node.setChildren(new ArrayList<>());
+            nodes.add(node);
+        }
+        root.setChildren(nodes);
+        return root;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionConstraint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingVersionRangeResolverTest {
+
+    @TempDir
+    Path localRepository;
+
+    @Test
+    void resultsShouldExpireUnlessOffline() throws Exception {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory()
+                .newInstance(session, new LocalRepository(localRepository.toFile())));
+        session.setConfigProperty(ConfigurationProperties.VERSION_RANGE_CACHE_TTL, 60);
+
+        GenericVersionScheme scheme = new GenericVersionScheme();
+        VersionConstraint constraint = scheme.parseVersionConstraint("[1.0,2.0)");
+        List<Version> versions = Arrays.asList(scheme.parseVersion("1.0"), scheme.parseVersion("1.5"));
+        AtomicInteger resolutions = new AtomicInteger();
+        VersionRangeResolver delegate = (s, request) -> {
+            resolutions.incrementAndGet();
+            return new VersionRangeResult(request)
+                    .setVersionConstraint(constraint)
+                    .setVersions(versions);
+        };
+        AtomicLong now = new AtomicLong();
+        CachingVersionRangeResolver resolver = new CachingVersionRangeResolver(delegate, 10, now::get);
+
+        VersionRangeRequest request = new VersionRangeRequest(new DefaultArtifact("org:lib:[1.0,2.0)"), null, null);
+        assertEquals(
+                2, resolver.resolveVersionRange(session, request).getVersions().size());
+        VersionRangeResult cached = resolver.resolveVersionRange(session, request);
+        assertEquals("1.5", cached.getHighestVersion().toString());
+        assertEquals(request, cached.getRequest());
+        assertEquals(1, resolutions.get());
+
+        now.set(TimeUnit.SECONDS.toNanos(61));
+        resolver.resolveVersionRange(session, request);
+        assertEquals(2, resolutions.get());
+
+        session.setOffline(true);
+        now.set(TimeUnit.DAYS.toNanos(1));
+        resolver.resolveVersionRange(session, request);
+        assertEquals(2, resolutions.get());
+        assertEquals(2, resolver.getHitCount());
+        assertEquals(2, resolver.getMissCount());
+    }
+
+    @Test
+    void offlineResultsShouldBeDroppedWhenTheLocalMetadataChanges() throws Exception {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory()
+                .newInstance(session, new LocalRepository(localRepository.toFile())));
+        session.setConfigProperty(ConfigurationProperties.VERSION_RANGE_CACHE_TTL, 60);
+        session.setOffline(true);
+
+        AtomicInteger resolutions = new AtomicInteger();
+        VersionRangeResolver delegate = (s, request) -> {
+            resolutions.incrementAndGet();
+            return new VersionRangeResult(request);
+        };
+        CachingVersionRangeResolver resolver = new CachingVersionRangeResolver(delegate, 10, () -> 0L);
+        VersionRangeRequest request = new VersionRangeRequest(new DefaultArtifact("org:lib:[1.0,2.0)"), null, null);
+
+        resolver.resolveVersionRange(session, request);
+        resolver.resolveVersionRange(session, request);
+        assertEquals(1, resolutions.get());
+
+        // a version gets installed
+        Path metadata = localRepository.resolve("org/lib/maven-metadata-local.xml");
+        Files.createDirectories(metadata.getParent());
+        Files.write(metadata, "<metadata/>".getBytes(StandardCharsets.UTF_8));
+        resolver.resolveVersionRange(session, request);
+        assertEquals(2, resolutions.get());
+        resolver.resolveVersionRange(session, request);
+        assertEquals(2, resolutions.get());
+
+        metadata.toFile().setLastModified(metadata.toFile().lastModified() - 10_000);
+        resolver.resolveVersionRange(session, request);
+        assertEquals(3, resolutions.get());
+    }
+}
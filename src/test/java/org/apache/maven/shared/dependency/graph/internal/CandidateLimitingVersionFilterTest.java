@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.collection.VersionFilter;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.graph.version.HighestVersionFilter;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionConstraint;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CandidateLimitingVersionFilterTest {
+    private final GenericVersionScheme scheme = new GenericVersionScheme();
+
+    @Test
+    void onlyTheHighestCandidatesShouldBeKept() throws Exception {
+        VersionFilter filter = new CandidateLimitingVersionFilter(2);
+
+        Context context = new Context("1.0", "1.1", "2.0", "2.1");
+        filter.filterVersions(context);
+        assertEquals(versions("2.0", "2.1"), context.versions);
+
+        Context fewer = new Context("1.0");
+        filter.filterVersions(fewer);
+        assertEquals(versions("1.0"), fewer.versions);
+
+        assertSame(filter, filter.deriveChildFilter(null));
+        assertThrows(IllegalArgumentException.class, () -> new CandidateLimitingVersionFilter(0));
+    }
+
+    @Test
+    void filterShouldOnlyBeInstalledWhenConfigured() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        CandidateLimitingVersionFilter.install(session);
+        assertNull(session.getVersionFilter());
+
+        session.setConfigProperty(ConfigurationProperties.MAX_RANGE_CANDIDATES, 3);
+        CandidateLimitingVersionFilter.install(session);
+        assertEquals(new CandidateLimitingVersionFilter(3), session.getVersionFilter());
+    }
+
+    @Test
+    void filterShouldBeChainedWithTheFilterOfTheSession() throws Exception {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setVersionFilter(new HighestVersionFilter());
+        session.setConfigProperty(ConfigurationProperties.MAX_RANGE_CANDIDATES, 3);
+        CandidateLimitingVersionFilter.install(session);
+
+        Context context = new Context("1.0", "1.1", "2.0", "2.1");
+        session.getVersionFilter().filterVersions(context);
+        assertEquals(versions("2.1"), context.versions);
+    }
+
+    private List<Version> versions(String... versions) throws Exception {
+        List<Version> parsed = new ArrayList<>();
+        for (String version : versions) {
+            parsed.add(scheme.parseVersion(version));
+        }
+        return parsed;
+    }
+
+    /**
+     * The candidates of a range, in ascending order as the collector gives them.
+     */
+    private final class Context implements VersionFilter.VersionFilterContext {
+        private final List<Version> versions;
+
+        Context(String... versions) throws Exception {
+            this.versions = versions(versions);
+        }
+
+        @Override
+        public RepositorySystemSession getSession() {
+            return null;
+        }
+
+        @Override
+        public int getCount() {
+            return versions.size();
+        }
+
+        @Override
+        public Iterator<Version> iterator() {
+            return versions.iterator();
+        }
+
+        @Override
+        public VersionConstraint getVersionConstraint() {
+            return null;
+        }
+
+        @Override
+        public ArtifactRepository getRepository(Version version) {
+            return null;
+        }
+
+        @Override
+        public List<RemoteRepository> getRepositories() {
+            return null;
+        }
+
+        @Override
+        public Dependency getDependency() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,711 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorRequest;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.store.DescriptorIndex;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.LocalMetadataRegistration;
+import org.eclipse.aether.repository.LocalMetadataRequest;
+import org.eclipse.aether.repository.LocalMetadataResult;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.graph.selector.AndDependencySelector;
+import org.eclipse.aether.util.graph.selector.ExclusionDependencySelector;
+import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver.ConflictContext;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver.ConflictItem;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver.ScopeSelector;
+import org.eclipse.aether.util.graph.transformer.JavaScopeSelector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Timings of the builders on a generated repository, run with {@code mvn test -Dtest=CollectionBenchmarkTest
+ * -Dbenchmark=true}. Each case is run a few times to warm up, then the median of the measured runs is printed; the
+ * numbers only compare the options of a case with each other, which are measured in turns so that the order of the
+ * options does not favour the last ones.
+ * <p>
+ * The repository has {@value #LAYERS} layers of {@value #WIDTH} artifacts in two versions, each version depending on
+ * {@value #FAN_OUT} artifacts of the next layers, so that the graph has many conflicts and shared subtrees. The
+ * dependencies are either on a version, or on the range of both versions.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CollectionBenchmarkTest {
+    private static final int LAYERS = 8;
+
+    private static final int WIDTH = 50;
+
+    private static final int FAN_OUT = 4;
+
+    private static final int DIRECT_DEPENDENCIES = 20;
+
+    private static final int WARMUP = 5;
+
+    private static final int RUNS = 15;
+
+    /**
+     * Keeps the graph whose heap is measured reachable.
+     */
+    private static volatile Object retained;
+
+    @TempDir
+    Path localRepository;
+
+    private CollectorFixture fixture;
+
+    private MavenProject project;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fixture = new CollectorFixture(localRepository);
+    }
+
+    private void generate(boolean ranges) throws Exception {
+        generate(ranges, DIRECT_DEPENDENCIES);
+    }
+
+    /**
+     * @param directDependencies the number of direct dependencies of the project, taken from the first layers
+     */
+    private void generate(boolean ranges, int directDependencies) throws Exception {
+        Random random = new Random(42);
+        for (int layer = 0; layer < LAYERS; layer++) {
+            for (int i = 0; i < WIDTH; i++) {
+                for (int version = 1; version <= 2; version++) {
+                    List<String> dependencies = new ArrayList<>();
+                    for (int d = 0; layer < LAYERS - 1 && d < FAN_OUT; d++) {
+                        int target = layer + 1 + random.nextInt(Math.min(2, LAYERS - 1 - layer));
+                        String dependencyVersion = (1 + random.nextInt(2)) + ".0";
+                        dependencies.add(artifact(target, random.nextInt(WIDTH))
+                                + ':'
+                                + (ranges ? "[1.0,2.0]" : dependencyVersion));
+                    }
+                    fixture.pom(artifact(layer, i), version + ".0", dependencies.toArray(new String[0]));
+                }
+                Files.write(
+                        localRepository.resolve(
+                                CollectorFixture.GROUP_ID + '/' + artifact(layer, i) + "/maven-metadata-local.xml"),
+                        ("<metadata><groupId>" + CollectorFixture.GROUP_ID + "</groupId><artifactId>"
+                                        + artifact(layer, i) + "</artifactId><versioning><versions>"
+                                        + "<version>1.0</version><version>2.0</version></versions></versioning>"
+                                        + "</metadata>")
+                                .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        List<String> direct = new ArrayList<>();
+        for (int i = 0; i < directDependencies; i++) {
+            direct.add(artifact(i / WIDTH, i % WIDTH) + ":2.0");
+        }
+        project = fixture.project(direct.toArray(new String[0]));
+    }
+
+    @Test
+    void descriptorIndex() throws Exception {
+        generate(false);
+        Path index = localRepository.resolve("descriptors.ddi");
+        long start = System.nanoTime();
+        int indexed = DescriptorIndex.build(
+                index,
+                fixture.getSession(),
+                fixture.getRepositorySystem()::readArtifactDescriptor,
+                Collections.emptyList());
+        report("descriptorIndex build of " + indexed + " POMs", (System.nanoTime() - start) / 1_000_000.0);
+
+        DefaultDependencyCollectorBuilder builder = fixture.collectorBuilder();
+        double[] medians = compare(() -> builder.collectDependencyGraph(request()), () -> {
+            DependencyCollectorRequest request = request();
+            request.addConfigProperty(ConfigurationProperties.DESCRIPTOR_INDEX, index.toString());
+            builder.collectDependencyGraph(request);
+        });
+        report("descriptorIndex off", medians[0]);
+        report("descriptorIndex on", medians[1]);
+    }
+
+    @Test
+    void versionRangeCache() throws Exception {
+        generate(true);
+        DefaultDependencyCollectorBuilder builder = fixture.collectorBuilder();
+        double[] medians = compare(() -> builder.collectDependencyGraph(request()), () -> {
+            DependencyCollectorRequest request = request();
+            request.addConfigProperty(ConfigurationProperties.VERSION_RANGE_CACHE, true);
+            builder.collectDependencyGraph(request);
+        });
+        report("versionRangeCache off", medians[0]);
+        report("versionRangeCache on", medians[1]);
+    }
+
+    @Test
+    void parallelism() throws Exception {
+        generate(false, 120);
+        DefaultDependencyCollectorBuilder builder = fixture.collectorBuilder();
+        System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+        double[] medians = compare(
+                () -> builder.collectDependencyGraph(request()),
+                // incremental without a previous state collects each direct dependency on its own, sequentially
+                () -> builder.collectDependencyGraph(request().incremental(true)),
+                () -> builder.collectDependencyGraph(request().parallelism(4)));
+        report("parallelism sequential", medians[0]);
+        report("parallelism 1 per direct dependency", medians[1]);
+        report("parallelism 4 per direct dependency", medians[2]);
+    }
+
+    @Test
+    void depth() throws Exception {
+        generate(false);
+        DefaultDependencyCollectorBuilder builder = fixture.collectorBuilder();
+        for (int depth : new int[] {1, 2, 3, 4, Integer.MAX_VALUE}) {
+            int nodes = count(builder.collectDependencyGraph(request().depth(depth)));
+            report(
+                    "depth " + (depth == Integer.MAX_VALUE ? "full" : depth) + " (" + nodes + " nodes)",
+                    time(() -> builder.collectDependencyGraph(request().depth(depth))));
+        }
+    }
+
+    @Test
+    void dependencySelector() throws Exception {
+        generate(false, 120);
+        DefaultDependencyCollectorBuilder builder = fixture.collectorBuilder();
+        // the default selector before it was fused
+        DependencySelector and = new AndDependencySelector(
+                new DirectScopeDependencySelector(JavaScopes.TEST),
+                new DirectScopeDependencySelector(JavaScopes.PROVIDED),
+                new OptionalDependencySelector(),
+                new ExclusionDependencySelector());
+        double[] medians = compare(
+                () -> builder.collectDependencyGraph(request().dependencySelector(and)),
+                () -> builder.collectDependencyGraph(request()));
+        report("dependencySelector and", medians[0]);
+        report("dependencySelector fused", medians[1]);
+
+        // the selectors alone, expanding FAN_OUT children per node over LAYERS levels, every fourth one excluding an
+        // artifact
+        Random random = new Random(42);
+        List<Dependency> dependencies = new ArrayList<>();
+        String[] scopes = {JavaScopes.COMPILE, JavaScopes.RUNTIME, JavaScopes.TEST, JavaScopes.PROVIDED};
+        for (int i = 0; i < 64; i++) {
+            List<Exclusion> exclusions = i % 4 == 0
+                    ? Collections.singletonList(
+                            new Exclusion(CollectorFixture.GROUP_ID, "x" + random.nextInt(8), "*", "*"))
+                    : Collections.emptyList();
+            dependencies.add(new Dependency(
+                    new DefaultArtifact(CollectorFixture.GROUP_ID, "a" + i, "jar", "1.0"),
+                    scopes[random.nextInt(scopes.length)],
+                    i % 16 == 0,
+                    exclusions));
+        }
+        DependencySelector fused = new DefaultCollectorDependencySelector();
+        medians = compare(() -> selectAll(and, dependencies), () -> selectAll(fused, dependencies));
+        report("dependencySelector and, selectors only", medians[0]);
+        report("dependencySelector fused, selectors only", medians[1]);
+    }
+
+    @Test
+    void sharedDescriptorCache() throws Exception {
+        generate(false);
+        SharedDescriptorCache cache = SharedDescriptorCache.getInstance();
+        cache.clear();
+        DefaultDependencyCollectorBuilder collector = fixture.collectorBuilder();
+        double[] medians = compare(() -> collector.collectDependencyGraph(request()), () -> {
+            DependencyCollectorRequest request = request();
+            request.addConfigProperty(ConfigurationProperties.SHARED_DESCRIPTOR_CACHE, true);
+            collector.collectDependencyGraph(request);
+        });
+        report("sharedDescriptorCache collector off", medians[0]);
+        report("sharedDescriptorCache collector on", medians[1]);
+
+        DefaultDependencyGraphBuilder graphBuilder = fixture.graphBuilder();
+        medians = compare(
+                () -> {
+                    fixture.getSession().setConfigProperty(ConfigurationProperties.SHARED_DESCRIPTOR_CACHE, false);
+                    graphBuilder.buildDependencyGraph(fixture.request(project), null);
+                },
+                () -> {
+                    fixture.getSession().setConfigProperty(ConfigurationProperties.SHARED_DESCRIPTOR_CACHE, true);
+                    graphBuilder.buildDependencyGraph(fixture.request(project), null);
+                });
+        report("sharedDescriptorCache graph builder off", medians[0]);
+        report("sharedDescriptorCache graph builder on", medians[1]);
+        System.out.printf(
+                "sharedDescriptorCache %d entries, %d hits, %d misses, hit rate %.3f%n",
+                cache.size(), cache.getHitCount(), cache.getMissCount(), cache.getHitRate());
+        cache.clear();
+    }
+
+    @Test
+    void prefetch() throws Exception {
+        generate(false);
+        addParents();
+        DefaultDependencyCollectorBuilder collector = fixture.collectorBuilder();
+        // the hints are the artifacts of the previous graph, the stale ones point half of them to a missing version
+        List<org.apache.maven.artifact.Artifact> hints = new ArrayList<>();
+        List<org.apache.maven.artifact.Artifact> staleHints = new ArrayList<>();
+        Deque<DependencyNode> remaining =
+                new ArrayDeque<>(collector.collectDependencyGraph(request()).getChildren());
+        while (!remaining.isEmpty()) {
+            DependencyNode node = remaining.pop();
+            org.apache.maven.artifact.Artifact hint = node.getArtifact();
+            hints.add(hint);
+            if (hints.size() % 2 == 0) {
+                hint = ArtifactUtils.copyArtifact(hint);
+                hint.setVersion("9.0");
+            }
+            staleHints.add(hint);
+            remaining.addAll(node.getChildren());
+        }
+        fixture.getSession()
+                .setLocalRepositoryManager(
+                        new ThrottledLocalRepositoryManager(fixture.getSession().getLocalRepositoryManager()));
+
+        // like Maven, each build gets a fresh session cache
+        DefaultRepositorySystemSession session = fixture.getSession();
+        double[] medians = compare(
+                () -> {
+                    session.setCache(new DefaultRepositoryCache());
+                    collector.collectDependencyGraph(request());
+                },
+                () -> {
+                    session.setCache(new DefaultRepositoryCache());
+                    collector.collectDependencyGraph(request().prefetch(hints));
+                },
+                () -> {
+                    session.setCache(new DefaultRepositoryCache());
+                    collector.collectDependencyGraph(request().prefetch(staleHints));
+                });
+        report("prefetch collector off", medians[0]);
+        report("prefetch collector on", medians[1]);
+        report("prefetch collector on, half stale", medians[2]);
+
+        DefaultDependencyGraphBuilder graphBuilder = fixture.graphBuilder();
+        medians = compare(
+                () -> {
+                    session.setCache(new DefaultRepositoryCache());
+                    graphBuilder.buildDependencyGraph(fixture.request(project), null);
+                },
+                () -> {
+                    session.setCache(new DefaultRepositoryCache());
+                    graphBuilder.buildDependencyGraphWithPrefetch(fixture.request(project), null, hints);
+                });
+        report("prefetch graph builder off", medians[0]);
+        report("prefetch graph builder on", medians[1]);
+    }
+
+    @Test
+    void lazyArtifacts() throws Exception {
+        // a resolved graph of 111,111 nodes, 10 children per node over 5 levels
+        org.eclipse.aether.graph.DependencyNode root =
+                new org.eclipse.aether.graph.DefaultDependencyNode(new DefaultArtifact("test:project:1.0"));
+        Deque<org.eclipse.aether.graph.DependencyNode> parents = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        parents.push(root);
+        depths.push(0);
+        int nodes = 1;
+        while (!parents.isEmpty()) {
+            org.eclipse.aether.graph.DependencyNode parent = parents.pop();
+            int depth = depths.pop();
+            for (int i = 0; depth < 5 && i < 10; i++) {
+                org.eclipse.aether.graph.DependencyNode child = new org.eclipse.aether.graph.DefaultDependencyNode(
+                        new Dependency(new DefaultArtifact("test:a" + nodes++ + ":1.0"), JavaScopes.COMPILE));
+                parent.getChildren().add(child);
+                parents.push(child);
+                depths.push(depth + 1);
+            }
+        }
+        DefaultDependencyGraphBuilder builder =
+                new DefaultDependencyGraphBuilder(request -> new CollectorFixture.CollectedResult(root));
+        DefaultRepositorySystemSession session = fixture.getSession();
+        ProjectBuildingRequest request = fixture.request(fixture.project());
+
+        double[] medians = compare(
+                () -> {
+                    session.setConfigProperty(ConfigurationProperties.LAZY_ARTIFACTS, false);
+                    builder.buildDependencyGraph(request, null);
+                },
+                () -> {
+                    session.setConfigProperty(ConfigurationProperties.LAZY_ARTIFACTS, true);
+                    builder.buildDependencyGraph(request, null);
+                });
+        report("lazyArtifacts off, conversion of " + nodes + " nodes", medians[0]);
+        report("lazyArtifacts on, conversion of " + nodes + " nodes", medians[1]);
+
+        session.setConfigProperty(ConfigurationProperties.LAZY_ARTIFACTS, false);
+        reportHeap("lazyArtifacts off", heap(() -> builder.buildDependencyGraph(request, null)));
+        session.setConfigProperty(ConfigurationProperties.LAZY_ARTIFACTS, true);
+        reportHeap("lazyArtifacts on", heap(() -> builder.buildDependencyGraph(request, null)));
+        reportHeap("lazyArtifacts on, every artifact created", heap(() -> {
+            DependencyNode graph = builder.buildDependencyGraph(request, null);
+            graph.accept(new DependencyNodeVisitor() {
+                @Override
+                public boolean visit(DependencyNode node) {
+                    return node.getArtifact() != null;
+                }
+
+                @Override
+                public boolean endVisit(DependencyNode node) {
+                    return true;
+                }
+            });
+            return graph;
+        }));
+    }
+
+    /**
+     * @return the heap retained by the built object, in KiB
+     */
+    private static long heap(Callable<Object> build) throws Exception {
+        long before = usedHeap();
+        retained = build.call();
+        long after = usedHeap();
+        retained = null;
+        return (after - before) / 1024;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    void scopeSelector() throws Exception {
+        // conflict groups of 1 to 6 items, with one or two scopes each
+        Random random = new Random(42);
+        String[] scopes = {JavaScopes.COMPILE, JavaScopes.RUNTIME, JavaScopes.PROVIDED, JavaScopes.TEST};
+        org.eclipse.aether.graph.DependencyNode root =
+                new org.eclipse.aether.graph.DefaultDependencyNode(new DefaultArtifact("g:root:1"));
+        List<ConflictContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            List<ConflictItem> items = new ArrayList<>();
+            for (int item = random.nextInt(6); item >= 0; item--) {
+                String scope = scopes[random.nextInt(scopes.length)];
+                org.eclipse.aether.graph.DependencyNode node = new org.eclipse.aether.graph.DefaultDependencyNode(
+                        new Dependency(new DefaultArtifact("g:a" + i + ":1"), scope));
+                String[] itemScopes = random.nextBoolean()
+                        ? new String[] {scope}
+                        : new String[] {scope, scopes[random.nextInt(scopes.length)]};
+                items.add(new ConflictItem(root, node, 1 + random.nextInt(4), 0, itemScopes));
+            }
+            ConflictContext context = new ConflictContext(root, "a" + i, Collections.emptyMap(), items);
+            context.setWinner(items.get(0));
+            contexts.add(context);
+        }
+
+        ScopeSelector[] selectors = {
+            new StreamingScopeSelector(), new VerboseJavaScopeSelector(), new JavaScopeSelector()
+        };
+        Case[] cases = new Case[selectors.length];
+        for (int s = 0; s < selectors.length; s++) {
+            ScopeSelector selector = selectors[s];
+            cases[s] = () -> {
+                for (int i = 0; i < 10; i++) {
+                    for (ConflictContext context : contexts) {
+                        selector.selectScope(context);
+                    }
+                }
+            };
+        }
+        double[] medians = compare(cases);
+        report("scopeSelector streams, 100k groups", medians[0]);
+        report("scopeSelector single pass, 100k groups", medians[1]);
+        report("scopeSelector JavaScopeSelector, 100k groups", medians[2]);
+    }
+
+    /**
+     * The verbose scope selector before it was made single pass: the selector of the resolver, then a stream over the
+     * scopes of the items to find the widest one.
+     */
+    private static final class StreamingScopeSelector extends ScopeSelector {
+        private static final List<String> ORDERED_SCOPES = Arrays.asList("compile", "runtime", "provided", "test");
+
+        private final ScopeSelector scopeSelector = new JavaScopeSelector();
+
+        @Override
+        public void selectScope(ConflictContext context) throws RepositoryException {
+            scopeSelector.selectScope(context);
+
+            context.getItems().stream()
+                    .flatMap(i -> i.getScopes().stream())
+                    .distinct()
+                    .max((lhs, rhs) -> ORDERED_SCOPES.indexOf(rhs) - ORDERED_SCOPES.indexOf(lhs))
+                    .filter(s -> s != context.getScope())
+                    .ifPresent(s -> context.getWinner().getNode().setData(VerboseJavaScopeSelector.REDUCED_SCOPE, s));
+        }
+    }
+
+    private static void selectAll(DependencySelector selector, List<Dependency> dependencies) {
+        for (int i = 0; i < 100; i++) {
+            select(selector, dependencies, 0);
+        }
+    }
+
+    /**
+     * Selects the children of a node and derives the selector of each selected child, as the collector does.
+     */
+    private static void select(DependencySelector selector, List<Dependency> dependencies, int depth) {
+        if (depth == LAYERS) {
+            return;
+        }
+        for (int i = 0; i < FAN_OUT; i++) {
+            Dependency dependency = dependencies.get((depth * FAN_OUT + i * 7) % dependencies.size());
+            if (selector.selectDependency(dependency)) {
+                select(selector.deriveChildSelector(new Context(dependency)), dependencies, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Gives every generated POM a parent of its own, so that reading a descriptor reads two POMs.
+     */
+    private void addParents() throws IOException {
+        for (int layer = 0; layer < LAYERS; layer++) {
+            for (int i = 0; i < WIDTH; i++) {
+                for (int version = 1; version <= 2; version++) {
+                    String parentId = "p-" + artifact(layer, i);
+                    fixture.pom(parentId, version + ".0");
+                    replace(parentId, version + ".0", "<dependencies>", "<packaging>pom</packaging><dependencies>");
+                    replace(
+                            artifact(layer, i),
+                            version + ".0",
+                            "</modelVersion>",
+                            "</modelVersion><parent><groupId>" + CollectorFixture.GROUP_ID + "</groupId><artifactId>"
+                                    + parentId + "</artifactId><version>" + version + ".0</version></parent>");
+                }
+            }
+        }
+    }
+
+    private void replace(String artifactId, String version, String target, String replacement) throws IOException {
+        Path pom = localRepository.resolve(CollectorFixture.GROUP_ID + '/' + artifactId + '/' + version + '/'
+                + artifactId + '-' + version + ".pom");
+        String content = new String(Files.readAllBytes(pom), StandardCharsets.UTF_8);
+        Files.write(pom, content.replace(target, replacement).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private DependencyCollectorRequest request() {
+        return new DependencyCollectorRequest(fixture.request(project));
+    }
+
+    private static String artifact(int layer, int i) {
+        return "l" + layer + "-a" + i;
+    }
+
+    /**
+     * @return the number of nodes of the graph, counting every occurrence
+     */
+    static int count(DependencyNode root) {
+        int nodes = 0;
+        Deque<DependencyNode> remaining = new ArrayDeque<>();
+        remaining.push(root);
+        while (!remaining.isEmpty()) {
+            nodes++;
+            for (DependencyNode child : remaining.pop().getChildren()) {
+                remaining.push(child);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the median duration of the measured runs, in milliseconds
+     */
+    static double time(Case run) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            run.run();
+        }
+        double[] durations = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            durations[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(durations);
+        return durations[RUNS / 2];
+    }
+
+    /**
+     * Warms up all the cases before measuring any, then measures them in turns, so that the order of the cases does
+     * not favour the last ones.
+     *
+     * @return the median duration of the measured runs of each case, in milliseconds
+     */
+    static double[] compare(Case... cases) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            for (Case run : cases) {
+                run.run();
+            }
+        }
+        double[][] durations = new double[cases.length][RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            for (int c = 0; c < cases.length; c++) {
+                long start = System.nanoTime();
+                cases[c].run();
+                durations[c][i] = (System.nanoTime() - start) / 1_000_000.0;
+            }
+        }
+        double[] medians = new double[cases.length];
+        for (int c = 0; c < cases.length; c++) {
+            Arrays.sort(durations[c]);
+            medians[c] = durations[c][RUNS / 2];
+        }
+        return medians;
+    }
+
+    static void report(String name, double millis) {
+        System.out.printf("%-50s %10.2f ms%n", name, millis);
+    }
+
+    static void reportHeap(String name, long kibibytes) {
+        System.out.printf("%-50s %10d KiB%n", name, kibibytes);
+    }
+
+    /**
+     * A local repository whose every lookup waits {@value #LATENCY_MICROS} microseconds, standing for a slow disk or a
+     * repository manager.
+     */
+    private static final class ThrottledLocalRepositoryManager implements LocalRepositoryManager {
+        private static final long LATENCY_MICROS = 500;
+
+        private final LocalRepositoryManager delegate;
+
+        ThrottledLocalRepositoryManager(LocalRepositoryManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public LocalRepository getRepository() {
+            return delegate.getRepository();
+        }
+
+        @Override
+        public String getPathForLocalArtifact(org.eclipse.aether.artifact.Artifact artifact) {
+            return delegate.getPathForLocalArtifact(artifact);
+        }
+
+        @Override
+        public String getPathForRemoteArtifact(
+                org.eclipse.aether.artifact.Artifact artifact, RemoteRepository repository, String context) {
+            return delegate.getPathForRemoteArtifact(artifact, repository, context);
+        }
+
+        @Override
+        public String getPathForLocalMetadata(Metadata metadata) {
+            return delegate.getPathForLocalMetadata(metadata);
+        }
+
+        @Override
+        public String getPathForRemoteMetadata(Metadata metadata, RemoteRepository repository, String context) {
+            return delegate.getPathForRemoteMetadata(metadata, repository, context);
+        }
+
+        @Override
+        public LocalArtifactResult find(RepositorySystemSession session, LocalArtifactRequest request) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(LATENCY_MICROS));
+            return delegate.find(session, request);
+        }
+
+        @Override
+        public void add(RepositorySystemSession session, LocalArtifactRegistration request) {
+            delegate.add(session, request);
+        }
+
+        @Override
+        public LocalMetadataResult find(RepositorySystemSession session, LocalMetadataRequest request) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(LATENCY_MICROS));
+            return delegate.find(session, request);
+        }
+
+        @Override
+        public void add(RepositorySystemSession session, LocalMetadataRegistration request) {
+            delegate.add(session, request);
+        }
+    }
+
+    private static final class Context implements DependencyCollectionContext {
+        private final Dependency dependency;
+
+        Context(Dependency dependency) {
+            this.dependency = dependency;
+        }
+
+        @Override
+        public RepositorySystemSession getSession() {
+            return null;
+        }
+
+        @Override
+        public org.eclipse.aether.artifact.Artifact getArtifact() {
+            return dependency.getArtifact();
+        }
+
+        @Override
+        public Dependency getDependency() {
+            return dependency;
+        }
+
+        @Override
+        public List<Dependency> getManagedDependencies() {
+            return Collections.emptyList();
+        }
+    }
+
+    @FunctionalInterface
+    interface Case {
+        void run() throws Exception;
+    }
+}
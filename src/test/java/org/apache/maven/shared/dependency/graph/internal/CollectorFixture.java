@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.DependencyResolutionException;
+import org.apache.maven.project.DependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.NoLocalRepositoryManagerException;
+
+/**
+ * An offline local repository with hand written POMs, and the builders wired to a real repository system, to test
+ * the builders against graphs collected by Resolver.
+ * <p>
+ * Dependencies are written as <code>artifactId:version[:scope[:optional]]</code>, all in the {@code test} group.
+ */
+final class CollectorFixture {
+    static final String GROUP_ID = "test";
+
+    private final Path localRepository;
+
+    private final DefaultServiceLocator locator;
+
+    private final RepositorySystem repositorySystem;
+
+    private final DefaultRepositorySystemSession session;
+
+    CollectorFixture(Path localRepository) throws NoLocalRepositoryManagerException {
+        this.localRepository = localRepository;
+        this.locator = MavenRepositorySystemUtils.newServiceLocator();
+        locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
+            @Override
+            public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
+                throw new IllegalStateException("Could not create " + impl, exception);
+            }
+        });
+        this.repositorySystem = locator.getService(RepositorySystem.class);
+        this.session = MavenRepositorySystemUtils.newSession();
+        session.setOffline(true);
+        session.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory()
+                .newInstance(session, new LocalRepository(localRepository.toFile())));
+    }
+
+    /**
+     * Writes the POM of an artifact.
+     *
+     * @param artifactId the artifact id
+     * @param version the version
+     * @param dependencies the dependencies of the artifact
+     */
+    void pom(String artifactId, String version, String... dependencies) throws IOException {
+        StringBuilder pom = new StringBuilder("<project><modelVersion>4.0.0</modelVersion>")
+                .append("<groupId>")
+                .append(GROUP_ID)
+                .append("</groupId><artifactId>")
+                .append(artifactId)
+                .append("</artifactId><version>")
+                .append(version)
+                .append("</version><dependencies>");
+        for (Dependency dependency : dependencies(dependencies)) {
+            pom.append("<dependency><groupId>")
+                    .append(dependency.getGroupId())
+                    .append("</groupId><artifactId>")
+                    .append(dependency.getArtifactId())
+                    .append("</artifactId><version>")
+                    .append(dependency.getVersion())
+                    .append("</version><scope>")
+                    .append(dependency.getScope())
+                    .append("</scope><optional>")
+                    .append(dependency.isOptional())
+                    .append("</optional></dependency>");
+        }
+        pom.append("</dependencies></project>");
+
+        Path file = localRepository.resolve(
+                GROUP_ID + '/' + artifactId + '/' + version + '/' + artifactId + '-' + version + ".pom");
+        Files.createDirectories(file.getParent());
+        Files.write(file, pom.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a project, which is not written to the repository.
+     *
+     * @param dependencies the dependencies of the project
+     * @return the project
+     */
+    MavenProject project(String... dependencies) {
+        Model model = new Model();
+        model.setModelVersion("4.0.0");
+        model.setGroupId(GROUP_ID);
+        model.setArtifactId("project");
+        model.setVersion("1.0");
+        model.setDependencies(dependencies(dependencies));
+        model.setDependencyManagement(new DependencyManagement());
+
+        MavenProject project = new MavenProject(model);
+        project.setArtifact(
+                new DefaultArtifact(GROUP_ID, "project", "1.0", null, "jar", "", new DefaultArtifactHandler("jar")));
+        project.setRemoteArtifactRepositories(Collections.emptyList());
+        return project;
+    }
+
+    ProjectBuildingRequest request(MavenProject project) {
+        ProjectBuildingRequest request = new DefaultProjectBuildingRequest();
+        request.setRepositorySession(session);
+        request.setProject(project);
+        return request;
+    }
+
+    DefaultRepositorySystemSession getSession() {
+        return session;
+    }
+
+    RepositorySystem getRepositorySystem() {
+        return repositorySystem;
+    }
+
+    /**
+     * @param type the type of a component of the repository system
+     * @return the component
+     */
+    <T> T getService(Class<T> type) {
+        return locator.getService(type);
+    }
+
+    DefaultDependencyCollectorBuilder collectorBuilder() {
+        return new DefaultDependencyCollectorBuilder(
+                repositorySystem,
+                getService(RemoteRepositoryManager.class),
+                getService(ArtifactDescriptorReader.class),
+                getService(VersionRangeResolver.class));
+    }
+
+    /**
+     * @return a graph builder whose project dependencies resolver only collects, as the builder does not resolve
+     *         artifact files anyway
+     */
+    DefaultDependencyGraphBuilder graphBuilder() {
+        return new DefaultDependencyGraphBuilder(
+                resolver(), new DefaultDependencyDescriptorPrefetcher(repositorySystem));
+    }
+
+    /**
+     * @return a project dependencies resolver which only collects
+     */
+    ProjectDependenciesResolver resolver() {
+        return new CollectingResolver();
+    }
+
+    static List<Dependency> dependencies(String... dependencies) {
+        List<Dependency> result = new ArrayList<>(dependencies.length);
+        for (String dependency : dependencies) {
+            String[] parts = dependency.split(":");
+            Dependency model = new Dependency();
+            model.setGroupId(GROUP_ID);
+            model.setArtifactId(parts[0]);
+            model.setVersion(parts[1]);
+            model.setScope(parts.length > 2 ? parts[2] : "compile");
+            model.setOptional(parts.length > 3 && "optional".equals(parts[3]));
+            result.add(model);
+        }
+        return result;
+    }
+
+    private final class CollectingResolver implements ProjectDependenciesResolver {
+        @Override
+        public DependencyResolutionResult resolve(DependencyResolutionRequest request)
+                throws DependencyResolutionException {
+            MavenProject project = request.getMavenProject();
+            ArtifactTypeRegistry stereotypes = request.getRepositorySession().getArtifactTypeRegistry();
+
+            CollectRequest collect = new CollectRequest();
+            collect.setRootArtifact(RepositoryUtils.toArtifact(project.getArtifact()));
+            collect.setRepositories(RepositoryUtils.toRepos(project.getRemoteArtifactRepositories()));
+            for (Dependency dependency : project.getDependencies()) {
+                collect.addDependency(RepositoryUtils.toDependency(dependency, stereotypes));
+            }
+            for (Dependency dependency : project.getDependencyManagement().getDependencies()) {
+                collect.addManagedDependency(RepositoryUtils.toDependency(dependency, stereotypes));
+            }
+
+            DependencyNode root;
+            try {
+                root = repositorySystem
+                        .collectDependencies(request.getRepositorySession(), collect)
+                        .getRoot();
+            } catch (DependencyCollectionException e) {
+                throw new IllegalStateException(e);
+            }
+            return new CollectedResult(root);
+        }
+    }
+
+    static final class CollectedResult implements DependencyResolutionResult {
+        private final DependencyNode root;
+
+        CollectedResult(DependencyNode root) {
+            this.root = root;
+        }
+
+        @Override
+        public DependencyNode getDependencyGraph() {
+            return root;
+        }
+
+        @Override
+        public List<org.eclipse.aether.graph.Dependency> getDependencies() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<org.eclipse.aether.graph.Dependency> getResolvedDependencies() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<org.eclipse.aether.graph.Dependency> getUnresolvedDependencies() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Exception> getCollectionErrors() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Exception> getResolutionErrors(org.eclipse.aether.graph.Dependency dependency) {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.graph.selector.AndDependencySelector;
+import org.eclipse.aether.util.graph.selector.ExclusionDependencySelector;
+import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DefaultCollectorDependencySelectorTest {
+
+    private static final List<Dependency> CANDIDATES = Arrays.asList(
+            dependency("g:a:1", JavaScopes.COMPILE, false),
+            dependency("g:b:1", JavaScopes.TEST, false),
+            dependency("g:c:1", JavaScopes.PROVIDED, false),
+            dependency("g:d:1", JavaScopes.RUNTIME, true),
+            dependency("x:e:jar:tests:1", JavaScopes.COMPILE, false),
+            dependency("x:f:1", JavaScopes.SYSTEM, false));
+
+    private static final List<Dependency> PATH = Arrays.asList(
+            dependency("g:a:1", JavaScopes.COMPILE, false, new Exclusion("x", "f", "*", "*")),
+            dependency("g:b:1", JavaScopes.COMPILE, false),
+            dependency("g:c:1", JavaScopes.COMPILE, false, new Exclusion("*", "e", "*", "tests")),
+            dependency("g:d:1", JavaScopes.COMPILE, false, new Exclusion("x", "f", "*", "*")));
+
+    @Test
+    void selectsLikeTheFourWayAndSelector() {
+        DependencySelector fused = new DefaultCollectorDependencySelector();
+        DependencySelector and = new AndDependencySelector(
+                new DirectScopeDependencySelector(JavaScopes.TEST),
+                new DirectScopeDependencySelector(JavaScopes.PROVIDED),
+                new OptionalDependencySelector(),
+                new ExclusionDependencySelector());
+
+        fused = fused.deriveChildSelector(context(null));
+        and = and.deriveChildSelector(context(null));
+        for (Dependency parent : PATH) {
+            for (Dependency candidate : CANDIDATES) {
+                assertEquals(and.selectDependency(candidate), fused.selectDependency(candidate), candidate.toString());
+            }
+            fused = fused.deriveChildSelector(context(parent));
+            and = and.deriveChildSelector(context(parent));
+        }
+    }
+
+    @Test
+    void derivesCanonicalInstances() {
+        DependencySelector root = new DefaultCollectorDependencySelector();
+        Dependency parent = PATH.get(0);
+
+        DependencySelector first = root.deriveChildSelector(context(null)).deriveChildSelector(context(parent));
+        DependencySelector second = root.deriveChildSelector(context(null)).deriveChildSelector(context(parent));
+
+        assertSame(first, second);
+        assertSame(first, first.deriveChildSelector(context(PATH.get(1))));
+    }
+
+    private static Dependency dependency(String coords, String scope, boolean optional, Exclusion... exclusions) {
+        return new Dependency(new DefaultArtifact(coords), scope, optional, Arrays.asList(exclusions));
+    }
+
+    private static DependencyCollectionContext context(Dependency dependency) {
+        return new DependencyCollectionContext() {
+            @Override
+            public RepositorySystemSession getSession() {
+                return null;
+            }
+
+            @Override
+            public Artifact getArtifact() {
+                return dependency != null ? dependency.getArtifact() : null;
+            }
+
+            @Override
+            public Dependency getDependency() {
+                return dependency;
+            }
+
+            @Override
+            public List<Dependency> getManagedDependencies() {
+                return Collections.emptyList();
+            }
+        };
+    }
+}
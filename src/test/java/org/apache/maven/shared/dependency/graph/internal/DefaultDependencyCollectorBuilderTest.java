@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.CollectionLimitExceededException;
+import org.apache.maven.shared.dependency.graph.CollectionLimits;
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilderException;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorRequest;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorResult;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.DependencyNodeFingerprint;
+import org.apache.maven.shared.dependency.graph.IncrementalCollectionState;
+import org.apache.maven.shared.dependency.graph.store.DescriptorIndex;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.apache.maven.shared.dependency.graph.traversal.SerializingDependencyNodeVisitor;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultDependencyCollectorBuilderTest {
+    @TempDir
+    Path localRepository;
+
+    private CollectorFixture fixture;
+
+    private DefaultDependencyCollectorBuilder builder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0", "c:1.0");
+        fixture.pom("b", "1.0", "c:2.0", "d:1.0:runtime");
+        fixture.pom("b", "2.0", "c:2.0", "e:1.0");
+        fixture.pom("c", "1.0");
+        fixture.pom("c", "2.0", "d:1.0");
+        fixture.pom("d", "1.0");
+        fixture.pom("e", "1.0", "d:1.0:test");
+        fixture.pom("f", "1.0", "c:2.0");
+        builder = fixture.collectorBuilder();
+    }
+
+    @Test
+    void incrementalCollectionShouldEqualFullCollectionAfterChangingOneDirectDependency() throws Exception {
+        MavenProject project = fixture.project("a:1.0", "b:1.0");
+        DependencyCollectorRequest request = new DependencyCollectorRequest(fixture.request(project)).incremental(true);
+        IncrementalCollectionState first = builder.collect(request).getIncrementalState();
+        assertNotNull(first);
+
+        project.getModel().setDependencies(CollectorFixture.dependencies("a:1.0", "b:2.0"));
+        DependencyCollectorResult result = builder.collect(request.incrementalState(first));
+        DependencyNode incremental = result.getRoot();
+        assertNotSame(first, result.getIncrementalState());
+        assertNull(builder.collect(new DependencyCollectorRequest(fixture.request(project)))
+                .getIncrementalState());
+
+        DependencyNode full = builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project)));
+        assertEquals(full.getFingerprint(), incremental.getFingerprint());
+        assertEquals(tree(full), tree(incremental));
+        assertTrue(tree(incremental).contains("test:e:jar:1.0:compile"));
+    }
+
+    @Test
+    void descriptorsShouldBeReadFromTheConfiguredIndex() throws Exception {
+        Path index = localRepository.resolve("descriptors.ddi");
+        DescriptorIndex.build(
+                index,
+                fixture.getSession(),
+                fixture.getRepositorySystem()::readArtifactDescriptor,
+                Collections.emptyList());
+
+        // same length and modification time: only the index still knows the former dependency
+        Path pom = localRepository.resolve("test/f/1.0/f-1.0.pom");
+        FileTime lastModified = Files.getLastModifiedTime(pom);
+        fixture.pom("f", "1.0", "c:1.0");
+        Files.setLastModifiedTime(pom, lastModified);
+
+        DependencyCollectorRequest request = new DependencyCollectorRequest(fixture.request(fixture.project("f:1.0")));
+        assertTrue(tree(builder.collectDependencyGraph(request)).contains("test:c:jar:1.0:compile"));
+        request.addConfigProperty(ConfigurationProperties.DESCRIPTOR_INDEX, index.toString());
+        assertTrue(tree(builder.collectDependencyGraph(request)).contains("test:c:jar:2.0:compile"));
+    }
+
+    @Test
+    void versionRangesShouldBeCachedBetweenCollectionsWhenAsked() throws Exception {
+        Path metadata = localRepository.resolve("test/c/maven-metadata-local.xml");
+        Files.write(
+                metadata,
+                ("<metadata><groupId>test</groupId><artifactId>c</artifactId><versioning><versions>"
+                                + "<version>1.0</version><version>2.0</version></versions></versioning></metadata>")
+                        .getBytes(StandardCharsets.UTF_8));
+        AtomicInteger resolutions = new AtomicInteger();
+        VersionRangeResolver resolver = fixture.getService(VersionRangeResolver.class);
+        DefaultDependencyCollectorBuilder counting = new DefaultDependencyCollectorBuilder(
+                fixture.getRepositorySystem(),
+                fixture.getService(RemoteRepositoryManager.class),
+                fixture.getService(ArtifactDescriptorReader.class),
+                (session, request) -> {
+                    resolutions.incrementAndGet();
+                    return resolver.resolveVersionRange(session, request);
+                });
+        MavenProject project = fixture.project("c:[1.0,3.0)");
+
+        DependencyCollectorRequest request = new DependencyCollectorRequest(fixture.request(project));
+        DependencyNode uncached = counting.collectDependencyGraph(request);
+
+        request.addConfigProperty(ConfigurationProperties.VERSION_RANGE_CACHE, true);
+        DependencyNode first = counting.collectDependencyGraph(request);
+        int resolved = resolutions.get();
+        assertTrue(resolved > 0);
+        DependencyNode second = counting.collectDependencyGraph(request);
+        assertEquals(resolved, resolutions.get());
+        assertEquals(tree(uncached), tree(first));
+        assertEquals(tree(first), tree(second));
+        assertTrue(tree(second).contains("test:c:jar:2.0:compile"));
+    }
+
+    @Test
+    void parallelCollectionShouldEqualSequentialCollection() throws Exception {
+        MavenProject project = fixture.project("e:1.0", "b:1.0", "a:1.0:runtime", "c:2.0:test", "d:1.0:provided");
+
+        DependencyNode sequential =
+                builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project)));
+        DependencyNode parallel =
+                builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project)).parallelism(4));
+
+        // the tree shows the order of the nodes and the conflict data of the losers
+        assertEquals(tree(sequential), tree(parallel));
+        assertEquals(sequential.getFingerprint(), parallel.getFingerprint());
+        assertTrue(tree(parallel).contains("omitted for conflict"));
+    }
+
+    @Test
+    void nodesShouldBeEmittedCompleteAfterTheirChildren() throws Exception {
+        MavenProject project = fixture.project("e:1.0", "b:1.0", "a:1.0:runtime");
+        for (boolean leanVerbose : new boolean[] {false, true}) {
+            List<DependencyNode> emitted = new ArrayList<>();
+            DependencyNode graph =
+                    builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project))
+                            .leanVerbose(leanVerbose)
+                            .listener(node -> {
+                                // the children were emitted before, and the fingerprint is final
+                                assertTrue(emitted.containsAll(node.getChildren()));
+                                assertEquals(DependencyNodeFingerprint.of(node), node.getFingerprint());
+                                emitted.add(node);
+                            }));
+
+            assertIdentical(postOrder(graph), emitted);
+        }
+    }
+
+    @Test
+    void immutableNodesShouldBeEmittedComplete() throws Exception {
+        MavenProject project = fixture.project("e:1.0", "b:1.0", "a:1.0:runtime");
+        DependencyNode mutable =
+                builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project)));
+        DependencyNode lean = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).leanVerbose(true));
+        fixture.getSession().setConfigProperty(ConfigurationProperties.IMMUTABLE_NODES, true);
+        List<DependencyNode> emitted = new ArrayList<>();
+        DependencyNode graph = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).listener(emitted::add));
+
+        assertIdentical(postOrder(graph), emitted);
+        for (DependencyNode node : emitted) {
+            assertNotNull(node.getChildren());
+        }
+        assertEquals(tree(mutable), tree(graph));
+        assertEquals(mutable.getFingerprint(), graph.getFingerprint());
+
+        DependencyNode immutableLean = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).leanVerbose(true));
+        assertEquals(tree(lean), tree(immutableLean));
+        assertEquals(lean.getFingerprint(), immutableLean.getFingerprint());
+    }
+
+    @Test
+    void nodeBudgetShouldTruncateTheGraph() throws Exception {
+        MavenProject project = fixture.project("a:1.0", "b:1.0");
+
+        DependencyNode graph = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).limits(new CollectionLimits().maxNodes(2)));
+
+        // a and its dependency c use up the budget before b is selected
+        assertTrue(graph.isTruncated());
+        assertEquals(1, graph.getChildren().size());
+        DependencyNode a = graph.getChildren().get(0);
+        assertEquals("a", a.getArtifact().getArtifactId());
+        assertFalse(a.isTruncated());
+        assertEquals(1, a.getChildren().size());
+
+        assertLimitExceeded(project, new CollectionLimits().maxNodes(2), CollectionLimitExceededException.Limit.NODES);
+    }
+
+    @Test
+    void depthBudgetShouldOnlyMarkNodesWhichLostChildren() throws Exception {
+        // c is both a direct dependency, whose child d is at depth 2, and a dependency of f, at depth 2
+        MavenProject project = fixture.project("c:2.0", "f:1.0");
+
+        DependencyNode graph = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).limits(new CollectionLimits().maxDepth(2)));
+        assertFalse(graph.isTruncated());
+        DependencyNode c = graph.getChildren().get(0);
+        assertEquals(1, c.getChildren().size());
+        assertFalse(c.isTruncated(), "the depth 2 occurrence of c must not mark the direct one");
+        assertFalse(graph.getChildren().get(1).isTruncated());
+
+        DependencyNode shallow = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).limits(new CollectionLimits().maxDepth(1)));
+        assertFalse(shallow.isTruncated());
+        for (DependencyNode direct : shallow.getChildren()) {
+            assertTrue(direct.isTruncated(), direct.toNodeString());
+            assertTrue(direct.getChildren().isEmpty());
+        }
+
+        DependencyNode none = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).limits(new CollectionLimits().maxDepth(0)));
+        assertTrue(none.isTruncated());
+        assertTrue(none.getChildren().isEmpty());
+
+        assertLimitExceeded(project, new CollectionLimits().maxDepth(1), CollectionLimitExceededException.Limit.DEPTH);
+    }
+
+    @Test
+    void depthBudgetShouldMarkTheDuplicateWhichLostChildren() throws Exception {
+        // both declarations of c are at the same path, only the one without the exclusion of d loses it to the limit
+        MavenProject project = fixture.project("c:2.0", "c:2.0");
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId(CollectorFixture.GROUP_ID);
+        exclusion.setArtifactId("d");
+        project.getDependencies().get(0).addExclusion(exclusion);
+
+        DependencyNode graph = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).limits(new CollectionLimits().maxDepth(1)));
+        assertEquals(1, graph.getChildren().size());
+        DependencyNode c = graph.getChildren().get(0);
+        assertEquals(1, c.getExclusions().size());
+        assertFalse(c.isTruncated(), "the duplicate losing d must not mark the one excluding it");
+    }
+
+    @Test
+    void timeBudgetShouldStopTheCollection() throws Exception {
+        MavenProject project = fixture.project("a:1.0", "b:1.0");
+        DependencySelector slow = new SlowDependencySelector(new DefaultCollectorDependencySelector());
+
+        DependencyNode graph = builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project))
+                .dependencySelector(slow)
+                .limits(new CollectionLimits().timeout(1, TimeUnit.MILLISECONDS)));
+        assertTrue(graph.isTruncated());
+        assertTrue(graph.getChildren().isEmpty());
+
+        DependencyCollectorBuilderException e = assertThrows(
+                DependencyCollectorBuilderException.class,
+                () -> builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project))
+                        .dependencySelector(slow)
+                        .limits(new CollectionLimits()
+                                .timeout(1, TimeUnit.MILLISECONDS)
+                                .failOnLimit(true))));
+        assertEquals(
+                CollectionLimitExceededException.Limit.TIME,
+                ((CollectionLimitExceededException) e.getCause()).getLimit());
+    }
+
+    @Test
+    void depthShouldCollectOnlyTheFirstLevels() throws Exception {
+        MavenProject project = fixture.project("a:1.0", "b:1.0");
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new DependencyCollectorRequest(fixture.request(project)).depth(0));
+
+        DependencyNode direct =
+                builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project)).depth(1));
+        assertEquals(
+                "test:project:jar:1.0\n" + "  test:a:jar:1.0:compile\n" + "  test:b:jar:1.0:compile\n", tree(direct));
+
+        // f -> c -> d
+        MavenProject deep = fixture.project("f:1.0");
+        DependencyNode two =
+                builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(deep)).depth(2));
+        assertEquals(
+                "test:project:jar:1.0\n" + "  test:f:jar:1.0:compile\n" + "    test:c:jar:2.0:compile\n", tree(two));
+        assertFalse(two.getChildren().get(0).getChildren().get(0).isTruncated());
+
+        DependencyNode three =
+                builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(deep)).depth(3));
+        DependencyNode full = builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(deep)));
+        assertEquals(tree(full), tree(three));
+        assertTrue(tree(three).contains("test:d:jar:1.0:compile"));
+    }
+
+    @Test
+    void leanVerboseShouldKeepTheTreeAndTheLosersData() throws Exception {
+        MavenProject project = fixture.project("e:1.0", "b:1.0", "a:1.0:runtime", "c:2.0:test", "d:1.0:provided");
+
+        DependencyNode verbose =
+                builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project)));
+        DependencyNode lean = builder.collectDependencyGraph(
+                new DependencyCollectorRequest(fixture.request(project)).leanVerbose(true));
+
+        assertEquals(tree(verbose), tree(lean));
+        assertEquals(serialize(verbose), serialize(lean));
+        // optionality, exclusions and version constraints of the losers are kept too
+        assertEquals(verbose.getFingerprint(), lean.getFingerprint());
+        DependencyNode loser = lean.getChildren().get(2).getChildren().get(0);
+        assertTrue(loser.toNodeString().contains("omitted for conflict"));
+        assertEquals(Boolean.FALSE, loser.getOptional());
+        assertNotNull(loser.getExclusions());
+    }
+
+    private static String serialize(DependencyNode node) {
+        StringWriter writer = new StringWriter();
+        node.accept(new SerializingDependencyNodeVisitor(writer, SerializingDependencyNodeVisitor.STANDARD_TOKENS));
+        return writer.toString();
+    }
+
+    private void assertLimitExceeded(
+            MavenProject project, CollectionLimits limits, CollectionLimitExceededException.Limit limit) {
+        DependencyCollectorBuilderException e = assertThrows(
+                DependencyCollectorBuilderException.class,
+                () -> builder.collectDependencyGraph(
+                        new DependencyCollectorRequest(fixture.request(project)).limits(limits.failOnLimit(true))));
+        assertEquals(limit, ((CollectionLimitExceededException) e.getCause()).getLimit());
+    }
+
+    /**
+     * @return the nodes of a graph in pre-order
+     */
+    static List<DependencyNode> postOrder(DependencyNode root) {
+        List<DependencyNode> nodes = new ArrayList<>();
+        root.accept(new DependencyNodeVisitor() {
+            @Override
+            public boolean visit(DependencyNode node) {
+                return true;
+            }
+
+            @Override
+            public boolean endVisit(DependencyNode node) {
+                nodes.add(node);
+                return true;
+            }
+        });
+        return nodes;
+    }
+
+    static void assertIdentical(List<DependencyNode> expected, List<DependencyNode> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i), "node " + i);
+        }
+    }
+
+    static String tree(DependencyNode node) {
+        StringBuilder buffer = new StringBuilder();
+        tree(node, "", buffer);
+        return buffer.toString();
+    }
+
+    private static void tree(DependencyNode node, String indent, StringBuilder buffer) {
+        buffer.append(indent).append(node.toNodeString()).append('\n');
+        if (node.getChildren() != null) {
+            for (DependencyNode child : node.getChildren()) {
+                tree(child, indent + "  ", buffer);
+            }
+        }
+    }
+
+    /**
+     * Takes longer than the time budget of the tests for every dependency.
+     */
+    private static final class SlowDependencySelector implements DependencySelector {
+        private final DependencySelector delegate;
+
+        SlowDependencySelector(DependencySelector delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean selectDependency(Dependency dependency) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return delegate.selectDependency(dependency);
+        }
+
+        @Override
+        public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
+            return new SlowDependencySelector(delegate.deriveChildSelector(context));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorPlan;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorRequest;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.apache.maven.shared.dependency.graph.internal.DefaultDependencyCollectorBuilderTest.tree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultDependencyCollectorPlanTest {
+    @TempDir
+    Path localRepository;
+
+    @TempDir
+    Path otherRepository;
+
+    private CollectorFixture fixture;
+
+    private DefaultDependencyCollectorBuilder builder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0", "c:1.0");
+        fixture.pom("b", "1.0", "c:2.0", "d:1.0:runtime");
+        fixture.pom("c", "1.0");
+        fixture.pom("c", "2.0", "d:1.0");
+        fixture.pom("d", "1.0");
+        builder = fixture.collectorBuilder();
+    }
+
+    @Test
+    void planShouldCollectEveryProjectAsItsOwnRequest() throws Exception {
+        MavenProject template = fixture.project("a:1.0", "b:1.0");
+        template.getDependencyManagement().setDependencies(CollectorFixture.dependencies("c:1.0", "d:1.0"));
+        MavenProject sameManagement = fixture.project("b:1.0");
+        sameManagement.getDependencyManagement().setDependencies(CollectorFixture.dependencies("c:1.0", "d:1.0"));
+        MavenProject otherManagement = fixture.project("a:1.0", "b:1.0");
+        otherManagement.getDependencyManagement().setDependencies(CollectorFixture.dependencies("c:2.0"));
+        MavenProject noManagement = fixture.project("a:1.0", "b:1.0");
+
+        DependencyCollectorPlan plan = builder.prepare(new DependencyCollectorRequest(fixture.request(template)));
+
+        for (MavenProject project : new MavenProject[] {template, sameManagement, otherManagement, noManagement}) {
+            ProjectBuildingRequest request = fixture.request(project);
+            DependencyNode planned = plan.collectDependencyGraph(request, null);
+            DependencyNode single = builder.collectDependencyGraph(new DependencyCollectorRequest(request));
+            assertEquals(tree(single), tree(planned));
+            assertEquals(single.getFingerprint(), planned.getFingerprint());
+        }
+        // the plan must not reuse the managed version of the template for another project
+        assertTrue(tree(plan.collectDependencyGraph(fixture.request(otherManagement), null))
+                .contains("test:c:jar:2.0:compile"));
+    }
+
+    @Test
+    void planShouldBeUsableByConcurrentThreads() throws Exception {
+        MavenProject project = fixture.project("a:1.0", "b:1.0");
+        DependencyCollectorPlan plan = builder.prepare(new DependencyCollectorRequest(fixture.request(project)));
+        String expected =
+                tree(builder.collectDependencyGraph(new DependencyCollectorRequest(fixture.request(project))));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<DependencyNode>> graphs = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                graphs.add(executor.submit(() -> plan.collectDependencyGraph(fixture.request(project), null)));
+            }
+            for (Future<DependencyNode> graph : graphs) {
+                assertEquals(expected, tree(graph.get()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void planShouldBePreparedAgainForAnotherSession() throws Exception {
+        MavenProject project = fixture.project("a:1.0", "b:1.0");
+        DependencyCollectorPlan plan = builder.prepare(new DependencyCollectorRequest(fixture.request(project)));
+        String before = tree(plan.collectDependencyGraph(fixture.request(project), null));
+
+        // the same coordinates with other dependencies in another local repository
+        CollectorFixture other = new CollectorFixture(otherRepository);
+        other.pom("a", "1.0", "d:1.0");
+        other.pom("b", "1.0");
+        other.pom("d", "1.0");
+        ProjectBuildingRequest otherRequest = other.request(project);
+
+        DependencyNode planned = plan.collectDependencyGraph(otherRequest, null);
+        DependencyNode single = builder.collectDependencyGraph(new DependencyCollectorRequest(otherRequest));
+        assertEquals(tree(single), tree(planned));
+        assertTrue(tree(planned).contains("test:d:jar:1.0:compile"));
+        assertFalse(tree(planned).contains("test:c:jar"));
+
+        // and once more for the first session
+        assertEquals(before, tree(plan.collectDependencyGraph(fixture.request(project), null)));
+    }
+}
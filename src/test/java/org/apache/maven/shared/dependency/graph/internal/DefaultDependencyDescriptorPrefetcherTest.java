@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultDependencyDescriptorPrefetcherTest {
+
+    @Test
+    void descriptorsShouldBeReadConcurrentlySkippingStaleHints() throws Exception {
+        CountDownLatch concurrent = new CountDownLatch(2);
+        Set<String> read = ConcurrentHashMap.newKeySet();
+        RepositorySystem repositorySystem = (RepositorySystem) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {RepositorySystem.class}, (proxy, method, args) -> {
+                    ArtifactDescriptorRequest request = (ArtifactDescriptorRequest) args[1];
+                    String artifactId = request.getArtifact().getArtifactId();
+                    read.add(artifactId);
+                    if ("stale".equals(artifactId)) {
+                        throw new ArtifactDescriptorException(new ArtifactDescriptorResult(request));
+                    }
+                    // both valid descriptors must be read at the same time to get past the latch
+                    concurrent.countDown();
+                    assertTrue(concurrent.await(10, TimeUnit.SECONDS));
+                    return new ArtifactDescriptorResult(request);
+                });
+
+        List<Artifact> hints = Arrays.asList(
+                artifact("first", VersionRange.createFromVersion("1.0")),
+                artifact("second", VersionRange.createFromVersion("1.0")),
+                artifact("second", VersionRange.createFromVersion("1.0")),
+                artifact("stale", VersionRange.createFromVersion("1.0")),
+                artifact("ranged", VersionRange.createFromVersionSpec("[1.0,2.0)")));
+
+        DefaultDependencyDescriptorPrefetcher prefetcher = new DefaultDependencyDescriptorPrefetcher(repositorySystem);
+        int prefetched = prefetcher.prefetch(new DefaultRepositorySystemSession(), Collections.emptyList(), hints, 3);
+
+        assertEquals(2, prefetched);
+        assertEquals(new HashSet<>(Arrays.asList("first", "second", "stale")), read);
+    }
+
+    private static Artifact artifact(String artifactId, VersionRange versionRange) {
+        return new DefaultArtifact(
+                "org", artifactId, versionRange, "compile", "jar", null, new DefaultArtifactHandler("jar"));
+    }
+}
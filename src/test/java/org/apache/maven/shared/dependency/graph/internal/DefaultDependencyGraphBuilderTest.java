@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.apache.maven.shared.dependency.graph.CollectionLimits;
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.apache.maven.shared.dependency.graph.DependencyDescriptorPrefetcher;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.DependencyNodeFingerprint;
+import org.apache.maven.shared.dependency.graph.DependencyNodeListener;
+import org.apache.maven.shared.dependency.graph.VerboseGraphPruner;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.util.graph.manager.DependencyManagerUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.apache.maven.shared.dependency.graph.internal.DefaultDependencyCollectorBuilderTest.assertIdentical;
+import static org.apache.maven.shared.dependency.graph.internal.DefaultDependencyCollectorBuilderTest.postOrder;
+import static org.apache.maven.shared.dependency.graph.internal.DefaultDependencyCollectorBuilderTest.tree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultDependencyGraphBuilderTest {
+    @TempDir
+    Path localRepository;
+
+    @Test
+    void everyScopeViewShouldMatchASeparateBuild() throws Exception {
+        CollectorFixture fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0", "c:1.0", "e:1.0:runtime");
+        fixture.pom("b", "1.0", "c:2.0");
+        fixture.pom("c", "1.0");
+        fixture.pom("c", "2.0", "d:1.0");
+        fixture.pom("d", "1.0");
+        fixture.pom("e", "1.0", "f:1.0:provided");
+        fixture.pom("f", "1.0");
+        fixture.pom("g", "1.0", "d:1.0");
+        ProjectBuildingRequest request =
+                fixture.request(fixture.project("a:1.0", "b:1.0:test", "g:1.0:provided", "f:1.0:runtime"));
+
+        Map<String, ArtifactFilter> filters = new LinkedHashMap<>();
+        for (String scope : new String[] {
+            Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME, Artifact.SCOPE_TEST, Artifact.SCOPE_COMPILE_PLUS_RUNTIME
+        }) {
+            filters.put(scope, new ScopeArtifactFilter(scope));
+        }
+        DefaultDependencyGraphBuilder builder = fixture.graphBuilder();
+        Map<String, DependencyNode> graphs = builder.buildDependencyGraphs(request, filters);
+
+        assertEquals(filters.keySet(), graphs.keySet());
+        for (Map.Entry<String, ArtifactFilter> filter : filters.entrySet()) {
+            DependencyNode separate = builder.buildDependencyGraph(request, new ScopeArtifactFilter(filter.getKey()));
+            DependencyNode view = graphs.get(filter.getKey());
+            assertEquals(separate.getFingerprint(), view.getFingerprint(), filter.getKey());
+            assertEquals(tree(separate), tree(view), filter.getKey());
+        }
+        // the views actually differ, so the filters are applied to each of them
+        assertNotEquals(
+                graphs.get(Artifact.SCOPE_COMPILE).getFingerprint(),
+                graphs.get(Artifact.SCOPE_TEST).getFingerprint());
+    }
+
+    @Test
+    void descriptorsShouldBePrefetchedWithTheResolutionSession() throws Exception {
+        CollectorFixture fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0", "c:1.0");
+        fixture.pom("b", "1.0", "c:2.0", "d:1.0");
+        fixture.pom("c", "1.0");
+        fixture.pom("c", "2.0", "d:1.0");
+        fixture.pom("d", "1.0");
+        ProjectBuildingRequest request = fixture.request(fixture.project("a:1.0", "b:1.0"));
+        DependencyNode previous = fixture.graphBuilder().buildDependencyGraph(request, null);
+
+        List<RepositorySystemSession> prefetchSessions = new ArrayList<>();
+        List<RepositorySystemSession> resolutionSessions = new ArrayList<>();
+        DefaultDependencyDescriptorPrefetcher prefetcher =
+                new DefaultDependencyDescriptorPrefetcher(fixture.getRepositorySystem());
+        ProjectDependenciesResolver resolver = fixture.resolver();
+        DefaultDependencyGraphBuilder builder = new DefaultDependencyGraphBuilder(
+                resolution -> {
+                    resolutionSessions.add(resolution.getRepositorySession());
+                    return resolver.resolve(resolution);
+                },
+                (buildingRequest, hints, parallelism) -> {
+                    prefetchSessions.add(buildingRequest.getRepositorySession());
+                    return prefetcher.prefetch(buildingRequest, hints, parallelism);
+                });
+
+        List<org.apache.maven.artifact.Artifact> hints = DependencyDescriptorPrefetcher.hintsOf(previous);
+        DependencyNode graph = builder.buildDependencyGraphWithPrefetch(request, null, hints);
+        assertEquals(previous.getFingerprint(), graph.getFingerprint());
+        assertEquals(1, prefetchSessions.size());
+        assertSame(resolutionSessions.get(0), prefetchSessions.get(0));
+        assertNotNull(prefetchSessions.get(0).getCache());
+
+        // without hints, nothing is prefetched
+        builder.buildDependencyGraphWithPrefetch(request, null, null);
+        assertEquals(1, prefetchSessions.size());
+    }
+
+    @Test
+    void selectorShouldOnlyBeGuardedWhenAGuardIsInEffect() throws Exception {
+        CollectorFixture fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0");
+        fixture.getSession().setConfigProperty(DependencyManagerUtils.NODE_DATA_PREMANAGED_VERSION, true);
+        ProjectBuildingRequest request = fixture.request(fixture.project("a:1.0"));
+
+        List<RepositorySystemSession> sessions = new ArrayList<>();
+        ProjectDependenciesResolver resolver = fixture.resolver();
+        DefaultDependencyGraphBuilder builder = new DefaultDependencyGraphBuilder(resolution -> {
+            sessions.add(resolution.getRepositorySession());
+            return resolver.resolve(resolution);
+        });
+
+        builder.buildDependencyGraph(request, null);
+        assertSame(fixture.getSession(), sessions.get(0));
+
+        builder.buildDependencyGraphWithLimits(request, null, new CollectionLimits().maxNodes(10));
+        assertTrue(sessions.get(1).getDependencySelector() instanceof GuardingDependencySelector);
+
+        // a cancelled future stops expanding the graph
+        builder.buildDependencyGraphAsync(request, null, Runnable::run).get();
+        assertTrue(sessions.get(2).getDependencySelector() instanceof GuardingDependencySelector);
+    }
+
+    @Test
+    void streamedNodesShouldBeEmittedCompleteAfterTheirChildren() throws Exception {
+        CollectorFixture fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0", "c:1.0");
+        fixture.pom("b", "1.0", "c:2.0", "d:1.0");
+        fixture.pom("c", "1.0");
+        fixture.pom("c", "2.0", "d:1.0");
+        fixture.pom("d", "1.0");
+        ProjectBuildingRequest request = fixture.request(fixture.project("a:1.0", "b:1.0"));
+        DefaultDependencyGraphBuilder builder = fixture.graphBuilder();
+
+        List<DependencyNode> emitted = new ArrayList<>();
+        DependencyNodeListener listener = node -> {
+            // the children were emitted before, and the fingerprint is final
+            assertTrue(emitted.containsAll(node.getChildren()));
+            assertEquals(DependencyNodeFingerprint.of(node), node.getFingerprint());
+            emitted.add(node);
+        };
+        DependencyNode graph = builder.streamDependencyGraph(request, null, listener);
+        assertIdentical(postOrder(graph), emitted);
+
+        // immutable nodes only exist once their subtree does, they are emitted in the same order
+        DependencyNode mutable = graph;
+        fixture.getSession().setConfigProperty(ConfigurationProperties.IMMUTABLE_NODES, true);
+        emitted.clear();
+        graph = builder.streamDependencyGraph(request, null, listener);
+        assertIdentical(postOrder(graph), emitted);
+        assertEquals(tree(mutable), tree(graph));
+        assertEquals(mutable.getFingerprint(), graph.getFingerprint());
+    }
+
+    @Test
+    void prunedVerboseGraphShouldBeTheResolvedGraph() throws Exception {
+        CollectorFixture fixture = new CollectorFixture(localRepository);
+        // version, scope and duplicate conflicts, transitive test, provided and optional dependencies
+        fixture.pom("a", "1.0", "c:1.0", "e:1.0:runtime", "h:1.0:compile:optional");
+        fixture.pom("b", "1.0", "c:2.0", "d:1.0", "f:1.0:test");
+        fixture.pom("c", "1.0", "d:2.0:provided");
+        fixture.pom("c", "2.0", "d:1.0");
+        fixture.pom("d", "1.0", "h:1.0");
+        fixture.pom("d", "2.0");
+        fixture.pom("e", "1.0", "f:1.0");
+        fixture.pom("f", "1.0");
+        fixture.pom("g", "1.0", "e:1.0:compile", "c:2.0:runtime");
+        fixture.pom("h", "1.0");
+
+        MavenProject[] projects = {
+            fixture.project("a:1.0", "b:1.0"),
+            fixture.project("b:1.0", "a:1.0:test", "d:2.0:runtime"),
+            fixture.project("g:1.0:provided", "a:1.0", "h:1.0:compile:optional"),
+            fixture.project("a:1.0", "g:1.0")
+        };
+        projects[3].getDependencyManagement().setDependencies(CollectorFixture.dependencies("c:2.0", "f:1.0:runtime"));
+
+        // without it, the graph builder leaves the premanaged data out
+        fixture.getSession().setConfigProperty(DependencyManagerUtils.CONFIG_PROP_VERBOSE, true);
+        DefaultDependencyCollectorBuilder collector = fixture.collectorBuilder();
+        DefaultDependencyGraphBuilder builder = fixture.graphBuilder();
+        for (MavenProject project : projects) {
+            ProjectBuildingRequest request = fixture.request(project);
+            DependencyNode resolved = builder.buildDependencyGraph(request, null);
+            DependencyNode pruned = VerboseGraphPruner.prune(collector.collectDependencyGraph(request, null));
+            assertEquals(tree(resolved), tree(pruned), project.getDependencies().toString());
+            assertEquals(
+                    resolved.getFingerprint(),
+                    pruned.getFingerprint(),
+                    project.getDependencies().toString());
+        }
+    }
+
+    @Test
+    void scopeViewsOfTheVerboseGraphShouldMatchTheBuiltGraphs() throws Exception {
+        CollectorFixture fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0", "c:1.0", "e:1.0:runtime");
+        fixture.pom("b", "1.0", "c:2.0");
+        fixture.pom("c", "1.0");
+        fixture.pom("c", "2.0", "d:1.0");
+        fixture.pom("d", "1.0");
+        fixture.pom("e", "1.0", "f:1.0:provided");
+        fixture.pom("f", "1.0");
+        fixture.pom("g", "1.0", "d:1.0");
+        ProjectBuildingRequest request =
+                fixture.request(fixture.project("a:1.0", "b:1.0:test", "g:1.0:provided", "f:1.0:runtime"));
+        List<String> scopes = Arrays.asList(
+                Artifact.SCOPE_COMPILE,
+                Artifact.SCOPE_RUNTIME,
+                Artifact.SCOPE_TEST,
+                Artifact.SCOPE_COMPILE_PLUS_RUNTIME);
+
+        Map<String, DependencyNode> built = fixture.graphBuilder().buildDependencyGraphsByScope(request, scopes);
+        Map<String, DependencyNode> views = VerboseGraphPruner.pruneByScope(
+                fixture.collectorBuilder().collectDependencyGraph(request, null), scopes);
+
+        assertEquals(built.keySet(), views.keySet());
+        for (String scope : scopes) {
+            assertEquals(tree(built.get(scope)), tree(views.get(scope)), scope);
+            assertEquals(built.get(scope).getFingerprint(), views.get(scope).getFingerprint(), scope);
+        }
+    }
+}
@@ -20,10 +20,16 @@ package org.apache.maven.shared.dependency.graph.internal;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
 import org.junit.jupiter.api.Test;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DefaultDependencyNodeTest {
 
@@ -42,4 +48,95 @@ class DefaultDependencyNodeTest {
                 new DefaultDependencyNode(null, artifact, "1.0", "compile", "1.0", false, emptyList());
         assertEquals("group:artifact:jar:1.2:compile", optionalNode.toNodeString());
     }
+
+    @Test
+    void fingerprintShouldOnlyDependOnContent() {
+        assertEquals(tree("1.0").getFingerprint(), tree("1.0").getFingerprint());
+    }
+
+    @Test
+    void fingerprintShouldChangeWhenDescendantChanges() {
+        assertNotEquals(tree("1.0").getFingerprint(), tree("1.1").getFingerprint());
+    }
+
+    @Test
+    void cachedFingerprintShouldBeInvalidatedWhenDescendantChanges() {
+        DefaultDependencyNode root = tree("1.0");
+        String before = root.getFingerprint();
+        DefaultDependencyNode child = (DefaultDependencyNode) root.getChildren().get(0);
+
+        child.setTruncated(true);
+        String truncated = root.getFingerprint();
+        assertNotEquals(before, truncated);
+
+        child.setTruncated(false);
+        assertEquals(before, root.getFingerprint());
+
+        Artifact grandChildArtifact = new DefaultArtifact("group", "grandchild", "1.0", "compile", "jar", "", null);
+        DefaultDependencyNode grandChild =
+                new DefaultDependencyNode(child, grandChildArtifact, null, null, null, false, null);
+        grandChild.setChildren(emptyList());
+        child.setChildren(singletonList(grandChild));
+        assertNotEquals(before, root.getFingerprint());
+        assertNotEquals(truncated, root.getFingerprint());
+    }
+
+    @Test
+    void fingerprintOfDeepGraphShouldNotOverflowTheStack() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, artifact, null, null, null, false, null);
+        DefaultDependencyNode parent = root;
+        for (int i = 0; i < 100_000; i++) {
+            Artifact childArtifact = new DefaultArtifact("group", "child" + i, "1.0", "compile", "jar", "", null);
+            DefaultDependencyNode child =
+                    new DefaultDependencyNode(parent, childArtifact, null, null, null, false, null);
+            parent.setChildren(singletonList(child));
+            parent = child;
+        }
+        parent.setChildren(emptyList());
+
+        assertEquals(root.getFingerprint(), root.getFingerprint());
+    }
+
+    @Test
+    void lazyArtifactShouldOnlyBeCreatedWhenAccessed() {
+        Dependency dependency = new Dependency(
+                new org.eclipse.aether.artifact.DefaultArtifact("group:child:test-jar:tests:1.0-SNAPSHOT"),
+                "test",
+                true);
+        DefaultDependencyNode eager = new DefaultDependencyNode(
+                null, DefaultDependencyNode.toArtifact(dependency), null, null, null, true, null);
+        DefaultDependencyNode lazy = new DefaultDependencyNode(null, null, dependency, null, null, null, true, null);
+        eager.setChildren(emptyList());
+        lazy.setChildren(emptyList());
+
+        assertEquals(eager.getFingerprint(), lazy.getFingerprint());
+        assertEquals("test", lazy.getScope());
+        assertEquals("tests", lazy.getClassifier());
+        assertFalse(lazy.isArtifactCreated());
+
+        assertEquals(eager.toNodeString(), lazy.toNodeString());
+        assertTrue(lazy.isArtifactCreated());
+        assertEquals(eager.getArtifact(), lazy.getArtifact());
+        assertEquals(lazy.getArtifact().getType(), lazy.getType());
+    }
+
+    @Test
+    void nodeWithoutCoordinatesShouldBeRejected() {
+        assertThrows(NullPointerException.class, () -> new DefaultDependencyNode(null));
+        assertThrows(NullPointerException.class, () -> new DefaultDependencyNode(null, null, null, null, null));
+        assertThrows(
+                NullPointerException.class, () -> new DefaultDependencyNode(null, null, null, null, null, true, null));
+        assertThrows(
+                NullPointerException.class,
+                () -> new DefaultDependencyNode(null, null, null, null, null, null, true, null));
+    }
+
+    private DefaultDependencyNode tree(String childVersion) {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, artifact, null, null, null, false, emptyList());
+        Artifact childArtifact = new DefaultArtifact("group", "child", childVersion, "compile", "jar", "", null);
+        DefaultDependencyNode child = new DefaultDependencyNode(root, childArtifact, null, null, null, false, null);
+        child.setChildren(emptyList());
+        root.setChildren(singletonList(child));
+        return root;
+    }
 }
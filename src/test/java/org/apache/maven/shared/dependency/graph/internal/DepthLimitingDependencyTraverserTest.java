@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.DependencyTraverser;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DepthLimitingDependencyTraverserTest {
+
+    private final Dependency dependency = new Dependency(new DefaultArtifact("group:artifact:1.0"), "compile");
+
+    @Test
+    void depthZeroShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DepthLimitingDependencyTraverser(null, 0));
+    }
+
+    @Test
+    void depthOneShouldOnlyTraverseTheRoot() {
+        DependencyTraverser root = new DepthLimitingDependencyTraverser(null, 1);
+        assertTrue(root.traverseDependency(dependency));
+
+        DependencyTraverser direct = root.deriveChildTraverser(null);
+        assertFalse(direct.traverseDependency(dependency));
+        assertSame(direct, direct.deriveChildTraverser(null));
+    }
+
+    @Test
+    void depthNShouldTraverseTheFirstLevels() {
+        DependencyTraverser traverser = new DepthLimitingDependencyTraverser(null, 3);
+        for (int level = 0; level < 3; level++) {
+            assertTrue(traverser.traverseDependency(dependency), "level " + level);
+            traverser = traverser.deriveChildTraverser(null);
+        }
+        assertFalse(traverser.traverseDependency(dependency));
+    }
+
+    @Test
+    void delegateShouldStillBeAppliedAboveTheLimit() {
+        DependencyTraverser never =
+                new DepthLimitingDependencyTraverser(new DepthLimitingDependencyTraverser(null, 1), 3);
+        assertTrue(never.traverseDependency(dependency));
+        assertFalse(never.deriveChildTraverser(null).traverseDependency(dependency));
+    }
+}
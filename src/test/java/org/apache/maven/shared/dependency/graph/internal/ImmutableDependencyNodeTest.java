@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.ConflictData;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImmutableDependencyNodeTest {
+
+    @Test
+    void copyShouldKeepContentAndConflictData() {
+        VerboseDependencyNode root = new VerboseDependencyNode(
+                null, artifact("root", "1.0", null), null, null, null, null, null, new ConflictData(null, null));
+        VerboseDependencyNode loser = new VerboseDependencyNode(
+                root,
+                artifact("lib", "1.0", "compile"),
+                "1.5",
+                null,
+                null,
+                false,
+                Collections.emptyList(),
+                new ConflictData("2.0", null));
+        loser.setChildren(Collections.emptyList());
+        root.setChildren(Collections.singletonList(loser));
+
+        ImmutableDependencyNode copy = ImmutableDependencyNode.copyOf(root);
+
+        assertEquals(root.getFingerprint(), copy.getFingerprint());
+        DependencyNode child = copy.getChildren().get(0);
+        assertSame(copy, child.getParent());
+        assertEquals(loser.toNodeString(), child.toNodeString());
+        assertEquals("2.0", child.getConflictData().getWinnerVersion());
+        assertSame(copy, ImmutableDependencyNode.copyOf(copy));
+        assertThrows(
+                UnsupportedOperationException.class, () -> copy.getChildren().clear());
+    }
+
+    @Test
+    void builderShouldBuildTopDown() {
+        ImmutableDependencyNode root = ImmutableDependencyNode.builder(artifact("root", "1.0", null))
+                .addChild(ImmutableDependencyNode.builder(artifact("lib", "1.0", "compile"))
+                        .optional(true)
+                        .truncated(true))
+                .build();
+
+        DefaultDependencyNode expectedRoot =
+                new DefaultDependencyNode(null, artifact("root", "1.0", null), null, null, null, null, null);
+        DefaultDependencyNode expectedLib = new DefaultDependencyNode(
+                expectedRoot, artifact("lib", "1.0", "compile"), null, null, null, true, null);
+        expectedLib.setTruncated(true);
+        expectedLib.setChildren(Collections.emptyList());
+        expectedRoot.setChildren(Collections.singletonList(expectedLib));
+
+        assertEquals(expectedRoot.getFingerprint(), root.getFingerprint());
+        assertEquals(
+                "org:lib:jar:1.0:compile (optional) (children truncated)",
+                root.getChildren().get(0).toNodeString());
+    }
+
+    @Test
+    void deepTreesShouldBeBuiltAndCopiedWithoutRecursion() {
+        int depth = 100_000;
+        DefaultDependencyNode root = new DefaultDependencyNode(null, artifact("n0", "1.0", null), null, null, null);
+        List<DefaultDependencyNode> chain = new ArrayList<>();
+        chain.add(root);
+        for (int i = 1; i < depth; i++) {
+            DefaultDependencyNode last = chain.get(i - 1);
+            DefaultDependencyNode node =
+                    new DefaultDependencyNode(last, artifact("n" + i, "1.0", "compile"), null, null, null);
+            last.setChildren(Collections.singletonList(node));
+            chain.add(node);
+        }
+        chain.get(depth - 1).setChildren(Collections.emptyList());
+
+        ImmutableDependencyNode copy = ImmutableDependencyNode.copyOf(root);
+
+        DependencyNode node = copy;
+        for (int i = 1; i < depth; i++) {
+            DependencyNode child = node.getChildren().get(0);
+            assertSame(node, child.getParent());
+            assertEquals("n" + i, child.getArtifact().getArtifactId());
+            node = child;
+        }
+        assertEquals(Collections.emptyList(), node.getChildren());
+        assertEquals(root.getFingerprint(), copy.getFingerprint());
+    }
+
+    private static DefaultArtifact artifact(String artifactId, String version, String scope) {
+        return new DefaultArtifact("org", artifactId, version, scope, "jar", "", new DefaultArtifactHandler("jar"));
+    }
+}
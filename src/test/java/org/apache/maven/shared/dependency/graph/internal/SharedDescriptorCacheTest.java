@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.shared.dependency.graph.ConfigurationProperties;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorRequest;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedDescriptorCacheTest {
+
+    @TempDir
+    Path localRepository;
+
+    private DefaultRepositorySystemSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = new DefaultRepositorySystemSession();
+        session.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory()
+                .newInstance(session, new LocalRepository(localRepository.toFile())));
+    }
+
+    @Test
+    void descriptorsShouldBeInvalidatedWhenTheirPomChanges() throws Exception {
+        Artifact artifact = new DefaultArtifact("org.example:lib:1.0");
+        File pom = pom("lib", "");
+        pom.setLastModified(1_000_000L);
+
+        SharedDescriptorCache cache = new SharedDescriptorCache(10);
+        SharedDescriptorCache.Context context = cache.contextOf(session);
+        Object descriptor = new Object();
+
+        assertNull(cache.get(context, artifact));
+        cache.put(context, session, artifact, descriptor);
+        assertEquals(descriptor, cache.get(context, artifact));
+        assertEquals(descriptor, cache.get(cache.contextOf(session), artifact));
+
+        pom.setLastModified(2_000_000L);
+        assertNull(cache.get(context, artifact));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getInvalidationCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void descriptorsShouldBeInvalidatedWhenTheirParentOrImportChanges() throws Exception {
+        File parent = pom("parent", "");
+        File bom = pom("bom", "");
+        pom(
+                "lib",
+                "<parent><groupId>org.example</groupId><artifactId>parent</artifactId><version>1.0</version></parent>"
+                        + "<dependencyManagement><dependencies><dependency><groupId>org.example</groupId>"
+                        + "<artifactId>bom</artifactId><version>${project.version}</version><type>pom</type>"
+                        + "<scope>import</scope></dependency></dependencies></dependencyManagement>");
+        Artifact artifact = new DefaultArtifact("org.example:lib:1.0");
+
+        SharedDescriptorCache cache = new SharedDescriptorCache(10);
+        SharedDescriptorCache.Context context = cache.contextOf(session);
+        cache.put(context, session, artifact, "descriptor");
+        assertEquals("descriptor", cache.get(context, artifact));
+
+        parent.setLastModified(parent.lastModified() - 10_000);
+        assertNull(cache.get(context, artifact));
+
+        cache.put(context, session, artifact, "descriptor");
+        bom.setLastModified(bom.lastModified() - 10_000);
+        assertNull(cache.get(context, artifact));
+        assertEquals(2, cache.getInvalidationCount());
+    }
+
+    @Test
+    void descriptorsWithAMissingParentShouldNotBeShared() throws Exception {
+        pom(
+                "lib",
+                "<parent><groupId>org.example</groupId><artifactId>missing</artifactId><version>1.0</version>"
+                        + "</parent>");
+        Artifact artifact = new DefaultArtifact("org.example:lib:1.0");
+
+        SharedDescriptorCache cache = new SharedDescriptorCache(10);
+        SharedDescriptorCache.Context context = cache.contextOf(session);
+        cache.put(context, session, artifact, "descriptor");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void descriptorsWithADocumentTypeShouldNotBeShared() throws Exception {
+        File secret = localRepository.resolve("secret.txt").toFile();
+        Files.write(secret.toPath(), "org.example".getBytes(StandardCharsets.UTF_8));
+        File pom = pom("lib", "");
+        Files.write(
+                pom.toPath(),
+                ("<!DOCTYPE project [<!ENTITY group SYSTEM \"" + secret.toURI() + "\">]>"
+                                + "<project><groupId>&group;</groupId><artifactId>lib</artifactId>"
+                                + "<version>1.0</version></project>")
+                        .getBytes(StandardCharsets.UTF_8));
+        Artifact artifact = new DefaultArtifact("org.example:lib:1.0");
+
+        assertNull(PomInputs.of(session, artifact));
+        SharedDescriptorCache cache = new SharedDescriptorCache(10);
+        cache.put(cache.contextOf(session), session, artifact, "descriptor");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void pomInputsShouldBeReadAgainWhenAPomChanges() throws Exception {
+        pom("parent", "");
+        pom("other-parent", "");
+        File lib = pom(
+                "lib",
+                "<parent><groupId>org.example</groupId><artifactId>parent</artifactId><version>1.0</version></parent>");
+        Artifact artifact = new DefaultArtifact("org.example:lib:1.0");
+        assertEquals(
+                "parent",
+                PomInputs.of(session, artifact)
+                        .get(1)
+                        .getParentFile()
+                        .getParentFile()
+                        .getName());
+
+        long lastModified = lib.lastModified();
+        pom(
+                "lib",
+                "<parent><groupId>org.example</groupId><artifactId>other-parent</artifactId><version>1.0</version>"
+                        + "</parent>");
+        lib.setLastModified(lastModified + 10_000);
+        assertEquals(
+                "other-parent",
+                PomInputs.of(session, artifact)
+                        .get(1)
+                        .getParentFile()
+                        .getParentFile()
+                        .getName());
+    }
+
+    @Test
+    void leastRecentlyUsedDescriptorsShouldBeEvicted() throws Exception {
+        SharedDescriptorCache cache = new SharedDescriptorCache(2);
+        SharedDescriptorCache.Context context = cache.contextOf(session);
+        Artifact[] artifacts = new Artifact[3];
+        for (int i = 0; i < artifacts.length; i++) {
+            pom("lib" + i, "");
+            artifacts[i] = new DefaultArtifact("org.example:lib" + i + ":1.0");
+        }
+
+        cache.put(context, session, artifacts[0], "0");
+        cache.put(context, session, artifacts[1], "1");
+        assertEquals("0", cache.get(context, artifacts[0]));
+        cache.put(context, session, artifacts[2], "2");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("0", cache.get(context, artifacts[0]));
+        assertNull(cache.get(context, artifacts[1]));
+        assertEquals("2", cache.get(context, artifacts[2]));
+
+        cache.setMaxEntries(0);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void failedDescriptorsShouldStayLocalToTheCollection() throws Exception {
+        pom("lib", "");
+        Artifact artifact = new DefaultArtifact("org.example:lib:1.0");
+        SharedDescriptorCache cache = new SharedDescriptorCache(10);
+        SharedRepositoryCache repositoryCache = new SharedRepositoryCache(new DefaultRepositoryCache(), cache);
+
+        Field instance = Class.forName(SharedRepositoryCache.BAD_DESCRIPTOR).getDeclaredField("INSTANCE");
+        instance.setAccessible(true);
+        Object bad = instance.get(null);
+
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> collection =
+                (Map<Object, Object>) repositoryCache.get(session, SharedRepositoryCache.DESCRIPTORS);
+        collection.put(artifact, bad);
+        assertSame(bad, collection.get(artifact));
+        assertEquals(0, cache.size());
+
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> next =
+                (Map<Object, Object>) repositoryCache.get(session, SharedRepositoryCache.DESCRIPTORS);
+        assertNull(next.get(artifact));
+    }
+
+    /**
+     * The keys are private to the collector of Maven Resolver: upgrading it requires checking them again.
+     */
+    @Test
+    void descriptorKeysShouldMatchTheResolverVersion() throws Exception {
+        Class<?> dataPool = Class.forName("org.eclipse.aether.internal.impl.collect.DataPool");
+        Properties properties = new Properties();
+        try (InputStream in = dataPool.getResourceAsStream(
+                "/META-INF/maven/org.apache.maven.resolver/maven-resolver-impl/pom.properties")) {
+            properties.load(in);
+        }
+        assertEquals("1.4.1", properties.getProperty("version"));
+
+        Field descriptors = dataPool.getDeclaredField("DESCRIPTORS");
+        descriptors.setAccessible(true);
+        assertEquals(SharedRepositoryCache.DESCRIPTORS, descriptors.get(null));
+        assertEquals(
+                dataPool, Class.forName(SharedRepositoryCache.BAD_DESCRIPTOR).getEnclosingClass());
+    }
+
+    @Test
+    void collectorShouldUseTheSharedDescriptors() throws Exception {
+        CollectorFixture fixture = new CollectorFixture(localRepository);
+        fixture.pom("a", "1.0", "b:1.0");
+        fixture.pom("b", "1.0");
+        SharedDescriptorCache cache = new SharedDescriptorCache(10);
+        SharedRepositoryCache repositoryCache = new SharedRepositoryCache(new DefaultRepositoryCache(), cache);
+        fixture.getSession().setCache(repositoryCache);
+        assertFalse(repositoryCache.isDescriptorsRequested());
+
+        DependencyCollectorRequest request = new DependencyCollectorRequest(fixture.request(fixture.project("a:1.0")));
+        request.addConfigProperty(ConfigurationProperties.SHARED_DESCRIPTOR_CACHE, true);
+        assertNotNull(fixture.collectorBuilder().collectDependencyGraph(request));
+
+        // the collector of this Maven Resolver version keeps its descriptors under the expected key
+        assertTrue(repositoryCache.isDescriptorsRequested());
+        assertEquals(2, cache.size());
+    }
+
+    private File pom(String artifactId, String content) throws Exception {
+        File pom = new File(
+                localRepository.toFile(),
+                session.getLocalRepositoryManager()
+                        .getPathForLocalArtifact(new DefaultArtifact("org.example", artifactId, "", "pom", "1.0")));
+        Files.createDirectories(pom.getParentFile().toPath());
+        Files.write(
+                pom.toPath(),
+                ("<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId><artifactId>" + artifactId
+                                + "</artifactId><version>1.0</version>" + content + "</project>")
+                        .getBytes(StandardCharsets.UTF_8));
+        return pom;
+    }
+}
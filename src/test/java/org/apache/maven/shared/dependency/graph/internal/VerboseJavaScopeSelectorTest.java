@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver.ConflictContext;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver.ConflictItem;
+import org.eclipse.aether.util.graph.transformer.JavaScopeSelector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VerboseJavaScopeSelectorTest {
+
+    @Test
+    void choosesTheSameScopeAsJavaScopeSelector() throws Exception {
+        String[][][] cases = {
+            {{"2", "test"}, {"3", "compile"}},
+            {{"2", "runtime", "provided"}, {"1", "test"}},
+            {{"3", "system"}, {"2", "provided"}},
+            {{"3", "system"}},
+            {{"2", "custom"}, {"3", "custom"}},
+            {{"2", "custom"}, {"3", "other"}, {"2", "test"}},
+            {{"2", "test"}, {"3", "provided"}},
+        };
+        for (String[][] items : cases) {
+            assertEquals(
+                    select(new JavaScopeSelector(), items).getScope(),
+                    select(items).getScope());
+        }
+    }
+
+    @Test
+    void recordsTheWidestScopeWhenReduced() throws Exception {
+        ConflictContext context = select(new String[][] {{"1", "test"}, {"2", "compile"}});
+        assertEquals("test", context.getScope());
+        assertEquals("compile", context.getWinner().getNode().getData().get(VerboseJavaScopeSelector.REDUCED_SCOPE));
+
+        context = select(new String[][] {{"2", "runtime"}, {"3", new String("runtime")}});
+        assertEquals("runtime", context.getScope());
+        assertNull(context.getWinner().getNode().getData().get(VerboseJavaScopeSelector.REDUCED_SCOPE));
+    }
+
+    private static ConflictContext select(String[][] items) throws Exception {
+        return select(new VerboseJavaScopeSelector(), items);
+    }
+
+    /**
+     * @param items the depth and scopes of each conflict item, the first one being the winner
+     */
+    private static ConflictContext select(
+            org.eclipse.aether.util.graph.transformer.ConflictResolver.ScopeSelector selector, String[][] items)
+            throws Exception {
+        DependencyNode root = new DefaultDependencyNode(new DefaultArtifact("g:root:1"));
+        List<ConflictItem> conflictItems = new ArrayList<>();
+        for (String[] item : items) {
+            DependencyNode node = new DefaultDependencyNode(new Dependency(new DefaultArtifact("g:a:1"), item[1]));
+            String[] scopes = new String[item.length - 1];
+            System.arraycopy(item, 1, scopes, 0, scopes.length);
+            conflictItems.add(new ConflictItem(root, node, Integer.parseInt(item[0]), 0, scopes));
+        }
+        ConflictContext context = new ConflictContext(root, "a", Collections.emptyMap(), conflictItems);
+        context.setWinner(conflictItems.get(0));
+        selector.selectScope(context);
+        return context;
+    }
+}
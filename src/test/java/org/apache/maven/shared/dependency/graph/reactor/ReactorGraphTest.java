@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.reactor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ReactorGraphTest {
+
+    @Test
+    void modulesShouldShareIdenticalResolutions() {
+        ReactorGraph graph = new ReactorGraph();
+        ArtifactVertex a = graph.addModule(module("a", "2.0", "compile"));
+        ArtifactVertex b = graph.addModule(module("b", "2.0", "test"));
+        ArtifactVertex c = graph.addModule(module("c", "3.0", "compile"));
+
+        // 3 modules, lib 2.0 and 3.0, and util shared by both versions of lib
+        assertEquals(6, graph.getVertexCount());
+        assertSame(a.getEdges().get(0).getTarget(), b.getEdges().get(0).getTarget());
+        assertEquals("compile", a.getEdges().get(0).getScope());
+        assertEquals("test", b.getEdges().get(0).getScope());
+        assertSame(
+                a.getEdges().get(0).getTarget().getEdges().get(0),
+                c.getEdges().get(0).getTarget().getEdges().get(0));
+
+        assertEquals(Arrays.asList("a", "b", "c"), artifactIds(graph.getModulesReaching("org", "util")));
+        assertEquals(
+                Collections.singletonList("c"),
+                artifactIds(graph.getModulesReaching(
+                        Collections.singletonList(c.getEdges().get(0).getTarget()))));
+        assertEquals(2, graph.getVertices("org", "lib").size());
+        assertEquals(Collections.emptyList(), graph.getModulesReaching("org", "missing"));
+    }
+
+    private static List<String> artifactIds(List<ArtifactVertex> vertices) {
+        return vertices.stream().map(ArtifactVertex::getArtifactId).collect(Collectors.toList());
+    }
+
+    private static DependencyNode module(String artifactId, String libVersion, String libScope) {
+        DefaultDependencyNode root =
+                new DefaultDependencyNode(null, artifact(artifactId, "1.0", null), null, null, null, false, null);
+        DefaultDependencyNode lib = new DefaultDependencyNode(
+                root, artifact("lib", libVersion, libScope), null, null, null, false, Collections.emptyList());
+        DefaultDependencyNode util = new DefaultDependencyNode(
+                lib, artifact("util", "1.0", "compile"), null, null, null, false, Collections.emptyList());
+        util.setChildren(Collections.emptyList());
+        lib.setChildren(Collections.singletonList(util));
+        root.setChildren(Collections.singletonList(lib));
+        return root;
+    }
+
+    private static DefaultArtifact artifact(String artifactId, String version, String scope) {
+        return new DefaultArtifact("org", artifactId, version, scope, "jar", "", new DefaultArtifactHandler("jar"));
+    }
+}
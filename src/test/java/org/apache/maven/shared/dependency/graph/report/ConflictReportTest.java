@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.report;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConflictReportTest {
+
+    @Test
+    void reportsOfModulesShouldMerge() {
+        ConflictReport first = ConflictReport.of(module("a", "1.0", null));
+        ConflictReport second = ConflictReport.of(module("b", "2.0", "1.0"));
+        ConflictReport third = ConflictReport.of(module("c", "2.0", null));
+
+        ConflictReport merged = ConflictReport.merge(Arrays.asList(first, second, third));
+
+        assertNull(merged.getArtifact("org", "a"));
+        assertEquals(1, merged.getDivergentArtifacts().size());
+        ArtifactConflicts lib = merged.getDivergentArtifacts().get(0);
+        assertEquals("org:lib", lib.getGroupId() + ':' + lib.getArtifactId());
+        assertEquals(1L, lib.getVersions().get("1.0"));
+        assertEquals(2L, lib.getVersions().get("2.0"));
+        assertEquals(lib.getVersions(), lib.getWinners());
+        assertEquals(1, lib.getManagedVersions());
+        assertEquals(0, lib.getOmittedForConflict());
+        assertEquals(3L, merged.getArtifact("org", "util").getVersions().get("1.0"));
+    }
+
+    private static DependencyNode module(String artifactId, String libVersion, String premanagedVersion) {
+        DefaultDependencyNode root =
+                new DefaultDependencyNode(null, artifact(artifactId, "1.0"), null, null, null, false, null);
+        DefaultDependencyNode lib = new DefaultDependencyNode(
+                root, artifact("lib", libVersion), premanagedVersion, null, null, false, Collections.emptyList());
+        DefaultDependencyNode util = new DefaultDependencyNode(
+                lib, artifact("util", "1.0"), null, null, null, false, Collections.emptyList());
+        util.setChildren(Collections.emptyList());
+        lib.setChildren(Collections.singletonList(util));
+        root.setChildren(Collections.singletonList(lib));
+        return root;
+    }
+
+    private static DefaultArtifact artifact(String artifactId, String version) {
+        return new DefaultArtifact("org", artifactId, version, "compile", "jar", "", new DefaultArtifactHandler("jar"));
+    }
+}
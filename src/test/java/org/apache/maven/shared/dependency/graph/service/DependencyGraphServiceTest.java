@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyGraphServiceTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void graphShouldBeReloadedWhenAnInputChanges() throws Exception {
+        Path pom = Files.write(temp.resolve("pom.xml"), "1.0".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(pom, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        AtomicInteger loads = new AtomicInteger();
+        DependencyGraphSource source = (key, inputs) -> {
+            loads.incrementAndGet();
+            inputs.add(pom);
+            return graph(new String(Files.readAllBytes(pom), StandardCharsets.UTF_8));
+        };
+
+        BlockingQueue<Path> changes = new LinkedBlockingQueue<>();
+        try (DependencyGraphService service = new DependencyGraphService(source, 4, changes::add)) {
+            DependencyNode first = service.getGraph("project");
+            assertSame(first, service.getGraph("project"));
+            assertEquals(1, loads.get());
+
+            Files.write(pom, "2.0".getBytes(StandardCharsets.UTF_8));
+            // the hook is called once the graph is invalidated
+            assertEquals(pom.toAbsolutePath().normalize(), changes.take());
+            assertFalse(service.isCached("project"));
+
+            assertEquals("2.0", service.getGraph("project").getArtifact().getVersion());
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Test
+    void recreatedDirectoryShouldBeWatchedAgain() throws Exception {
+        Path directory = Files.createDirectory(temp.resolve("project"));
+        Path pom = directory.resolve("pom.xml");
+        DependencyGraphSource source = (key, inputs) -> {
+            inputs.add(pom);
+            return graph(new String(Files.readAllBytes(pom), StandardCharsets.UTF_8));
+        };
+
+        BlockingQueue<Path> changes = new LinkedBlockingQueue<>();
+        try (DependencyGraphService service = new DependencyGraphService(source, 4, changes::add)) {
+            write(pom, "1.0");
+            assertEquals("1.0", service.getGraph("project").getArtifact().getVersion());
+
+            Files.delete(pom);
+            Files.delete(directory);
+            assertEquals(pom.toAbsolutePath().normalize(), changes.poll(10, TimeUnit.SECONDS));
+            // once its watch key is invalid, the directory is forgotten and registered again by the next load
+            assertEquals(directory.toAbsolutePath().normalize(), changes.poll(10, TimeUnit.SECONDS));
+            assertFalse(service.isCached("project"));
+            Files.createDirectory(directory);
+            write(pom, "2.0");
+            changes.clear();
+            assertEquals("2.0", service.getGraph("project").getArtifact().getVersion());
+
+            Files.write(pom, "3.0".getBytes(StandardCharsets.UTF_8));
+            assertEquals(pom.toAbsolutePath().normalize(), changes.poll(10, TimeUnit.SECONDS));
+            assertEquals("3.0", service.getGraph("project").getArtifact().getVersion());
+        }
+    }
+
+    @Test
+    void graphShouldNotBeKeptWhenAnInputChangesWhileLoading() throws Exception {
+        Path pom = Files.write(temp.resolve("pom.xml"), "1.0".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(pom, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        DependencyGraphSource source = (key, inputs) -> {
+            inputs.add(pom);
+            DependencyNode graph = graph(new String(Files.readAllBytes(pom), StandardCharsets.UTF_8));
+            // changed after it was read, but before the service watches it
+            Files.write(pom, "2.0".getBytes(StandardCharsets.UTF_8));
+            return graph;
+        };
+
+        try (DependencyGraphService service = new DependencyGraphService(source, 4)) {
+            assertEquals("1.0", service.getGraph("project").getArtifact().getVersion());
+            assertFalse(service.isCached("project"));
+        }
+    }
+
+    @Test
+    void graphsShouldBeLoadedOncePerKeyAndConcurrentlyAcrossKeys() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+        DependencyGraphSource source = (key, inputs) -> {
+            loads.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            if (key.equals("1.0")) {
+                release.await();
+            }
+            return graph(key);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (DependencyGraphService service = new DependencyGraphService(source, 4)) {
+            List<Future<DependencyNode>> blocked = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                blocked.add(executor.submit(() -> service.getGraph("1.0")));
+            }
+
+            // another graph does not wait for the blocked load
+            assertEquals("2.0", service.getGraph("2.0").getArtifact().getVersion());
+            release.countDown();
+
+            DependencyNode first = blocked.get(0).get();
+            for (Future<DependencyNode> graph : blocked) {
+                assertSame(first, graph.get());
+            }
+            assertEquals(1, loads.get("1.0").get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedGraphShouldBeEvicted() throws Exception {
+        try (DependencyGraphService service = new DependencyGraphService((key, inputs) -> graph(key), 2)) {
+            service.getGraph("1.0");
+            service.getGraph("2.0");
+            service.getGraph("1.0");
+            service.getGraph("3.0");
+
+            assertTrue(service.isCached("1.0"));
+            assertFalse(service.isCached("2.0"));
+            assertTrue(service.isCached("3.0"));
+        }
+    }
+
+    @Test
+    void graphShouldBeServedOnLoopback() throws Exception {
+        DependencyGraphSource source = (key, inputs) -> {
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("no project");
+            }
+            return graph(key);
+        };
+
+        try (DependencyGraphService service = new DependencyGraphService(source, 2)) {
+            int port = service.start(0);
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                out.write(service.getToken() + "\n1.0\n\n");
+                out.flush();
+
+                assertEquals("org:root:jar:1.0", in.readLine());
+                assertEquals("\\- org:child:jar:1.0:compile", in.readLine());
+                assertEquals("", in.readLine());
+                assertEquals("ERROR no project", in.readLine());
+            }
+        }
+    }
+
+    @Test
+    void clientsWithoutTheTokenShouldBeRejected() throws Exception {
+        try (DependencyGraphService service = new DependencyGraphService((key, inputs) -> graph(key), 2)) {
+            int port = service.start(0);
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                out.write("1.0\n1.0\n");
+                out.flush();
+
+                assertEquals("ERROR invalid token", in.readLine());
+                assertNull(in.readLine());
+            }
+            assertFalse(service.isCached("1.0"));
+        }
+    }
+
+    @Test
+    void inputsShouldIncludeTheParentsOfTheDependencies() throws Exception {
+        File localRepository = temp.resolve("repository").toFile();
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setLocalRepositoryManager(
+                new SimpleLocalRepositoryManagerFactory().newInstance(session, new LocalRepository(localRepository)));
+        File parent = pom(localRepository, "parent", "");
+        File bom = pom(localRepository, "bom", "");
+        File child = pom(
+                localRepository,
+                "child",
+                "<parent><groupId>org</groupId><artifactId>parent</artifactId><version>1.0</version></parent>"
+                        + "<dependencyManagement><dependencies><dependency><groupId>org</groupId>"
+                        + "<artifactId>bom</artifactId><version>1.0</version><type>pom</type><scope>import</scope>"
+                        + "</dependency></dependencies></dependencyManagement>");
+        ProjectBuildingRequest request = new DefaultProjectBuildingRequest();
+        request.setRepositorySession(session);
+
+        Set<Path> inputs = new HashSet<>();
+        DependencyGraphSource.addInputs(request, graph("1.0"), inputs);
+        assertEquals(new HashSet<>(Arrays.asList(child.toPath(), parent.toPath(), bom.toPath())), inputs);
+    }
+
+    private static File pom(File localRepository, String artifactId, String content) throws Exception {
+        File pom = new File(localRepository, "org/" + artifactId + "/1.0/" + artifactId + "-1.0.pom");
+        Files.createDirectories(pom.getParentFile().toPath());
+        Files.write(
+                pom.toPath(),
+                ("<project><modelVersion>4.0.0</modelVersion><groupId>org</groupId><artifactId>" + artifactId
+                                + "</artifactId><version>1.0</version>" + content + "</project>")
+                        .getBytes(StandardCharsets.UTF_8));
+        return pom.getAbsoluteFile();
+    }
+
+    private static DependencyNode graph(String version) {
+        DefaultDependencyNode root = new DefaultDependencyNode(artifact("root", version, null));
+        DefaultDependencyNode child =
+                new DefaultDependencyNode(root, artifact("child", version, "compile"), null, null, null);
+        child.setChildren(Collections.emptyList());
+        root.setChildren(Collections.singletonList(child));
+        return root;
+    }
+
+    private static DefaultArtifact artifact(String artifactId, String version, String scope) {
+        return new DefaultArtifact("org", artifactId, version, scope, "jar", "", new DefaultArtifactHandler("jar"));
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        // old enough not to count as modified while loading
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.CollectingDependencyNodeVisitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyGraphStoreTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void graphsShouldRoundTrip() throws Exception {
+        DependencyNode first = graph("1.0");
+        DependencyNode second = graph("2.0");
+
+        Path file = temp.resolve("graphs.dgs");
+        DependencyGraphStore.write(file, Arrays.asList(first, second));
+
+        try (DependencyGraphStore store = DependencyGraphStore.open(file)) {
+            assertEquals(2, store.size());
+            assertEquals(first.getFingerprint(), store.getGraph(0).getFingerprint());
+            assertEquals(second.getFingerprint(), store.getGraph(1).getFingerprint());
+
+            DependencyNode root = store.getGraph(1);
+            assertNull(root.getParent());
+            DependencyNode leaf = root.getChildren().get(0).getChildren().get(0);
+            assertEquals(root.getChildren().get(0), leaf.getParent());
+            assertEquals("org:leaf:jar:2.0:runtime (optional) (children truncated)", leaf.toNodeString());
+            assertTrue(leaf.isTruncated());
+
+            CollectingDependencyNodeVisitor visitor = new CollectingDependencyNodeVisitor();
+            root.accept(visitor);
+            assertEquals(4, visitor.getNodes().size());
+        }
+    }
+
+    @Test
+    void sharedNodesShouldKeepTheParentOfEachOccurrence() throws Exception {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, artifact("root", "1.0", null), null, null, null);
+        DefaultDependencyNode first =
+                new DefaultDependencyNode(root, artifact("first", "1.0", "compile"), null, null, null);
+        DefaultDependencyNode second =
+                new DefaultDependencyNode(root, artifact("second", "1.0", "compile"), null, null, null);
+        DefaultDependencyNode shared =
+                new DefaultDependencyNode(first, artifact("shared", "1.0", "compile"), null, null, null);
+        shared.setChildren(Collections.emptyList());
+        first.setChildren(Collections.singletonList(shared));
+        second.setChildren(Collections.singletonList(shared));
+        root.setChildren(Arrays.asList(first, second));
+
+        Path file = temp.resolve("shared.dgs");
+        DependencyGraphStore.write(file, Collections.singletonList(root));
+
+        try (DependencyGraphStore store = DependencyGraphStore.open(file)) {
+            DependencyNode mapped = store.getGraph(0);
+            for (DependencyNode parent : mapped.getChildren()) {
+                assertEquals(parent, parent.getChildren().get(0).getParent());
+            }
+            assertEquals(root.getFingerprint(), mapped.getFingerprint());
+        }
+    }
+
+    @Test
+    void coordinatesShouldMatchTheArtifactAndHandlersBeShared() throws Exception {
+        Path file = temp.resolve("graphs.dgs");
+        DependencyGraphStore.write(file, Collections.singletonList(graph("1.0")));
+
+        try (DependencyGraphStore store = DependencyGraphStore.open(file)) {
+            DependencyNode middle = store.getGraph(0).getChildren().get(0);
+            DependencyNode other = store.getGraph(0).getChildren().get(1);
+            Artifact artifact = middle.getArtifact();
+            assertEquals(artifact.getGroupId(), middle.getGroupId());
+            assertEquals(artifact.getArtifactId(), middle.getArtifactId());
+            assertEquals(artifact.getVersion(), middle.getVersion());
+            assertEquals(artifact.getType(), middle.getType());
+            assertEquals(artifact.getClassifier(), middle.getClassifier());
+            assertEquals(artifact.getScope(), middle.getScope());
+            assertSame(
+                    middle.getArtifact().getArtifactHandler(),
+                    other.getArtifact().getArtifactHandler());
+        }
+    }
+
+    @Test
+    void corruptStoresShouldBeRejected() throws Exception {
+        Path file = temp.resolve("graphs.dgs");
+        DependencyGraphStore.write(file, Collections.singletonList(graph("1.0")));
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = temp.resolve("truncated.dgs");
+        Files.write(truncated, Arrays.copyOf(bytes, 64));
+        assertThrows(IOException.class, () -> DependencyGraphStore.open(truncated));
+
+        // point the group id of the root record past the string pool
+        Path corrupt = temp.resolve("corrupt.dgs");
+        ByteBuffer.wrap(bytes).putInt(6 * Integer.BYTES + DependencyGraphStore.GROUP_ID * Integer.BYTES, 9999);
+        Files.write(corrupt, bytes);
+        try (DependencyGraphStore store = DependencyGraphStore.open(corrupt)) {
+            DependencyNode root = store.getGraph(0);
+            assertThrows(IllegalStateException.class, root::getArtifact);
+        }
+    }
+
+    @Test
+    void closedStoreShouldNotBeRead() throws Exception {
+        Path file = temp.resolve("graphs.dgs");
+        DependencyGraphStore.write(file, Collections.singletonList(graph("1.0")));
+
+        DependencyGraphStore store = DependencyGraphStore.open(file);
+        DependencyNode root = store.getGraph(0);
+        store.close();
+        store.close();
+        assertThrows(IllegalStateException.class, root::getChildren);
+        // the mapping is released, so the file can be replaced
+        DependencyGraphStore.write(file, Collections.singletonList(graph("2.0")));
+    }
+
+    private static DependencyNode graph(String version) {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, artifact("root", version, null), null, null, null);
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("org");
+        exclusion.setArtifactId("excluded");
+        DefaultDependencyNode middle = new DefaultDependencyNode(
+                root,
+                artifact("middle", version, "compile"),
+                "0.9",
+                null,
+                "[1.0,)",
+                false,
+                Collections.singletonList(exclusion));
+        DefaultDependencyNode leaf = new DefaultDependencyNode(
+                middle, artifact("leaf", version, "runtime"), null, "compile", null, true, null);
+        leaf.setTruncated(true);
+        DefaultDependencyNode other =
+                new DefaultDependencyNode(root, artifact("other", version, "test"), null, null, null);
+        leaf.setChildren(Collections.emptyList());
+        middle.setChildren(Collections.singletonList(leaf));
+        other.setChildren(Collections.emptyList());
+        root.setChildren(Arrays.asList(middle, other));
+        return root;
+    }
+
+    private static Artifact artifact(String artifactId, String version, String scope) {
+        return new DefaultArtifact("org", artifactId, version, scope, "jar", "", null);
+    }
+}
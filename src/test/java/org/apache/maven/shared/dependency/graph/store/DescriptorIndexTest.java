@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.dependency.graph.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.ArtifactType;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.artifact.DefaultArtifactType;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.eclipse.aether.util.artifact.DefaultArtifactTypeRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DescriptorIndexTest {
+    private static final ArtifactType TEST_JAR = new DefaultArtifactType("test-jar", "jar", "tests", "java");
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void descriptorsShouldBeServedUntilAnInputChanges() throws Exception {
+        File localRepository = temp.resolve("repository").toFile();
+        DefaultRepositorySystemSession session = session(localRepository);
+
+        File parent = pom(
+                localRepository,
+                "parent",
+                "<groupId>org</groupId><artifactId>parent</artifactId>"
+                        + "<version>1.0</version><packaging>pom</packaging>");
+        pom(
+                localRepository,
+                "lib",
+                "<parent><groupId>org</groupId><artifactId>parent</artifactId>"
+                        + "<version>1.0</version></parent><artifactId>lib</artifactId>");
+
+        AtomicInteger reads = new AtomicInteger();
+        ArtifactDescriptorReader reader = (s, request) -> {
+            reads.incrementAndGet();
+            return descriptor(request);
+        };
+
+        Path file = temp.resolve("descriptors.ddi");
+        assertEquals(2, DescriptorIndex.build(file, session, reader, Collections.emptyList()));
+        assertEquals(2, reads.get());
+
+        try (DescriptorIndex index = DescriptorIndex.open(file)) {
+            IndexedArtifactDescriptorReader indexed = new IndexedArtifactDescriptorReader(reader, index);
+            ArtifactDescriptorRequest request =
+                    new ArtifactDescriptorRequest(new DefaultArtifact("org:lib:1.0"), null, null);
+
+            ArtifactDescriptorResult expected = descriptor(request);
+            ArtifactDescriptorResult result = indexed.readArtifactDescriptor(session, request);
+            assertEquals(expected.getDependencies(), result.getDependencies());
+            assertEquals(expected.getManagedDependencies(), result.getManagedDependencies());
+            assertEquals(expected.getRepositories(), result.getRepositories());
+            assertEquals(expected.getProperties(), result.getProperties());
+            assertEquals(2, reads.get());
+
+            parent.setLastModified(parent.lastModified() - 10_000);
+            indexed.readArtifactDescriptor(session, request);
+            assertEquals(3, reads.get());
+            assertEquals(1, indexed.getHitCount());
+            assertEquals(1, indexed.getMissCount());
+        }
+    }
+
+    @Test
+    void descriptorsShouldOnlyBeServedToTheSameActivationContext() throws Exception {
+        File localRepository = temp.resolve("repository").toFile();
+        DefaultRepositorySystemSession session = session(localRepository);
+        session.setSystemProperty("java.version", "1.8.0");
+        session.setUserProperty("env", "ci");
+        pom(
+                localRepository,
+                "lib",
+                "<groupId>org</groupId><artifactId>lib</artifactId><version>1.0</version><profiles><profile>"
+                        + "<activation><property><name>!env</name></property></activation></profile></profiles>");
+
+        Path file = temp.resolve("descriptors.ddi");
+        assertEquals(
+                1, DescriptorIndex.build(file, session, (s, request) -> descriptor(request), Collections.emptyList()));
+
+        try (DescriptorIndex index = DescriptorIndex.open(file)) {
+            DefaultArtifact lib = new DefaultArtifact("org:lib:1.0");
+            RemoteRepository central =
+                    new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2").build();
+            RemoteRepository other = new RemoteRepository.Builder("other", "default", "https://example.org").build();
+
+            assertNotNull(index.find(session, new ArtifactDescriptorRequest(lib, null, null)));
+            // repositories declared by the indexed descriptors are known
+            assertNotNull(
+                    index.find(session, new ArtifactDescriptorRequest(lib, Collections.singletonList(central), null)));
+            assertNull(index.find(session, new ArtifactDescriptorRequest(lib, Collections.singletonList(other), null)));
+
+            DefaultRepositorySystemSession otherJdk = new DefaultRepositorySystemSession(session);
+            otherJdk.setSystemProperty("java.version", "17.0.1");
+            assertNull(index.find(otherJdk, new ArtifactDescriptorRequest(lib, null, null)));
+
+            DefaultRepositorySystemSession otherProperty = new DefaultRepositorySystemSession(session);
+            otherProperty.setUserProperty("env", null);
+            assertNull(index.find(otherProperty, new ArtifactDescriptorRequest(lib, null, null)));
+
+            DefaultRepositorySystemSession sameValues = new DefaultRepositorySystemSession(session);
+            sameValues.setSystemProperty("unrelated", "value");
+            assertNotNull(index.find(sameValues, new ArtifactDescriptorRequest(lib, null, null)));
+        }
+    }
+
+    @Test
+    void corruptIndexesShouldBeRejected() throws Exception {
+        File localRepository = temp.resolve("repository").toFile();
+        DefaultRepositorySystemSession session = session(localRepository);
+        pom(localRepository, "lib", "<groupId>org</groupId><artifactId>lib</artifactId><version>1.0</version>");
+
+        Path file = temp.resolve("descriptors.ddi");
+        DescriptorIndex.build(file, session, (s, request) -> descriptor(request), Collections.emptyList());
+        byte[] content = Files.readAllBytes(file);
+
+        Path truncated = temp.resolve("truncated.ddi");
+        Files.write(truncated, Arrays.copyOf(content, content.length / 2));
+        assertThrows(IOException.class, () -> DescriptorIndex.open(truncated));
+
+        // an entry count reaching past the end of the file
+        Path oversized = temp.resolve("oversized.ddi");
+        byte[] corrupt = content.clone();
+        ByteBuffer.wrap(corrupt).putInt(Integer.BYTES, Integer.MAX_VALUE);
+        Files.write(oversized, corrupt);
+        assertThrows(IOException.class, () -> DescriptorIndex.open(oversized));
+
+        Path negative = temp.resolve("negative.ddi");
+        corrupt = content.clone();
+        ByteBuffer.wrap(corrupt).putInt(3 * Integer.BYTES, -1);
+        Files.write(negative, corrupt);
+        assertThrows(IOException.class, () -> DescriptorIndex.open(negative));
+    }
+
+    @Test
+    void closedIndexShouldNotBeRead() throws Exception {
+        File localRepository = temp.resolve("repository").toFile();
+        DefaultRepositorySystemSession session = session(localRepository);
+        pom(localRepository, "lib", "<groupId>org</groupId><artifactId>lib</artifactId><version>1.0</version>");
+
+        Path file = temp.resolve("descriptors.ddi");
+        DescriptorIndex.build(file, session, (s, request) -> descriptor(request), Collections.emptyList());
+
+        DescriptorIndex index = DescriptorIndex.open(file);
+        ArtifactDescriptorRequest request =
+                new ArtifactDescriptorRequest(new DefaultArtifact("org:lib:1.0"), null, null);
+        assertNotNull(index.find(session, request));
+        index.close();
+        index.close();
+        assertThrows(IllegalStateException.class, () -> index.find(session, request));
+        // the mapping is released, so the file can be replaced
+        DescriptorIndex.build(file, session, (s, r) -> descriptor(r), Collections.emptyList());
+    }
+
+    private static DefaultRepositorySystemSession session(File localRepository) throws Exception {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setLocalRepositoryManager(
+                new SimpleLocalRepositoryManagerFactory().newInstance(session, new LocalRepository(localRepository)));
+        session.setArtifactTypeRegistry(new DefaultArtifactTypeRegistry().add(TEST_JAR));
+        return session;
+    }
+
+    private static ArtifactDescriptorResult descriptor(ArtifactDescriptorRequest request) {
+        ArtifactDescriptorResult result = new ArtifactDescriptorResult(request);
+        result.addDependency(new Dependency(
+                new DefaultArtifact("org", "tested", null, null, "2.0", null, TEST_JAR),
+                "test",
+                true,
+                Collections.singletonList(new Exclusion("org", "excluded", "*", "*"))));
+        result.addManagedDependency(new Dependency(
+                new DefaultArtifact("org", "managed", null, null, "3.0", null, new DefaultArtifactType("jar")),
+                "compile"));
+        result.addRepository(
+                new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2").build());
+        // the properties Maven's reader sets
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("packaging", "jar");
+        properties.put("license.count", 1);
+        properties.put("license.0.name", null);
+        properties.put("license.0.url", "https://www.apache.org/licenses/LICENSE-2.0.txt");
+        result.setProperties(properties);
+        return result;
+    }
+
+    private static File pom(File localRepository, String artifactId, String content) throws Exception {
+        File pom = new File(localRepository, "org/" + artifactId + "/1.0/" + artifactId + "-1.0.pom");
+        Files.createDirectories(pom.getParentFile().toPath());
+        Files.write(
+                pom.toPath(),
+                ("<project><modelVersion>4.0.0</modelVersion>" + content + "</project>")
+                        .getBytes(StandardCharsets.UTF_8));
+        return pom;
+    }
+}